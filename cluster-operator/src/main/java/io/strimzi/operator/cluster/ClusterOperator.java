@@ -16,6 +16,7 @@ import io.strimzi.operator.cluster.operator.assembly.AbstractAssemblyOperator;
 import io.strimzi.operator.cluster.operator.assembly.KafkaAssemblyOperator;
 import io.strimzi.operator.cluster.operator.assembly.KafkaConnectAssemblyOperator;
 import io.strimzi.operator.cluster.operator.assembly.KafkaConnectS2IAssemblyOperator;
+import io.strimzi.operator.common.Metrics;
 
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.AsyncResult;
@@ -26,6 +27,8 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.concurrent.TimeUnit;
 
+import static java.util.Arrays.asList;
+
 /**
  * An "operator" for managing assemblies of various types <em>in a particular namespace</em>.
  * The Cluster Operator's multiple namespace support is achieved by deploying multiple
@@ -51,13 +54,15 @@ public class ClusterOperator extends AbstractVerticle {
     private final KafkaAssemblyOperator kafkaAssemblyOperator;
     private final KafkaConnectAssemblyOperator kafkaConnectAssemblyOperator;
     private final KafkaConnectS2IAssemblyOperator kafkaConnectS2IAssemblyOperator;
+    private final Metrics metrics;
 
     public ClusterOperator(String namespace,
                            long reconciliationInterval,
                            KubernetesClient client,
                            KafkaAssemblyOperator kafkaAssemblyOperator,
                            KafkaConnectAssemblyOperator kafkaConnectAssemblyOperator,
-                           KafkaConnectS2IAssemblyOperator kafkaConnectS2IAssemblyOperator) {
+                           KafkaConnectS2IAssemblyOperator kafkaConnectS2IAssemblyOperator,
+                           Metrics metrics) {
         log.info("Creating ClusterOperator for namespace {}", namespace);
         this.namespace = namespace;
         this.selector = Labels.forKind("cluster");
@@ -66,6 +71,12 @@ public class ClusterOperator extends AbstractVerticle {
         this.kafkaAssemblyOperator = kafkaAssemblyOperator;
         this.kafkaConnectAssemblyOperator = kafkaConnectAssemblyOperator;
         this.kafkaConnectS2IAssemblyOperator = kafkaConnectS2IAssemblyOperator;
+        this.metrics = metrics;
+        for (AbstractAssemblyOperator operator : asList(kafkaAssemblyOperator, kafkaConnectAssemblyOperator, kafkaConnectS2IAssemblyOperator)) {
+            if (operator != null) {
+                operator.registerMetrics(metrics);
+            }
+        }
     }
 
     @Override
@@ -82,7 +93,8 @@ public class ClusterOperator extends AbstractVerticle {
                 log.info("Setting up periodical reconciliation for namespace {}", namespace);
                 this.reconcileTimer = vertx.setPeriodic(this.reconciliationInterval, res2 -> {
                     log.info("Triggering periodic reconciliation for namespace {}...", namespace);
-                    reconcileAll("timer");
+                    // Spread the reconciliations of the assemblies over the first half of the interval
+                    reconcileAll("timer", reconciliationInterval / 2);
                 });
 
                 log.info("ClusterOperator running for namespace {}", namespace);
@@ -167,11 +179,11 @@ public class ClusterOperator extends AbstractVerticle {
                                 break;
                             case ERROR:
                                 log.error("Failed ConfigMap {} in namespace{} ", name, namespace);
-                                reconcileAll("watch error");
+                                reconcileAll("watch error", 0);
                                 break;
                             default:
                                 log.error("Unknown action: {} in namespace {}", name, namespace);
-                                reconcileAll("watch unknown");
+                                reconcileAll("watch unknown", 0);
                         }
                     }
 
@@ -212,19 +224,20 @@ public class ClusterOperator extends AbstractVerticle {
     }
 
     /**
-      Periodical reconciliation (in case we lost some event)
+      Periodical reconciliation (in case we lost some event),
+      with each assembly's reconciliation delayed by a random time of up to {@code maxDelayMs}
      */
-    private void reconcileAll(String trigger) {
-        kafkaAssemblyOperator.reconcileAll(trigger, namespace, selector);
-        kafkaConnectAssemblyOperator.reconcileAll(trigger, namespace, selector);
+    private void reconcileAll(String trigger, long maxDelayMs) {
+        kafkaAssemblyOperator.reconcileAll(trigger, namespace, selector, maxDelayMs);
+        kafkaConnectAssemblyOperator.reconcileAll(trigger, namespace, selector, maxDelayMs);
 
         if (kafkaConnectS2IAssemblyOperator != null) {
-            kafkaConnectS2IAssemblyOperator.reconcileAll(trigger, namespace, selector);
+            kafkaConnectS2IAssemblyOperator.reconcileAll(trigger, namespace, selector, maxDelayMs);
         }
     }
 
     /**
-     * Start an HTTP health server
+     * Start an HTTP server for health checks and for Prometheus to scrape metrics from
      */
     private void startHealthServer() {
 
@@ -235,6 +248,10 @@ public class ClusterOperator extends AbstractVerticle {
                         request.response().setStatusCode(200).end();
                     } else if (request.path().equals("/ready")) {
                         request.response().setStatusCode(200).end();
+                    } else if (request.path().equals("/metrics")) {
+                        request.response().setStatusCode(200)
+                                .putHeader("Content-Type", "text/plain; version=0.0.4")
+                                .end(metrics.scrape());
                     }
                 })
                 .listen(HEALTH_SERVER_PORT);
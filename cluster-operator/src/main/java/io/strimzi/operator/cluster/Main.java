@@ -4,6 +4,10 @@
  */
 package io.strimzi.operator.cluster;
 
+import io.fabric8.kubernetes.api.model.Endpoints;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.openshift.client.OpenShiftClient;
@@ -19,7 +23,9 @@ import io.strimzi.operator.cluster.operator.resource.DeploymentConfigOperator;
 import io.strimzi.operator.cluster.operator.resource.DeploymentOperator;
 import io.strimzi.operator.cluster.operator.resource.ImageStreamOperator;
 import io.strimzi.operator.cluster.operator.resource.PvcOperator;
+import io.strimzi.operator.cluster.operator.resource.ResourceCache;
 import io.strimzi.operator.cluster.operator.resource.ServiceOperator;
+import io.strimzi.operator.common.Metrics;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
@@ -31,6 +37,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,9 +67,21 @@ public class Main {
 
     static CompositeFuture run(Vertx vertx, KubernetesClient client, boolean isOpenShift, ClusterOperatorConfig config) {
         printEnvInfo();
-        ServiceOperator serviceOperations = new ServiceOperator(vertx, client);
-        ZookeeperSetOperator zookeeperSetOperations = new ZookeeperSetOperator(vertx, client, config.getOperationTimeoutMs());
-        KafkaSetOperator kafkaSetOperations = new KafkaSetOperator(vertx, client, config.getOperationTimeoutMs());
+        // Caches shared by all the operators (and all the namespaces) for the resources which are read most often
+        ResourceCache<StatefulSet> statefulSetCache = ResourceCache.statefulSets(vertx, client);
+        ResourceCache<Pod> podCache = ResourceCache.pods(vertx, client);
+        ResourceCache<Service> serviceCache = ResourceCache.services(vertx, client);
+        ResourceCache<Endpoints> endpointsCache = ResourceCache.endpoints(vertx, client);
+        List<ResourceCache<?>> caches = Arrays.asList(statefulSetCache, podCache, serviceCache, endpointsCache);
+        // A registry shared by the operators for all the namespaces, like the caches and the assembly operators
+        Metrics metrics = new Metrics("strimzi_cluster_operator_");
+        for (ResourceCache<?> cache : caches) {
+            cache.registerMetrics(metrics);
+        }
+
+        ServiceOperator serviceOperations = new ServiceOperator(vertx, client, serviceCache, endpointsCache);
+        ZookeeperSetOperator zookeeperSetOperations = new ZookeeperSetOperator(vertx, client, config.getOperationTimeoutMs(), statefulSetCache, podCache);
+        KafkaSetOperator kafkaSetOperations = new KafkaSetOperator(vertx, client, config.getOperationTimeoutMs(), statefulSetCache, podCache);
         ConfigMapOperator configMapOperations = new ConfigMapOperator(vertx, client);
         PvcOperator pvcOperations = new PvcOperator(vertx, client);
         DeploymentOperator deploymentOperations = new DeploymentOperator(vertx, client);
@@ -85,6 +104,10 @@ public class Main {
 
         List<Future> futures = new ArrayList<>();
         for (String namespace : config.getNamespaces()) {
+            // Until a cache has synced for the namespace, reads go to the API server
+            for (ResourceCache<?> cache : caches) {
+                cache.start(namespace);
+            }
             Future<String> fut = Future.future();
             futures.add(fut);
             ClusterOperator operator = new ClusterOperator(namespace,
@@ -92,7 +115,8 @@ public class Main {
                     client,
                     kafkaClusterOperations,
                     kafkaConnectClusterOperations,
-                    kafkaConnectS2IClusterOperations);
+                    kafkaConnectS2IClusterOperations,
+                    metrics);
             vertx.deployVerticle(operator,
                 res -> {
                     if (res.succeeded()) {
@@ -14,11 +14,13 @@ import org.apache.logging.log4j.Logger;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -165,6 +167,19 @@ public abstract class AbstractConfiguration {
         return configuration;
     }
 
+    /**
+     * Get the configuration options as a map.
+     *
+     * @return  Unmodifiable map of the configuration options, sorted by key.
+     */
+    public Map<String, String> asMap() {
+        Map<String, String> map = new TreeMap<>();
+        for (String key : options.stringPropertyNames()) {
+            map.put(key, options.getProperty(key));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
     /**
      * Strip comments from configuration string. Comments are lines starting with #. The default comment with timestamp
      * which is always added by Proeprties class is otherwise triggering rolling update when used in EnvVar.
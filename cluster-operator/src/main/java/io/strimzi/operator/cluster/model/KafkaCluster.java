@@ -46,6 +46,12 @@ public class KafkaCluster extends AbstractModel {
     protected static final int REPLICATION_PORT = 9091;
     protected static final String REPLICATION_PORT_NAME = "replication";
 
+    // Served by the Kafka agent in the broker
+    protected static final int HEALTHCHECK_PORT = 8080;
+    protected static final String HEALTHCHECK_PORT_NAME = "healthcheck";
+    protected static final String HEALTHY_PATH = "/healthy";
+    protected static final String READY_PATH = "/ready";
+
     private static final String NAME_SUFFIX = "-kafka";
     private static final String HEADLESS_NAME_SUFFIX = NAME_SUFFIX + "-headless";
     private static final String METRICS_CONFIG_SUFFIX = NAME_SUFFIX + "-metrics-config";
@@ -53,6 +59,7 @@ public class KafkaCluster extends AbstractModel {
     // Kafka configuration
     private String zookeeperConnect = DEFAULT_KAFKA_ZOOKEEPER_CONNECT;
     private RackConfig rackConfig;
+    private RollingUpdateConfig rollingUpdateConfig;
     private String initImage;
 
     // Configuration defaults
@@ -81,6 +88,7 @@ public class KafkaCluster extends AbstractModel {
     public static final String KEY_JVM_OPTIONS = "kafka-jvmOptions";
     public static final String KEY_RESOURCES = "kafka-resources";
     public static final String KEY_RACK = "kafka-rack";
+    public static final String KEY_ROLLING_UPDATE = "kafka-rolling-update";
     public static final String KEY_INIT_IMAGE = "init-kafka-image";
     public static final String KEY_AFFINITY = "kafka-affinity";
 
@@ -103,7 +111,6 @@ public class KafkaCluster extends AbstractModel {
         this.metricsConfigName = metricConfigsName(cluster);
         this.image = DEFAULT_IMAGE;
         this.replicas = DEFAULT_REPLICAS;
-        this.healthCheckPath = "/opt/kafka/kafka_healthcheck.sh";
         this.healthCheckTimeout = DEFAULT_HEALTHCHECK_TIMEOUT;
         this.healthCheckInitialDelay = DEFAULT_HEALTHCHECK_DELAY;
         this.isMetricsEnabled = DEFAULT_KAFKA_METRICS_ENABLED;
@@ -131,6 +138,39 @@ public class KafkaCluster extends AbstractModel {
         return kafkaClusterName(cluster) + "-" + pod;
     }
 
+    /**
+     * @param namespace Kubernetes/OpenShift namespace of the cluster
+     * @param cluster   overall cluster name
+     * @return The bootstrap servers for clients within Kubernetes/OpenShift to connect to the Kafka cluster.
+     */
+    public static String bootstrapServers(String namespace, String cluster) {
+        return kafkaClusterName(cluster) + "." + namespace + ".svc:" + CLIENT_PORT;
+    }
+
+    /**
+     * @param ss The Kafka StatefulSet.
+     * @return The environment variable holding the Kafka configuration of the brokers, or null if there isn't one.
+     */
+    public static EnvVar configurationEnvVar(StatefulSet ss) {
+        EnvVar result = null;
+        for (EnvVar var : ss.getSpec().getTemplate().getSpec().getContainers().get(0).getEnv()) {
+            // On duplicates, last in wins
+            if (ENV_VAR_KAFKA_CONFIGURATION.equals(var.getName())) {
+                result = var;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param ss The Kafka StatefulSet.
+     * @return The Kafka configuration of the brokers, or null if there isn't one.
+     */
+    public static KafkaConfiguration configuration(StatefulSet ss) {
+        EnvVar var = configurationEnvVar(ss);
+        return var != null && var.getValue() != null ? new KafkaConfiguration(var.getValue()) : null;
+    }
+
     /**
      * Create a Kafka cluster from the related ConfigMap resource
      *
@@ -167,6 +207,13 @@ public class KafkaCluster extends AbstractModel {
         if (rackConfig != null) {
             kafka.setRackConfig(rackConfig);
         }
+        RollingUpdateConfig rollingUpdateConfig = RollingUpdateConfig.fromJson(data.get(KEY_ROLLING_UPDATE));
+        if (rollingUpdateConfig != null) {
+            if (rollingUpdateConfig.isRackAware() && rackConfig == null) {
+                throw new IllegalArgumentException("In rolling update configuration 'rackAware' requires '" + KEY_RACK + "' to be configured");
+            }
+            kafka.setRollingUpdateConfig(rollingUpdateConfig);
+        }
         kafka.setInitImage(Utils.getNonEmptyString(data, KEY_INIT_IMAGE, DEFAULT_INIT_IMAGE));
         kafka.setUserAffinity(Utils.getAffinity(data.get(KEY_AFFINITY)));
 
@@ -213,9 +260,9 @@ public class KafkaCluster extends AbstractModel {
             kafka.setStorage(storage);
         }
 
-        String kafkaConfiguration = containerEnvVars(container).get(ENV_VAR_KAFKA_CONFIGURATION);
+        KafkaConfiguration kafkaConfiguration = configuration(ss);
         if (kafkaConfiguration != null) {
-            kafka.setConfiguration(new KafkaConfiguration(kafkaConfiguration));
+            kafka.setConfiguration(kafkaConfiguration);
         }
 
         Affinity affinity = ss.getSpec().getTemplate().getSpec().getAffinity();
@@ -296,8 +343,8 @@ public class KafkaCluster extends AbstractModel {
                 getVolumes(),
                 getVolumeClaims(),
                 getVolumeMounts(),
-                createExecProbe(healthCheckPath, healthCheckInitialDelay, healthCheckTimeout),
-                createExecProbe(healthCheckPath, healthCheckInitialDelay, healthCheckTimeout),
+                createHttpProbe(HEALTHY_PATH, HEALTHCHECK_PORT_NAME, healthCheckInitialDelay, healthCheckTimeout),
+                createHttpProbe(READY_PATH, HEALTHCHECK_PORT_NAME, healthCheckInitialDelay, healthCheckTimeout),
                 resources(),
                 getMergedAffinity(),
                 getInitContainers(),
@@ -320,9 +367,10 @@ public class KafkaCluster extends AbstractModel {
     }
 
     private List<ContainerPort> getContainerPortList() {
-        List<ContainerPort> portList = new ArrayList<>(3);
+        List<ContainerPort> portList = new ArrayList<>(4);
         portList.add(createContainerPort(CLIENT_PORT_NAME, CLIENT_PORT, "TCP"));
         portList.add(createContainerPort(REPLICATION_PORT_NAME, REPLICATION_PORT, "TCP"));
+        portList.add(createContainerPort(HEALTHCHECK_PORT_NAME, HEALTHCHECK_PORT, "TCP"));
         if (isMetricsEnabled) {
             portList.add(createContainerPort(metricsPortName, metricsPort, "TCP"));
         }
@@ -453,6 +501,24 @@ public class KafkaCluster extends AbstractModel {
         this.rackConfig = rackConfig;
     }
 
+    /**
+     * @return The rack configuration, or null if the brokers aren't rack aware.
+     */
+    public RackConfig getRackConfig() {
+        return rackConfig;
+    }
+
+    protected void setRollingUpdateConfig(RollingUpdateConfig rollingUpdateConfig) {
+        this.rollingUpdateConfig = rollingUpdateConfig;
+    }
+
+    /**
+     * @return How the brokers are restarted during a rolling update, or null to restart them one at a time.
+     */
+    public RollingUpdateConfig getRollingUpdateConfig() {
+        return rollingUpdateConfig;
+    }
+
     protected void setInitImage(String initImage) {
         this.initImage = initImage;
     }
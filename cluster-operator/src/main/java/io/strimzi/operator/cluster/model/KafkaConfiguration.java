@@ -7,7 +7,11 @@ package io.strimzi.operator.cluster.model;
 
 import io.vertx.core.json.JsonObject;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import static java.util.Arrays.asList;
 
@@ -38,6 +42,47 @@ public class KafkaConfiguration extends AbstractConfiguration {
                 "super.user");
     }
 
+    /**
+     * The options which the brokers can update without being restarted, as cluster-wide defaults.
+     * Synonyms such as {@code log.retention.hours} are not dynamic, only the options listed here.
+     */
+    private static final Set<String> DYNAMIC_OPTIONS = new HashSet<>(asList(
+            // Log cleaner
+            "log.cleaner.threads",
+            "log.cleaner.dedupe.buffer.size",
+            "log.cleaner.io.buffer.load.factor",
+            "log.cleaner.io.buffer.size",
+            "log.cleaner.io.max.bytes.per.second",
+            "log.cleaner.backoff.ms",
+            // Thread pools
+            "num.io.threads",
+            "num.network.threads",
+            "num.replica.fetchers",
+            "num.recovery.threads.per.data.dir",
+            "background.threads",
+            // Defaults of the topic configs
+            "log.segment.bytes",
+            "log.roll.ms",
+            "log.roll.jitter.ms",
+            "log.index.size.max.bytes",
+            "log.index.interval.bytes",
+            "log.flush.interval.messages",
+            "log.flush.interval.ms",
+            "log.retention.bytes",
+            "log.retention.ms",
+            "log.segment.delete.delay.ms",
+            "log.cleanup.policy",
+            "log.cleaner.delete.retention.ms",
+            "log.cleaner.min.compaction.lag.ms",
+            "log.cleaner.min.cleanable.ratio",
+            "log.preallocate",
+            "log.message.timestamp.type",
+            "log.message.timestamp.difference.max.ms",
+            "message.max.bytes",
+            "min.insync.replicas",
+            "compression.type",
+            "unclean.leader.election.enable"));
+
     /**
      * Constructor used to instantiate this class from String configuration. Should be used to create configuration
      * from the Assembly.
@@ -58,4 +103,48 @@ public class KafkaConfiguration extends AbstractConfiguration {
     public KafkaConfiguration(JsonObject jsonOptions) {
         super(jsonOptions, FORBIDDEN_OPTIONS);
     }
+
+    /**
+     * @param key The name of a configuration option.
+     * @return Whether the option can be updated on running brokers without restarting them.
+     */
+    public static boolean isDynamic(String key) {
+        return DYNAMIC_OPTIONS.contains(key);
+    }
+
+    /**
+     * @return The dynamic options of this configuration, sorted by key.
+     */
+    public Map<String, String> dynamicOptions() {
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<String, String> entry : asMap().entrySet()) {
+            if (isDynamic(entry.getKey())) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether this configuration differs from the given configuration of the running brokers only in
+     * dynamic options which have been added or changed, so can be applied without restarting the brokers.
+     * Removing an option is a static change, because the running brokers might have the option in their static
+     * configuration, which is what they would revert to.
+     *
+     * @param current The configuration of the running brokers.
+     * @return Whether the changes from the current configuration are all dynamic.
+     */
+    public boolean changesOnlyDynamicOptions(KafkaConfiguration current) {
+        Map<String, String> desiredOptions = asMap();
+        Map<String, String> currentOptions = current.asMap();
+        if (!desiredOptions.keySet().containsAll(currentOptions.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, String> entry : desiredOptions.entrySet()) {
+            if (!entry.getValue().equals(currentOptions.get(entry.getKey())) && !isDynamic(entry.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.model;
+
+/**
+ * How the pods of a cluster are restarted during a rolling update.
+ * By default pods are restarted one at a time.
+ * With {@code rackAware} all the pods in the same rack are restarted together, and with
+ * {@code maxUnavailable} up to that many pods are restarted together.
+ */
+public class RollingUpdateConfig {
+
+    private boolean rackAware = false;
+    private int maxUnavailable = 1;
+
+    public RollingUpdateConfig() {
+
+    }
+
+    public RollingUpdateConfig(boolean rackAware, int maxUnavailable) {
+        this.rackAware = rackAware;
+        this.maxUnavailable = maxUnavailable;
+    }
+
+    public boolean isRackAware() {
+        return rackAware;
+    }
+
+    public void setRackAware(boolean rackAware) {
+        this.rackAware = rackAware;
+    }
+
+    public int getMaxUnavailable() {
+        return maxUnavailable;
+    }
+
+    public void setMaxUnavailable(int maxUnavailable) {
+        this.maxUnavailable = maxUnavailable;
+    }
+
+    /**
+     * @return true if pods are restarted one at a time.
+     */
+    public boolean isSequential() {
+        return !rackAware && maxUnavailable == 1;
+    }
+
+    public static RollingUpdateConfig fromJson(String json) {
+        RollingUpdateConfig config = JsonUtils.fromJson(json, RollingUpdateConfig.class);
+        if (config != null && config.getMaxUnavailable() < 1) {
+            throw new IllegalArgumentException("In rolling update configuration the 'maxUnavailable' field must be at least 1");
+        }
+        return config;
+    }
+}
@@ -12,39 +12,43 @@ import io.strimzi.operator.cluster.Reconciliation;
 import io.strimzi.operator.cluster.model.AssemblyType;
 import io.strimzi.operator.cluster.model.Labels;
 import io.strimzi.operator.cluster.operator.resource.ConfigMapOperator;
+import io.strimzi.operator.common.Metrics;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
-import io.vertx.core.shareddata.Lock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
+import static java.util.Arrays.asList;
+
 /**
  * <p>Abstract assembly creation, update, read, deletion, etc.</p>
  *
  * <p>An assembly is a collection of Kubernetes resources of various types
  * (e.g. Services, StatefulSets, Deployments etc) which operate together to provide some functionality.</p>
  *
- * <p>This class manages a per-assembly locking strategy so only one operation per assembly
- * can proceed at once.</p>
+ * <p>This class queues the reconciliations of each assembly (see {@link ReconcileQueue}) so only one operation
+ * per assembly can proceed at once.</p>
  */
 public abstract class AbstractAssemblyOperator {
 
     private static final Logger log = LogManager.getLogger(AbstractAssemblyOperator.class.getName());
 
-    protected static final int LOCK_TIMEOUT = 60000;
-
     protected final Vertx vertx;
     protected final boolean isOpenShift;
     protected final AssemblyType assemblyType;
     protected final ConfigMapOperator configMapOperations;
+    private final ReconcileQueue queue;
 
     /**
      * @param vertx The Vertx instance
@@ -56,17 +60,7 @@ public abstract class AbstractAssemblyOperator {
         this.isOpenShift = isOpenShift;
         this.assemblyType = assemblyType;
         this.configMapOperations = configMapOperations;
-    }
-
-    /**
-     * Gets the name of the lock to be used for operating on the given {@code assemblyType}, {@code namespace} and
-     * cluster {@code name}
-     * @param assemblyType The type of cluster
-     * @param namespace The namespace containing the cluster
-     * @param name The name of the cluster
-     */
-    protected final String getLockName(AssemblyType assemblyType, String namespace, String name) {
-        return "lock::" + namespace + "::" + assemblyType + "::" + name;
+        this.queue = new ReconcileQueue(vertx, this::reconcile);
     }
 
     /**
@@ -106,50 +100,35 @@ public abstract class AbstractAssemblyOperator {
      * <li>An assembly will be {@linkplain #createOrUpdate(Reconciliation, ConfigMap, Handler) created or updated} if ConfigMap is without same-named resources</li>
      * <li>An assembly will be {@linkplain #delete(Reconciliation, Handler) deleted} if resources without same-named ConfigMap</li>
      * </ul>
+     * If the assembly is already being reconciled, this reconciliation (and any others made in the meantime)
+     * will start once that one has finished.
+     * The given handler is called once the reconciliation has finished, whether or not it succeeded.
      */
     public final void reconcileAssembly(Reconciliation reconciliation, Handler<AsyncResult<Void>> handler) {
+        queue.enqueue(reconciliation, 0, handler);
+    }
+
+    private void reconcile(Reconciliation reconciliation, Handler<AsyncResult<Void>> handler) {
         String namespace = reconciliation.namespace();
         String assemblyName = reconciliation.assemblyName();
-        final String lockName = getLockName(assemblyType, namespace, assemblyName);
-        vertx.sharedData().getLockWithTimeout(lockName, LOCK_TIMEOUT, res -> {
-            if (res.succeeded()) {
-                log.debug("{}: Lock {} acquired", reconciliation, lockName);
-                Lock lock = res.result();
-
-                try {
-                    // get ConfigMap and related resources for the specific cluster
-                    ConfigMap cm = configMapOperations.get(namespace, assemblyName);
-
-                    if (cm != null) {
-                        log.info("{}: Assembly {} should be created or updated", reconciliation, assemblyName);
-                        createOrUpdate(reconciliation, cm, createResult -> {
-                            lock.release();
-                            log.debug("{}: Lock {} released", reconciliation, lockName);
-                            if (createResult.failed()) {
-                                if (createResult.cause() instanceof InvalidConfigMapException) {
-                                    log.error(createResult.cause().getMessage());
-                                } else {
-                                    log.error(createResult.cause().toString());
-                                }
-                            } else {
-                                handler.handle(createResult);
-                            }
-                        });
-                    } else {
-                        log.info("{}: Assembly {} should be deleted", reconciliation, assemblyName);
-                        delete(reconciliation, deleteResult -> {
-                            lock.release();
-                            log.debug("{}: Lock {} released", reconciliation, lockName);
-                            handler.handle(deleteResult);
-                        });
-                    }
-                } catch (Throwable ex) {
-                    lock.release();
-                    log.debug("{}: Lock {} released", reconciliation, lockName);
-                    handler.handle(Future.failedFuture(ex));
+
+        // get ConfigMap and related resources for the specific cluster
+        configMapOperations.getAsync(namespace, assemblyName).setHandler(getResult -> {
+            if (getResult.failed()) {
+                handler.handle(Future.failedFuture(getResult.cause()));
+                return;
+            }
+            ConfigMap cm = getResult.result();
+            try {
+                if (cm != null) {
+                    log.info("{}: Assembly {} should be created or updated", reconciliation, assemblyName);
+                    createOrUpdate(reconciliation, cm, handler);
+                } else {
+                    log.info("{}: Assembly {} should be deleted", reconciliation, assemblyName);
+                    delete(reconciliation, handler);
                 }
-            } else {
-                log.warn("{}: Failed to acquire lock {}.", reconciliation, lockName);
+            } catch (Throwable ex) {
+                handler.handle(Future.failedFuture(ex));
             }
         });
     }
@@ -162,60 +141,118 @@ public abstract class AbstractAssemblyOperator {
      * <li>An assembly will be {@linkplain #createOrUpdate(Reconciliation, ConfigMap, Handler) created} for all ConfigMaps without same-named resources</li>
      * <li>An assembly will be {@linkplain #delete(Reconciliation, Handler) deleted} for all resources without same-named ConfigMaps</li>
      * </ul>
+     * The ConfigMaps and resources are listed asynchronously, so this method returns without blocking.
      *
      * @param trigger A description of the triggering event (timer or watch), used for logging
      * @param namespace The namespace
      * @param selector The selector
+     * @return A latch which is counted down when the reconciliation of all the assemblies is complete
      */
     public final CountDownLatch reconcileAll(String trigger, String namespace, Labels selector) {
+        return reconcileAll(trigger, namespace, selector, 0);
+    }
+
+    /**
+     * Reconcile assembly resources in the given namespace having the given selector, like
+     * {@link #reconcileAll(String, String, Labels)}, but with the reconciliation of each assembly
+     * delayed by a random time of up to {@code maxDelayMs}, to spread the reconciliations over time.
+     * Reconciliations which are triggered (e.g. by a watch) while a delayed reconciliation is waiting take priority.
+     *
+     * @param trigger A description of the triggering event (timer or watch), used for logging
+     * @param namespace The namespace
+     * @param selector The selector
+     * @param maxDelayMs The maximum delay, or 0 to reconcile each assembly without a delay.
+     * @return A latch which is counted down when the reconciliation of all the assemblies is complete
+     */
+    public final CountDownLatch reconcileAll(String trigger, String namespace, Labels selector, long maxDelayMs) {
         Labels selectorWithCluster = selector.withType(assemblyType);
 
-        // get ConfigMaps with kind=cluster&type=kafka (or connect, or connect-s2i) for the corresponding cluster type
-        List<ConfigMap> cms = configMapOperations.list(namespace, selectorWithCluster);
-        Set<String> cmsNames = cms.stream().map(cm -> cm.getMetadata().getName()).collect(Collectors.toSet());
-        log.debug("reconcileAll({}, {}): ConfigMaps with labels {}: {}", assemblyType, trigger, selectorWithCluster, cmsNames);
+        // We use a latch so that callers (specifically, test callers) know when the reconciliation is complete
+        CountDownLatch latch = new CountDownLatch(1);
 
+        // get ConfigMaps with kind=cluster&type=kafka (or connect, or connect-s2i) for the corresponding cluster type
+        Future<List<ConfigMap>> cmsFuture = configMapOperations.listAsync(namespace, selectorWithCluster);
         // get resources with kind=cluster&type=kafka (or connect, or connect-s2i)
-        List<? extends HasMetadata> resources = getResources(namespace);
-        // now extract the cluster name from those
-        Set<String> resourceNames = resources.stream()
-                .filter(r -> Labels.kind(r) == null) // exclude Cluster CM, which won't have a cluster label
-                .map(Labels::cluster)
-                .collect(Collectors.toSet());
-        log.debug("reconcileAll({}, {}): Other resources with labels {}: {}", assemblyType, trigger, selectorWithCluster, resourceNames);
+        Future<List<HasMetadata>> resourcesFuture = getResources(namespace);
+
+        CompositeFuture.all(cmsFuture, resourcesFuture).setHandler(listResult -> {
+            if (listResult.failed()) {
+                log.warn("reconcileAll({}, {}): Failed to list resources", assemblyType, trigger, listResult.cause());
+                latch.countDown();
+                return;
+            }
+            Set<String> cmsNames = cmsFuture.result().stream().map(cm -> cm.getMetadata().getName()).collect(Collectors.toSet());
+            log.debug("reconcileAll({}, {}): ConfigMaps with labels {}: {}", assemblyType, trigger, selectorWithCluster, cmsNames);
 
-        cmsNames.addAll(resourceNames);
+            // now extract the cluster name from those
+            Set<String> resourceNames = resourcesFuture.result().stream()
+                    .filter(r -> Labels.kind(r) == null) // exclude Cluster CM, which won't have a cluster label
+                    .map(Labels::cluster)
+                    .collect(Collectors.toSet());
+            log.debug("reconcileAll({}, {}): Other resources with labels {}: {}", assemblyType, trigger, selectorWithCluster, resourceNames);
 
-        // We use a latch so that callers (specifically, test callers) know when the reconciliation is complete
-        // Using futures would be more complex for no benefit
-        CountDownLatch latch = new CountDownLatch(cmsNames.size());
-
-        for (String name: cmsNames) {
-            Reconciliation reconciliation = new Reconciliation(trigger, assemblyType, namespace, name);
-            reconcileAssembly(reconciliation, result -> {
-                if (result.succeeded()) {
-                    log.info("{}: Assembly reconciled", reconciliation);
-                } else {
-                    Throwable cause = result.cause();
-                    if (cause instanceof InvalidConfigMapException) {
-                        log.warn("{}: Failed to reconcile {}", reconciliation, cause.getMessage());
+            cmsNames.addAll(resourceNames);
+
+            List<Future> reconciled = new ArrayList<>(cmsNames.size());
+            for (String name: cmsNames) {
+                Reconciliation reconciliation = new Reconciliation(trigger, assemblyType, namespace, name);
+                Future<Void> fut = Future.future();
+                reconciled.add(fut);
+                long delayMs = maxDelayMs > 0 ? 1 + ThreadLocalRandom.current().nextLong(maxDelayMs) : 0;
+                queue.enqueue(reconciliation, delayMs, result -> {
+                    if (result.succeeded()) {
+                        log.info("{}: Assembly reconciled", reconciliation);
                     } else {
-                        log.warn("{}: Failed to reconcile {}", reconciliation, cause);
+                        Throwable cause = result.cause();
+                        if (cause instanceof InvalidConfigMapException) {
+                            log.warn("{}: Failed to reconcile {}", reconciliation, cause.getMessage());
+                        } else {
+                            log.warn("{}: Failed to reconcile {}", reconciliation, cause);
+                        }
                     }
-                }
-                latch.countDown();
-            });
-        }
+                    fut.complete();
+                });
+            }
+            CompositeFuture.join(reconciled).setHandler(ignored -> latch.countDown());
+        });
 
         return latch;
     }
 
     /**
-     * Gets all the assembly resources (for all assemblies) in the given namespace.
+     * Register the metrics of this operator's reconciliation queue, labelled with its assembly type.
+     * @param metrics The registry.
+     */
+    public void registerMetrics(Metrics metrics) {
+        metrics.gauge("reconcile_queue_depth", "The number of assemblies with a reconciliation waiting to start.", "type")
+                .set(queue::depth, assemblyType.toString());
+        Metrics.Sampled wait = metrics.summary("reconcile_wait_seconds", "How long reconciliations waited before starting.",
+                "type", "trigger");
+        for (String trigger : asList(ReconcileQueue.IMMEDIATE, ReconcileQueue.DELAYED)) {
+            wait.set(() -> queue.waitCount(trigger), () -> queue.waitSeconds(trigger), assemblyType.toString(), trigger);
+        }
+    }
+
+    /**
+     * Asynchronously gets all the assembly resources (for all assemblies) in the given namespace.
      * Assembly CMs may be included in the result.
      * @param namespace The namespace
-     * @return The matching resources.
+     * @return A future for the matching resources.
      */
-    protected abstract List<HasMetadata> getResources(String namespace);
+    protected abstract Future<List<HasMetadata>> getResources(String namespace);
+
+    /**
+     * Concatenates the lists of resources which are the results of the given {@code lists}.
+     * @param lists The completed futures for the lists of resources
+     * @return A single list of all the resources
+     */
+    protected static List<HasMetadata> concat(CompositeFuture lists) {
+        List<HasMetadata> result = new ArrayList<>();
+        for (int i = 0; i < lists.size(); i++) {
+            List<? extends HasMetadata> list = lists.resultAt(i);
+            result.addAll(list);
+        }
+        return result;
+    }
 
 }
@@ -11,6 +11,7 @@ import io.fabric8.kubernetes.api.model.extensions.Deployment;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
 import io.strimzi.operator.cluster.Reconciliation;
 import io.strimzi.operator.cluster.model.AssemblyType;
+import io.strimzi.operator.cluster.operator.resource.AbstractReadyResourceOperator;
 import io.strimzi.operator.cluster.operator.resource.ConfigMapOperator;
 import io.strimzi.operator.cluster.operator.resource.DeploymentOperator;
 import io.strimzi.operator.cluster.operator.resource.KafkaSetOperator;
@@ -34,8 +35,11 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.strimzi.operator.cluster.model.TopicOperator.topicOperatorName;
+import static java.util.Arrays.asList;
 
 /**
  * <p>Assembly operator for a "Kafka" assembly, which manages:</p>
@@ -56,6 +60,24 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator {
     private final PvcOperator pvcOperations;
     private final DeploymentOperator deploymentOperations;
 
+    /** The models of each assembly, by namespace/name, memoized by the resourceVersion of the assembly ConfigMap. */
+    private final Map<String, Models> models = new ConcurrentHashMap<>();
+
+    /** The models built from the assembly ConfigMap with the given resourceVersion. */
+    private static class Models {
+        private final String resourceVersion;
+        private final ZookeeperCluster zk;
+        private final KafkaCluster kafka;
+        private final TopicOperator topicOperator;
+
+        Models(String resourceVersion, ZookeeperCluster zk, KafkaCluster kafka, TopicOperator topicOperator) {
+            this.resourceVersion = resourceVersion;
+            this.zk = zk;
+            this.kafka = kafka;
+            this.topicOperator = topicOperator;
+        }
+    }
+
     /**
      * @param vertx The Vertx instance
      * @param isOpenShift Whether we're running with OpenShift
@@ -82,138 +104,193 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator {
         this.kafkaSetOperations = kafkaSetOperations;
     }
 
+    /**
+     * Reconcile the assembly by executing a {@link ReconcileGraph} of its steps.
+     * The Services, metrics ConfigMaps and the TopicOperator Deployment don't depend on anything, so are reconciled
+     * concurrently, while the Kafka StatefulSet is only reconciled once the ZooKeeper cluster is ready.
+     */
     @Override
     public void createOrUpdate(Reconciliation reconciliation, ConfigMap assemblyCm, Handler<AsyncResult<Void>> handler) {
-        Future<Void> f = Future.<Void>future().setHandler(handler);
-        createOrUpdateZk(reconciliation, assemblyCm)
-            .compose(i -> createOrUpdateKafka(reconciliation, assemblyCm))
-            .compose(i -> createOrUpdateTopicOperator(reconciliation, assemblyCm))
-            .compose(ar -> f.complete(), f);
+        ReconcileGraph graph = new ReconcileGraph(reconciliation);
+        try {
+            Models models = models(assemblyCm);
+            List<ReconcileGraph.Step<?>> zkReady = createOrUpdateZk(graph, reconciliation, assemblyCm, models.zk);
+            createOrUpdateKafka(graph, reconciliation, assemblyCm, models.kafka, zkReady);
+            createOrUpdateTopicOperator(graph, reconciliation, assemblyCm, models.topicOperator);
+        } catch (Exception e) {
+            handler.handle(Future.failedFuture(e));
+            return;
+        }
+        graph.execute().setHandler(handler);
+    }
+
+    /**
+     * Get the models for the given assembly ConfigMap, building them only if the ConfigMap's resourceVersion
+     * has changed since they were last built.
+     */
+    private Models models(ConfigMap assemblyCm) {
+        String key = assemblyCm.getMetadata().getNamespace() + "/" + assemblyCm.getMetadata().getName();
+        String resourceVersion = assemblyCm.getMetadata().getResourceVersion();
+        Models result = models.get(key);
+        if (result == null || resourceVersion == null || !resourceVersion.equals(result.resourceVersion)) {
+            result = new Models(resourceVersion,
+                    ZookeeperCluster.fromConfigMap(assemblyCm),
+                    KafkaCluster.fromConfigMap(assemblyCm),
+                    TopicOperator.fromConfigMap(assemblyCm));
+            if (resourceVersion != null) {
+                models.put(key, result);
+            }
+        }
+        return result;
     }
 
-    private final Future<Void> createOrUpdateKafka(Reconciliation reconciliation, ConfigMap assemblyCm) {
+    /**
+     * Add the steps for reconciling the Kafka cluster to the given graph,
+     * starting the Kafka StatefulSet only once the given steps have succeeded.
+     */
+    private void createOrUpdateKafka(ReconcileGraph graph, Reconciliation reconciliation, ConfigMap assemblyCm,
+                                     KafkaCluster kafka, List<ReconcileGraph.Step<?>> zkReady) {
         String namespace = assemblyCm.getMetadata().getNamespace();
         String name = assemblyCm.getMetadata().getName();
         log.debug("{}: create/update kafka {}", reconciliation, name);
-        KafkaCluster kafka;
-        try {
-            kafka = KafkaCluster.fromConfigMap(assemblyCm);
-        } catch (Exception e) {
-            return Future.failedFuture(e);
-        }
         Service service = kafka.generateService();
         Service headlessService = kafka.generateHeadlessService();
         ConfigMap metricsConfigMap = kafka.generateMetricsConfigMap();
         StatefulSet statefulSet = kafka.generateStatefulSet(isOpenShift);
 
-        Future<Void> chainFuture = Future.future();
-        kafkaSetOperations.scaleDown(namespace, kafka.getName(), kafka.getReplicas())
-                .compose(scale -> serviceOperations.reconcile(namespace, kafka.getName(), service))
-                .compose(i -> serviceOperations.reconcile(namespace, kafka.getHeadlessName(), headlessService))
-                .compose(i -> configMapOperations.reconcile(namespace, kafka.getMetricsConfigName(), metricsConfigMap))
-                .compose(i -> kafkaSetOperations.reconcile(namespace, kafka.getName(), statefulSet))
-                .compose(diffs -> kafkaSetOperations.maybeRollingUpdate(diffs.resource()))
-                .compose(i -> kafkaSetOperations.scaleUp(namespace, kafka.getName(), kafka.getReplicas()))
-                .compose(scale -> serviceOperations.endpointReadiness(namespace, service, 1_000, operationTimeoutMs))
-                .compose(i -> serviceOperations.endpointReadiness(namespace, headlessService, 1_000, operationTimeoutMs))
-                .compose(chainFuture::complete, chainFuture);
-
-        return chainFuture;
-    };
+        ReconcileGraph.Step<Integer> scaleDown = graph.add("kafka-scale-down",
+            () -> kafkaSetOperations.scaleDown(namespace, kafka.getName(), kafka.getReplicas()),
+            zkReady.toArray(new ReconcileGraph.Step<?>[0]));
+        ReconcileGraph.Step<?> serviceStep = graph.add("kafka-service",
+            () -> serviceOperations.reconcile(namespace, kafka.getName(), service));
+        ReconcileGraph.Step<?> headlessServiceStep = graph.add("kafka-headless-service",
+            () -> serviceOperations.reconcile(namespace, kafka.getHeadlessName(), headlessService));
+        ReconcileGraph.Step<?> metricsConfigMapStep = graph.add("kafka-metrics-config-map",
+            () -> configMapOperations.reconcile(namespace, kafka.getMetricsConfigName(), metricsConfigMap));
+        ReconcileGraph.Step<ReconcileResult<StatefulSet>> statefulSetStep = graph.add("kafka-stateful-set",
+            () -> kafkaSetOperations.reconcile(namespace, kafka.getName(), statefulSet),
+            scaleDown, serviceStep, headlessServiceStep, metricsConfigMapStep);
+        ReconcileGraph.Step<Void> rollingUpdate = graph.add("kafka-rolling-update",
+            () -> kafkaSetOperations.maybeRollingUpdate(statefulSetStep.result().resource(), kafka.getRollingUpdateConfig(), kafka.getRackConfig()),
+            statefulSetStep);
+        ReconcileGraph.Step<Integer> scaleUp = graph.add("kafka-scale-up",
+            () -> kafkaSetOperations.scaleUp(namespace, kafka.getName(), kafka.getReplicas()),
+            rollingUpdate);
+        graph.add("kafka-service-ready",
+            () -> serviceOperations.endpointReadiness(namespace, service, AbstractReadyResourceOperator.DEFAULT_POLL_INTERVAL_MS, operationTimeoutMs),
+            scaleUp);
+        graph.add("kafka-headless-service-ready",
+            () -> serviceOperations.endpointReadiness(namespace, headlessService, AbstractReadyResourceOperator.DEFAULT_POLL_INTERVAL_MS, operationTimeoutMs),
+            scaleUp);
+    }
 
     private final Future<CompositeFuture> deleteKafka(Reconciliation reconciliation) {
         String namespace = reconciliation.namespace();
         String name = reconciliation.assemblyName();
         log.debug("{}: delete kafka {}", reconciliation, name);
-        StatefulSet ss = kafkaSetOperations.get(namespace, KafkaCluster.kafkaClusterName(name));
-
-        final KafkaCluster kafka = ss == null ? null : KafkaCluster.fromAssembly(ss, namespace, name);
-        boolean deleteClaims = kafka != null && kafka.getStorage().type() == Storage.StorageType.PERSISTENT_CLAIM
-            && kafka.getStorage().isDeleteClaim();
-        List<Future> result = new ArrayList<>(4 + (deleteClaims ? kafka.getReplicas() : 0));
+        return kafkaSetOperations.getAsync(namespace, KafkaCluster.kafkaClusterName(name)).compose(ss -> {
+            final KafkaCluster kafka = ss == null ? null : KafkaCluster.fromAssembly(ss, namespace, name);
+            boolean deleteClaims = kafka != null && kafka.getStorage().type() == Storage.StorageType.PERSISTENT_CLAIM
+                && kafka.getStorage().isDeleteClaim();
+            List<Future> result = new ArrayList<>(4 + (deleteClaims ? kafka.getReplicas() : 0));
 
-        result.add(configMapOperations.reconcile(namespace, KafkaCluster.metricConfigsName(name), null));
-        result.add(serviceOperations.reconcile(namespace, KafkaCluster.kafkaClusterName(name), null));
-        result.add(serviceOperations.reconcile(namespace, KafkaCluster.headlessName(name), null));
-        result.add(kafkaSetOperations.reconcile(namespace, KafkaCluster.kafkaClusterName(name), null));
+            result.add(configMapOperations.reconcile(namespace, KafkaCluster.metricConfigsName(name), null));
+            result.add(serviceOperations.reconcile(namespace, KafkaCluster.kafkaClusterName(name), null));
+            result.add(serviceOperations.reconcile(namespace, KafkaCluster.headlessName(name), null));
+            result.add(kafkaSetOperations.reconcile(namespace, KafkaCluster.kafkaClusterName(name), null));
 
-        if (deleteClaims) {
-            log.debug("{}: delete kafka {} PVCs", reconciliation, name);
+            if (deleteClaims) {
+                log.debug("{}: delete kafka {} PVCs", reconciliation, name);
 
-            for (int i = 0; i < kafka.getReplicas(); i++) {
-                result.add(pvcOperations.reconcile(namespace,
-                        kafka.getPersistentVolumeClaimName(i), null));
+                for (int i = 0; i < kafka.getReplicas(); i++) {
+                    result.add(pvcOperations.reconcile(namespace,
+                            kafka.getPersistentVolumeClaimName(i), null));
+                }
             }
-        }
 
-        return CompositeFuture.join(result);
+            return CompositeFuture.join(result);
+        });
     };
 
-    private final Future<Void> createOrUpdateZk(Reconciliation reconciliation, ConfigMap assemblyCm) {
+    /**
+     * Add the steps for reconciling the ZooKeeper cluster to the given graph.
+     * @return The steps which succeed once the ZooKeeper cluster is ready.
+     */
+    private List<ReconcileGraph.Step<?>> createOrUpdateZk(ReconcileGraph graph, Reconciliation reconciliation, ConfigMap assemblyCm,
+                                                          ZookeeperCluster zk) {
         String namespace = assemblyCm.getMetadata().getNamespace();
         String name = assemblyCm.getMetadata().getName();
         log.debug("{}: create/update zookeeper {}", reconciliation, name);
-        ZookeeperCluster zk;
-        try {
-            zk = ZookeeperCluster.fromConfigMap(assemblyCm);
-        } catch (Exception e) {
-            return Future.failedFuture(e);
-        }
         Service service = zk.generateService();
         Service headlessService = zk.generateHeadlessService();
-        Future<Void> chainFuture = Future.future();
-        zkSetOperations.scaleDown(namespace, zk.getName(), zk.getReplicas())
-                .compose(scale -> serviceOperations.reconcile(namespace, zk.getName(), service))
-                .compose(i -> serviceOperations.reconcile(namespace, zk.getHeadlessName(), headlessService))
-                .compose(i -> configMapOperations.reconcile(namespace, zk.getMetricsConfigName(), zk.generateMetricsConfigMap()))
-                .compose(i -> zkSetOperations.reconcile(namespace, zk.getName(), zk.generateStatefulSet(isOpenShift)))
-                .compose(diffs -> zkSetOperations.maybeRollingUpdate(diffs.resource()))
-                .compose(i -> zkSetOperations.scaleUp(namespace, zk.getName(), zk.getReplicas()))
-                .compose(scale -> serviceOperations.endpointReadiness(namespace, service, 1_000, operationTimeoutMs))
-                .compose(i -> serviceOperations.endpointReadiness(namespace, headlessService, 1_000, operationTimeoutMs))
-                .compose(chainFuture::complete, chainFuture);
-        return chainFuture;
-    };
+        ConfigMap metricsConfigMap = zk.generateMetricsConfigMap();
+        StatefulSet statefulSet = zk.generateStatefulSet(isOpenShift);
+
+        ReconcileGraph.Step<Integer> scaleDown = graph.add("zookeeper-scale-down",
+            () -> zkSetOperations.scaleDown(namespace, zk.getName(), zk.getReplicas()));
+        ReconcileGraph.Step<?> serviceStep = graph.add("zookeeper-service",
+            () -> serviceOperations.reconcile(namespace, zk.getName(), service));
+        ReconcileGraph.Step<?> headlessServiceStep = graph.add("zookeeper-headless-service",
+            () -> serviceOperations.reconcile(namespace, zk.getHeadlessName(), headlessService));
+        ReconcileGraph.Step<?> metricsConfigMapStep = graph.add("zookeeper-metrics-config-map",
+            () -> configMapOperations.reconcile(namespace, zk.getMetricsConfigName(), metricsConfigMap));
+        ReconcileGraph.Step<ReconcileResult<StatefulSet>> statefulSetStep = graph.add("zookeeper-stateful-set",
+            () -> zkSetOperations.reconcile(namespace, zk.getName(), statefulSet),
+            scaleDown, serviceStep, headlessServiceStep, metricsConfigMapStep);
+        ReconcileGraph.Step<Void> rollingUpdate = graph.add("zookeeper-rolling-update",
+            () -> zkSetOperations.maybeRollingUpdate(statefulSetStep.result().resource()),
+            statefulSetStep);
+        ReconcileGraph.Step<Integer> scaleUp = graph.add("zookeeper-scale-up",
+            () -> zkSetOperations.scaleUp(namespace, zk.getName(), zk.getReplicas()),
+            rollingUpdate);
+        return asList(
+            graph.add("zookeeper-service-ready",
+                () -> serviceOperations.endpointReadiness(namespace, service, AbstractReadyResourceOperator.DEFAULT_POLL_INTERVAL_MS, operationTimeoutMs),
+                scaleUp),
+            graph.add("zookeeper-headless-service-ready",
+                () -> serviceOperations.endpointReadiness(namespace, headlessService, AbstractReadyResourceOperator.DEFAULT_POLL_INTERVAL_MS, operationTimeoutMs),
+                scaleUp));
+    }
 
     private final Future<CompositeFuture> deleteZk(Reconciliation reconciliation) {
         String namespace = reconciliation.namespace();
         String name = reconciliation.assemblyName();
         log.debug("{}: delete zookeeper {}", reconciliation, name);
-        StatefulSet ss = zkSetOperations.get(namespace, ZookeeperCluster.zookeeperClusterName(name));
-        ZookeeperCluster zk = ss == null ? null : ZookeeperCluster.fromAssembly(ss, namespace, name);
-        boolean deleteClaims = zk != null && zk.getStorage().type() == Storage.StorageType.PERSISTENT_CLAIM
-                && zk.getStorage().isDeleteClaim();
-        List<Future> result = new ArrayList<>(4 + (deleteClaims ? zk.getReplicas() : 0));
-
-        result.add(configMapOperations.reconcile(namespace, ZookeeperCluster.zookeeperMetricsName(name), null));
-        result.add(serviceOperations.reconcile(namespace, ZookeeperCluster.zookeeperClusterName(name), null));
-        result.add(serviceOperations.reconcile(namespace, ZookeeperCluster.zookeeperHeadlessName(name), null));
-        result.add(zkSetOperations.reconcile(namespace, ZookeeperCluster.zookeeperClusterName(name), null));
-
-        if (deleteClaims) {
-            log.debug("{}: delete zookeeper {} PVCs", reconciliation, name);
-
-            for (int i = 0; i < zk.getReplicas(); i++) {
-                result.add(pvcOperations.reconcile(namespace, zk.getPersistentVolumeClaimName(i), null));
+        return zkSetOperations.getAsync(namespace, ZookeeperCluster.zookeeperClusterName(name)).compose(ss -> {
+            ZookeeperCluster zk = ss == null ? null : ZookeeperCluster.fromAssembly(ss, namespace, name);
+            boolean deleteClaims = zk != null && zk.getStorage().type() == Storage.StorageType.PERSISTENT_CLAIM
+                    && zk.getStorage().isDeleteClaim();
+            List<Future> result = new ArrayList<>(4 + (deleteClaims ? zk.getReplicas() : 0));
+
+            result.add(configMapOperations.reconcile(namespace, ZookeeperCluster.zookeeperMetricsName(name), null));
+            result.add(serviceOperations.reconcile(namespace, ZookeeperCluster.zookeeperClusterName(name), null));
+            result.add(serviceOperations.reconcile(namespace, ZookeeperCluster.zookeeperHeadlessName(name), null));
+            result.add(zkSetOperations.reconcile(namespace, ZookeeperCluster.zookeeperClusterName(name), null));
+
+            if (deleteClaims) {
+                log.debug("{}: delete zookeeper {} PVCs", reconciliation, name);
+
+                for (int i = 0; i < zk.getReplicas(); i++) {
+                    result.add(pvcOperations.reconcile(namespace, zk.getPersistentVolumeClaimName(i), null));
+                }
             }
-        }
 
-        return CompositeFuture.join(result);
+            return CompositeFuture.join(result);
+        });
     };
 
-    private final Future<ReconcileResult<Deployment>> createOrUpdateTopicOperator(Reconciliation reconciliation, ConfigMap assemblyCm) {
+    /**
+     * Add the step for reconciling the TopicOperator to the given graph.
+     */
+    private void createOrUpdateTopicOperator(ReconcileGraph graph, Reconciliation reconciliation, ConfigMap assemblyCm,
+                                             TopicOperator topicOperator) {
         String namespace = assemblyCm.getMetadata().getNamespace();
         String name = assemblyCm.getMetadata().getName();
         log.debug("{}: create/update topic operator {}", reconciliation, name);
-        TopicOperator topicOperator;
-        try {
-            topicOperator = TopicOperator.fromConfigMap(assemblyCm);
-        } catch (Exception e) {
-            return Future.failedFuture(e);
-        }
         Deployment deployment = topicOperator != null ? topicOperator.generateDeployment() : null;
-        return deploymentOperations.reconcile(namespace, topicOperatorName(name), deployment);
-    };
+        graph.add("topic-operator-deployment",
+            () -> deploymentOperations.reconcile(namespace, topicOperatorName(name), deployment));
+    }
 
     private final Future<ReconcileResult<Deployment>> deleteTopicOperator(Reconciliation reconciliation) {
         String namespace = reconciliation.namespace();
@@ -224,6 +301,7 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator {
 
     @Override
     protected void delete(Reconciliation reconciliation, Handler<AsyncResult<Void>> handler) {
+        models.remove(reconciliation.namespace() + "/" + reconciliation.assemblyName());
         Future<Void> f = Future.<Void>future().setHandler(handler);
         deleteTopicOperator(reconciliation)
                 .compose(i -> deleteKafka(reconciliation))
@@ -232,13 +310,14 @@ public class KafkaAssemblyOperator extends AbstractAssemblyOperator {
     }
 
     @Override
-    protected List<HasMetadata> getResources(String namespace) {
-        List<HasMetadata> result = new ArrayList<>();
-        result.addAll(kafkaSetOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        result.addAll(zkSetOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        result.addAll(deploymentOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        result.addAll(serviceOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        result.addAll(configMapOperations.list(namespace, Labels.forType(AssemblyType.KAFKA)));
-        return result;
+    protected Future<List<HasMetadata>> getResources(String namespace) {
+        Labels selector = Labels.forType(AssemblyType.KAFKA);
+        return CompositeFuture.all(
+                kafkaSetOperations.listAsync(namespace, selector),
+                zkSetOperations.listAsync(namespace, selector),
+                deploymentOperations.listAsync(namespace, selector),
+                serviceOperations.listAsync(namespace, selector),
+                configMapOperations.listAsync(namespace, selector))
+            .map(AbstractAssemblyOperator::concat);
     }
 }
\ No newline at end of file
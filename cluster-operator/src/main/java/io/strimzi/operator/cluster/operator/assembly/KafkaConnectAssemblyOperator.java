@@ -22,7 +22,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -89,12 +88,12 @@ public class KafkaConnectAssemblyOperator extends AbstractAssemblyOperator {
     }
 
     @Override
-    protected List<HasMetadata> getResources(String namespace) {
-        List<HasMetadata> result = new ArrayList<>();
+    protected Future<List<HasMetadata>> getResources(String namespace) {
         Labels selector = Labels.forType(AssemblyType.CONNECT);
-        result.addAll(serviceOperations.list(namespace, selector));
-        result.addAll(deploymentOperations.list(namespace, selector));
-        result.addAll(configMapOperations.list(namespace, selector));
-        return result;
+        return CompositeFuture.all(
+                serviceOperations.listAsync(namespace, selector),
+                deploymentOperations.listAsync(namespace, selector),
+                configMapOperations.listAsync(namespace, selector))
+            .map(AbstractAssemblyOperator::concat);
     }
 }
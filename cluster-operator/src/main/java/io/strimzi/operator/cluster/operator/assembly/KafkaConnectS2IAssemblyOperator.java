@@ -24,7 +24,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -113,15 +112,15 @@ public class KafkaConnectS2IAssemblyOperator extends AbstractAssemblyOperator {
     }
 
     @Override
-    protected List<HasMetadata> getResources(String namespace) {
-        List<HasMetadata> result = new ArrayList<>();
+    protected Future<List<HasMetadata>> getResources(String namespace) {
         Labels selector = Labels.forType(AssemblyType.CONNECT_S2I);
-        result.addAll(serviceOperations.list(namespace, selector));
-        result.addAll(deploymentConfigOperations.list(namespace, selector));
-        result.addAll(imagesStreamOperations.list(namespace, selector));
-        result.addAll(buildConfigOperations.list(namespace, selector));
-        result.addAll(configMapOperations.list(namespace, selector));
-        return result;
+        return CompositeFuture.all(
+                serviceOperations.listAsync(namespace, selector),
+                deploymentConfigOperations.listAsync(namespace, selector),
+                imagesStreamOperations.listAsync(namespace, selector),
+                buildConfigOperations.listAsync(namespace, selector),
+                configMapOperations.listAsync(namespace, selector))
+            .map(AbstractAssemblyOperator::concat);
     }
 
 }
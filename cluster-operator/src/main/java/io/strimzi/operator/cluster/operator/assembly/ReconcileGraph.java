@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.operator.assembly;
+
+import io.strimzi.operator.cluster.Reconciliation;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * <p>The steps of a reconciliation, as a directed acyclic graph of asynchronous operations.</p>
+ *
+ * <p>Each step is {@linkplain #add(String, Supplier, Step[]) added} with the steps it depends on.
+ * When the graph is {@linkplain #execute() executed} each step is started as soon as all its dependencies have
+ * succeeded, so steps which don't depend on each other run concurrently.
+ * Because a step can only depend on steps which were added before it the graph cannot have cycles.</p>
+ *
+ * <p>Once a step fails no further steps are started. The graph completes once the steps which were running
+ * have finished, failing with the cause of the first failure.</p>
+ *
+ * <p>The start and end times of the steps are recorded, and available from {@link #trace()} for diagnostics.</p>
+ *
+ * <p>A graph can be executed only once, and is not thread safe: the operations must complete their futures
+ * on the context which executed the graph.</p>
+ */
+class ReconcileGraph {
+
+    private static final Logger log = LogManager.getLogger(ReconcileGraph.class.getName());
+
+    /**
+     * A step in the graph.
+     * @param <T> The type of the result of the step's operation.
+     */
+    class Step<T> {
+        private final String name;
+        private final Supplier<Future<T>> operation;
+        private final List<Step<?>> dependencies;
+        private final List<Step<?>> dependents = new ArrayList<>();
+        private long startMs = -1;
+        private long endMs = -1;
+        private AsyncResult<T> result;
+
+        private Step(String name, Supplier<Future<T>> operation, List<Step<?>> dependencies) {
+            this.name = name;
+            this.operation = operation;
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * @return The result of this step's operation.
+         * Only valid in the operations of the steps which depend on this step.
+         */
+        T result() {
+            if (result == null || result.failed()) {
+                throw new IllegalStateException("Step " + name + " has not succeeded");
+            }
+            return result.result();
+        }
+
+        private boolean ready() {
+            for (Step<?> dependency : dependencies) {
+                if (dependency.result == null || dependency.result.failed()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            if (startMs < 0) {
+                return name + "(not started)";
+            } else if (endMs < 0) {
+                return name + "(" + (startMs - graphStartMs) + "ms-)";
+            } else {
+                return name + "(" + (startMs - graphStartMs) + "ms-" + (endMs - graphStartMs) + "ms"
+                        + (result.failed() ? " failed" : "") + ")";
+            }
+        }
+    }
+
+    private final Reconciliation reconciliation;
+    private final List<Step<?>> steps = new ArrayList<>();
+    private final Future<Void> completion = Future.future();
+    private long graphStartMs = -1;
+    /** The number of steps running, plus one while steps are being started. */
+    private int running = 0;
+    private Throwable failure;
+
+    ReconcileGraph(Reconciliation reconciliation) {
+        this.reconciliation = reconciliation;
+    }
+
+    /**
+     * Add a step to the graph.
+     * @param name The name of the step, used in logging and the trace.
+     * @param operation Supplies the future for the step's operation when the step is started.
+     * @param dependencies The steps which must succeed before this step is started.
+     * @param <T> The type of the result of the operation.
+     * @return The step.
+     */
+    <T> Step<T> add(String name, Supplier<Future<T>> operation, Step<?>... dependencies) {
+        if (graphStartMs >= 0) {
+            throw new IllegalStateException("Graph already executed");
+        }
+        Step<T> step = new Step<>(name, operation, Arrays.asList(dependencies));
+        for (Step<?> dependency : dependencies) {
+            dependency.dependents.add(step);
+        }
+        steps.add(step);
+        return step;
+    }
+
+    /**
+     * Execute the graph.
+     * @return A future which completes once the graph has executed.
+     */
+    Future<Void> execute() {
+        if (graphStartMs >= 0) {
+            throw new IllegalStateException("Graph already executed");
+        }
+        graphStartMs = System.currentTimeMillis();
+        running++;
+        for (Step<?> step : steps) {
+            if (step.dependencies.isEmpty()) {
+                start(step);
+            }
+        }
+        running--;
+        maybeComplete();
+        return completion;
+    }
+
+    /**
+     * @return The steps, with the times they started and ended relative to the start of the graph.
+     */
+    String trace() {
+        return steps.toString();
+    }
+
+    private <T> void start(Step<T> step) {
+        log.trace("{}: Starting step {}", reconciliation, step.name);
+        running++;
+        step.startMs = System.currentTimeMillis();
+        Future<T> future;
+        try {
+            future = step.operation.get();
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        future.setHandler(ar -> finish(step, ar));
+    }
+
+    private <T> void finish(Step<T> step, AsyncResult<T> ar) {
+        step.endMs = System.currentTimeMillis();
+        step.result = ar;
+        if (ar.failed()) {
+            log.debug("{}: Step {} failed", reconciliation, step.name, ar.cause());
+            if (failure == null) {
+                failure = ar.cause();
+            }
+        } else {
+            log.trace("{}: Finished step {}", reconciliation, step.name);
+            if (failure == null) {
+                for (Step<?> dependent : step.dependents) {
+                    if (dependent.startMs < 0 && dependent.ready()) {
+                        start(dependent);
+                    }
+                }
+            }
+        }
+        running--;
+        maybeComplete();
+    }
+
+    private void maybeComplete() {
+        if (running == 0 && !completion.isComplete()) {
+            log.debug("{}: Reconciled in {}ms: {}", reconciliation, System.currentTimeMillis() - graphStartMs, trace());
+            if (failure != null) {
+                completion.fail(failure);
+            } else {
+                completion.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.operator.assembly;
+
+import io.strimzi.operator.cluster.Reconciliation;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Queues the reconciliations of assemblies, so that at most one reconciliation of each assembly runs at a time.</p>
+ *
+ * <p>A reconciliation which is {@linkplain #enqueue(Reconciliation, long, Handler) enqueued} while another
+ * reconciliation of the same assembly is running or waiting is collapsed into a single follow-up reconciliation,
+ * which starts as soon as the running one finishes.
+ * The handlers of all the collapsed reconciliations are called when the follow-up finishes.</p>
+ *
+ * <p>Reconciliations may be enqueued with a delay (used to spread periodic reconciliations over time).
+ * A reconciliation enqueued without a delay (such as one triggered by a watch) takes priority: it supersedes a
+ * delayed reconciliation of the same assembly which is waiting, and starts immediately.</p>
+ *
+ * <p>This class is thread safe.</p>
+ */
+class ReconcileQueue {
+
+    private static final Logger log = LogManager.getLogger(ReconcileQueue.class.getName());
+
+    /** The trigger label for the wait time of reconciliations enqueued without a delay. */
+    static final String IMMEDIATE = "immediate";
+    /** The trigger label for the wait time of reconciliations enqueued with a delay. */
+    static final String DELAYED = "delayed";
+
+    private final Vertx vertx;
+    private final BiConsumer<Reconciliation, Handler<AsyncResult<Void>>> reconciler;
+
+    /** The state of each assembly with a running or waiting reconciliation, by namespace/name. Guarded by this. */
+    private final Map<String, Assembly> assemblies = new HashMap<>();
+
+    /** The number of started reconciliations, by trigger label. Guarded by this. */
+    private final Map<String, Long> waitCount = new HashMap<>();
+    /** The total time started reconciliations waited, in nanoseconds, by trigger label. Guarded by this. */
+    private final Map<String, Long> waitNanos = new HashMap<>();
+
+    private static class Assembly {
+        private boolean running;
+        /** The waiting reconciliation, or null. */
+        private Reconciliation waiting;
+        /** Whether the waiting reconciliation was enqueued without a delay. */
+        private boolean immediate;
+        /** When the waiting reconciliation was first enqueued, from {@link System#nanoTime()}. */
+        private long waitingSinceNanos;
+        /** The timer for the delay of the waiting reconciliation, or null. */
+        private Long timerId;
+        private final List<Handler<AsyncResult<Void>>> handlers = new ArrayList<>();
+    }
+
+    /**
+     * @param vertx The Vertx instance.
+     * @param reconciler Performs a reconciliation, calling the given handler once it's finished.
+     */
+    ReconcileQueue(Vertx vertx, BiConsumer<Reconciliation, Handler<AsyncResult<Void>>> reconciler) {
+        this.vertx = vertx;
+        this.reconciler = reconciler;
+    }
+
+    /**
+     * Enqueue the given reconciliation, calling the given handler when a reconciliation of the assembly which started
+     * after this call has finished.
+     * @param reconciliation The reconciliation.
+     * @param delayMs How long to wait before starting the reconciliation, or 0 to start it as soon as possible.
+     * @param handler The handler.
+     */
+    void enqueue(Reconciliation reconciliation, long delayMs, Handler<AsyncResult<Void>> handler) {
+        String key = key(reconciliation);
+        boolean start;
+        synchronized (this) {
+            Assembly assembly = assemblies.computeIfAbsent(key, k -> new Assembly());
+            assembly.handlers.add(handler);
+            boolean immediate = delayMs <= 0;
+            if (assembly.waiting == null) {
+                assembly.waiting = reconciliation;
+                assembly.immediate = immediate;
+                assembly.waitingSinceNanos = System.nanoTime();
+            } else if (immediate && !assembly.immediate) {
+                log.debug("{}: Supersedes waiting {}", reconciliation, assembly.waiting);
+                assembly.waiting = reconciliation;
+                assembly.immediate = true;
+            } else {
+                log.debug("{}: Collapsed into waiting {}", reconciliation, assembly.waiting);
+            }
+            if (assembly.running) {
+                log.debug("{}: Waiting for running reconciliation to finish", reconciliation);
+                start = false;
+            } else if (assembly.immediate) {
+                start = true;
+            } else {
+                if (assembly.timerId == null) {
+                    assembly.timerId = vertx.setTimer(delayMs, timerId -> startWaiting(key));
+                }
+                start = false;
+            }
+        }
+        if (start) {
+            startWaiting(key);
+        }
+    }
+
+    /**
+     * @return The number of assemblies with a waiting reconciliation.
+     */
+    synchronized int depth() {
+        int depth = 0;
+        for (Assembly assembly : assemblies.values()) {
+            if (assembly.waiting != null) {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * @return The number of started reconciliations which were enqueued with the given trigger label.
+     */
+    synchronized long waitCount(String trigger) {
+        return waitCount.getOrDefault(trigger, 0L);
+    }
+
+    /**
+     * @return The total time, in seconds, that the started reconciliations with the given trigger label
+     * waited before starting.
+     */
+    synchronized double waitSeconds(String trigger) {
+        return waitNanos.getOrDefault(trigger, 0L) / 1e9;
+    }
+
+    private static String key(Reconciliation reconciliation) {
+        return reconciliation.namespace() + "/" + reconciliation.assemblyName();
+    }
+
+    /**
+     * Start the waiting reconciliation of the assembly with the given key, unless one is running.
+     */
+    private void startWaiting(String key) {
+        Reconciliation reconciliation;
+        List<Handler<AsyncResult<Void>>> handlers;
+        synchronized (this) {
+            Assembly assembly = assemblies.get(key);
+            if (assembly == null || assembly.running || assembly.waiting == null) {
+                return;
+            }
+            if (assembly.timerId != null) {
+                vertx.cancelTimer(assembly.timerId);
+                assembly.timerId = null;
+            }
+            String trigger = assembly.immediate ? IMMEDIATE : DELAYED;
+            waitCount.merge(trigger, 1L, Long::sum);
+            waitNanos.merge(trigger, System.nanoTime() - assembly.waitingSinceNanos, Long::sum);
+            reconciliation = assembly.waiting;
+            handlers = new ArrayList<>(assembly.handlers);
+            assembly.waiting = null;
+            assembly.handlers.clear();
+            assembly.running = true;
+        }
+        log.debug("{}: Starting reconciliation", reconciliation);
+        try {
+            reconciler.accept(reconciliation, ar -> finished(key, handlers, ar));
+        } catch (Throwable t) {
+            log.error("{}: Reconciliation threw", reconciliation, t);
+            finished(key, handlers, Future.failedFuture(t));
+        }
+    }
+
+    private void finished(String key, List<Handler<AsyncResult<Void>>> handlers, AsyncResult<Void> result) {
+        boolean followUp;
+        synchronized (this) {
+            Assembly assembly = assemblies.get(key);
+            assembly.running = false;
+            followUp = assembly.waiting != null;
+            if (!followUp) {
+                assemblies.remove(key);
+            }
+        }
+        if (followUp) {
+            // The follow-up has already waited for this reconciliation, so start it without any remaining delay
+            startWaiting(key);
+        }
+        for (Handler<AsyncResult<Void>> handler : handlers) {
+            handler.handle(result);
+        }
+    }
+}
@@ -6,15 +6,22 @@ package io.strimzi.operator.cluster.operator.resource;
 
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.internal.readiness.Readiness;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 
 /**
  * Specializes {@link AbstractResourceOperator} for resources which also have a notion
@@ -28,6 +35,12 @@ import java.util.function.BiPredicate;
 public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L extends KubernetesResourceList/*<T>*/, D, R extends Resource<T, D>>
         extends AbstractResourceOperator<C, T, L, D, R> {
 
+    /**
+     * The default interval at which to poll for readiness. Readiness is normally noticed via watch events,
+     * so this only bounds how long a missed event can delay a wait.
+     */
+    public static final long DEFAULT_POLL_INTERVAL_MS = 5_000;
+
     private final Logger log = LogManager.getLogger(getClass());
 
     /**
@@ -41,13 +54,37 @@ public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L
         super(vertx, client, resourceKind);
     }
 
-    public Future<Void> readiness(String namespace, String name, long pollIntervalMs, long timeoutMs) {
-        return waitFor(namespace, name, pollIntervalMs, timeoutMs, this::isReady);
+    /**
+     * Constructor.
+     *
+     * @param vertx        The vertx instance.
+     * @param client       The kubernetes client.
+     * @param resourceKind The mind of Kubernetes resource (used for logging).
+     * @param cache        The cache to serve reads from, or null to always read from the API server.
+     */
+    public AbstractReadyResourceOperator(Vertx vertx, C client, String resourceKind, ResourceCache<T> cache) {
+        super(vertx, client, resourceKind, cache);
     }
 
     /**
      * Returns a future that completes when the resource identified by the given {@code namespace} and {@code name}
-     * is ready.
+     * is ready. The resource is watched, and the future completes on the first watch event in which the resource
+     * is ready, without any further API call. The resource is also polled, as a fallback in case the watch
+     * can't be established or misses an event.
+     *
+     * @param namespace The namespace.
+     * @param name The resource name.
+     * @param pollIntervalMs The fallback poll interval in milliseconds.
+     * @param timeoutMs The timeout, in milliseconds.
+     */
+    public Future<Void> readiness(String namespace, String name, long pollIntervalMs, long timeoutMs) {
+        return waitFor(namespace, name, pollIntervalMs, timeoutMs, this::isReady, resource -> isReady(resource));
+    }
+
+    /**
+     * Returns a future that completes when the given {@code predicate} is true for the resource identified by
+     * the given {@code namespace} and {@code name}. The predicate is tested again whenever the resource changes,
+     * as well as every {@code pollIntervalMs}.
      *
      * @param namespace The namespace.
      * @param name The resource name.
@@ -56,43 +93,68 @@ public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L
      * @param predicate The predicate.
      */
     public Future<Void> waitFor(String namespace, String name, long pollIntervalMs, long timeoutMs, BiPredicate<String, String> predicate) {
+        return waitFor(namespace, name, pollIntervalMs, timeoutMs, predicate, null);
+    }
+
+    /**
+     * Returns a future that completes when the given {@code predicate} is true for the resource identified by
+     * the given {@code namespace} and {@code name}.
+     * The predicate is tested every {@code pollIntervalMs}. In addition, changes to the resource are observed via the
+     * cache, if it is synced for the namespace, or otherwise via a watch on the resource. If an {@code eventPredicate}
+     * is given it is tested against the resource in each change, otherwise each change causes the {@code predicate}
+     * to be tested again.
+     */
+    protected Future<Void> waitFor(String namespace, String name, long pollIntervalMs, long timeoutMs,
+                                   BiPredicate<String, String> predicate, Predicate<T> eventPredicate) {
         Future<Void> fut = Future.future();
         log.debug("Waiting for {} resource {} in namespace {} to get ready", resourceKind, name, namespace);
         long deadline = System.currentTimeMillis() + timeoutMs;
+        Future<Void> done = Future.future();
+        Handler<T> onChange = resource -> {
+            if (done.isComplete()) {
+                return;
+            }
+            if (eventPredicate != null) {
+                if (resource != null && eventPredicate.test(resource)) {
+                    done.tryComplete();
+                }
+            } else {
+                test(namespace, name, predicate, res -> {
+                    if (res.succeeded()) {
+                        done.tryComplete();
+                    }
+                });
+            }
+        };
+        Runnable unwatch = watchChanges(namespace, name, onChange);
+        done.setHandler(res -> {
+            // Don't close the watch from within its own event callback
+            vertx.runOnContext(v -> unwatch.run());
+            if (res.succeeded()) {
+                log.debug("{} {} in namespace {} is ready", resourceKind, name, namespace);
+            }
+            fut.handle(res);
+        });
         Handler<Long> handler = new Handler<Long>() {
             @Override
             public void handle(Long timerId) {
-                vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
-                    future -> {
-                        try {
-                            if (predicate.test(namespace, name))   {
-                                future.complete();
-                            } else {
-                                log.trace("{} {} in namespace {} is not ready", resourceKind, name, namespace);
-                                future.fail("Not ready yet");
-                            }
-                        } catch (Throwable e) {
-                            log.warn("Caught exception while waiting for {} {} in namespace {} to get ready", resourceKind, name, namespace, e);
-                            future.fail(e);
-                        }
-                    },
-                    true,
-                    res -> {
-                        if (res.succeeded()) {
-                            log.debug("{} {} in namespace {} is ready", resourceKind, name, namespace);
-                            fut.complete();
+                test(namespace, name, predicate, res -> {
+                    if (done.isComplete()) {
+                        return;
+                    }
+                    if (res.succeeded()) {
+                        done.tryComplete();
+                    } else {
+                        long timeLeft = deadline - System.currentTimeMillis();
+                        if (timeLeft <= 0) {
+                            log.error("Exceeded timeoutMs of {} ms while waiting for {} {} in namespace {} to be ready", timeoutMs, resourceKind, name, namespace);
+                            done.tryFail(new TimeoutException());
                         } else {
-                            long timeLeft = deadline - System.currentTimeMillis();
-                            if (timeLeft <= 0) {
-                                log.error("Exceeded timeoutMs of {} ms while waiting for {} {} in namespace {} to be ready", timeoutMs, resourceKind, name, namespace);
-                                fut.fail(new TimeoutException());
-                            } else {
-                                // Schedule ourselves to run again
-                                vertx.setTimer(Math.min(pollIntervalMs, timeLeft), this);
-                            }
+                            // Schedule ourselves to run again
+                            vertx.setTimer(Math.min(pollIntervalMs, timeLeft), this);
                         }
                     }
-                );
+                });
             }
         };
 
@@ -102,6 +164,87 @@ public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L
         return fut;
     }
 
+    /**
+     * Calls the given {@code onChange} handler with the resource identified by the given {@code namespace}
+     * and {@code name} whenever it changes (or with null if it is deleted), returning a Runnable which stops
+     * doing so. Changes come from the cache if it is synced for the namespace, otherwise from a watch.
+     */
+    private Runnable watchChanges(String namespace, String name, Handler<T> onChange) {
+        if (cache != null && cache.isSynced(namespace)) {
+            cache.addListener(namespace, name, onChange);
+            return () -> cache.removeListener(namespace, name, onChange);
+        }
+        AtomicBoolean closed = new AtomicBoolean(false);
+        AtomicReference<Watch> watchRef = new AtomicReference<>();
+        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+            future -> {
+                Watch watch = watch(namespace, name, new Watcher<T>() {
+                    @Override
+                    public void eventReceived(Action action, T resource) {
+                        onChange.handle(action == Action.DELETED ? null : resource);
+                    }
+
+                    @Override
+                    public void onClose(KubernetesClientException e) {
+                        if (e != null) {
+                            log.debug("Watch on {} {} in namespace {} closed, falling back to polling", resourceKind, name, namespace, e);
+                        }
+                    }
+                });
+                watchRef.set(watch);
+                // The wait might have finished while the watch was being opened
+                if (closed.get() && watchRef.compareAndSet(watch, null) && watch != null) {
+                    watch.close();
+                }
+                future.complete();
+            },
+            false,
+            res -> {
+                if (res.failed()) {
+                    log.debug("Could not watch {} {} in namespace {}, falling back to polling", resourceKind, name, namespace, res.cause());
+                }
+            }
+        );
+        return () -> {
+            closed.set(true);
+            Watch watch = watchRef.getAndSet(null);
+            if (watch != null) {
+                watch.close();
+            }
+        };
+    }
+
+    /**
+     * Watch the resource identified by the given {@code namespace} and {@code name} using the given {@code watcher}.
+     * @param namespace The namespace
+     * @param name The name
+     * @param watcher The watcher
+     * @return The watch
+     */
+    public Watch watch(String namespace, String name, Watcher<T> watcher) {
+        return operation().inNamespace(namespace).withName(name).watch(watcher);
+    }
+
+    private void test(String namespace, String name, BiPredicate<String, String> predicate, Handler<AsyncResult<Void>> handler) {
+        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+            future -> {
+                try {
+                    if (predicate.test(namespace, name))   {
+                        future.complete();
+                    } else {
+                        log.trace("{} {} in namespace {} is not ready", resourceKind, name, namespace);
+                        future.fail("Not ready yet");
+                    }
+                } catch (Throwable e) {
+                    log.warn("Caught exception while waiting for {} {} in namespace {} to get ready", resourceKind, name, namespace, e);
+                    future.fail(e);
+                }
+            },
+            false,
+            handler
+        );
+    }
+
     /**
      * Check if a resource is in the Ready state.
      *
@@ -109,6 +252,10 @@ public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L
      * @param name The resource name.
      */
     public boolean isReady(String namespace, String name) {
+        if (cache != null && cache.isSynced(namespace)) {
+            T resource = get(namespace, name);
+            return resource != null && isReady(resource);
+        }
         R resourceOp = operation().inNamespace(namespace).withName(name);
         T resource = resourceOp.get();
         if (resource != null)   {
@@ -121,4 +268,17 @@ public abstract class AbstractReadyResourceOperator<C, T extends HasMetadata, L
             return false;
         }
     }
+
+    /**
+     * Check if the given resource is in the Ready state.
+     *
+     * @param resource The resource.
+     */
+    protected static boolean isReady(HasMetadata resource) {
+        if (Readiness.isReadinessApplicable(resource.getClass())) {
+            return Readiness.isReady(resource);
+        } else {
+            return true;
+        }
+    }
 }
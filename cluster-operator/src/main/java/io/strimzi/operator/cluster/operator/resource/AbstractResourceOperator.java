@@ -4,10 +4,14 @@
  */
 package io.strimzi.operator.cluster.operator.resource;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.strimzi.operator.cluster.ClusterOperator;
 import io.strimzi.operator.cluster.model.Labels;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
@@ -15,7 +19,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Abstract resource creation, for a generic resource type {@code R}.
@@ -30,10 +38,19 @@ import java.util.List;
 public abstract class AbstractResourceOperator<C, T extends HasMetadata,
         L extends KubernetesResourceList/*<T>*/, D, R extends Resource<T, D>> {
 
+    /**
+     * Annotation with a hash of the desired state of a resource when it was last created or patched by the operator.
+     * A resource whose hash is unchanged is not patched.
+     */
+    public static final String ANNOTATION_DESIRED_STATE_HASH = ClusterOperator.STRIMZI_CLUSTER_OPERATOR_DOMAIN + "/desired-state-hash";
+
+    private static final ObjectMapper HASH_MAPPER = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
     private final Logger log = LogManager.getLogger(getClass());
     protected final Vertx vertx;
     protected final C client;
     protected final String resourceKind;
+    protected final ResourceCache<T> cache;
 
     /**
      * Constructor.
@@ -42,9 +59,21 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
      * @param resourceKind The mind of Kubernetes resource (used for logging).
      */
     public AbstractResourceOperator(Vertx vertx, C client, String resourceKind) {
+        this(vertx, client, resourceKind, null);
+    }
+
+    /**
+     * Constructor.
+     * @param vertx The vertx instance.
+     * @param client The kubernetes client.
+     * @param resourceKind The mind of Kubernetes resource (used for logging).
+     * @param cache The cache to serve reads from, or null to always read from the API server.
+     */
+    public AbstractResourceOperator(Vertx vertx, C client, String resourceKind, ResourceCache<T> cache) {
         this.vertx = vertx;
         this.client = client;
         this.resourceKind = resourceKind;
+        this.cache = cache;
     }
 
     protected abstract MixedOperation<T, L, D, R> operation();
@@ -76,20 +105,31 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
         Future<ReconcileResult<T>> fut = Future.future();
         vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
             future -> {
-                T current = operation().inNamespace(namespace).withName(name).get();
+                T current = get(namespace, name);
                 if (desired != null) {
+                    // Read the current hash before stamping the desired one, in case they're the same object
+                    String currentHash = current != null ? annotation(current, ANNOTATION_DESIRED_STATE_HASH) : null;
+                    String desiredHash = stampDesiredStateHash(desired);
                     if (current == null) {
                         log.debug("{} {}/{} does not exist, creating it", resourceKind, namespace, name);
-                        internalCreate(namespace, name, desired).setHandler(future);
+                        internalCreate(namespace, name, desired).map(result -> cached(namespace, result)).setHandler(future);
+                    } else if (desiredHash.equals(currentHash)) {
+                        log.debug("{} {}/{} already has the desired state, noop", resourceKind, namespace, name);
+                        future.complete(ReconcileResult.noop(current));
                     } else {
                         log.debug("{} {}/{} already exists, patching it", resourceKind, namespace, name);
-                        internalPatch(namespace, name, current, desired).setHandler(future);
+                        internalPatch(namespace, name, current, desired).map(result -> cached(namespace, result)).setHandler(future);
                     }
                 } else {
                     if (current != null) {
                         // Deletion is desired
                         log.debug("{} {}/{} exist, deleting it", resourceKind, namespace, name);
-                        internalDelete(namespace, name).setHandler(future);
+                        internalDelete(namespace, name).map(result -> {
+                            if (cache != null) {
+                                cache.remove(namespace, name);
+                            }
+                            return result;
+                        }).setHandler(future);
                     } else {
                         log.debug("{} {}/{} does not exist, noop", resourceKind, namespace, name);
                         future.complete(ReconcileResult.noop());
@@ -103,6 +143,50 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
         return fut;
     }
 
+    /**
+     * Stamps the given desired resource with the {@link #ANNOTATION_DESIRED_STATE_HASH} annotation,
+     * a hash of the resource's state excluding that annotation.
+     * @return The hash.
+     */
+    static String stampDesiredStateHash(HasMetadata desired) {
+        Map<String, String> annotations = desired.getMetadata().getAnnotations();
+        if (annotations == null) {
+            annotations = new HashMap<>();
+            desired.getMetadata().setAnnotations(annotations);
+        }
+        annotations.remove(ANNOTATION_DESIRED_STATE_HASH);
+        String hash;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(HASH_MAPPER.writeValueAsBytes(desired));
+            StringBuilder sb = new StringBuilder(2 * bytes.length);
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b));
+            }
+            hash = sb.toString();
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        annotations.put(ANNOTATION_DESIRED_STATE_HASH, hash);
+        return hash;
+    }
+
+    private static String annotation(HasMetadata resource, String annotation) {
+        Map<String, String> annotations = resource.getMetadata() != null ? resource.getMetadata().getAnnotations() : null;
+        return annotations != null ? annotations.get(annotation) : null;
+    }
+
+    /**
+     * Updates the cache (if any) with the resource created or patched by the operator,
+     * so that reads don't have to wait for the watch event.
+     */
+    private ReconcileResult<T> cached(String namespace, ReconcileResult<T> result) {
+        if (cache != null && result.resource() != null) {
+            cache.put(namespace, result.resource());
+        }
+        return result;
+    }
+
     /**
      * Deletes the resource with the given namespace and name
      * and completes the given future accordingly
@@ -150,22 +234,68 @@ public abstract class AbstractResourceOperator<C, T extends HasMetadata,
 
     /**
      * Synchronously gets the resource with the given {@code name} in the given {@code namespace}.
+     * If this operator has a cache which is synced for the namespace the resource is read from the cache,
+     * otherwise it is read from the API server.
      * @param namespace The namespace.
      * @param name The name.
      * @return The resource, or null if it doesn't exist.
      */
     public T get(String namespace, String name) {
+        if (cache != null) {
+            return cache.get(namespace, name, () -> operation().inNamespace(namespace).withName(name).get());
+        }
         return operation().inNamespace(namespace).withName(name).get();
     }
 
     /**
      * Synchronously list the resources in the given {@code namespace} with the given {@code selector}.
+     * If this operator has a cache which can answer the query, the resources are listed from the cache,
+     * otherwise they are listed from the API server.
      * @param namespace The namespace.
      * @param selector The selector.
      * @return A list of matching resources.
      */
     @SuppressWarnings("unchecked")
     public List<T> list(String namespace, Labels selector) {
+        if (cache != null) {
+            return cache.list(namespace, selector.toMap(), () -> operation().inNamespace(namespace).withLabels(selector.toMap()).list().getItems());
+        }
         return operation().inNamespace(namespace).withLabels(selector.toMap()).list().getItems();
     }
+
+    /**
+     * Asynchronously gets the resource with the given {@code name} in the given {@code namespace},
+     * returning a future for the resource, or for null if it doesn't exist.
+     * The request is made on a worker thread, so this is safe to call from the event loop.
+     * @param namespace The namespace.
+     * @param name The name.
+     * @return A future for the resource.
+     */
+    public Future<T> getAsync(String namespace, String name) {
+        Future<T> fut = Future.future();
+        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+            future -> future.complete(get(namespace, name)),
+            false,
+            fut.completer()
+        );
+        return fut;
+    }
+
+    /**
+     * Asynchronously list the resources in the given {@code namespace} with the given {@code selector},
+     * returning a future for the list.
+     * The request is made on a worker thread, so this is safe to call from the event loop.
+     * @param namespace The namespace.
+     * @param selector The selector.
+     * @return A future for the list of matching resources.
+     */
+    public Future<List<T>> listAsync(String namespace, Labels selector) {
+        Future<List<T>> fut = Future.future();
+        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+            future -> future.complete(list(namespace, selector)),
+            false,
+            fut.completer()
+        );
+        return fut;
+    }
 }
@@ -36,6 +36,17 @@ public abstract class AbstractScalableResourceOperator<C, T extends HasMetadata,
         super(vertx, client, resourceKind);
     }
 
+    /**
+     * Constructor
+     * @param vertx The Vertx instance
+     * @param client The Kubernetes client
+     * @param resourceKind The kind of resource.
+     * @param cache The cache to serve reads from, or null to always read from the API server.
+     */
+    public AbstractScalableResourceOperator(Vertx vertx, C client, String resourceKind, ResourceCache<T> cache) {
+        super(vertx, client, resourceKind, cache);
+    }
+
     private R resource(String namespace, String name) {
         return operation().inNamespace(namespace).withName(name);
     }
@@ -52,29 +63,34 @@ public abstract class AbstractScalableResourceOperator<C, T extends HasMetadata,
      * The value will be null if the resource didn't exist (hence no scaling occurred).
      */
     public Future<Integer> scaleUp(String namespace, String name, int scaleTo) {
-        Future<Integer> fut = Future.future();
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
-            future -> {
-                try {
-                    Integer currentScale = currentScale(namespace, name);
-                    if (currentScale != null && currentScale < scaleTo) {
+        return currentScale(namespace, name).compose(currentScale -> {
+            if (currentScale == null || currentScale >= scaleTo) {
+                return Future.succeededFuture(currentScale);
+            }
+            Future<Integer> fut = Future.future();
+            vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+                future -> {
+                    try {
                         log.info("Scaling up to {} replicas", scaleTo);
                         resource(namespace, name).scale(scaleTo, true);
-                        currentScale = scaleTo;
+                        future.complete(scaleTo);
+                    } catch (Exception e) {
+                        log.error("Caught exception while scaling up", e);
+                        future.fail(e);
                     }
-                    future.complete(currentScale);
-                } catch (Exception e) {
-                    log.error("Caught exception while scaling up", e);
-                    future.fail(e);
-                }
-            },
-            false,
-            fut.completer()
-        );
-        return fut;
+                },
+                false,
+                fut.completer()
+            );
+            return fut;
+        });
     }
 
-    protected abstract Integer currentScale(String namespace, String name);
+    /**
+     * Asynchronously get the current scale of the resource given by {@code namespace} and {@code name},
+     * returning a future for the scale, or for null if the resource doesn't exist.
+     */
+    protected abstract Future<Integer> currentScale(String namespace, String name);
 
     /**
      * Asynchronously scale down the resource given by {@code namespace} and {@code name} to have the scale given by
@@ -88,27 +104,30 @@ public abstract class AbstractScalableResourceOperator<C, T extends HasMetadata,
      * The value will be null if the resource didn't exist (hence no scaling occurred).
      */
     public Future<Integer> scaleDown(String namespace, String name, int scaleTo) {
-        Future<Integer> fut = Future.future();
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
-            future -> {
-                try {
-                    Integer nextReplicas = currentScale(namespace, name);
-                    if (nextReplicas != null) {
+        return currentScale(namespace, name).compose(currentScale -> {
+            if (currentScale == null || currentScale <= scaleTo) {
+                return Future.succeededFuture(currentScale);
+            }
+            Future<Integer> fut = Future.future();
+            vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+                future -> {
+                    try {
+                        int nextReplicas = currentScale;
                         while (nextReplicas > scaleTo) {
                             nextReplicas--;
                             log.info("Scaling down from {} to {}", nextReplicas + 1, nextReplicas);
                             resource(namespace, name).scale(nextReplicas, true);
                         }
+                        future.complete(nextReplicas);
+                    } catch (Exception e) {
+                        log.error("Caught exception while scaling down", e);
+                        future.fail(e);
                     }
-                    future.complete(nextReplicas);
-                } catch (Exception e) {
-                    log.error("Caught exception while scaling down", e);
-                    future.fail(e);
-                }
-            },
-            false,
-            fut.completer()
-        );
-        return fut;
+                },
+                false,
+                fut.completer()
+            );
+            return fut;
+        });
     }
 }
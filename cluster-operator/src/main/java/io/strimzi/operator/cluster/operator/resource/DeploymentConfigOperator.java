@@ -32,13 +32,8 @@ public class DeploymentConfigOperator extends AbstractScalableResourceOperator<O
     }
 
     @Override
-    protected Integer currentScale(String namespace, String name) {
-        DeploymentConfig deploymentConfig = get(namespace, name);
-        if (deploymentConfig != null) {
-            return deploymentConfig.getSpec().getReplicas();
-        } else {
-            return null;
-        }
+    protected Future<Integer> currentScale(String namespace, String name) {
+        return getAsync(namespace, name).map(deploymentConfig -> deploymentConfig != null ? deploymentConfig.getSpec().getReplicas() : null);
     }
 
     @Override
@@ -10,6 +10,7 @@ import io.fabric8.kubernetes.api.model.extensions.DoneableDeployment;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.ScalableResource;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 
 /**
@@ -31,12 +32,7 @@ public class DeploymentOperator extends AbstractScalableResourceOperator<Kuberne
     }
 
     @Override
-    protected Integer currentScale(String namespace, String name) {
-        Deployment deployment = get(namespace, name);
-        if (deployment != null) {
-            return deployment.getSpec().getReplicas();
-        } else {
-            return null;
-        }
+    protected Future<Integer> currentScale(String namespace, String name) {
+        return getAsync(namespace, name).map(deployment -> deployment != null ? deployment.getSpec().getReplicas() : null);
     }
 }
@@ -25,6 +25,16 @@ class EndpointOperator extends AbstractReadyResourceOperator<KubernetesClient, E
         super(vertx, client, "Endpoints");
     }
 
+    /**
+     * Constructor
+     * @param vertx The Vertx instance
+     * @param client The Kubernetes client
+     * @param cache The cache to serve reads from, or null to always read from the API server.
+     */
+    EndpointOperator(Vertx vertx, KubernetesClient client, ResourceCache<Endpoints> cache) {
+        super(vertx, client, "Endpoints", cache);
+    }
+
     @Override
     protected MixedOperation<Endpoints, EndpointsList, DoneableEndpoints, Resource<Endpoints, DoneableEndpoints>> operation() {
         return client.endpoints();
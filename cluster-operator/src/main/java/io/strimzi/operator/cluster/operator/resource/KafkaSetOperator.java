@@ -4,20 +4,66 @@
  */
 package io.strimzi.operator.cluster.operator.resource;
 
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSetBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.strimzi.operator.cluster.model.KafkaCluster;
+import io.strimzi.operator.cluster.model.KafkaConfiguration;
+import io.strimzi.operator.cluster.model.Labels;
+import io.strimzi.operator.cluster.model.RackConfig;
+import io.strimzi.operator.cluster.model.RollingUpdateConfig;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.DescribeClusterResult;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 
 /**
- * Specialization of {@link StatefulSetOperator} for StatefulSets of Kafka brokers
+ * <p>Specialization of {@link StatefulSetOperator} for StatefulSets of Kafka brokers.</p>
+ *
+ * <p>Changes to the dynamic options of the Kafka configuration (see {@link KafkaConfiguration#isDynamic(String)})
+ * are applied to the running brokers using the Kafka admin client, rather than by restarting the brokers.</p>
  */
 public class KafkaSetOperator extends StatefulSetOperator {
 
     private static final Logger log = LogManager.getLogger(KafkaSetOperator.class);
 
+    private final long operationTimeoutMs;
+
     /**
      * Constructor
      *
@@ -26,6 +72,21 @@ public class KafkaSetOperator extends StatefulSetOperator {
      */
     public KafkaSetOperator(Vertx vertx, KubernetesClient client, long operationTimeoutMs) {
         super(vertx, client, operationTimeoutMs);
+        this.operationTimeoutMs = operationTimeoutMs;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param vertx  The Vertx instance
+     * @param client The Kubernetes client
+     * @param statefulSetCache The cache to serve StatefulSet reads from.
+     * @param podCache The cache to serve Pod reads from.
+     */
+    public KafkaSetOperator(Vertx vertx, KubernetesClient client, long operationTimeoutMs,
+            ResourceCache<StatefulSet> statefulSetCache, ResourceCache<Pod> podCache) {
+        super(vertx, client, operationTimeoutMs, statefulSetCache, podCache);
+        this.operationTimeoutMs = operationTimeoutMs;
     }
 
     @Override
@@ -35,7 +96,116 @@ public class KafkaSetOperator extends StatefulSetOperator {
             log.warn("Changing Kafka storage type or size is not possible. The changes will be ignored.");
             diff = revertStorageChanges(current, desired);
         }
-        return !diff.isEmpty() && needsRollingUpdate(diff);
+        if (diff.isEmpty() || !needsRollingUpdate(diff)) {
+            return false;
+        }
+        if (changesOnlyDynamicConfiguration(current, desired)) {
+            log.debug("Changed only dynamic Kafka configuration options => no rolling update");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the only changes from the {@code current} to the {@code desired} StatefulSet which need a rolling
+     * update are changes to dynamic options of the Kafka configuration. Neither StatefulSet is modified.
+     */
+    static boolean changesOnlyDynamicConfiguration(StatefulSet current, StatefulSet desired) {
+        KafkaConfiguration currentConfig = KafkaCluster.configuration(current);
+        KafkaConfiguration desiredConfig = KafkaCluster.configuration(desired);
+        if (currentConfig == null || desiredConfig == null || !desiredConfig.changesOnlyDynamicOptions(currentConfig)) {
+            return false;
+        }
+        // Diff again without the configuration change, to check nothing else needs a rolling update
+        StatefulSet withCurrentConfig = new StatefulSetBuilder(desired).build();
+        KafkaCluster.configurationEnvVar(withCurrentConfig).setValue(KafkaCluster.configurationEnvVar(current).getValue());
+        return !needsRollingUpdate(new StatefulSetDiff(current, withCurrentConfig));
+    }
+
+    /**
+     * Overridden to apply changes to the dynamic options of the Kafka configuration to the cluster-wide dynamic
+     * configuration of the brokers. A change which is only to dynamic options is applied to the running brokers
+     * rather than restarting them, and if the brokers reject it the StatefulSet is patched for a rolling update
+     * instead. When the brokers are being restarted anyway the cluster-wide dynamic configuration is still updated,
+     * because it takes precedence over the static configuration the brokers restart with.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected Future<ReconcileResult<StatefulSet>> internalPatch(String namespace, String name, StatefulSet current, StatefulSet desired) {
+        boolean rollingUpdate = shouldIncrementGeneration(current, desired);
+        KafkaConfiguration currentConfig = KafkaCluster.configuration(current);
+        KafkaConfiguration desiredConfig = KafkaCluster.configuration(desired);
+        if (currentConfig != null && desiredConfig != null
+                && !desiredConfig.dynamicOptions().equals(currentConfig.dynamicOptions())) {
+            Map<String, String> options = desiredConfig.dynamicOptions();
+            Set<String> removed = new HashSet<>(currentConfig.dynamicOptions().keySet());
+            removed.removeAll(options.keySet());
+            log.info("Updating the dynamic configuration of {}/{} to {}, removing {}", namespace, name, options, removed);
+            try {
+                alterDynamicConfiguration(namespace, Labels.cluster(current), options, removed);
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                if (rollingUpdate) {
+                    log.warn("Failed to update the dynamic configuration of {}/{}, the brokers will restart with "
+                            + "their previous cluster-wide dynamic configuration", namespace, name, cause);
+                } else {
+                    log.warn("Failed to update the dynamic configuration of {}/{} => needs rolling update", namespace, name, cause);
+                    rollingUpdate = true;
+                }
+            }
+        }
+        return internalPatch(namespace, name, current, desired, rollingUpdate);
+    }
+
+    /**
+     * Set the given options in the cluster-wide dynamic configuration of the brokers of the given cluster, and
+     * remove the given removed options from it. Other cluster-wide dynamic options, which were set outside the
+     * operator, are kept. Blocks until the brokers have accepted the change.
+     *
+     * @param namespace The namespace of the cluster.
+     * @param cluster The name of the cluster.
+     * @param options The dynamic options to set.
+     * @param removed The names of the dynamic options to remove.
+     * @throws Exception If the brokers could not be updated.
+     */
+    protected void alterDynamicConfiguration(String namespace, String cluster, Map<String, String> options, Set<String> removed) throws Exception {
+        // A broker resource with an empty name is the cluster-wide default for all the brokers
+        ConfigResource resource = new ConfigResource(ConfigResource.Type.BROKER, "");
+        try (AdminClient adminClient = adminClient(namespace, cluster)) {
+            Config existing = adminClient.describeConfigs(singleton(resource)).all()
+                    .get(operationTimeoutMs, TimeUnit.MILLISECONDS).get(resource);
+            // alterConfigs replaces the whole cluster-wide dynamic configuration
+            adminClient.alterConfigs(singletonMap(resource, clusterDynamicConfig(existing, options, removed)))
+                    .all().get(operationTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The cluster-wide dynamic configuration which results from setting the given options in, and removing the
+     * given removed options from, the {@code existing} cluster-wide dynamic configuration.
+     *
+     * @throws IllegalStateException If an existing option which has to be kept is sensitive,
+     * because the brokers don't return the value of sensitive options.
+     */
+    static Config clusterDynamicConfig(Config existing, Map<String, String> options, Set<String> removed) {
+        Map<String, String> result = new TreeMap<>();
+        for (ConfigEntry entry : existing.entries()) {
+            if (entry.source() == ConfigEntry.ConfigSource.DYNAMIC_DEFAULT_BROKER_CONFIG
+                    && !options.containsKey(entry.name()) && !removed.contains(entry.name())) {
+                if (entry.isSensitive() || entry.value() == null) {
+                    throw new IllegalStateException("The cluster-wide dynamic option " + entry.name()
+                            + " is sensitive, so it can't be kept while updating the dynamic configuration");
+                }
+                result.put(entry.name(), entry.value());
+            }
+        }
+        result.putAll(options);
+        List<ConfigEntry> entries = new ArrayList<>(result.size());
+        for (Map.Entry<String, String> option : result.entrySet()) {
+            entries.add(new ConfigEntry(option.getKey(), option.getValue()));
+        }
+        return new Config(entries);
     }
 
     public static boolean needsRollingUpdate(StatefulSetDiff diff) {
@@ -49,4 +219,356 @@ public class KafkaSetOperator extends StatefulSetOperator {
         }
         return false;
     }
+
+    /**
+     * Asynchronously perform a rolling update of the brokers in the given StatefulSet according to the given
+     * {@code rollingUpdateConfig}. Brokers which need to be restarted are restarted in batches: either all the
+     * brokers in the same rack together, if the config is rack aware, or otherwise up to
+     * {@link RollingUpdateConfig#getMaxUnavailable()} brokers together.
+     * The broker which is currently the controller is restarted in the last batch, so that the controller
+     * only moves once. The next batch is only started once the brokers of the previous batch are ready and
+     * have rejoined the in-sync replicas of all their partitions.
+     * The racks and the controller are read from the cluster using the Kafka admin client. If they can't be
+     * determined the update still proceeds, in batches of {@code maxUnavailable} and in the normal order.
+     *
+     * @param ss The StatefulSet.
+     * @param rollingUpdateConfig How to batch the restarts, or null to restart the brokers one at a time.
+     * @param rackConfig The rack configuration of the brokers, or null if they're not rack aware.
+     * @return A future which completes when the rolling update is complete.
+     */
+    public Future<Void> maybeRollingUpdate(StatefulSet ss, RollingUpdateConfig rollingUpdateConfig, RackConfig rackConfig) {
+        if (rollingUpdateConfig == null || rollingUpdateConfig.isSequential()) {
+            return maybeRollingUpdate(ss);
+        }
+        String namespace = ss.getMetadata().getNamespace();
+        String name = ss.getMetadata().getName();
+        String cluster = Labels.cluster(ss);
+        List<String> podNames = new ArrayList<>();
+        List<Future> upToDate = new ArrayList<>();
+        for (int i = 0; i < ss.getSpec().getReplicas(); i++) {
+            String podName = name + "-" + i;
+            podNames.add(podName);
+            upToDate.add(isPodUpToDate(ss, podName));
+        }
+        Future<List<String>> podsToRoll = CompositeFuture.all(upToDate).map(results -> {
+            List<String> result = new ArrayList<>();
+            for (int i = 0; i < podNames.size(); i++) {
+                if (!results.<Boolean>resultAt(i)) {
+                    result.add(podNames.get(i));
+                }
+            }
+            return result;
+        });
+        return podsToRoll.compose(pods -> {
+            if (pods.isEmpty()) {
+                log.debug("Rolling update of {}/{}: no pods need to roll", namespace, name);
+                return Future.succeededFuture();
+            }
+            SharedAdminClient adminClient = new SharedAdminClient(namespace, cluster, () -> adminClient(namespace, cluster));
+            Future<Void> rolled = describeCluster(adminClient).compose(description -> {
+                boolean rackAware = rollingUpdateConfig.isRackAware() && rackConfig != null;
+                Map<String, String> podRacks = rackAware ? podRacks(namespace, pods, description) : null;
+                String controllerPod = description != null && description.controller != null ? name + "-" + description.controller : null;
+                List<List<String>> batches = batches(pods, podRacks, rollingUpdateConfig.getMaxUnavailable(), controllerPod);
+                log.info("Starting rolling update of {}/{} in batches {}", namespace, name, batches);
+                Future<Void> f = Future.succeededFuture();
+                for (List<String> batch : batches) {
+                    f = f.compose(ignored -> {
+                        log.info("Rolling update of {}/{}: restarting batch {}", namespace, name, batch);
+                        return maybeRollingUpdate(ss, singletonList(batch));
+                    }).compose(ignored -> awaitInSync(adminClient, brokerIds(batch)));
+                }
+                return f;
+            });
+            Future<Void> result = Future.future();
+            rolled.setHandler(res -> close(adminClient).setHandler(ignored -> result.handle(res)));
+            return result;
+        });
+    }
+
+    /**
+     * Groups the given {@code pods} into the batches in which they should be restarted.
+     * If {@code podRacks} is given each rack is a batch, otherwise batches have at most {@code maxUnavailable} pods.
+     * The batch containing the {@code controllerPod} (if not null) comes last.
+     */
+    static List<List<String>> batches(List<String> pods, Map<String, String> podRacks, int maxUnavailable, String controllerPod) {
+        List<String> ordered = new ArrayList<>(pods);
+        if (controllerPod != null && ordered.remove(controllerPod)) {
+            ordered.add(controllerPod);
+        }
+        List<List<String>> batches = new ArrayList<>();
+        if (podRacks != null) {
+            Map<String, List<String>> byRack = new LinkedHashMap<>();
+            for (String pod : ordered) {
+                byRack.computeIfAbsent(podRacks.get(pod), k -> new ArrayList<>()).add(pod);
+            }
+            if (controllerPod != null) {
+                String controllerRack = podRacks.get(controllerPod);
+                List<String> controllerBatch = byRack.remove(controllerRack);
+                if (controllerBatch != null) {
+                    byRack.put(controllerRack, controllerBatch);
+                }
+            }
+            batches.addAll(byRack.values());
+        } else {
+            for (int i = 0; i < ordered.size(); i += maxUnavailable) {
+                batches.add(new ArrayList<>(ordered.subList(i, Math.min(i + maxUnavailable, ordered.size()))));
+            }
+        }
+        return batches;
+    }
+
+    /**
+     * The id of the broker running in the pod with the given name, which is the ordinal of the pod.
+     */
+    static int brokerId(String podName) {
+        return Integer.parseInt(podName.substring(podName.lastIndexOf('-') + 1));
+    }
+
+    private static Set<Integer> brokerIds(List<String> podNames) {
+        Set<Integer> ids = new HashSet<>(podNames.size());
+        for (String podName : podNames) {
+            ids.add(brokerId(podName));
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the rack of each of the given {@code pods}, according to the {@code broker.rack} of its broker
+     * in the given cluster {@code description}, or null if the rack of any pod can't be determined.
+     */
+    private static Map<String, String> podRacks(String namespace, List<String> pods, ClusterDescription description) {
+        if (description == null) {
+            log.warn("Could not determine the racks of the brokers in namespace {}, so not rolling by rack", namespace);
+            return null;
+        }
+        Map<String, String> podRacks = new HashMap<>();
+        for (String podName : pods) {
+            String rack = description.racks.get(brokerId(podName));
+            if (rack == null) {
+                log.warn("Could not determine the rack of pod {} in namespace {}, so not rolling by rack", podName, namespace);
+                return null;
+            }
+            podRacks.put(podName, rack);
+        }
+        return podRacks;
+    }
+
+    /**
+     * The controller and the racks of the brokers of a Kafka cluster, as described by the cluster itself.
+     */
+    static class ClusterDescription {
+        /** The id of the controller, or null if there is none. */
+        final Integer controller;
+        /** The rack of each broker which has one, by broker id. */
+        final Map<Integer, String> racks;
+
+        ClusterDescription(Integer controller, Map<Integer, String> racks) {
+            this.controller = controller;
+            this.racks = racks;
+        }
+    }
+
+    /**
+     * An admin client which is shared by the operations of a rolling update, rather than each check creating
+     * its own. It is created when it's first needed (and again if that failed), and closed once the rolling
+     * update has finished.
+     */
+    static class SharedAdminClient {
+        final String namespace;
+        final String cluster;
+        private final Supplier<AdminClient> factory;
+        private AdminClient adminClient;
+
+        SharedAdminClient(String namespace, String cluster, Supplier<AdminClient> factory) {
+            this.namespace = namespace;
+            this.cluster = cluster;
+            this.factory = factory;
+        }
+
+        synchronized AdminClient get() {
+            if (adminClient == null) {
+                adminClient = factory.get();
+            }
+            return adminClient;
+        }
+
+        /**
+         * @return The admin client, which the caller has to close, or null if none was created.
+         */
+        synchronized AdminClient release() {
+            AdminClient result = adminClient;
+            adminClient = null;
+            return result;
+        }
+    }
+
+    private Future<Void> close(SharedAdminClient adminClient) {
+        AdminClient released = adminClient.release();
+        if (released == null) {
+            return Future.succeededFuture();
+        }
+        Future<Void> result = Future.future();
+        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").<Void>executeBlocking(
+            future -> {
+                released.close();
+                future.complete();
+            }, false, result.completer());
+        return result;
+    }
+
+    /**
+     * Returns a future which completes with the description of the given cluster, read using the
+     * Kafka admin client, or with null if the cluster can't be described.
+     */
+    protected Future<ClusterDescription> describeCluster(SharedAdminClient adminClient) {
+        Future<ClusterDescription> result = Future.future();
+        withAdminClient(adminClient, client -> {
+            DescribeClusterResult described = client.describeCluster();
+            Node controller = described.controller().get(operationTimeoutMs, TimeUnit.MILLISECONDS);
+            Map<Integer, String> racks = new HashMap<>();
+            for (Node node : described.nodes().get(operationTimeoutMs, TimeUnit.MILLISECONDS)) {
+                if (node.hasRack()) {
+                    racks.put(node.id(), node.rack());
+                }
+            }
+            return new ClusterDescription(controller == null || controller.isEmpty() ? null : controller.id(), racks);
+        }).setHandler(res -> {
+            if (res.failed()) {
+                log.warn("Could not describe the Kafka cluster {}/{}", adminClient.namespace, adminClient.cluster, res.cause());
+                result.complete(null);
+            } else {
+                result.complete(res.result());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns a future which completes once each of the given brokers is in the in-sync replicas of every
+     * partition it is a replica of, or fails with a {@link TimeoutException} if that doesn't happen
+     * within the operation timeout.
+     */
+    protected Future<Void> awaitInSync(SharedAdminClient adminClient, Set<Integer> brokerIds) {
+        return awaitInSync(adminClient, brokerIds, DEFAULT_POLL_INTERVAL_MS);
+    }
+
+    /**
+     * Like {@link #awaitInSync(SharedAdminClient, Set)}, checking every {@code pollIntervalMs}.
+     * All the topics are described by the first check, and later checks only describe the topics with
+     * partitions which the given brokers hadn't rejoined the in-sync replicas of.
+     */
+    Future<Void> awaitInSync(SharedAdminClient adminClient, Set<Integer> brokerIds, long pollIntervalMs) {
+        String namespace = adminClient.namespace;
+        String cluster = adminClient.cluster;
+        Future<Void> result = Future.future();
+        long deadline = System.currentTimeMillis() + operationTimeoutMs;
+        Handler<Long> check = new Handler<Long>() {
+            /** The partitions the brokers are not in sync for, or null until all the topics have been described. */
+            private Set<TopicPartition> outOfSync;
+
+            @Override
+            public void handle(Long timerId) {
+                Set<TopicPartition> previous = outOfSync;
+                withAdminClient(adminClient, client -> {
+                    Collection<String> topics = previous == null
+                            ? client.listTopics(new ListTopicsOptions().listInternal(true)).names().get(operationTimeoutMs, TimeUnit.MILLISECONDS)
+                            : previous.stream().map(TopicPartition::topic).collect(Collectors.toSet());
+                    Set<TopicPartition> partitions = outOfSync(describeTopics(client, topics), brokerIds);
+                    if (previous != null) {
+                        partitions.retainAll(previous);
+                    }
+                    return partitions;
+                }).setHandler(res -> {
+                    if (res.succeeded()) {
+                        outOfSync = res.result();
+                    }
+                    if (outOfSync != null && outOfSync.isEmpty()) {
+                        log.debug("Brokers {} of {}/{} are in sync", brokerIds, namespace, cluster);
+                        result.complete();
+                    } else if (System.currentTimeMillis() > deadline) {
+                        log.error("Brokers {} of {}/{} did not rejoin the in-sync replicas of partitions {}", brokerIds, namespace, cluster,
+                                outOfSync == null ? "(could not be described)" : outOfSync);
+                        result.fail(new TimeoutException());
+                    } else {
+                        if (res.failed()) {
+                            log.debug("Could not check whether brokers {} of {}/{} are in sync", brokerIds, namespace, cluster, res.cause());
+                        } else {
+                            log.debug("Brokers {} of {}/{} are not in sync for partitions {}", brokerIds, namespace, cluster, outOfSync);
+                        }
+                        vertx.setTimer(pollIntervalMs, this);
+                    }
+                });
+            }
+        };
+        check.handle(null);
+        return result;
+    }
+
+    /**
+     * Describes the given topics, ignoring any which have been deleted since they were listed.
+     */
+    private Collection<TopicDescription> describeTopics(AdminClient client, Collection<String> topics) throws Exception {
+        List<TopicDescription> result = new ArrayList<>(topics.size());
+        for (KafkaFuture<TopicDescription> description : client.describeTopics(topics).values().values()) {
+            try {
+                result.add(description.get(operationTimeoutMs, TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof UnknownTopicOrPartitionException)) {
+                    throw e;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The partitions of the given topics which have one of the given brokers as a replica
+     * but not among their in-sync replicas.
+     */
+    static Set<TopicPartition> outOfSync(Collection<TopicDescription> topics, Set<Integer> brokerIds) {
+        Set<TopicPartition> result = new HashSet<>();
+        for (TopicDescription topic : topics) {
+            for (TopicPartitionInfo partition : topic.partitions()) {
+                for (Node replica : partition.replicas()) {
+                    if (brokerIds.contains(replica.id())
+                            && partition.isr().stream().noneMatch(isr -> isr.id() == replica.id())) {
+                        result.add(new TopicPartition(topic.name(), partition.partition()));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface AdminClientOperation<T> {
+        T apply(AdminClient adminClient) throws Exception;
+    }
+
+    /**
+     * Performs the given blocking operation with the given shared admin client on a worker thread,
+     * returning a future for its result.
+     */
+    private <T> Future<T> withAdminClient(SharedAdminClient adminClient, AdminClientOperation<T> operation) {
+        Future<T> result = Future.future();
+        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").<T>executeBlocking(
+            future -> {
+                try {
+                    future.complete(operation.apply(adminClient.get()));
+                } catch (ExecutionException e) {
+                    future.fail(e.getCause());
+                } catch (Exception e) {
+                    future.fail(e);
+                }
+            }, false, result.completer());
+        return result;
+    }
+
+    private AdminClient adminClient(String namespace, String cluster) {
+        Properties props = new Properties();
+        props.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, KafkaCluster.bootstrapServers(namespace, cluster));
+        props.setProperty(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, String.valueOf(operationTimeoutMs));
+        return AdminClient.create(props);
+    }
 }
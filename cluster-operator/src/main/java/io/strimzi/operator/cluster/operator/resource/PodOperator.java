@@ -8,7 +8,6 @@ import io.fabric8.kubernetes.api.model.DoneablePod;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.PodResource;
@@ -28,19 +27,18 @@ class PodOperator extends AbstractReadyResourceOperator<KubernetesClient, Pod, P
         super(vertx, client, "Pods");
     }
 
+    /**
+     * Constructor
+     * @param vertx The Vertx instance
+     * @param client The Kubernetes client
+     * @param cache The cache to serve reads from, or null to always read from the API server.
+     */
+    PodOperator(Vertx vertx, KubernetesClient client, ResourceCache<Pod> cache) {
+        super(vertx, client, "Pods", cache);
+    }
+
     @Override
     protected MixedOperation<Pod, PodList, DoneablePod, PodResource<Pod, DoneablePod>> operation() {
         return client.pods();
     }
-
-    /**
-     * Watch the pod identified by the given {@code namespace} and {@code name} using the given {@code watcher}.
-     * @param namespace The namespace
-     * @param name The name
-     * @param watcher The watcher
-     * @return The watch
-     */
-    public Watch watch(String namespace, String name, Watcher<Pod> watcher) {
-        return operation().inNamespace(namespace).withName(name).watch(watcher);
-    }
 }
@@ -38,6 +38,17 @@ public abstract class ReconcileResult<R> {
         }
     }
 
+    public static class Noop<R> extends ReconcileResult<R> {
+
+        private Noop(R resource) {
+            super(resource);
+        }
+
+        public String toString() {
+            return "NOOP";
+        }
+    }
+
     /** The resource was patched. */
     public static final <D> Patched<D> patched(D resource) {
         return new Patched(resource);
@@ -58,6 +69,11 @@ public abstract class ReconcileResult<R> {
         return NOOP;
     }
 
+    /** No action was performed, because the given existing resource was already in the desired state. */
+    public static final <P> ReconcileResult<P> noop(P resource) {
+        return new Noop<>(resource);
+    }
+
     private final R resource;
 
     private ReconcileResult(R resource) {
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.operator.resource;
+
+import io.fabric8.kubernetes.api.model.Endpoints;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.strimzi.operator.cluster.model.Labels;
+import io.strimzi.operator.common.Metrics;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A local copy of the resources of one kind which have a {@code strimzi.io/cluster} label,
+ * kept up to date by a watch in each namespace the cache has been {@linkplain #start(String) started} for.
+ * A single cache can be shared by all the operators for that kind of resource.
+ *
+ * <p>In each namespace the resources are listed once and then a watch is started from the resource version of
+ * that list. If the watch is lost the namespace is marked as not synced, reads for it fall back to the API server,
+ * and the list and watch are restarted.</p>
+ *
+ * <p>Listeners can be registered for a particular resource, to be told about each watch event for it,
+ * so that callers waiting for a resource to change don't need to poll the API server.</p>
+ *
+ * <p>Only resources with the {@code strimzi.io/cluster} label are cached, so {@link #get(String, String, Supplier)}
+ * for a resource which isn't in the cache, including any resource without that label, always falls through to the
+ * API server. Looking up a resource which doesn't exist therefore always needs an API call.</p>
+ *
+ * <p>The number of reads served by the cache (that is, API calls avoided) and the number of reads which had to
+ * go to the API server are counted, and can be {@linkplain #registerMetrics(Metrics) exposed as metrics}.</p>
+ *
+ * @param <T> The Kubernetes resource type.
+ */
+public class ResourceCache<T extends HasMetadata> {
+
+    private static final Logger log = LogManager.getLogger(ResourceCache.class.getName());
+
+    private static final long DEFAULT_RESYNC_DELAY_MS = 5_000L;
+
+    private final Vertx vertx;
+    private final String resourceKind;
+    private final Function<String, NonNamespaceOperation<T, ? extends KubernetesResourceList, ?, ?>> operation;
+    private final long resyncDelayMs;
+    private final Map<String, NamespaceCache> namespaces = new ConcurrentHashMap<>();
+    private final Map<String, List<Handler<T>>> listeners = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param vertx The Vertx instance
+     * @param resourceKind The kind of resource (used for logging).
+     * @param operation Gets the operations for the resources in a namespace.
+     */
+    public ResourceCache(Vertx vertx, String resourceKind, Function<String, NonNamespaceOperation<T, ? extends KubernetesResourceList, ?, ?>> operation) {
+        this(vertx, resourceKind, operation, DEFAULT_RESYNC_DELAY_MS);
+    }
+
+    ResourceCache(Vertx vertx, String resourceKind, Function<String, NonNamespaceOperation<T, ? extends KubernetesResourceList, ?, ?>> operation, long resyncDelayMs) {
+        this.vertx = vertx;
+        this.resourceKind = resourceKind;
+        this.operation = operation;
+        this.resyncDelayMs = resyncDelayMs;
+    }
+
+    public static ResourceCache<StatefulSet> statefulSets(Vertx vertx, KubernetesClient client) {
+        return new ResourceCache<>(vertx, "StatefulSet", namespace -> client.apps().statefulSets().inNamespace(namespace));
+    }
+
+    public static ResourceCache<Pod> pods(Vertx vertx, KubernetesClient client) {
+        return new ResourceCache<>(vertx, "Pods", namespace -> client.pods().inNamespace(namespace));
+    }
+
+    public static ResourceCache<Service> services(Vertx vertx, KubernetesClient client) {
+        return new ResourceCache<>(vertx, "Service", namespace -> client.services().inNamespace(namespace));
+    }
+
+    public static ResourceCache<Endpoints> endpoints(Vertx vertx, KubernetesClient client) {
+        return new ResourceCache<>(vertx, "Endpoints", namespace -> client.endpoints().inNamespace(namespace));
+    }
+
+    /**
+     * Asynchronously list the resources in the given {@code namespace} and start watching them,
+     * returning a future which completes once the cache for that namespace is synced.
+     * Until then reads for the namespace go to the API server.
+     * @param namespace The namespace.
+     * @return A future for the outcome.
+     */
+    public Future<Void> start(String namespace) {
+        NamespaceCache cache = new NamespaceCache(namespace);
+        if (namespaces.putIfAbsent(namespace, cache) != null) {
+            return Future.succeededFuture();
+        }
+        Future<Void> fut = Future.future();
+        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+            future -> {
+                cache.listAndWatch();
+                future.complete();
+            },
+            false,
+            ar -> {
+                if (ar.succeeded()) {
+                    log.info("{} cache running in namespace {}", resourceKind, namespace);
+                    fut.complete();
+                } else {
+                    log.error("Error starting {} cache in namespace {}, will retry", resourceKind, namespace, ar.cause());
+                    cache.scheduleResync();
+                    fut.fail(ar.cause());
+                }
+            }
+        );
+        return fut;
+    }
+
+    /**
+     * Stop watching resources in all namespaces.
+     */
+    public void stop() {
+        for (NamespaceCache cache : namespaces.values()) {
+            cache.stop();
+        }
+        namespaces.clear();
+    }
+
+    /**
+     * @return true if the cache for the given {@code namespace} reflects a complete list of the resources,
+     * and the watch keeping it up to date is running.
+     */
+    public boolean isSynced(String namespace) {
+        NamespaceCache cache = namespaces.get(namespace);
+        return cache != null && cache.synced;
+    }
+
+    /**
+     * Get the resource with the given {@code namespace} and {@code name} from the cache if the namespace is synced
+     * and the resource is cached, otherwise from the given {@code fallback}.
+     * A resource returned from the cache is shared, so must not be modified.
+     * @param namespace The namespace.
+     * @param name The name.
+     * @param fallback Gets the resource from the API server.
+     * @return The resource, or null if it doesn't exist.
+     */
+    public T get(String namespace, String name, Supplier<T> fallback) {
+        NamespaceCache cache = namespaces.get(namespace);
+        if (cache != null && cache.synced) {
+            T resource = cache.resources.get(name);
+            if (resource != null) {
+                hits.incrementAndGet();
+                return resource;
+            }
+        }
+        misses.incrementAndGet();
+        return fallback.get();
+    }
+
+    /**
+     * List the resources in the given {@code namespace} with all the given {@code labels} from the cache if the
+     * namespace is synced, otherwise from the given {@code fallback}.
+     * Only resources with a {@code strimzi.io/cluster} label are cached, so the cache is only used when the
+     * selector includes a label which the operator sets on every resource it creates.
+     * @param namespace The namespace.
+     * @param labels The labels.
+     * @param fallback Lists the resources from the API server.
+     * @return A list of matching resources.
+     */
+    public List<T> list(String namespace, Map<String, String> labels, Supplier<List<T>> fallback) {
+        NamespaceCache cache = namespaces.get(namespace);
+        if (cache != null && cache.synced
+                && (labels.containsKey(Labels.STRIMZI_CLUSTER_LABEL) || labels.containsKey(Labels.STRIMZI_TYPE_LABEL))) {
+            hits.incrementAndGet();
+            List<T> result = new ArrayList<>();
+            for (T resource : cache.resources.values()) {
+                Map<String, String> resourceLabels = resource.getMetadata().getLabels();
+                if (resourceLabels != null && resourceLabels.entrySet().containsAll(labels.entrySet())) {
+                    result.add(resource);
+                }
+            }
+            return result;
+        }
+        misses.incrementAndGet();
+        return fallback.get();
+    }
+
+    /**
+     * Update the cache with a resource which has been created or modified by the operator,
+     * without waiting for the corresponding watch event.
+     */
+    void put(String namespace, T resource) {
+        NamespaceCache cache = namespaces.get(namespace);
+        if (cache != null && resource != null && resource.getMetadata() != null) {
+            cache.update(resource);
+        }
+    }
+
+    /**
+     * Update the cache with a resource which has been deleted by the operator,
+     * without waiting for the corresponding watch event.
+     */
+    void remove(String namespace, String name) {
+        NamespaceCache cache = namespaces.get(namespace);
+        if (cache != null) {
+            cache.resources.remove(name);
+        }
+    }
+
+    /**
+     * Add a listener which is called with each watch event for the resource with the given
+     * {@code namespace} and {@code name}. The listener is called with null when the resource is deleted.
+     * Listeners are called on the thread of the watch, so must not block.
+     */
+    public void addListener(String namespace, String name, Handler<T> listener) {
+        listeners.computeIfAbsent(key(namespace, name), k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Remove a listener added by {@link #addListener(String, String, Handler)}.
+     */
+    public void removeListener(String namespace, String name, Handler<T> listener) {
+        listeners.computeIfPresent(key(namespace, name), (k, list) -> {
+            list.remove(listener);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * @return The number of reads which were served by the cache, and so didn't need an API call.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of reads which had to be made to the API server because the cache wasn't synced.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of resources in the cache, in all namespaces.
+     */
+    public int size() {
+        int size = 0;
+        for (NamespaceCache cache : namespaces.values()) {
+            size += cache.resources.size();
+        }
+        return size;
+    }
+
+    /**
+     * Register the hit, miss and size metrics of this cache, labelled with its resource kind.
+     * @param metrics The registry.
+     */
+    public void registerMetrics(Metrics metrics) {
+        metrics.sampledCounter("resource_cache_hits_total", "The number of reads served by the resource caches.", "kind")
+                .set(this::hits, resourceKind);
+        metrics.sampledCounter("resource_cache_misses_total", "The number of reads the resource caches passed to the API server.", "kind")
+                .set(this::misses, resourceKind);
+        metrics.gauge("resource_cache_size", "The number of resources in the resource caches.", "kind")
+                .set(this::size, resourceKind);
+    }
+
+    public String getResourceKind() {
+        return resourceKind;
+    }
+
+    private static String key(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+
+    private void notifyListeners(String namespace, String name, T resource) {
+        List<Handler<T>> list = listeners.get(key(namespace, name));
+        if (list != null) {
+            for (Handler<T> listener : list) {
+                try {
+                    listener.handle(resource);
+                } catch (Exception e) {
+                    log.warn("Caught exception from listener for {} {} in namespace {}", resourceKind, name, namespace, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The cached resources in a single namespace.
+     */
+    private class NamespaceCache implements Watcher<T> {
+
+        private final String namespace;
+        private final Map<String, T> resources = new ConcurrentHashMap<>();
+
+        private volatile Watch watch;
+        private volatile boolean synced = false;
+        private volatile boolean stopped = false;
+
+        NamespaceCache(String namespace) {
+            this.namespace = namespace;
+        }
+
+        @SuppressWarnings("unchecked")
+        void listAndWatch() {
+            KubernetesResourceList list = operation.apply(namespace).withLabel(Labels.STRIMZI_CLUSTER_LABEL).list();
+            Map<String, T> listed = new HashMap<>();
+            for (Object item : list.getItems()) {
+                T resource = (T) item;
+                listed.put(resource.getMetadata().getName(), resource);
+            }
+            resources.putAll(listed);
+            resources.keySet().retainAll(listed.keySet());
+            String resourceVersion = list.getMetadata() != null ? list.getMetadata().getResourceVersion() : null;
+            log.debug("Listed {} {} in namespace {} at resource version {}", listed.size(), resourceKind, namespace, resourceVersion);
+            // Watch the same resources as were listed, so unrelated resources in a shared namespace aren't streamed to the cache
+            this.watch = operation.apply(namespace).withLabel(Labels.STRIMZI_CLUSTER_LABEL).withResourceVersion(resourceVersion).watch(this);
+            if (stopped) {
+                this.watch.close();
+                return;
+            }
+            this.synced = true;
+            // Anyone waiting for a resource might have missed changes while the watch was down
+            for (T resource : listed.values()) {
+                notifyListeners(namespace, resource.getMetadata().getName(), resource);
+            }
+        }
+
+        void update(T resource) {
+            String name = resource.getMetadata().getName();
+            Map<String, String> labels = resource.getMetadata().getLabels();
+            if (labels != null && labels.containsKey(Labels.STRIMZI_CLUSTER_LABEL)) {
+                resources.put(name, resource);
+            } else {
+                resources.remove(name);
+            }
+        }
+
+        void stop() {
+            this.stopped = true;
+            this.synced = false;
+            Watch watch = this.watch;
+            if (watch != null) {
+                watch.close();
+            }
+        }
+
+        void scheduleResync() {
+            vertx.setTimer(resyncDelayMs, timerId -> {
+                if (stopped) {
+                    return;
+                }
+                vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+                    future -> {
+                        listAndWatch();
+                        future.complete();
+                    },
+                    false,
+                    ar -> {
+                        if (ar.succeeded()) {
+                            log.info("Resynchronized {} cache in namespace {}", resourceKind, namespace);
+                        } else {
+                            log.error("Error resynchronizing {} cache in namespace {}, will retry", resourceKind, namespace, ar.cause());
+                            scheduleResync();
+                        }
+                    }
+                );
+            });
+        }
+
+        @Override
+        public void eventReceived(Action action, T resource) {
+            String name = resource.getMetadata().getName();
+            switch (action) {
+                case ADDED:
+                case MODIFIED:
+                    // Removes the resource if it has lost the cluster label
+                    update(resource);
+                    notifyListeners(namespace, name, resource);
+                    break;
+                case DELETED:
+                    resources.remove(name);
+                    notifyListeners(namespace, name, null);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void onClose(KubernetesClientException e) {
+            if (!stopped) {
+                log.warn("{} watch closed in namespace {}, will resynchronize {} cache", resourceKind, namespace, resourceKind, e);
+                synced = false;
+                scheduleResync();
+            }
+        }
+    }
+}
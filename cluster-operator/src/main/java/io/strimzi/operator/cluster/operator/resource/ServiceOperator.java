@@ -5,6 +5,7 @@
 package io.strimzi.operator.cluster.operator.resource;
 
 import io.fabric8.kubernetes.api.model.DoneableService;
+import io.fabric8.kubernetes.api.model.Endpoints;
 import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.api.model.ServiceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
@@ -29,12 +30,24 @@ public class ServiceOperator extends AbstractResourceOperator<KubernetesClient,
         this.endpointOperations = new EndpointOperator(vertx, client);
     }
 
+    /**
+     * Constructor
+     * @param vertx The Vertx instance
+     * @param client The Kubernetes client
+     * @param serviceCache The cache to serve Service reads from.
+     * @param endpointsCache The cache to serve Endpoints reads from.
+     */
+    public ServiceOperator(Vertx vertx, KubernetesClient client, ResourceCache<Service> serviceCache, ResourceCache<Endpoints> endpointsCache) {
+        super(vertx, client, "Service", serviceCache);
+        this.endpointOperations = new EndpointOperator(vertx, client, endpointsCache);
+    }
+
     @Override
     protected MixedOperation<Service, ServiceList, DoneableService, Resource<Service, DoneableService>> operation() {
         return client.services();
     }
 
     public Future<Void> endpointReadiness(String namespace, Service desired, long pollInterval, long operationTimeoutMs) {
-        return endpointOperations.readiness(namespace, desired.getMetadata().getName(), 1_000, operationTimeoutMs);
+        return endpointOperations.readiness(namespace, desired.getMetadata().getName(), pollInterval, operationTimeoutMs);
     }
 }
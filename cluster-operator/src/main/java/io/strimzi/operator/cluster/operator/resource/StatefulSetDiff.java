@@ -36,9 +36,11 @@ public class StatefulSetDiff {
             "/spec/template/spec/initContainers/[0-9]+/env/[0-9]+/value",
             "/spec/template/spec/containers/0/imagePullPolicy",
             "/spec/template/spec/containers/0/livenessProbe/failureThreshold",
+            "/spec/template/spec/containers/0/livenessProbe/httpGet/scheme",
             "/spec/template/spec/containers/0/livenessProbe/periodSeconds",
             "/spec/template/spec/containers/0/livenessProbe/successThreshold",
             "/spec/template/spec/containers/0/readinessProbe/failureThreshold",
+            "/spec/template/spec/containers/0/readinessProbe/httpGet/scheme",
             "/spec/template/spec/containers/0/readinessProbe/periodSeconds",
             "/spec/template/spec/containers/0/readinessProbe/successThreshold",
             "/spec/template/spec/containers/0/resources",
@@ -36,7 +36,7 @@ public abstract class StatefulSetOperator extends AbstractScalableResourceOperat
     private static final int INIT_GENERATION = 0;
 
     private static final Logger log = LogManager.getLogger(StatefulSetOperator.class.getName());
-    private final PodOperator podOperations;
+    protected final PodOperator podOperations;
     private final long operationTimeoutMs;
 
     /**
@@ -54,6 +54,20 @@ public abstract class StatefulSetOperator extends AbstractScalableResourceOperat
         this.operationTimeoutMs = operationTimeoutMs;
     }
 
+    /**
+     * Constructor
+     * @param vertx The Vertx instance
+     * @param client The Kubernetes client
+     * @param statefulSetCache The cache to serve StatefulSet reads from.
+     * @param podCache The cache to serve Pod reads from.
+     */
+    public StatefulSetOperator(Vertx vertx, KubernetesClient client, long operationTimeoutMs,
+                               ResourceCache<StatefulSet> statefulSetCache, ResourceCache<Pod> podCache) {
+        super(vertx, client, "StatefulSet", statefulSetCache);
+        this.podOperations = new PodOperator(vertx, client, podCache);
+        this.operationTimeoutMs = operationTimeoutMs;
+    }
+
     @Override
     protected MixedOperation<StatefulSet, StatefulSetList, DoneableStatefulSet, RollableScalableResource<StatefulSet, DoneableStatefulSet>> operation() {
         return client.apps().statefulSets();
@@ -80,69 +94,104 @@ public abstract class StatefulSetOperator extends AbstractScalableResourceOperat
         return f;
     }
 
+    /**
+     * Asynchronously perform a rolling update of the pods in the given StatefulSet, restarting the pods of each
+     * of the given {@code batches} together. Each batch is only started once every pod of the previous batch
+     * has been recreated and is ready, and the rolling update stops at the first batch which fails.
+     */
+    protected Future<Void> maybeRollingUpdate(StatefulSet ss, List<List<String>> batches) {
+        Future<Void> f = Future.succeededFuture();
+        for (List<String> batch : batches) {
+            f = f.compose(ignored -> maybeRestartPods(ss, batch));
+        }
+        return f;
+    }
+
+    private Future<Void> maybeRestartPods(StatefulSet ss, List<String> podNames) {
+        if (podNames.size() == 1) {
+            return maybeRestartPod(ss, podNames.get(0));
+        }
+        log.info("Rolling update of {}/{}: Rolling pods {} together", ss.getMetadata().getNamespace(), ss.getMetadata().getName(), podNames);
+        List<Future> restarts = new ArrayList<>(podNames.size());
+        for (String podName : podNames) {
+            restarts.add(maybeRestartPod(ss, podName));
+        }
+        // join rather than all, so that the batch has finished before a failure is reported
+        return CompositeFuture.join(restarts).map((Void) null);
+    }
+
     public Future<Void> maybeRestartPod(StatefulSet ss, String podName) {
-        long pollingIntervalMs = 1_000;
+        String namespace = ss.getMetadata().getNamespace();
+        String name = ss.getMetadata().getName();
+        return isPodUpToDate(ss, podName).compose(upToDate -> {
+            if (upToDate) {
+                log.debug("Rolling update of {}/{}: pod {} has {}={}; no need to roll",
+                        namespace, name, podName, ANNOTATION_GENERATION, getSsGeneration(ss));
+                return Future.succeededFuture();
+            } else {
+                return restartPod(ss, podName);
+            }
+        });
+    }
+
+    private Future<Void> restartPod(StatefulSet ss, String podName) {
+        long pollingIntervalMs = DEFAULT_POLL_INTERVAL_MS;
         long timeoutMs = operationTimeoutMs;
         String namespace = ss.getMetadata().getNamespace();
         String name = ss.getMetadata().getName();
-        if (isPodUpToDate(ss, podName)) {
-            log.debug("Rolling update of {}/{}: pod {} has {}={}; no need to roll",
-                    namespace, name, podName, ANNOTATION_GENERATION, getSsGeneration(ss));
-            return Future.succeededFuture();
-        } else {
-            Future<Void> result = Future.future();
-            Future<ReconcileResult<Pod>> deleteFinished = Future.future();
-            log.info("Rolling update of {}/{}: Rolling pod {}", namespace, name, podName);
-
-            // Determine generation of deleted pod
-            Future<Integer> deleted = getGeneration(namespace, podName);
-
-            // Delete the pod
-            Future<ReconcileResult<Pod>> podReconcileFuture = deleted.compose(l -> {
-                log.debug("Rolling update of {}/{}: Waiting for pod {} to be deleted", namespace, name, podName);
-                // null as desired parameter means pod will be deleted
-                return podOperations.reconcile(namespace, podName, null);
-            }).compose(ignore -> {
-                Future del = podOperations.waitFor(namespace, name, pollingIntervalMs, timeoutMs, (ignore1, ignore2) -> {
-                    // predicate - changed generation means pod has been updated
-                    int newGen = getPodGeneration(podOperations.get(namespace, podName));
-                    log.debug((deleted.result() != newGen) + " vs " + isPodUpToDate(ss, podName));
-                    return deleted.result() != newGen;
-                });
-                log.debug("Rolling pod {} finished", podName);
-                return del;
+        Future<Void> result = Future.future();
+        Future<ReconcileResult<Pod>> deleteFinished = Future.future();
+        log.info("Rolling update of {}/{}: Rolling pod {}", namespace, name, podName);
+
+        // Determine generation of deleted pod
+        Future<Integer> deleted = getGeneration(namespace, podName);
+
+        // Delete the pod
+        Future<ReconcileResult<Pod>> podReconcileFuture = deleted.compose(l -> {
+            log.debug("Rolling update of {}/{}: Waiting for pod {} to be deleted", namespace, name, podName);
+            // null as desired parameter means pod will be deleted
+            return podOperations.reconcile(namespace, podName, null);
+        }).compose(ignore -> {
+            Future del = podOperations.waitFor(namespace, podName, pollingIntervalMs, timeoutMs, (ignore1, ignore2) -> {
+                // predicate - changed generation means pod has been updated
+                // (the predicate is tested on a worker thread, so the get() is allowed to block)
+                int newGen = getPodGeneration(podOperations.get(namespace, podName));
+                log.debug("Rolling update of {}/{}: pod {} had {}={}, now has {}",
+                        namespace, name, podName, ANNOTATION_GENERATION, deleted.result(), newGen);
+                return deleted.result() != newGen;
             });
+            log.debug("Rolling pod {} finished", podName);
+            return del;
+        });
 
-            podReconcileFuture.setHandler(deleteResult -> {
-                if (deleteResult.succeeded()) {
-                    log.debug("Rolling update of {}/{}: Pod {} was deleted", namespace, name, podName);
-                }
-                deleteFinished.handle(deleteResult);
-            });
-            deleteFinished.compose(ix -> podOperations.readiness(namespace, podName, pollingIntervalMs, timeoutMs)).setHandler(result);
-            return result;
-        }
+        podReconcileFuture.setHandler(deleteResult -> {
+            if (deleteResult.succeeded()) {
+                log.debug("Rolling update of {}/{}: Pod {} was deleted", namespace, name, podName);
+            }
+            deleteFinished.handle(deleteResult);
+        });
+        deleteFinished.compose(ix -> podOperations.readiness(namespace, podName, pollingIntervalMs, timeoutMs)).setHandler(result);
+        return result;
     }
 
-    protected boolean isPodUpToDate(StatefulSet ss, String podName) {
+    /**
+     * Asynchronously determine whether the pod with the given {@code podName} has the same generation as the given
+     * StatefulSet, and so doesn't need to be rolled.
+     */
+    protected Future<Boolean> isPodUpToDate(StatefulSet ss, String podName) {
         final int ssGeneration = getSsGeneration(ss);
-        // TODO this call is sync
-        int podGeneration = getPodGeneration(podOperations.get(ss.getMetadata().getNamespace(), podName));
-        log.debug("Rolling update of {}/{}: pod {} has {}={}; ss has {}={}",
-                ss.getMetadata().getNamespace(), ss.getMetadata().getName(), podName,
-                ANNOTATION_GENERATION, podGeneration,
-                ANNOTATION_GENERATION, ssGeneration);
-        return ssGeneration == podGeneration;
+        return getGeneration(ss.getMetadata().getNamespace(), podName).map(podGeneration -> {
+            log.debug("Rolling update of {}/{}: pod {} has {}={}; ss has {}={}",
+                    ss.getMetadata().getNamespace(), ss.getMetadata().getName(), podName,
+                    ANNOTATION_GENERATION, podGeneration,
+                    ANNOTATION_GENERATION, ssGeneration);
+            return ssGeneration == podGeneration;
+        });
     }
 
     @Override
-    protected Integer currentScale(String namespace, String name) {
-        StatefulSet statefulSet = get(namespace, name);
-        if (statefulSet != null) {
-            return statefulSet.getSpec().getReplicas();
-        } else {
-            return null;
-        }
+    protected Future<Integer> currentScale(String namespace, String name) {
+        return getAsync(namespace, name).map(statefulSet -> statefulSet != null ? statefulSet.getSpec().getReplicas() : null);
     }
 
     private static ObjectMeta templateMetadata(StatefulSet resource) {
@@ -199,9 +248,9 @@ public abstract class StatefulSetOperator extends AbstractScalableResourceOperat
         Future<ReconcileResult<StatefulSet>> crt = super.internalCreate(namespace, name, desired);
 
         // ... then wait for the SS to be ready...
-        crt.compose(res -> readiness(namespace, desired.getMetadata().getName(), 1_000, operationTimeoutMs).map(res))
+        crt.compose(res -> readiness(namespace, desired.getMetadata().getName(), DEFAULT_POLL_INTERVAL_MS, operationTimeoutMs).map(res))
         // ... then wait for all the pods to be ready
-            .compose(res -> podReadiness(namespace, desired, 1_000, operationTimeoutMs).map(res))
+            .compose(res -> podReadiness(namespace, desired, DEFAULT_POLL_INTERVAL_MS, operationTimeoutMs).map(res))
             .compose(res -> result.complete(res), result);
         return result;
     }
@@ -226,7 +275,23 @@ public abstract class StatefulSetOperator extends AbstractScalableResourceOperat
      */
     @Override
     protected Future<ReconcileResult<StatefulSet>> internalPatch(String namespace, String name, StatefulSet current, StatefulSet desired) {
-        if (shouldIncrementGeneration(current, desired)) {
+        return internalPatch(namespace, name, current, desired, shouldIncrementGeneration(current, desired));
+    }
+
+    /**
+     * Patches the StatefulSet without cascading to its pods.
+     *
+     * @param namespace The namespace of the StatefulSet.
+     * @param name The name of the StatefulSet.
+     * @param current The current StatefulSet.
+     * @param desired The desired StatefulSet.
+     * @param incrementGeneration Whether to increment the generation, so that the pods are restarted
+     *                            by the next rolling update.
+     * @return A future which completes when the StatefulSet has been patched.
+     */
+    protected Future<ReconcileResult<StatefulSet>> internalPatch(String namespace, String name, StatefulSet current, StatefulSet desired,
+            boolean incrementGeneration) {
+        if (incrementGeneration) {
             incrementGeneration(current, desired);
         } else {
             setGeneration(desired, getSsGeneration(current));
@@ -282,13 +347,6 @@ public abstract class StatefulSetOperator extends AbstractScalableResourceOperat
     }
 
     protected Future<Integer> getGeneration(String namespace, String podName) {
-        Future<Integer> result = Future.future();
-        vertx.createSharedWorkerExecutor("kubernetes-ops-tool").executeBlocking(
-            future -> {
-                int podGeneration = getPodGeneration(podOperations.get(namespace, podName));
-                future.complete(podGeneration);
-            }, true, result.completer()
-        );
-        return result;
+        return podOperations.getAsync(namespace, podName).map(StatefulSetOperator::getPodGeneration);
     }
 }
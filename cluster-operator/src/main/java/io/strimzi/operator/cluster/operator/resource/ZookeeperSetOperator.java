@@ -4,6 +4,7 @@
  */
 package io.strimzi.operator.cluster.operator.resource;
 
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.vertx.core.Vertx;
@@ -28,6 +29,19 @@ public class ZookeeperSetOperator extends StatefulSetOperator {
         super(vertx, client, operationTimeoutMs);
     }
 
+    /**
+     * Constructor
+     *
+     * @param vertx  The Vertx instance
+     * @param client The Kubernetes client
+     * @param statefulSetCache The cache to serve StatefulSet reads from.
+     * @param podCache The cache to serve Pod reads from.
+     */
+    public ZookeeperSetOperator(Vertx vertx, KubernetesClient client, long operationTimeoutMs,
+            ResourceCache<StatefulSet> statefulSetCache, ResourceCache<Pod> podCache) {
+        super(vertx, client, operationTimeoutMs, statefulSetCache, podCache);
+    }
+
     @Override
     protected boolean shouldIncrementGeneration(StatefulSet current, StatefulSet desired) {
         StatefulSetDiff diff = new StatefulSetDiff(current, desired);
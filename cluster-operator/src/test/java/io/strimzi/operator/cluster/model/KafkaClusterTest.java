@@ -22,7 +22,9 @@ import java.util.List;
 import static io.strimzi.operator.cluster.ResourceUtils.labels;
 import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class KafkaClusterTest {
@@ -138,6 +140,12 @@ public class KafkaClusterTest {
         assertEquals(new Integer(healthDelay), ss.getSpec().getTemplate().getSpec().getContainers().get(0).getLivenessProbe().getInitialDelaySeconds());
         assertEquals(new Integer(healthTimeout), ss.getSpec().getTemplate().getSpec().getContainers().get(0).getReadinessProbe().getTimeoutSeconds());
         assertEquals(new Integer(healthDelay), ss.getSpec().getTemplate().getSpec().getContainers().get(0).getReadinessProbe().getInitialDelaySeconds());
+        assertEquals(KafkaCluster.HEALTHY_PATH, ss.getSpec().getTemplate().getSpec().getContainers().get(0).getLivenessProbe().getHttpGet().getPath());
+        assertEquals(KafkaCluster.HEALTHCHECK_PORT_NAME, ss.getSpec().getTemplate().getSpec().getContainers().get(0).getLivenessProbe().getHttpGet().getPort().getStrVal());
+        assertEquals(KafkaCluster.READY_PATH, ss.getSpec().getTemplate().getSpec().getContainers().get(0).getReadinessProbe().getHttpGet().getPath());
+        assertEquals(KafkaCluster.HEALTHCHECK_PORT_NAME, ss.getSpec().getTemplate().getSpec().getContainers().get(0).getReadinessProbe().getHttpGet().getPort().getStrVal());
+        assertTrue(ss.getSpec().getTemplate().getSpec().getContainers().get(0).getPorts().stream()
+                .anyMatch(port -> KafkaCluster.HEALTHCHECK_PORT_NAME.equals(port.getName()) && port.getContainerPort() == KafkaCluster.HEALTHCHECK_PORT));
         assertEquals("foo=bar\n", AbstractModel.containerEnvVars(ss.getSpec().getTemplate().getSpec().getContainers().get(0)).get(KafkaCluster.ENV_VAR_KAFKA_CONFIGURATION));
 
         if (cm.getData().get("kafka-storage") != null) {
@@ -300,4 +308,34 @@ public class KafkaClusterTest {
         resourceTester.assertDesiredResource("-SS.yaml",
             kc -> kc.generateStatefulSet(true).getSpec().getTemplate().getSpec().getAffinity());
     }
+
+    @Test
+    public void testRollingUpdateConfig() {
+        assertNull(kc.getRollingUpdateConfig());
+
+        ConfigMap cm = ResourceUtils.createKafkaClusterConfigMap(namespace, cluster, replicas, image, healthDelay, healthTimeout,
+                metricsCmJson, configurationJson, "{}", "{\"type\": \"ephemeral\"}", null, "{\"topologyKey\": \"zone\"}");
+        cm.getData().put(KafkaCluster.KEY_ROLLING_UPDATE, "{\"rackAware\": true}");
+        RollingUpdateConfig config = KafkaCluster.fromConfigMap(cm).getRollingUpdateConfig();
+        assertTrue(config.isRackAware());
+        assertEquals(1, config.getMaxUnavailable());
+        assertFalse(config.isSequential());
+
+        cm.getData().put(KafkaCluster.KEY_ROLLING_UPDATE, "{\"maxUnavailable\": 3}");
+        config = KafkaCluster.fromConfigMap(cm).getRollingUpdateConfig();
+        assertFalse(config.isRackAware());
+        assertEquals(3, config.getMaxUnavailable());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRollingUpdateConfigInvalidMaxUnavailable() {
+        RollingUpdateConfig.fromJson("{\"maxUnavailable\": 0}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRackAwareRollingUpdateWithoutRack() {
+        ConfigMap cm = ResourceUtils.createKafkaClusterConfigMap(namespace, cluster, replicas, image, healthDelay, healthTimeout, metricsCmJson, configurationJson);
+        cm.getData().put(KafkaCluster.KEY_ROLLING_UPDATE, "{\"rackAware\": true}");
+        KafkaCluster.fromConfigMap(cm);
+    }
 }
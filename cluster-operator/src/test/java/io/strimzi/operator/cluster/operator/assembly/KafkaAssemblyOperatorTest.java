@@ -50,6 +50,7 @@ import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -193,7 +194,7 @@ public class KafkaAssemblyOperatorTest {
         // Create a CM
         String clusterCmName = clusterCm.getMetadata().getName();
         String clusterCmNamespace = clusterCm.getMetadata().getNamespace();
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
         ArgumentCaptor<Service> serviceCaptor = ArgumentCaptor.forClass(Service.class);
         when(mockServiceOps.reconcile(anyString(), anyString(), serviceCaptor.capture())).thenReturn(Future.succeededFuture(ReconcileResult.created(null)));
         when(mockServiceOps.endpointReadiness(anyString(), any(), anyLong(), anyLong())).thenReturn(Future.succeededFuture());
@@ -204,7 +205,7 @@ public class KafkaAssemblyOperatorTest {
         when(mockZsOps.scaleUp(anyString(), anyString(), anyInt())).thenReturn(Future.succeededFuture(42));
         when(mockKsOps.reconcile(anyString(), anyString(), ssCaptor.capture())).thenReturn(Future.succeededFuture(ReconcileResult.created(null)));
         when(mockKsOps.scaleDown(anyString(), anyString(), anyInt())).thenReturn(Future.succeededFuture(null));
-        when(mockKsOps.maybeRollingUpdate(any())).thenReturn(Future.succeededFuture());
+        when(mockKsOps.maybeRollingUpdate(any(), any(), any())).thenReturn(Future.succeededFuture());
         when(mockKsOps.scaleUp(anyString(), anyString(), anyInt())).thenReturn(Future.succeededFuture(42));
 
         when(mockDepOps.reconcile(anyString(), anyString(), any())).thenAnswer(invocation -> {
@@ -311,10 +312,10 @@ public class KafkaAssemblyOperatorTest {
         StatefulSet kafkaSs = kafkaCluster.generateStatefulSet(true);
 
         StatefulSet zkSs = zookeeperCluster.generateStatefulSet(true);
-        when(mockKsOps.get(clusterCmNamespace, KafkaCluster.kafkaClusterName(clusterCmName))).thenReturn(kafkaSs);
-        when(mockZsOps.get(clusterCmNamespace, ZookeeperCluster.zookeeperClusterName(clusterCmName))).thenReturn(zkSs);
+        when(mockKsOps.getAsync(clusterCmNamespace, KafkaCluster.kafkaClusterName(clusterCmName))).thenReturn(Future.succeededFuture(kafkaSs));
+        when(mockZsOps.getAsync(clusterCmNamespace, ZookeeperCluster.zookeeperClusterName(clusterCmName))).thenReturn(Future.succeededFuture(zkSs));
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
         ArgumentCaptor<String> serviceCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> ssCaptor = ArgumentCaptor.forClass(String.class);
 
@@ -332,7 +333,7 @@ public class KafkaAssemblyOperatorTest {
         when(mockDepOps.reconcile(eq(clusterCmNamespace), depCaptor.capture(), isNull())).thenReturn(Future.succeededFuture());
         if (topicOperator != null) {
             Deployment tcDep = topicOperator.generateDeployment();
-            when(mockDepOps.get(clusterCmNamespace, TopicOperator.topicOperatorName(clusterCmName))).thenReturn(tcDep);
+            when(mockDepOps.getAsync(clusterCmNamespace, TopicOperator.topicOperatorName(clusterCmName))).thenReturn(Future.succeededFuture(tcDep));
         }
 
         KafkaAssemblyOperator ops = new KafkaAssemblyOperator(vertx, openShift,
@@ -504,52 +505,52 @@ public class KafkaAssemblyOperatorTest {
         String clusterCmNamespace = clusterCm.getMetadata().getNamespace();
 
         // Mock CM get
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
         ConfigMap metricsCm = new ConfigMapBuilder().withNewMetadata()
                     .withName(KafkaCluster.metricConfigsName(clusterCmName))
                     .withNamespace(clusterCmNamespace)
                 .endMetadata()
                 .withData(Collections.singletonMap(AbstractModel.METRICS_CONFIG_FILE, METRICS_CONFIG))
                 .build();
-        when(mockCmOps.get(clusterCmNamespace, KafkaCluster.metricConfigsName(clusterCmName))).thenReturn(metricsCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, KafkaCluster.metricConfigsName(clusterCmName))).thenReturn(Future.succeededFuture(metricsCm));
         ConfigMap zkMetricsCm = new ConfigMapBuilder().withNewMetadata()
                 .withName(ZookeeperCluster.zookeeperMetricsName(clusterCmName))
                 .withNamespace(clusterCmNamespace)
                 .endMetadata()
                 .withData(Collections.singletonMap(AbstractModel.METRICS_CONFIG_FILE, METRICS_CONFIG))
                 .build();
-        when(mockCmOps.get(clusterCmNamespace, ZookeeperCluster.zookeeperMetricsName(clusterCmName))).thenReturn(zkMetricsCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, ZookeeperCluster.zookeeperMetricsName(clusterCmName))).thenReturn(Future.succeededFuture(zkMetricsCm));
 
 
         // Mock Service gets
-        when(mockServiceOps.get(clusterCmNamespace, KafkaCluster.kafkaClusterName(clusterCmName))).thenReturn(
+        when(mockServiceOps.getAsync(clusterCmNamespace, KafkaCluster.kafkaClusterName(clusterCmName))).thenReturn(Future.succeededFuture(
                 originalKafkaCluster.generateService()
-        );
-        when(mockServiceOps.get(clusterCmNamespace, KafkaCluster.headlessName(clusterCmName))).thenReturn(
+        ));
+        when(mockServiceOps.getAsync(clusterCmNamespace, KafkaCluster.headlessName(clusterCmName))).thenReturn(Future.succeededFuture(
                 originalKafkaCluster.generateHeadlessService()
-        );
-        when(mockServiceOps.get(clusterCmNamespace, ZookeeperCluster.zookeeperClusterName(clusterCmName))).thenReturn(
+        ));
+        when(mockServiceOps.getAsync(clusterCmNamespace, ZookeeperCluster.zookeeperClusterName(clusterCmName))).thenReturn(Future.succeededFuture(
                 originalKafkaCluster.generateService()
-        );
-        when(mockServiceOps.get(clusterCmNamespace, ZookeeperCluster.zookeeperHeadlessName(clusterCmName))).thenReturn(
+        ));
+        when(mockServiceOps.getAsync(clusterCmNamespace, ZookeeperCluster.zookeeperHeadlessName(clusterCmName))).thenReturn(Future.succeededFuture(
                 originalZookeeperCluster.generateHeadlessService()
-        );
+        ));
         when(mockServiceOps.endpointReadiness(eq(clusterCmNamespace), any(), anyLong(), anyLong())).thenReturn(
                 Future.succeededFuture()
         );
 
         // Mock StatefulSet get
-        when(mockKsOps.get(clusterCmNamespace, KafkaCluster.kafkaClusterName(clusterCmName))).thenReturn(
+        when(mockKsOps.getAsync(clusterCmNamespace, KafkaCluster.kafkaClusterName(clusterCmName))).thenReturn(Future.succeededFuture(
                 originalKafkaCluster.generateStatefulSet(openShift)
-        );
-        when(mockZsOps.get(clusterCmNamespace, ZookeeperCluster.zookeeperClusterName(clusterCmName))).thenReturn(
+        ));
+        when(mockZsOps.getAsync(clusterCmNamespace, ZookeeperCluster.zookeeperClusterName(clusterCmName))).thenReturn(Future.succeededFuture(
                 originalZookeeperCluster.generateStatefulSet(openShift)
-        );
+        ));
         // Mock Deployment get
         if (originalTopicOperator != null) {
-            when(mockDepOps.get(clusterCmNamespace, TopicOperator.topicOperatorName(clusterCmName))).thenReturn(
+            when(mockDepOps.getAsync(clusterCmNamespace, TopicOperator.topicOperatorName(clusterCmName))).thenReturn(Future.succeededFuture(
                     originalTopicOperator.generateDeployment()
-            );
+            ));
         }
 
         // Mock CM patch
@@ -572,7 +573,7 @@ public class KafkaAssemblyOperatorTest {
             return Future.succeededFuture(ReconcileResult.patched(ss));
         });
         when(mockZsOps.maybeRollingUpdate(any())).thenReturn(Future.succeededFuture());
-        when(mockKsOps.maybeRollingUpdate(any())).thenReturn(Future.succeededFuture());
+        when(mockKsOps.maybeRollingUpdate(any(), any(), any())).thenReturn(Future.succeededFuture());
 
         // Mock StatefulSet scaleUp
         ArgumentCaptor<String> scaledUpCaptor = ArgumentCaptor.forClass(String.class);
@@ -643,35 +644,38 @@ public class KafkaAssemblyOperatorTest {
         DeploymentOperator mockDepOps = mock(DeploymentOperator.class);
 
         String clusterCmNamespace = "myNamespace";
+        when(mockZsOps.listAsync(any(), any())).thenReturn(Future.succeededFuture(emptyList()));
+        when(mockDepOps.listAsync(any(), any())).thenReturn(Future.succeededFuture(emptyList()));
+        when(mockServiceOps.listAsync(any(), any())).thenReturn(Future.succeededFuture(emptyList()));
 
         ConfigMap foo = getConfigMap("foo");
         ConfigMap bar = getConfigMap("bar");
         ConfigMap baz = getConfigMap("baz");
-        when(mockCmOps.list(eq(clusterCmNamespace), any())).thenReturn(
+        when(mockCmOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(
             asList(foo, bar)
-        );
+        ));
         // when requested ConfigMap for a specific Kafka cluster
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("foo"))).thenReturn(foo);
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("bar"))).thenReturn(bar);
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("foo"))).thenReturn(Future.succeededFuture(foo));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("bar"))).thenReturn(Future.succeededFuture(bar));
 
 
         // providing the list of ALL StatefulSets for all the Kafka clusters
         Labels newLabels = Labels.forType(AssemblyType.KAFKA);
-        when(mockKsOps.list(eq(clusterCmNamespace), eq(newLabels))).thenReturn(
+        when(mockKsOps.listAsync(eq(clusterCmNamespace), eq(newLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaCluster.fromConfigMap(bar).generateStatefulSet(openShift),
                         KafkaCluster.fromConfigMap(baz).generateStatefulSet(openShift))
-        );
+        ));
 
         // providing the list StatefulSets for already "existing" Kafka clusters
         Labels barLabels = Labels.forCluster("bar");
-        when(mockKsOps.list(eq(clusterCmNamespace), eq(barLabels))).thenReturn(
+        when(mockKsOps.listAsync(eq(clusterCmNamespace), eq(barLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaCluster.fromConfigMap(bar).generateStatefulSet(openShift))
-        );
+        ));
 
         Labels bazLabels = Labels.forCluster("baz");
-        when(mockKsOps.list(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(
+        when(mockKsOps.listAsync(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaCluster.fromConfigMap(baz).generateStatefulSet(openShift))
-        );
+        ));
 
         Set<String> createdOrUpdated = new CopyOnWriteArraySet<>();
         Set<String> deleted = new CopyOnWriteArraySet<>();
@@ -700,6 +704,18 @@ public class KafkaAssemblyOperatorTest {
 
         async.await();
 
+        // The ConfigMaps and resources must only be fetched using the non-blocking variants
+        verify(mockCmOps, never()).get(any(), any());
+        verify(mockCmOps, never()).list(any(), any());
+        verify(mockKsOps, never()).get(any(), any());
+        verify(mockKsOps, never()).list(any(), any());
+        verify(mockZsOps, never()).get(any(), any());
+        verify(mockZsOps, never()).list(any(), any());
+        verify(mockDepOps, never()).get(any(), any());
+        verify(mockDepOps, never()).list(any(), any());
+        verify(mockServiceOps, never()).get(any(), any());
+        verify(mockServiceOps, never()).list(any(), any());
+
         context.assertEquals(new HashSet(asList("foo", "bar")), createdOrUpdated);
         context.assertEquals(singleton("baz"), deleted);
     }
@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Set;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -74,7 +75,7 @@ public class KafkaConnectAssemblyOperatorTest {
         String clusterCmNamespace = "test";
         ConfigMap clusterCm = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, clusterCmName);
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
 
         ArgumentCaptor<Service> serviceCaptor = ArgumentCaptor.forClass(Service.class);
         when(mockServiceOps.reconcile(anyString(), anyString(), serviceCaptor.capture())).thenReturn(Future.succeededFuture());
@@ -129,9 +130,9 @@ public class KafkaConnectAssemblyOperatorTest {
 
         ConfigMap clusterCm = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, clusterCmName);
         KafkaConnectCluster connect = KafkaConnectCluster.fromConfigMap(clusterCm);
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeployment());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeployment()));
 
         ArgumentCaptor<String> serviceNameCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Service> serviceCaptor = ArgumentCaptor.forClass(Service.class);
@@ -187,9 +188,9 @@ public class KafkaConnectAssemblyOperatorTest {
         KafkaConnectCluster connect = KafkaConnectCluster.fromConfigMap(clusterCm);
         clusterCm.getData().put("image", "some/different:image"); // Change the image to generate some diff
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeployment());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeployment()));
 
         ArgumentCaptor<String> serviceNameCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Service> serviceCaptor = ArgumentCaptor.forClass(Service.class);
@@ -210,14 +211,14 @@ public class KafkaConnectAssemblyOperatorTest {
         when(mockCmOps.reconcile(anyString(), any(), any())).thenReturn(Future.succeededFuture(ReconcileResult.created(null)));
 
         // Mock CM get
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
         ConfigMap metricsCm = new ConfigMapBuilder().withNewMetadata()
                     .withName(KafkaConnectCluster.metricsConfigName(clusterCmName))
                     .withNamespace(clusterCmNamespace)
                 .endMetadata()
                 .withData(Collections.singletonMap(AbstractModel.METRICS_CONFIG_FILE, METRICS_CONFIG))
                 .build();
-        when(mockCmOps.get(clusterCmNamespace, KafkaConnectCluster.metricsConfigName(clusterCmName))).thenReturn(metricsCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, KafkaConnectCluster.metricsConfigName(clusterCmName))).thenReturn(Future.succeededFuture(metricsCm));
 
         // Mock CM patch
         Set<String> metricsCms = ResourceUtils.set();
@@ -272,9 +273,9 @@ public class KafkaConnectAssemblyOperatorTest {
         KafkaConnectCluster connect = KafkaConnectCluster.fromConfigMap(clusterCm);
         clusterCm.getData().put("image", "some/different:image"); // Change the image to generate some diff
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeployment());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeployment()));
 
         ArgumentCaptor<String> serviceNamespaceCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> serviceNameCaptor = ArgumentCaptor.forClass(String.class);
@@ -325,9 +326,9 @@ public class KafkaConnectAssemblyOperatorTest {
         KafkaConnectCluster connect = KafkaConnectCluster.fromConfigMap(clusterCm);
         clusterCm.getData().put(KafkaConnectCluster.KEY_REPLICAS, newReplicas); // Change replicas to create ScaleUp
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeployment());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeployment()));
 
         when(mockServiceOps.reconcile(eq(clusterCmNamespace), any(), any())).thenReturn(Future.succeededFuture());
 
@@ -370,9 +371,9 @@ public class KafkaConnectAssemblyOperatorTest {
         KafkaConnectCluster connect = KafkaConnectCluster.fromConfigMap(clusterCm);
         clusterCm.getData().put(KafkaConnectCluster.KEY_REPLICAS, newReplicas); // Change replicas to create ScaleDown
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeployment());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeployment()));
 
         when(mockServiceOps.reconcile(eq(clusterCmNamespace), any(), any())).thenReturn(Future.succeededFuture());
 
@@ -410,7 +411,7 @@ public class KafkaConnectAssemblyOperatorTest {
 
         KafkaConnectCluster connect = KafkaConnectCluster.fromConfigMap(ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, clusterCmName));
 
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeployment());
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeployment()));
 
         ArgumentCaptor<String> serviceNamespaceCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> serviceNameCaptor = ArgumentCaptor.forClass(String.class);
@@ -450,31 +451,32 @@ public class KafkaConnectAssemblyOperatorTest {
 
 
         String clusterCmNamespace = "test";
+        when(mockServiceOps.listAsync(any(), any())).thenReturn(Future.succeededFuture(emptyList()));
 
         ConfigMap foo = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "foo");
         ConfigMap bar = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "bar");
         ConfigMap baz = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "baz");
-        when(mockCmOps.list(eq(clusterCmNamespace), any())).thenReturn(asList(foo, bar));
+        when(mockCmOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(asList(foo, bar)));
         // when requested ConfigMap for a specific Kafka Connect cluster
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("foo"))).thenReturn(foo);
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("bar"))).thenReturn(bar);
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("foo"))).thenReturn(Future.succeededFuture(foo));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("bar"))).thenReturn(Future.succeededFuture(bar));
 
         // providing the list of ALL Deployments for all the Kafka Connect clusters
         Labels newLabels = Labels.forType(AssemblyType.CONNECT);
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(newLabels))).thenReturn(
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(newLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaConnectCluster.fromConfigMap(bar).generateDeployment(),
-                        KafkaConnectCluster.fromConfigMap(baz).generateDeployment()));
+                        KafkaConnectCluster.fromConfigMap(baz).generateDeployment())));
 
         // providing the list Deployments for already "existing" Kafka Connect clusters
         Labels barLabels = Labels.forCluster("bar");
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(barLabels))).thenReturn(
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(barLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaConnectCluster.fromConfigMap(bar).generateDeployment())
-        );
+        ));
 
         Labels bazLabels = Labels.forCluster("baz");
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaConnectCluster.fromConfigMap(baz).generateDeployment())
-        );
+        ));
 
         Set<String> createdOrUpdated = new HashSet<>();
         Set<String> deleted = new HashSet<>();
@@ -502,6 +504,14 @@ public class KafkaConnectAssemblyOperatorTest {
 
         async.await();
 
+        // The ConfigMaps and resources must only be fetched using the non-blocking variants
+        verify(mockCmOps, never()).get(any(), any());
+        verify(mockCmOps, never()).list(any(), any());
+        verify(mockServiceOps, never()).get(any(), any());
+        verify(mockServiceOps, never()).list(any(), any());
+        verify(mockDcOps, never()).get(any(), any());
+        verify(mockDcOps, never()).list(any(), any());
+
         context.assertEquals(new HashSet(asList("foo", "bar")), createdOrUpdated);
         context.assertEquals(singleton("baz"), deleted);
     }
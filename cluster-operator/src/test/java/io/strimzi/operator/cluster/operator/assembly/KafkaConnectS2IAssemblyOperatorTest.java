@@ -42,6 +42,7 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -50,6 +51,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -81,7 +83,7 @@ public class KafkaConnectS2IAssemblyOperatorTest {
         String clusterCmNamespace = "test";
 
         ConfigMap clusterCm = ResourceUtils.createEmptyKafkaConnectS2IClusterConfigMap(clusterCmNamespace, clusterCmName);
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
 
         ArgumentCaptor<Service> serviceCaptor = ArgumentCaptor.forClass(Service.class);
         when(mockServiceOps.reconcile(anyString(), anyString(), serviceCaptor.capture())).thenReturn(Future.succeededFuture());
@@ -159,12 +161,12 @@ public class KafkaConnectS2IAssemblyOperatorTest {
 
         ConfigMap clusterCm = ResourceUtils.createEmptyKafkaConnectS2IClusterConfigMap(clusterCmNamespace, clusterCmName);
         KafkaConnectS2ICluster connect = KafkaConnectS2ICluster.fromConfigMap(clusterCm);
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeploymentConfig());
-        when(mockIsOps.get(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(connect.generateSourceImageStream());
-        when(mockIsOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateTargetImageStream());
-        when(mockBcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateBuildConfig());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeploymentConfig()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(Future.succeededFuture(connect.generateSourceImageStream()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateTargetImageStream()));
+        when(mockBcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateBuildConfig()));
 
         ArgumentCaptor<String> serviceNamespaceCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> serviceNameCaptor = ArgumentCaptor.forClass(String.class);
@@ -244,12 +246,12 @@ public class KafkaConnectS2IAssemblyOperatorTest {
         KafkaConnectS2ICluster connect = KafkaConnectS2ICluster.fromConfigMap(clusterCm);
         clusterCm.getData().put("image", "some/different:image"); // Change the image to generate some diff
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeploymentConfig());
-        when(mockIsOps.get(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(connect.generateSourceImageStream());
-        when(mockIsOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateTargetImageStream());
-        when(mockBcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateBuildConfig());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeploymentConfig()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(Future.succeededFuture(connect.generateSourceImageStream()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateTargetImageStream()));
+        when(mockBcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateBuildConfig()));
 
         ArgumentCaptor<String> serviceNamespaceCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> serviceNameCaptor = ArgumentCaptor.forClass(String.class);
@@ -284,14 +286,14 @@ public class KafkaConnectS2IAssemblyOperatorTest {
         when(mockCmOps.reconcile(anyString(), any(), any())).thenReturn(Future.succeededFuture(ReconcileResult.created(null)));
 
         // Mock CM get
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
         ConfigMap metricsCm = new ConfigMapBuilder().withNewMetadata()
                     .withName(KafkaConnectS2ICluster.metricsConfigName(clusterCmName))
                     .withNamespace(clusterCmNamespace)
                 .endMetadata()
                 .withData(Collections.singletonMap(AbstractModel.METRICS_CONFIG_FILE, METRICS_CONFIG))
                 .build();
-        when(mockCmOps.get(clusterCmNamespace, KafkaConnectS2ICluster.metricsConfigName(clusterCmName))).thenReturn(metricsCm);
+        when(mockCmOps.getAsync(clusterCmNamespace, KafkaConnectS2ICluster.metricsConfigName(clusterCmName))).thenReturn(Future.succeededFuture(metricsCm));
 
         // Mock CM patch
         Set<String> metricsCms = ResourceUtils.set();
@@ -363,12 +365,12 @@ public class KafkaConnectS2IAssemblyOperatorTest {
         KafkaConnectS2ICluster connect = KafkaConnectS2ICluster.fromConfigMap(clusterCm);
         clusterCm.getData().put("image", "some/different:image"); // Change the image to generate some diff
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeploymentConfig());
-        when(mockIsOps.get(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(connect.generateSourceImageStream());
-        when(mockIsOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateTargetImageStream());
-        when(mockBcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateBuildConfig());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeploymentConfig()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(Future.succeededFuture(connect.generateSourceImageStream()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateTargetImageStream()));
+        when(mockBcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateBuildConfig()));
 
         ArgumentCaptor<String> serviceNamespaceCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> serviceNameCaptor = ArgumentCaptor.forClass(String.class);
@@ -431,12 +433,12 @@ public class KafkaConnectS2IAssemblyOperatorTest {
         KafkaConnectS2ICluster connect = KafkaConnectS2ICluster.fromConfigMap(clusterCm);
         clusterCm.getData().put(KafkaConnectCluster.KEY_REPLICAS, newReplicas); // Change replicas to create ScaleUp
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeploymentConfig());
-        when(mockIsOps.get(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(connect.generateSourceImageStream());
-        when(mockIsOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateTargetImageStream());
-        when(mockBcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateBuildConfig());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeploymentConfig()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(Future.succeededFuture(connect.generateSourceImageStream()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateTargetImageStream()));
+        when(mockBcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateBuildConfig()));
 
         when(mockServiceOps.reconcile(any(), any(), any())).thenReturn(Future.succeededFuture());
 
@@ -485,12 +487,12 @@ public class KafkaConnectS2IAssemblyOperatorTest {
         KafkaConnectS2ICluster connect = KafkaConnectS2ICluster.fromConfigMap(clusterCm);
         clusterCm.getData().put(KafkaConnectCluster.KEY_REPLICAS, newReplicas); // Change replicas to create ScaleDown
 
-        when(mockCmOps.get(clusterCmNamespace, clusterCmName)).thenReturn(clusterCm);
-        when(mockServiceOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateService());
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeploymentConfig());
-        when(mockIsOps.get(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(connect.generateSourceImageStream());
-        when(mockIsOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateTargetImageStream());
-        when(mockBcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateBuildConfig());
+        when(mockCmOps.getAsync(clusterCmNamespace, clusterCmName)).thenReturn(Future.succeededFuture(clusterCm));
+        when(mockServiceOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateService()));
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeploymentConfig()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(Future.succeededFuture(connect.generateSourceImageStream()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateTargetImageStream()));
+        when(mockBcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateBuildConfig()));
 
         when(mockServiceOps.reconcile(any(), any(), any())).thenReturn(Future.succeededFuture());
 
@@ -535,8 +537,8 @@ public class KafkaConnectS2IAssemblyOperatorTest {
 
         KafkaConnectS2ICluster connect = KafkaConnectS2ICluster.fromConfigMap(ResourceUtils.createEmptyKafkaConnectS2IClusterConfigMap(clusterCmNamespace, clusterCmName));
 
-        when(mockDcOps.get(clusterCmNamespace, connect.getName())).thenReturn(connect.generateDeploymentConfig());
-        when(mockIsOps.get(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(connect.generateSourceImageStream());
+        when(mockDcOps.getAsync(clusterCmNamespace, connect.getName())).thenReturn(Future.succeededFuture(connect.generateDeploymentConfig()));
+        when(mockIsOps.getAsync(clusterCmNamespace, connect.getSourceImageStreamName())).thenReturn(Future.succeededFuture(connect.generateSourceImageStream()));
 
         ArgumentCaptor<String> serviceNamespaceCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> serviceNameCaptor = ArgumentCaptor.forClass(String.class);
@@ -601,31 +603,34 @@ public class KafkaConnectS2IAssemblyOperatorTest {
 
 
         String clusterCmNamespace = "test";
+        when(mockServiceOps.listAsync(any(), any())).thenReturn(Future.succeededFuture(emptyList()));
+        when(mockIsOps.listAsync(any(), any())).thenReturn(Future.succeededFuture(emptyList()));
+        when(mockBcOps.listAsync(any(), any())).thenReturn(Future.succeededFuture(emptyList()));
 
         ConfigMap foo = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "foo");
         ConfigMap bar = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "bar");
         ConfigMap baz = ResourceUtils.createEmptyKafkaConnectClusterConfigMap(clusterCmNamespace, "baz");
-        when(mockCmOps.list(eq(clusterCmNamespace), any())).thenReturn(asList(foo, bar));
+        when(mockCmOps.listAsync(eq(clusterCmNamespace), any())).thenReturn(Future.succeededFuture(asList(foo, bar)));
         // when requested ConfigMap for a specific Kafka Connect S2I cluster
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("foo"))).thenReturn(foo);
-        when(mockCmOps.get(eq(clusterCmNamespace), eq("bar"))).thenReturn(bar);
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("foo"))).thenReturn(Future.succeededFuture(foo));
+        when(mockCmOps.getAsync(eq(clusterCmNamespace), eq("bar"))).thenReturn(Future.succeededFuture(bar));
 
         // providing the list of ALL DeploymentConfigs for all the Kafka Connect S2I clusters
         Labels newLabels = Labels.forType(AssemblyType.CONNECT_S2I);
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(newLabels))).thenReturn(
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(newLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaConnectS2ICluster.fromConfigMap(bar).generateDeploymentConfig(),
-                        KafkaConnectS2ICluster.fromConfigMap(baz).generateDeploymentConfig()));
+                        KafkaConnectS2ICluster.fromConfigMap(baz).generateDeploymentConfig())));
 
         // providing the list DeploymentConfigs for already "existing" Kafka Connect S2I clusters
         Labels barLabels = Labels.forCluster("bar");
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(barLabels))).thenReturn(
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(barLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaConnectS2ICluster.fromConfigMap(bar).generateDeploymentConfig())
-        );
+        ));
 
         Labels bazLabels = Labels.forCluster("baz");
-        when(mockDcOps.list(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(
+        when(mockDcOps.listAsync(eq(clusterCmNamespace), eq(bazLabels))).thenReturn(Future.succeededFuture(
                 asList(KafkaConnectS2ICluster.fromConfigMap(baz).generateDeploymentConfig())
-        );
+        ));
 
         Set<String> createdOrUpdated = new CopyOnWriteArraySet<>();
         Set<String> deleted = new CopyOnWriteArraySet<>();
@@ -653,6 +658,18 @@ public class KafkaConnectS2IAssemblyOperatorTest {
 
         async.await();
 
+        // The ConfigMaps and resources must only be fetched using the non-blocking variants
+        verify(mockCmOps, never()).get(any(), any());
+        verify(mockCmOps, never()).list(any(), any());
+        verify(mockServiceOps, never()).get(any(), any());
+        verify(mockServiceOps, never()).list(any(), any());
+        verify(mockDcOps, never()).get(any(), any());
+        verify(mockDcOps, never()).list(any(), any());
+        verify(mockIsOps, never()).get(any(), any());
+        verify(mockIsOps, never()).list(any(), any());
+        verify(mockBcOps, never()).get(any(), any());
+        verify(mockBcOps, never()).list(any(), any());
+
         context.assertEquals(new HashSet(asList("foo", "bar")), createdOrUpdated);
         context.assertEquals(singleton("baz"), deleted);
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.operator.assembly;
+
+import io.strimzi.operator.cluster.Reconciliation;
+import io.strimzi.operator.cluster.model.AssemblyType;
+import io.vertx.core.Future;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReconcileGraphTest {
+
+    private final ReconcileGraph graph = new ReconcileGraph(new Reconciliation("test", AssemblyType.KAFKA, "ns", "name"));
+    /** The names of the steps, in the order they were started. */
+    private final List<String> started = new ArrayList<>();
+    /** The futures of the started steps, to be completed by the test. */
+    private final Map<String, Future<String>> futures = new HashMap<>();
+
+    private ReconcileGraph.Step<String> step(String name, ReconcileGraph.Step<?>... dependencies) {
+        return graph.add(name, () -> {
+            started.add(name);
+            Future<String> future = Future.future();
+            futures.put(name, future);
+            return future;
+        }, dependencies);
+    }
+
+    @Test
+    public void testIndependentStepsRunConcurrently() {
+        ReconcileGraph.Step<String> a = step("a");
+        ReconcileGraph.Step<String> b = step("b");
+        ReconcileGraph.Step<String> c = step("c", a, b);
+        step("d", c);
+        step("e", c);
+
+        Future<Void> result = graph.execute();
+        assertEquals(asList("a", "b"), started);
+
+        futures.get("b").complete("B");
+        assertEquals(asList("a", "b"), started);
+        futures.get("a").complete("A");
+        assertEquals(asList("a", "b", "c"), started);
+        assertEquals("A", a.result());
+        assertEquals("B", b.result());
+
+        futures.get("c").complete("C");
+        assertEquals(asList("a", "b", "c", "d", "e"), started);
+
+        futures.get("d").complete();
+        assertFalse(result.isComplete());
+        futures.get("e").complete();
+        assertTrue(result.succeeded());
+        assertTrue(graph.trace(), graph.trace().startsWith("[a("));
+    }
+
+    @Test
+    public void testSynchronousSteps() {
+        ReconcileGraph.Step<String> a = graph.add("a", () -> Future.succeededFuture("A"));
+        ReconcileGraph.Step<String> b = graph.add("b", () -> Future.succeededFuture(a.result() + "B"), a);
+        graph.add("c", () -> Future.succeededFuture(b.result() + "C"), b);
+
+        assertTrue(graph.execute().succeeded());
+        assertEquals("AB", b.result());
+    }
+
+    @Test
+    public void testFailureStopsDependents() {
+        ReconcileGraph.Step<String> a = step("a");
+        ReconcileGraph.Step<String> b = step("b");
+        step("c", a);
+        step("d", b);
+
+        Future<Void> result = graph.execute();
+        RuntimeException failure = new RuntimeException("a failed");
+        futures.get("a").fail(failure);
+        assertFalse(result.isComplete());
+
+        // b was already running, but d is not started
+        futures.get("b").complete();
+        assertEquals(asList("a", "b"), started);
+        assertTrue(result.failed());
+        assertSame(failure, result.cause());
+        assertTrue(graph.trace(), graph.trace().contains("failed"));
+        assertTrue(graph.trace(), graph.trace().contains("c(not started)"));
+    }
+
+    @Test
+    public void testThrowingOperationFails() {
+        RuntimeException failure = new RuntimeException("boom");
+        graph.add("a", () -> {
+            throw failure;
+        });
+
+        Future<Void> result = graph.execute();
+        assertTrue(result.failed());
+        assertSame(failure, result.cause());
+    }
+
+    @Test
+    public void testEmptyGraph() {
+        assertTrue(graph.execute().succeeded());
+    }
+}
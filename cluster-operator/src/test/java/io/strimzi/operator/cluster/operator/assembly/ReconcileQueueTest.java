@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.operator.assembly;
+
+import io.strimzi.operator.cluster.Reconciliation;
+import io.strimzi.operator.cluster.model.AssemblyType;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class ReconcileQueueTest {
+
+    private final Vertx vertx = Vertx.vertx();
+    /** The reconciliations which have been started, in order. */
+    private final List<Reconciliation> started = Collections.synchronizedList(new ArrayList<>());
+    /** The handlers of the started reconciliations, which the test calls to finish them. */
+    private final List<Handler<AsyncResult<Void>>> running = Collections.synchronizedList(new ArrayList<>());
+    private final ReconcileQueue queue = new ReconcileQueue(vertx, (reconciliation, handler) -> {
+        started.add(reconciliation);
+        running.add(handler);
+    });
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private static Reconciliation reconciliation(String trigger, String name) {
+        return new Reconciliation(trigger, AssemblyType.KAFKA, "ns", name);
+    }
+
+    @Test
+    public void testTriggersWhileRunningAreCollapsed(TestContext context) {
+        AtomicInteger finished = new AtomicInteger();
+        Reconciliation first = reconciliation("watch", "my-cluster");
+        Reconciliation second = reconciliation("watch", "my-cluster");
+        queue.enqueue(first, 0, ar -> finished.incrementAndGet());
+        context.assertEquals(1, started.size());
+
+        queue.enqueue(second, 0, ar -> finished.incrementAndGet());
+        queue.enqueue(reconciliation("timer", "my-cluster"), 0, ar -> finished.incrementAndGet());
+        queue.enqueue(reconciliation("watch", "my-cluster"), 0, ar -> finished.incrementAndGet());
+        context.assertEquals(1, started.size());
+        context.assertEquals(1, queue.depth());
+
+        // Finishing the first starts a single follow-up
+        running.get(0).handle(Future.succeededFuture());
+        context.assertEquals(1, finished.get());
+        context.assertEquals(2, started.size());
+        context.assertEquals(second, started.get(1));
+        context.assertEquals(0, queue.depth());
+
+        // whose completion calls all the collapsed handlers
+        running.get(1).handle(Future.failedFuture("failed"));
+        context.assertEquals(4, finished.get());
+        context.assertEquals(2, started.size());
+        context.assertEquals(2L, queue.waitCount(ReconcileQueue.IMMEDIATE));
+    }
+
+    @Test
+    public void testAssembliesAreReconciledConcurrently(TestContext context) {
+        queue.enqueue(reconciliation("watch", "a"), 0, ar -> { });
+        queue.enqueue(reconciliation("watch", "b"), 0, ar -> { });
+        context.assertEquals(2, started.size());
+        context.assertEquals(0, queue.depth());
+    }
+
+    @Test
+    public void testDelayedReconciliation(TestContext context) {
+        Async async = context.async();
+        queue.enqueue(reconciliation("timer", "my-cluster"), 50, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(1L, queue.waitCount(ReconcileQueue.DELAYED));
+            context.assertTrue(queue.waitSeconds(ReconcileQueue.DELAYED) >= 0.05);
+            async.complete();
+        });
+        context.assertEquals(0, started.size());
+        context.assertEquals(1, queue.depth());
+        vertx.setPeriodic(10, timerId -> {
+            if (!running.isEmpty()) {
+                vertx.cancelTimer(timerId);
+                running.get(0).handle(Future.succeededFuture());
+            }
+        });
+    }
+
+    @Test
+    public void testImmediateReconciliationSupersedesDelayed(TestContext context) {
+        AtomicInteger finished = new AtomicInteger();
+        queue.enqueue(reconciliation("timer", "my-cluster"), 60_000, ar -> finished.incrementAndGet());
+        context.assertEquals(0, started.size());
+
+        Reconciliation watch = reconciliation("watch", "my-cluster");
+        queue.enqueue(watch, 0, ar -> finished.incrementAndGet());
+        context.assertEquals(1, started.size());
+        context.assertEquals(watch, started.get(0));
+        context.assertEquals(0, queue.depth());
+
+        running.get(0).handle(Future.succeededFuture());
+        context.assertEquals(2, finished.get());
+        context.assertEquals(1, started.size());
+    }
+
+    @Test
+    public void testThrowingReconcilerFinishes(TestContext context) {
+        ReconcileQueue throwing = new ReconcileQueue(vertx, (reconciliation, handler) -> {
+            throw new RuntimeException("boom");
+        });
+        Async async = context.async();
+        throwing.enqueue(reconciliation("watch", "my-cluster"), 0, ar -> {
+            context.assertTrue(ar.failed());
+            context.assertEquals(0, throwing.depth());
+            async.complete();
+        });
+    }
+}
@@ -7,9 +7,12 @@ package io.strimzi.operator.cluster.operator.resource;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
+import io.strimzi.operator.cluster.model.Labels;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
@@ -20,7 +23,11 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.List;
+
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -36,6 +43,8 @@ public abstract class AbstractResourceOperatorTest<C extends KubernetesClient, T
 
     public static final String RESOURCE_NAME = "my-resource";
     public static final String NAMESPACE = "test";
+    /** How long the mocked blocking Kubernetes calls take */
+    private static final long BLOCKING_CALL_MS = 500;
     protected static Vertx vertx;
 
     @BeforeClass
@@ -115,6 +124,36 @@ public abstract class AbstractResourceOperatorTest<C extends KubernetesClient, T
         });
     }
 
+    @Test
+    public void createWhenExistsWithSameDesiredStateIsANoop(TestContext context) {
+        T current = resource();
+        AbstractResourceOperator.stampDesiredStateHash(current);
+        Resource mockResource = mock(resourceType());
+        when(mockResource.get()).thenReturn(current);
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(current.getMetadata().getName()))).thenReturn(mockResource);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(current.getMetadata().getNamespace()))).thenReturn(mockNameable);
+
+        C mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<C, T, L, D, R> op = createResourceOperations(vertx, mockClient);
+
+        Async async = context.async();
+        op.createOrUpdate(resource()).setHandler(ar -> {
+            assertTrue(ar.succeeded());
+            assertTrue(ar.result() instanceof ReconcileResult.Noop);
+            assertSame(current, ar.result().resource());
+            verify(mockResource).get();
+            verify(mockResource, never()).patch(any());
+            verify(mockResource, never()).create(any());
+            async.complete();
+        });
+    }
+
     @Test
     public void existenceCheckThrows(TestContext context) {
         T resource = resource();
@@ -302,6 +341,74 @@ public abstract class AbstractResourceOperatorTest<C extends KubernetesClient, T
         });
     }
 
+    @Test
+    public void getAsyncDoesNotBlockEventLoop(TestContext context) {
+        T resource = resource();
+        Resource mockResource = mock(resourceType());
+        when(mockResource.get()).thenAnswer(invocation -> {
+            context.assertFalse(Context.isOnEventLoopThread(), "Blocking get() called on the event loop");
+            Thread.sleep(BLOCKING_CALL_MS);
+            return resource;
+        });
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(RESOURCE_NAME))).thenReturn(mockResource);
 
-}
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(NAMESPACE))).thenReturn(mockNameable);
+
+        C mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<C, T, L, D, R> op = createResourceOperations(vertx, mockClient);
+
+        Async async = context.async();
+        vertx.runOnContext(v -> {
+            long t0 = System.currentTimeMillis();
+            Future<T> fut = op.getAsync(NAMESPACE, RESOURCE_NAME);
+            context.assertTrue(System.currentTimeMillis() - t0 < BLOCKING_CALL_MS, "getAsync() blocked the event loop");
+            fut.setHandler(ar -> {
+                context.assertTrue(ar.succeeded());
+                context.assertEquals(resource, ar.result());
+                async.complete();
+            });
+        });
+    }
+
+    @Test
+    public void listAsyncDoesNotBlockEventLoop(TestContext context) {
+        T resource = resource();
+        KubernetesResourceList mockList = mock(KubernetesResourceList.class);
+        when(mockList.getItems()).thenReturn(singletonList(resource));
+
+        FilterWatchListDeletable mockListable = mock(FilterWatchListDeletable.class);
+        when(mockListable.list()).thenAnswer(invocation -> {
+            context.assertFalse(Context.isOnEventLoopThread(), "Blocking list() called on the event loop");
+            Thread.sleep(BLOCKING_CALL_MS);
+            return mockList;
+        });
 
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withLabels(any())).thenReturn(mockListable);
+
+        MixedOperation mockCms = mock(MixedOperation.class);
+        when(mockCms.inNamespace(matches(NAMESPACE))).thenReturn(mockNameable);
+
+        C mockClient = mock(clientType());
+        mocker(mockClient, mockCms);
+
+        AbstractResourceOperator<C, T, L, D, R> op = createResourceOperations(vertx, mockClient);
+
+        Async async = context.async();
+        vertx.runOnContext(v -> {
+            long t0 = System.currentTimeMillis();
+            Future<List<T>> fut = op.listAsync(NAMESPACE, Labels.EMPTY);
+            context.assertTrue(System.currentTimeMillis() - t0 < BLOCKING_CALL_MS, "listAsync() blocked the event loop");
+            fut.setHandler(ar -> {
+                context.assertTrue(ar.succeeded());
+                context.assertEquals(singletonList(resource), ar.result());
+                async.complete();
+            });
+        });
+    }
+}
@@ -7,26 +7,81 @@ package io.strimzi.operator.cluster.operator.resource;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.EnvVar;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.client.KubernetesClient;
 import io.strimzi.operator.cluster.ResourceUtils;
 import io.strimzi.operator.cluster.model.KafkaCluster;
+import io.strimzi.operator.cluster.model.RackConfig;
+import io.strimzi.operator.cluster.model.RollingUpdateConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.ListTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.InvalidRequestException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.AfterClass;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static io.strimzi.operator.cluster.model.AbstractModel.containerEnvVars;
 import static io.strimzi.operator.cluster.model.KafkaCluster.ENV_VAR_KAFKA_ZOOKEEPER_CONNECT;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class KafkaSetOperatorTest {
 
     public static final String METRICS_CONFIG = "{\"foo\":\"bar\"}";
 
+    private static Vertx vertx;
+
     private StatefulSet a;
     private StatefulSet b;
 
+    @BeforeClass
+    public static void beforeClass() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        vertx.close();
+    }
+
     @Before
     public void before() {
         a = KafkaCluster.fromConfigMap(getConfigMap()).generateStatefulSet(true);
@@ -106,4 +161,401 @@ public class KafkaSetOperatorTest {
                 "foo", null));
         assertTrue(KafkaSetOperator.needsRollingUpdate(diff()));
     }
+
+    private static StatefulSet withKafkaConfig(String kafkaConfigJson) {
+        ConfigMap cm = ResourceUtils.createKafkaClusterConfigMap("test", "foo", 3, "bar", 120, 30, METRICS_CONFIG, kafkaConfigJson);
+        return KafkaCluster.fromConfigMap(cm).generateStatefulSet(true);
+    }
+
+    @Test
+    public void testDynamicConfigChangeNeedsNoRollingUpdate() {
+        a = withKafkaConfig("{\"num.io.threads\": 8, \"default.replication.factor\": 3}");
+        b = withKafkaConfig("{\"num.io.threads\": 16, \"log.cleaner.threads\": 2, \"default.replication.factor\": 3}");
+        assertTrue(KafkaSetOperator.needsRollingUpdate(diff()));
+        assertTrue(KafkaSetOperator.changesOnlyDynamicConfiguration(a, b));
+        // The desired StatefulSet keeps its configuration, for when the brokers are restarted
+        assertEquals("16", KafkaCluster.configuration(b).asMap().get("num.io.threads"));
+
+        Map<String, String> dynamic = new HashMap<>();
+        dynamic.put("num.io.threads", "16");
+        dynamic.put("log.cleaner.threads", "2");
+        assertEquals(dynamic, KafkaCluster.configuration(b).dynamicOptions());
+    }
+
+    @Test
+    public void testStaticConfigChangeNeedsRollingUpdate() {
+        a = withKafkaConfig("{\"num.io.threads\": 8, \"default.replication.factor\": 3}");
+        b = withKafkaConfig("{\"num.io.threads\": 16, \"default.replication.factor\": 2}");
+        assertFalse(KafkaSetOperator.changesOnlyDynamicConfiguration(a, b));
+    }
+
+    @Test
+    public void testRemovedDynamicConfigNeedsRollingUpdate() {
+        a = withKafkaConfig("{\"num.io.threads\": 8, \"log.cleaner.threads\": 2}");
+        b = withKafkaConfig("{\"num.io.threads\": 8}");
+        assertFalse(KafkaSetOperator.changesOnlyDynamicConfiguration(a, b));
+    }
+
+    @Test
+    public void testDynamicConfigChangeWithOtherChangeNeedsRollingUpdate() {
+        a = withKafkaConfig("{\"num.io.threads\": 8}");
+        b = withKafkaConfig("{\"num.io.threads\": 16}");
+        b.getSpec().getTemplate().getSpec().getContainers().get(0).setImage("baz");
+        assertFalse(KafkaSetOperator.changesOnlyDynamicConfiguration(a, b));
+        assertEquals("num.io.threads=16\n", KafkaCluster.configurationEnvVar(b).getValue());
+    }
+
+    @Test
+    public void testChangesOnlyDynamicConfigurationDoesNotModifyDesired() {
+        a = withKafkaConfig("{\"num.io.threads\": 8}");
+        b = withKafkaConfig("{\"num.io.threads\": 16}");
+        String desired = b.toString();
+        assertTrue(KafkaSetOperator.changesOnlyDynamicConfiguration(a, b));
+        assertEquals(desired, b.toString());
+        assertEquals("num.io.threads=16\n", KafkaCluster.configurationEnvVar(b).getValue());
+    }
+
+    /**
+     * Records the dynamic configuration it's asked to apply, and whether the patch increments the generation,
+     * instead of talking to the brokers and to Kubernetes.
+     */
+    private static class DynamicConfigKafkaSetOperator extends KafkaSetOperator {
+        private final Exception alterFailure;
+        private Map<String, String> alteredOptions;
+        private Set<String> removedOptions;
+        private Boolean incrementedGeneration;
+
+        DynamicConfigKafkaSetOperator(Exception alterFailure) {
+            super(vertx, mock(KubernetesClient.class), 60_000L);
+            this.alterFailure = alterFailure;
+        }
+
+        @Override
+        protected void alterDynamicConfiguration(String namespace, String cluster, Map<String, String> options, Set<String> removed) throws Exception {
+            alteredOptions = options;
+            removedOptions = removed;
+            if (alterFailure != null) {
+                throw alterFailure;
+            }
+        }
+
+        @Override
+        protected Future<ReconcileResult<StatefulSet>> internalPatch(String namespace, String name, StatefulSet current, StatefulSet desired,
+                boolean incrementGeneration) {
+            incrementedGeneration = incrementGeneration;
+            return Future.succeededFuture(ReconcileResult.patched(desired));
+        }
+    }
+
+    @Test
+    public void testDynamicConfigChangeIsAppliedToTheBrokers() {
+        a = withKafkaConfig("{\"num.io.threads\": 8}");
+        b = withKafkaConfig("{\"num.io.threads\": 16}");
+        DynamicConfigKafkaSetOperator op = new DynamicConfigKafkaSetOperator(null);
+        assertTrue(op.internalPatch("test", "foo-kafka", a, b).succeeded());
+        assertEquals(singletonMap("num.io.threads", "16"), op.alteredOptions);
+        assertFalse(op.incrementedGeneration);
+    }
+
+    @Test
+    public void testRejectedDynamicConfigChangeNeedsRollingUpdate() {
+        a = withKafkaConfig("{\"num.io.threads\": 8}");
+        b = withKafkaConfig("{\"num.io.threads\": 16}");
+        DynamicConfigKafkaSetOperator op = new DynamicConfigKafkaSetOperator(
+                new ExecutionException(new InvalidRequestException("Rejected")));
+        assertTrue(op.internalPatch("test", "foo-kafka", a, b).succeeded());
+        assertEquals(singletonMap("num.io.threads", "16"), op.alteredOptions);
+        assertTrue(op.incrementedGeneration);
+    }
+
+    @Test
+    public void testStaticConfigChangeIsNotAppliedToTheBrokers() {
+        a = withKafkaConfig("{\"num.io.threads\": 8, \"default.replication.factor\": 3}");
+        b = withKafkaConfig("{\"num.io.threads\": 8, \"default.replication.factor\": 2}");
+        DynamicConfigKafkaSetOperator op = new DynamicConfigKafkaSetOperator(null);
+        assertTrue(op.internalPatch("test", "foo-kafka", a, b).succeeded());
+        assertNull(op.alteredOptions);
+        assertTrue(op.incrementedGeneration);
+    }
+
+    @Test
+    public void testMixedConfigChangeAfterDynamicChangeUpdatesTheDynamicConfig() {
+        StatefulSet initial = withKafkaConfig("{\"num.io.threads\": 8, \"default.replication.factor\": 3}");
+        StatefulSet dynamic = withKafkaConfig("{\"num.io.threads\": 16, \"default.replication.factor\": 3}");
+        StatefulSet mixed = withKafkaConfig("{\"num.io.threads\": 32, \"default.replication.factor\": 2}");
+        DynamicConfigKafkaSetOperator op = new DynamicConfigKafkaSetOperator(null);
+
+        assertTrue(op.internalPatch("test", "foo-kafka", initial, dynamic).succeeded());
+        assertEquals(singletonMap("num.io.threads", "16"), op.alteredOptions);
+        assertFalse(op.incrementedGeneration);
+
+        // The brokers restart, but the cluster-wide dynamic config would otherwise still say 16
+        assertTrue(op.internalPatch("test", "foo-kafka", dynamic, mixed).succeeded());
+        assertEquals(singletonMap("num.io.threads", "32"), op.alteredOptions);
+        assertEquals(emptySet(), op.removedOptions);
+        assertTrue(op.incrementedGeneration);
+    }
+
+    @Test
+    public void testRemovedDynamicConfigIsRemovedFromTheDynamicConfig() {
+        a = withKafkaConfig("{\"num.io.threads\": 8, \"log.cleaner.threads\": 2}");
+        b = withKafkaConfig("{\"num.io.threads\": 8}");
+        DynamicConfigKafkaSetOperator op = new DynamicConfigKafkaSetOperator(null);
+        assertTrue(op.internalPatch("test", "foo-kafka", a, b).succeeded());
+        assertEquals(singletonMap("num.io.threads", "8"), op.alteredOptions);
+        assertEquals(singleton("log.cleaner.threads"), op.removedOptions);
+        assertTrue(op.incrementedGeneration);
+    }
+
+    @Test
+    public void testRejectedDynamicConfigChangeStillRollsOnStaticChange() {
+        a = withKafkaConfig("{\"num.io.threads\": 8, \"default.replication.factor\": 3}");
+        b = withKafkaConfig("{\"num.io.threads\": 16, \"default.replication.factor\": 2}");
+        DynamicConfigKafkaSetOperator op = new DynamicConfigKafkaSetOperator(
+                new ExecutionException(new InvalidRequestException("Rejected")));
+        assertTrue(op.internalPatch("test", "foo-kafka", a, b).succeeded());
+        assertEquals(singletonMap("num.io.threads", "16"), op.alteredOptions);
+        assertTrue(op.incrementedGeneration);
+    }
+
+    private static ConfigEntry configEntry(String name, String value, ConfigEntry.ConfigSource source, boolean sensitive) {
+        ConfigEntry entry = mock(ConfigEntry.class);
+        when(entry.name()).thenReturn(name);
+        when(entry.value()).thenReturn(value);
+        when(entry.source()).thenReturn(source);
+        when(entry.isSensitive()).thenReturn(sensitive);
+        return entry;
+    }
+
+    private static Map<String, String> asMap(Config config) {
+        return config.entries().stream().collect(Collectors.toMap(ConfigEntry::name, ConfigEntry::value));
+    }
+
+    @Test
+    public void testClusterDynamicConfigKeepsOptionsSetOutsideTheOperator() {
+        Config existing = new Config(asList(
+                configEntry("num.io.threads", "16", ConfigEntry.ConfigSource.DYNAMIC_DEFAULT_BROKER_CONFIG, false),
+                configEntry("log.cleaner.threads", "2", ConfigEntry.ConfigSource.DYNAMIC_DEFAULT_BROKER_CONFIG, false),
+                configEntry("log.retention.ms", "1000", ConfigEntry.ConfigSource.DYNAMIC_DEFAULT_BROKER_CONFIG, false),
+                configEntry("num.network.threads", "3", ConfigEntry.ConfigSource.STATIC_BROKER_CONFIG, false)));
+        Map<String, String> expected = new HashMap<>();
+        expected.put("num.io.threads", "32");
+        expected.put("log.retention.ms", "1000");
+        assertEquals(expected, asMap(KafkaSetOperator.clusterDynamicConfig(existing,
+                singletonMap("num.io.threads", "32"), singleton("log.cleaner.threads"))));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClusterDynamicConfigCantKeepSensitiveOptions() {
+        Config existing = new Config(singletonList(
+                configEntry("listener.name.tls.ssl.key.password", null, ConfigEntry.ConfigSource.DYNAMIC_DEFAULT_BROKER_CONFIG, true)));
+        KafkaSetOperator.clusterDynamicConfig(existing, singletonMap("num.io.threads", "32"), emptySet());
+    }
+
+    @Test
+    public void testBatchesByMaxUnavailable() {
+        List<String> pods = asList("k-0", "k-1", "k-2", "k-3", "k-4");
+        assertEquals(asList(asList("k-0", "k-1"), asList("k-2", "k-3"), singletonList("k-4")),
+                KafkaSetOperator.batches(pods, null, 2, null));
+        // The controller goes last
+        assertEquals(asList(asList("k-0", "k-2"), asList("k-3", "k-4"), singletonList("k-1")),
+                KafkaSetOperator.batches(pods, null, 2, "k-1"));
+        // A controller which doesn't need rolling doesn't affect the order
+        assertEquals(asList(asList("k-0", "k-1", "k-2"), asList("k-3", "k-4")),
+                KafkaSetOperator.batches(pods, null, 3, "k-9"));
+    }
+
+    @Test
+    public void testBatchesByRack() {
+        List<String> pods = asList("k-0", "k-1", "k-2", "k-3", "k-4", "k-5");
+        Map<String, String> racks = new HashMap<>();
+        racks.put("k-0", "zone-a");
+        racks.put("k-1", "zone-b");
+        racks.put("k-2", "zone-c");
+        racks.put("k-3", "zone-a");
+        racks.put("k-4", "zone-b");
+        racks.put("k-5", "zone-c");
+        assertEquals(asList(asList("k-0", "k-3"), asList("k-1", "k-4"), asList("k-2", "k-5")),
+                KafkaSetOperator.batches(pods, racks, 1, null));
+        // The controller's rack goes last
+        assertEquals(asList(asList("k-1", "k-4"), asList("k-2", "k-5"), asList("k-3", "k-0")),
+                KafkaSetOperator.batches(pods, racks, 1, "k-0"));
+    }
+
+    /**
+     * A KafkaSetOperator which rolls every pod, describes the cluster as given, and records the batches
+     * it rolls and waits to be in sync, rather than using Kubernetes and Kafka.
+     */
+    private static class RecordingKafkaSetOperator extends KafkaSetOperator {
+        private final KafkaSetOperator.ClusterDescription description;
+        private final List<Object> events = new ArrayList<>();
+
+        RecordingKafkaSetOperator(KafkaSetOperator.ClusterDescription description) {
+            super(vertx, mock(KubernetesClient.class), 60_000L);
+            this.description = description;
+        }
+
+        @Override
+        protected Future<Boolean> isPodUpToDate(StatefulSet ss, String podName) {
+            return Future.succeededFuture(false);
+        }
+
+        @Override
+        protected Future<ClusterDescription> describeCluster(SharedAdminClient adminClient) {
+            return Future.succeededFuture(description);
+        }
+
+        @Override
+        protected Future<Void> maybeRollingUpdate(StatefulSet ss, List<List<String>> batches) {
+            events.addAll(batches);
+            return Future.succeededFuture();
+        }
+
+        @Override
+        protected Future<Void> awaitInSync(SharedAdminClient adminClient, Set<Integer> brokerIds) {
+            events.add(brokerIds);
+            return Future.succeededFuture();
+        }
+    }
+
+    private static Map<Integer, String> racks(String... racks) {
+        Map<Integer, String> result = new HashMap<>();
+        for (int i = 0; i < racks.length; i++) {
+            result.put(i, racks[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testRackAwareRollingUpdateRollsControllerRackLast() {
+        a.getSpec().setReplicas(6);
+        RecordingKafkaSetOperator op = new RecordingKafkaSetOperator(new KafkaSetOperator.ClusterDescription(4,
+                racks("zone-a", "zone-b", "zone-c", "zone-a", "zone-b", "zone-c")));
+        String name = a.getMetadata().getName();
+
+        assertTrue(op.maybeRollingUpdate(a, new RollingUpdateConfig(true, 1), new RackConfig("zone")).succeeded());
+        // Each rack is rolled together, and the next rack only once the previous one is in sync
+        assertEquals(asList(
+                asList(name + "-0", name + "-3"), new HashSet<>(asList(0, 3)),
+                asList(name + "-2", name + "-5"), new HashSet<>(asList(2, 5)),
+                asList(name + "-1", name + "-4"), new HashSet<>(asList(1, 4))),
+                op.events);
+    }
+
+    @Test
+    public void testRackAwareRollingUpdateWithUnknownRackUsesMaxUnavailable() {
+        RecordingKafkaSetOperator op = new RecordingKafkaSetOperator(new KafkaSetOperator.ClusterDescription(0,
+                racks("zone-a", "zone-b")));
+        String name = a.getMetadata().getName();
+
+        assertTrue(op.maybeRollingUpdate(a, new RollingUpdateConfig(true, 2), new RackConfig("zone")).succeeded());
+        assertEquals(asList(
+                asList(name + "-1", name + "-2"), new HashSet<>(asList(1, 2)),
+                singletonList(name + "-0"), singleton(0)),
+                op.events);
+    }
+
+    @Test
+    public void testMaxUnavailableRollingUpdateRollsControllerLast() {
+        RecordingKafkaSetOperator op = new RecordingKafkaSetOperator(new KafkaSetOperator.ClusterDescription(1, racks()));
+        String name = a.getMetadata().getName();
+
+        assertTrue(op.maybeRollingUpdate(a, new RollingUpdateConfig(false, 2), null).succeeded());
+        assertEquals(asList(
+                asList(name + "-0", name + "-2"), new HashSet<>(asList(0, 2)),
+                singletonList(name + "-1"), singleton(1)),
+                op.events);
+    }
+
+    @Test
+    public void testRollingUpdateWhenClusterCannotBeDescribed() {
+        RecordingKafkaSetOperator op = new RecordingKafkaSetOperator(null);
+        String name = a.getMetadata().getName();
+
+        assertTrue(op.maybeRollingUpdate(a, new RollingUpdateConfig(true, 2), new RackConfig("zone")).succeeded());
+        assertEquals(asList(
+                asList(name + "-0", name + "-1"), new HashSet<>(asList(0, 1)),
+                singletonList(name + "-2"), singleton(2)),
+                op.events);
+    }
+
+    private static TopicPartitionInfo partition(int partition, List<Integer> replicas, List<Integer> isr) {
+        List<Node> replicaNodes = replicas.stream().map(id -> new Node(id, "broker-" + id, 9092)).collect(Collectors.toList());
+        List<Node> isrNodes = isr.stream().map(id -> new Node(id, "broker-" + id, 9092)).collect(Collectors.toList());
+        return new TopicPartitionInfo(partition, replicaNodes.get(0), replicaNodes, isrNodes);
+    }
+
+    @Test
+    public void testOutOfSync() {
+        List<TopicDescription> topics = asList(
+                new TopicDescription("foo", false, asList(
+                        partition(0, asList(0, 1, 2), asList(0, 1, 2)),
+                        partition(1, asList(1, 2, 3), asList(1, 2)))),
+                new TopicDescription("bar", false, singletonList(
+                        partition(0, asList(2, 0), asList(0)))));
+        assertEquals(emptySet(), KafkaSetOperator.outOfSync(topics, new HashSet<>(asList(0, 1))));
+        assertEquals(new HashSet<>(asList(new TopicPartition("foo", 1), new TopicPartition("bar", 0))),
+                KafkaSetOperator.outOfSync(topics, singleton(2)));
+        assertEquals(singleton(new TopicPartition("foo", 1)), KafkaSetOperator.outOfSync(topics, singleton(3)));
+        assertEquals(emptySet(), KafkaSetOperator.outOfSync(topics, singleton(4)));
+    }
+
+    private static <T> KafkaFuture<T> completed(T value) {
+        KafkaFutureImpl<T> future = new KafkaFutureImpl<>();
+        future.complete(value);
+        return future;
+    }
+
+    @Test
+    public void testAwaitInSyncOnlyRedescribesOutOfSyncTopics() throws Exception {
+        Map<String, TopicDescription> descriptions = new HashMap<>();
+        descriptions.put("foo", new TopicDescription("foo", false, asList(
+                partition(0, asList(0, 1), asList(0, 1)),
+                partition(1, asList(1, 2), asList(1)))));
+        descriptions.put("bar", new TopicDescription("bar", false, singletonList(
+                partition(0, asList(2, 0), asList(2, 0)))));
+
+        AdminClient adminClient = mock(AdminClient.class);
+        ListTopicsResult listed = mock(ListTopicsResult.class);
+        when(listed.names()).thenReturn(completed(new HashSet<>(descriptions.keySet())));
+        when(adminClient.listTopics(any(ListTopicsOptions.class))).thenReturn(listed);
+        List<Set<String>> described = new ArrayList<>();
+        when(adminClient.describeTopics(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> topics = invocation.getArgument(0);
+            described.add(new HashSet<>(topics));
+            Map<String, KafkaFuture<TopicDescription>> values = new HashMap<>();
+            for (String topic : topics) {
+                values.put(topic, completed(descriptions.get(topic)));
+            }
+            // Broker 2 is back in sync by the next check
+            descriptions.put("foo", new TopicDescription("foo", false, asList(
+                    partition(0, asList(0, 1), asList(0, 1)),
+                    partition(1, asList(1, 2), asList(1, 2)))));
+            DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+            when(result.values()).thenReturn(values);
+            return result;
+        });
+
+        KafkaSetOperator op = new KafkaSetOperator(vertx, mock(KubernetesClient.class), 60_000L);
+        KafkaSetOperator.SharedAdminClient shared = new KafkaSetOperator.SharedAdminClient("test", "foo", () -> adminClient);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        op.awaitInSync(shared, singleton(2), 10).setHandler(res -> {
+            if (res.succeeded()) {
+                done.complete(null);
+            } else {
+                done.completeExceptionally(res.cause());
+            }
+        });
+        done.get(10, TimeUnit.SECONDS);
+
+        assertEquals(asList(new HashSet<>(asList("foo", "bar")), singleton("foo")), described);
+        verify(adminClient, times(1)).listTopics(any(ListTopicsOptions.class));
+        // The shared client is only closed by the rolling update
+        verify(adminClient, never()).close();
+    }
+
+    @Test
+    public void testBrokerId() {
+        assertEquals(12, KafkaSetOperator.brokerId("my-cluster-kafka-12"));
+    }
 }
@@ -9,7 +9,10 @@ import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
 import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.PodResource;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.openshift.client.server.mock.OpenShiftServer;
@@ -20,10 +23,16 @@ import io.vertx.ext.unit.TestContext;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PodOperatorTest extends
@@ -83,6 +92,49 @@ public class PodOperatorTest extends
         });
     }
 
+    @Test
+    public void readinessCompletesOnWatchEvent(TestContext context) {
+        Pod pod = resource();
+        AtomicReference<Watcher<Pod>> watcher = new AtomicReference<>();
+        Resource mockResource = mock(resourceType());
+        when(mockResource.get()).thenReturn(pod);
+        when(mockResource.isReady()).thenReturn(false);
+        when(mockResource.watch(any())).thenAnswer(invocation -> {
+            watcher.set(invocation.getArgument(0));
+            return mock(Watch.class);
+        });
+
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(RESOURCE_NAME))).thenReturn(mockResource);
+
+        MixedOperation mockPods = mock(MixedOperation.class);
+        when(mockPods.inNamespace(matches(NAMESPACE))).thenReturn(mockNameable);
+
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        mocker(mockClient, mockPods);
+
+        PodOperator op = createResourceOperations(vertx, mockClient);
+        Async async = context.async();
+        // The poll interval is much longer than the test takes, so only the watch event can make it ready
+        op.readiness(NAMESPACE, RESOURCE_NAME, 60_000, 120_000).setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            async.complete();
+        });
+        vertx.setPeriodic(10, timerId -> {
+            Watcher<Pod> w = watcher.get();
+            if (w != null) {
+                vertx.cancelTimer(timerId);
+                w.eventReceived(Watcher.Action.MODIFIED, new PodBuilder(pod)
+                        .withNewStatus()
+                            .addNewCondition().withType("Ready").withStatus("True").endCondition()
+                        .endStatus().build());
+            }
+        });
+        async.await(10_000);
+        // Only the initial check needed a GET
+        verify(mockResource, times(1)).get();
+    }
+
     @Override
     protected Class clientType() {
         return KubernetesClient.class;
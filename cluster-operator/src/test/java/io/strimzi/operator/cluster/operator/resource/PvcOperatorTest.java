@@ -50,6 +50,12 @@ public class PvcOperatorTest extends AbstractResourceOperatorTest<KubernetesClie
         super.createWhenExistsIsAPatch(context);
     }
 
+    @Override
+    @Test(expected = UnsupportedOperationException.class)
+    public void createWhenExistsWithSameDesiredStateIsANoop(TestContext context) {
+        super.createWhenExistsWithSameDesiredStateIsANoop(context);
+    }
+
     @Override
     @Test(expected = UnsupportedOperationException.class)
     public void successfulCreation(TestContext context) {
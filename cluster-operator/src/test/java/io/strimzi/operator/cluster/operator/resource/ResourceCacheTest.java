@@ -0,0 +1,262 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.cluster.operator.resource;
+
+import io.fabric8.kubernetes.api.model.DoneablePod;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.strimzi.operator.cluster.model.Labels;
+import io.strimzi.operator.common.Metrics;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class ResourceCacheTest {
+
+    private static final String NAMESPACE = "test";
+
+    private Vertx vertx;
+    private NonNamespaceOperation<Pod, PodList, DoneablePod, PodResource<Pod, DoneablePod>> mockPods;
+    private final AtomicReference<Watcher<Pod>> watcher = new AtomicReference<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        vertx = Vertx.vertx();
+        mockPods = mock(NonNamespaceOperation.class, RETURNS_DEEP_STUBS);
+        when(mockPods.withLabel(Labels.STRIMZI_CLUSTER_LABEL).withResourceVersion(any()).watch(any())).thenAnswer(invocation -> {
+            watcher.set(invocation.getArgument(0));
+            return mock(Watch.class);
+        });
+    }
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private Pod pod(String name, String resourceVersion) {
+        return new PodBuilder().withNewMetadata()
+                .withName(name)
+                .withNamespace(NAMESPACE)
+                .withResourceVersion(resourceVersion)
+                .withLabels(singletonMap(Labels.STRIMZI_CLUSTER_LABEL, "my-cluster"))
+            .endMetadata().build();
+    }
+
+    private Pod readyPod(String name, String resourceVersion) {
+        return new PodBuilder(pod(name, resourceVersion))
+            .withNewStatus()
+                .addNewCondition().withType("Ready").withStatus("True").endCondition()
+            .endStatus().build();
+    }
+
+    private void listResponse(String resourceVersion, Pod... pods) {
+        when(mockPods.withLabel(Labels.STRIMZI_CLUSTER_LABEL).list()).thenReturn(new PodListBuilder()
+                .withNewMetadata().withResourceVersion(resourceVersion).endMetadata()
+                .addToItems(pods).build());
+    }
+
+    private ResourceCache<Pod> startedCache(TestContext context, long resyncDelayMs) {
+        ResourceCache<Pod> cache = new ResourceCache<>(vertx, "Pods", namespace -> mockPods, resyncDelayMs);
+        Async async = context.async();
+        cache.start(NAMESPACE).setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            async.complete();
+        });
+        async.await();
+        return cache;
+    }
+
+    @Test
+    public void testReadsGoToApiUntilSynced(TestContext context) {
+        ResourceCache<Pod> cache = new ResourceCache<>(vertx, "Pods", namespace -> mockPods);
+        context.assertFalse(cache.isSynced(NAMESPACE));
+        Pod fromApi = pod("foo", "1");
+        context.assertEquals(fromApi, cache.get(NAMESPACE, "foo", () -> fromApi));
+        context.assertEquals(0L, cache.hits());
+        context.assertEquals(1L, cache.misses());
+    }
+
+    @Test
+    public void testListThenWatch(TestContext context) {
+        listResponse("10", pod("foo", "1"), pod("bar", "2"));
+        ResourceCache<Pod> cache = startedCache(context, 5_000);
+        context.assertTrue(cache.isSynced(NAMESPACE));
+        verify(mockPods.withLabel(Labels.STRIMZI_CLUSTER_LABEL)).withResourceVersion("10");
+
+        context.assertEquals("1", cache.get(NAMESPACE, "foo", () -> null).getMetadata().getResourceVersion());
+        context.assertEquals(2, cache.list(NAMESPACE, Labels.forCluster("my-cluster").toMap(), () -> null).size());
+        context.assertEquals(0, cache.list(NAMESPACE, Labels.forCluster("other").toMap(), () -> null).size());
+        context.assertEquals(3L, cache.hits());
+        context.assertEquals(2, cache.size());
+        // A resource which isn't cached (for example, because it doesn't have the cluster label) is read from the API server
+        context.assertEquals("3", cache.get(NAMESPACE, "baz", () -> pod("baz", "3")).getMetadata().getResourceVersion());
+        context.assertEquals(1L, cache.misses());
+        // Only resources with the cluster label are cached, so other selectors go to the API server
+        context.assertEquals(emptyList(), cache.list(NAMESPACE, singletonMap("app", "foo"), () -> emptyList()));
+        context.assertEquals(2L, cache.misses());
+        // Other namespaces aren't cached
+        context.assertNull(cache.get("other", "foo", () -> null));
+        context.assertEquals(3L, cache.misses());
+
+        watcher.get().eventReceived(Watcher.Action.MODIFIED, pod("foo", "11"));
+        context.assertEquals("11", cache.get(NAMESPACE, "foo", () -> null).getMetadata().getResourceVersion());
+        watcher.get().eventReceived(Watcher.Action.ADDED, pod("baz", "12"));
+        context.assertNotNull(cache.get(NAMESPACE, "baz", () -> null));
+        watcher.get().eventReceived(Watcher.Action.DELETED, pod("bar", "13"));
+        context.assertNull(cache.get(NAMESPACE, "bar", () -> null));
+        context.assertEquals(2, cache.size());
+
+        // A resource which no longer has the cluster label is no longer cached
+        long misses = cache.misses();
+        watcher.get().eventReceived(Watcher.Action.MODIFIED, new PodBuilder()
+                .withNewMetadata().withName("baz").withResourceVersion("14").endMetadata().build());
+        context.assertEquals("14", cache.get(NAMESPACE, "baz", () -> pod("baz", "14")).getMetadata().getResourceVersion());
+        context.assertEquals(misses + 1, cache.misses());
+        context.assertEquals(1, cache.size());
+
+        // Only resources with the cluster label are watched
+        verify(mockPods, never()).withResourceVersion(any());
+    }
+
+    @Test
+    public void testMetrics(TestContext context) {
+        listResponse("10", pod("foo", "1"), pod("bar", "2"));
+        ResourceCache<Pod> cache = startedCache(context, 5_000);
+        Metrics metrics = new Metrics("test_");
+        cache.registerMetrics(metrics);
+        cache.get(NAMESPACE, "foo", () -> null);
+        cache.get(NAMESPACE, "baz", () -> null);
+
+        String scrape = metrics.scrape();
+        context.assertTrue(scrape.contains("test_resource_cache_hits_total{kind=\"Pods\"} 1\n"), scrape);
+        context.assertTrue(scrape.contains("test_resource_cache_misses_total{kind=\"Pods\"} 1\n"), scrape);
+        context.assertTrue(scrape.contains("test_resource_cache_size{kind=\"Pods\"} 2\n"), scrape);
+    }
+
+    @Test
+    public void testListenersAreNotifiedOfEvents(TestContext context) {
+        listResponse("10", pod("foo", "1"));
+        ResourceCache<Pod> cache = startedCache(context, 5_000);
+        List<String> events = new ArrayList<>();
+        cache.addListener(NAMESPACE, "foo", pod -> events.add(pod == null ? "deleted" : pod.getMetadata().getResourceVersion()));
+
+        watcher.get().eventReceived(Watcher.Action.MODIFIED, pod("foo", "11"));
+        watcher.get().eventReceived(Watcher.Action.MODIFIED, pod("bar", "12"));
+        watcher.get().eventReceived(Watcher.Action.DELETED, pod("foo", "13"));
+        context.assertEquals(asList("11", "deleted"), events);
+
+        cache.stop();
+        context.assertFalse(cache.isSynced(NAMESPACE));
+    }
+
+    @Test
+    public void testResyncOnWatchLoss(TestContext context) {
+        listResponse("10", pod("foo", "1"), pod("bar", "2"));
+        ResourceCache<Pod> cache = startedCache(context, 10);
+        Watcher<Pod> firstWatcher = watcher.get();
+
+        // While the watch is down foo is modified, bar is deleted and baz is created
+        listResponse("20", pod("foo", "15"), pod("baz", "16"));
+        firstWatcher.onClose(new KubernetesClientException("Gone"));
+        context.assertFalse(cache.isSynced(NAMESPACE));
+        context.assertEquals("2", cache.get(NAMESPACE, "bar", () -> pod("bar", "2")).getMetadata().getResourceVersion());
+
+        Async async = context.async();
+        vertx.setPeriodic(10, timerId -> {
+            if (cache.isSynced(NAMESPACE)) {
+                vertx.cancelTimer(timerId);
+                verify(mockPods.withLabel(Labels.STRIMZI_CLUSTER_LABEL)).withResourceVersion("20");
+                context.assertNotEquals(firstWatcher, watcher.get());
+                context.assertEquals("15", cache.get(NAMESPACE, "foo", () -> null).getMetadata().getResourceVersion());
+                context.assertNull(cache.get(NAMESPACE, "bar", () -> null));
+                context.assertNotNull(cache.get(NAMESPACE, "baz", () -> null));
+                async.complete();
+            }
+        });
+    }
+
+    @Test
+    public void testNoResyncAfterStop(TestContext context) {
+        listResponse("10", pod("foo", "1"));
+        ResourceCache<Pod> cache = startedCache(context, 10);
+        cache.stop();
+        watcher.get().onClose(new KubernetesClientException("Gone"));
+
+        Async async = context.async();
+        vertx.setTimer(100, timerId -> {
+            context.assertFalse(cache.isSynced(NAMESPACE));
+            verify(mockPods.withLabel(Labels.STRIMZI_CLUSTER_LABEL), times(1)).withResourceVersion("10");
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testOperatorReadsFromSyncedCache(TestContext context) {
+        listResponse("10", pod("foo", "1"));
+        ResourceCache<Pod> cache = startedCache(context, 5_000);
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        PodOperator op = new PodOperator(vertx, mockClient, cache);
+
+        context.assertEquals("1", op.get(NAMESPACE, "foo").getMetadata().getResourceVersion());
+        context.assertEquals(singletonList("foo"), op.list(NAMESPACE, Labels.forCluster("my-cluster")).stream()
+                .map(pod -> pod.getMetadata().getName()).collect(Collectors.toList()));
+        context.assertFalse(op.isReady(NAMESPACE, "foo"));
+        verifyZeroInteractions(mockClient);
+    }
+
+    @Test
+    public void testReadinessCompletesOnWatchEvent(TestContext context) {
+        listResponse("10", pod("foo", "1"));
+        ResourceCache<Pod> cache = startedCache(context, 5_000);
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        PodOperator op = new PodOperator(vertx, mockClient, cache);
+
+        long start = System.currentTimeMillis();
+        Async async = context.async();
+        // The poll interval is much longer than the test should take, so only the watch event can make it ready
+        op.readiness(NAMESPACE, "foo", 60_000, 120_000).setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertTrue(System.currentTimeMillis() - start < 60_000);
+            async.complete();
+        });
+        vertx.setTimer(100, timerId -> watcher.get().eventReceived(Watcher.Action.MODIFIED, readyPod("foo", "11")));
+        async.await();
+        verify(mockClient, never()).pods();
+    }
+}
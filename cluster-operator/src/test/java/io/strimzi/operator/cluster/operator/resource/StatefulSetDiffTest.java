@@ -5,6 +5,7 @@
 package io.strimzi.operator.cluster.operator.resource;
 
 import io.fabric8.kubernetes.api.model.ConfigMapVolumeSourceBuilder;
+import io.fabric8.kubernetes.api.model.ContainerBuilder;
 import io.fabric8.kubernetes.api.model.VolumeBuilder;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSetBuilder;
@@ -47,4 +48,32 @@ public class StatefulSetDiffTest {
             .build();
         assertFalse(new StatefulSetDiff(ss1, ss2).changesSpecTemplateSpec());
     }
+
+    private static StatefulSet withProbeScheme(String scheme) {
+        return new StatefulSetBuilder()
+            .withNewMetadata()
+                .withNamespace("test")
+                .withName("foo")
+            .endMetadata()
+            .withNewSpec()
+                .withNewTemplate()
+                    .withNewSpec()
+                        .addToContainers(new ContainerBuilder()
+                                .withNewLivenessProbe()
+                                    .withNewHttpGet().withPath("/healthy").withNewPort("healthcheck").withScheme(scheme).endHttpGet()
+                                .endLivenessProbe()
+                                .withNewReadinessProbe()
+                                    .withNewHttpGet().withPath("/ready").withNewPort("healthcheck").withScheme(scheme).endHttpGet()
+                                .endReadinessProbe()
+                                .build())
+                    .endSpec()
+                .endTemplate()
+            .endSpec()
+            .build();
+    }
+
+    @Test
+    public void testDefaultedProbeSchemeIgnored() {
+        assertFalse(new StatefulSetDiff(withProbeScheme(null), withProbeScheme("HTTP")).changesSpecTemplateSpec());
+    }
 }
@@ -4,6 +4,8 @@
  */
 package io.strimzi.operator.cluster.operator.resource;
 
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
 import io.fabric8.kubernetes.api.model.extensions.DoneableStatefulSet;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSetBuilder;
@@ -12,14 +14,25 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.AppsAPIGroupDSL;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.PodResource;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiPredicate;
+import java.util.logging.LogRecord;
+
+import static java.util.Collections.emptyList;
 
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,6 +46,9 @@ public class StatefulSetOperatorTest
         extends ScalableResourceOperatorTest<KubernetesClient, StatefulSet, StatefulSetList,
                         DoneableStatefulSet, RollableScalableResource<StatefulSet, DoneableStatefulSet>> {
 
+    /** How long the mocked blocking Kubernetes calls take */
+    private static final long BLOCKING_CALL_MS = 200;
+
     @Override
     protected Class<KubernetesClient> clientType() {
         return KubernetesClient.class;
@@ -130,8 +146,8 @@ public class StatefulSetOperatorTest
             }
 
             @Override
-            protected boolean isPodUpToDate(StatefulSet ss, String podName) {
-                return false;
+            protected Future<Boolean> isPodUpToDate(StatefulSet ss, String podName) {
+                return Future.succeededFuture(false);
             }
 
             @Override
@@ -170,8 +186,8 @@ public class StatefulSetOperatorTest
             }
 
             @Override
-            protected boolean isPodUpToDate(StatefulSet ss, String podName) {
-                return false;
+            protected Future<Boolean> isPodUpToDate(StatefulSet ss, String podName) {
+                return Future.succeededFuture(false);
             }
 
             @Override
@@ -213,8 +229,8 @@ public class StatefulSetOperatorTest
             }
 
             @Override
-            protected boolean isPodUpToDate(StatefulSet ss, String podName) {
-                return false;
+            protected Future<Boolean> isPodUpToDate(StatefulSet ss, String podName) {
+                return Future.succeededFuture(false);
             }
 
             @Override
@@ -255,8 +271,8 @@ public class StatefulSetOperatorTest
             }
 
             @Override
-            protected boolean isPodUpToDate(StatefulSet ss, String podName) {
-                return false;
+            protected Future<Boolean> isPodUpToDate(StatefulSet ss, String podName) {
+                return Future.succeededFuture(false);
             }
 
             @Override
@@ -269,4 +285,90 @@ public class StatefulSetOperatorTest
         assertTrue(result.failed());
         assertTrue(result.cause().getMessage().equals("reconcile failed"));
     }
+
+    @Test
+    public void rollingUpdateAndScaleUpDoNotBlockEventLoop(TestContext context) {
+        // The blocked thread checker complains about anything which blocks the event loop for more than 50ms.
+        // It logs via java.util.logging, so the test fails if it has logged anything.
+        Vertx strictVertx = Vertx.vertx(new VertxOptions()
+                .setBlockedThreadCheckInterval(10)
+                .setMaxEventLoopExecuteTime(TimeUnit.MILLISECONDS.toNanos(50)));
+        List<String> blockedThreadWarnings = Collections.synchronizedList(new ArrayList<>());
+        java.util.logging.Logger checkerLog = java.util.logging.Logger.getLogger("io.vertx.core.impl.BlockedThreadChecker");
+        java.util.logging.Handler checkerHandler = new java.util.logging.Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                blockedThreadWarnings.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        checkerLog.addHandler(checkerHandler);
+
+        StatefulSet resource = new StatefulSetBuilder(resource())
+                .editSpec()
+                    .editTemplate()
+                        .editMetadata()
+                            .addToAnnotations(StatefulSetOperator.ANNOTATION_GENERATION, "1")
+                        .endMetadata()
+                    .endTemplate()
+                .endSpec()
+                .build();
+        Pod pod = new PodBuilder()
+                .withNewMetadata()
+                    .addToAnnotations(StatefulSetOperator.ANNOTATION_GENERATION, "1")
+                .endMetadata()
+                .build();
+
+        RollableScalableResource mockResource = mock(RollableScalableResource.class);
+        when(mockResource.get()).thenAnswer(invocation -> {
+            context.assertFalse(Context.isOnEventLoopThread(), "Blocking StatefulSet get() called on the event loop");
+            Thread.sleep(BLOCKING_CALL_MS);
+            return resource;
+        });
+        NonNamespaceOperation mockNameable = mock(NonNamespaceOperation.class);
+        when(mockNameable.withName(matches(RESOURCE_NAME))).thenReturn(mockResource);
+        MixedOperation mockSss = mock(MixedOperation.class);
+        when(mockSss.inNamespace(matches(NAMESPACE))).thenReturn(mockNameable);
+
+        PodResource mockPodResource = mock(PodResource.class);
+        when(mockPodResource.get()).thenAnswer(invocation -> {
+            context.assertFalse(Context.isOnEventLoopThread(), "Blocking Pod get() called on the event loop");
+            Thread.sleep(BLOCKING_CALL_MS);
+            return pod;
+        });
+        NonNamespaceOperation mockPodNameable = mock(NonNamespaceOperation.class);
+        when(mockPodNameable.withName(anyString())).thenReturn(mockPodResource);
+        MixedOperation mockPods = mock(MixedOperation.class);
+        when(mockPods.inNamespace(matches(NAMESPACE))).thenReturn(mockPodNameable);
+
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        mocker(mockClient, mockSss);
+        when(mockClient.pods()).thenReturn(mockPods);
+
+        StatefulSetOperator op = new StatefulSetOperator(strictVertx, mockClient, 5_000L) {
+            @Override
+            protected boolean shouldIncrementGeneration(StatefulSet current, StatefulSet desired) {
+                return true;
+            }
+        };
+
+        Async async = context.async();
+        strictVertx.runOnContext(v -> op.maybeRollingUpdate(resource)
+            .compose(ignored -> op.scaleUp(NAMESPACE, RESOURCE_NAME, 4))
+            .setHandler(ar -> {
+                checkerLog.removeHandler(checkerHandler);
+                strictVertx.close();
+                context.assertTrue(ar.succeeded());
+                context.assertEquals(4, ar.result());
+                context.assertEquals(emptyList(), blockedThreadWarnings);
+                async.complete();
+            }));
+    }
 }
@@ -1,3 +0,0 @@
-#!/bin/bash
-
-./bin/kafka-broker-api-versions.sh --bootstrap-server=localhost:9092
\ No newline at end of file
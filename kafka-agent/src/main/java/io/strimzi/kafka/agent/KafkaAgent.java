@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.kafka.agent;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <p>A Java agent which runs inside the Kafka broker's JVM and serves its health checks over HTTP, so that
+ * probing a broker doesn't need a new JVM to be started.</p>
+ *
+ * <p>The agent serves:</p>
+ * <ul>
+ *     <li>{@code /healthy}, which succeeds unless the broker has stopped after it started.
+ *     A broker which is still starting (for example, recovering its logs after an unclean shutdown) is healthy.</li>
+ *     <li>{@code /ready}, which succeeds once the broker is running and none of the partitions it leads are
+ *     under-replicated. Once the broker has been ready it stays ready while it is running, so that
+ *     a problem with one broker (which makes the partitions led by other brokers under-replicated) doesn't make
+ *     the whole cluster unready.</li>
+ * </ul>
+ *
+ * <p>The state of the broker is read from the metrics which Kafka registers in the platform MBean server.</p>
+ */
+public class KafkaAgent {
+
+    /** The port the agent listens on when none is given in the agent arguments. */
+    static final int DEFAULT_PORT = 8080;
+
+    static final ObjectName BROKER_STATE = objectName("kafka.server:type=KafkaServer,name=BrokerState");
+    static final ObjectName UNDER_REPLICATED_PARTITIONS = objectName("kafka.server:type=ReplicaManager,name=UnderReplicatedPartitions");
+
+    /** The values of {@code kafka.server.BrokerStates} which the agent uses. */
+    static final int BROKER_NOT_RUNNING = 0;
+    static final int BROKER_RUNNING = 3;
+
+    private final MBeanServer server;
+    private volatile boolean started;
+    private volatile boolean ready;
+
+    KafkaAgent(MBeanServer server) {
+        this.server = server;
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (JMException e) {
+            throw new IllegalArgumentException(name, e);
+        }
+    }
+
+    /**
+     * @return The value of the gauge with the given name, or null if it isn't registered (yet).
+     */
+    private Number gauge(ObjectName name) {
+        try {
+            return server.isRegistered(name) ? (Number) server.getAttribute(name, "Value") : null;
+        } catch (JMException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The state of the broker, or null if it isn't known yet.
+     */
+    private Integer brokerState() {
+        Number state = gauge(BROKER_STATE);
+        if (state == null) {
+            return null;
+        }
+        if (state.intValue() == BROKER_RUNNING) {
+            started = true;
+        }
+        return state.intValue();
+    }
+
+    /**
+     * @return Whether the broker is healthy: it hasn't stopped after it started.
+     */
+    boolean isHealthy() {
+        Integer state = brokerState();
+        return !(started && state != null && state == BROKER_NOT_RUNNING);
+    }
+
+    /**
+     * @return Whether the broker is ready: it is running, and either it has been ready before or none of
+     * the partitions it leads are under-replicated.
+     */
+    boolean isReady() {
+        Integer state = brokerState();
+        if (state == null || state != BROKER_RUNNING) {
+            return false;
+        }
+        if (!ready) {
+            Number underReplicated = gauge(UNDER_REPLICATED_PARTITIONS);
+            ready = underReplicated != null && underReplicated.intValue() == 0;
+        }
+        return ready;
+    }
+
+    /**
+     * Start serving the health checks on the given port.
+     * @param port The port, or 0 for an ephemeral port.
+     * @return The server.
+     * @throws IOException If the server could not be started.
+     */
+    HttpServer start(int port) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.createContext("/healthy", exchange -> respond(exchange, this::isHealthy));
+        httpServer.createContext("/ready", exchange -> respond(exchange, this::isReady));
+        // A single daemon thread, so the agent never stops the broker's JVM from exiting
+        httpServer.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "strimzi-kafka-agent");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        httpServer.start();
+        return httpServer;
+    }
+
+    private static void respond(HttpExchange exchange, BooleanSupplier check) throws IOException {
+        try {
+            int status;
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                status = 405;
+            } else if (!exchange.getHttpContext().getPath().equals(exchange.getRequestURI().getPath())) {
+                status = 404;
+            } else {
+                status = check.getAsBoolean() ? 200 : 503;
+            }
+            exchange.sendResponseHeaders(status, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * The entry point of the agent.
+     * @param agentArgs The port to listen on, or null to use the {@link #DEFAULT_PORT}.
+     * @throws InterruptedException If interrupted while starting the server.
+     */
+    public static void premain(String agentArgs) throws InterruptedException {
+        int port = agentArgs == null || agentArgs.trim().isEmpty() ? DEFAULT_PORT : Integer.parseInt(agentArgs.trim());
+        // The server's dispatcher thread is a daemon only if the thread which starts the server is
+        Thread starter = new Thread(() -> {
+            try {
+                new KafkaAgent(ManagementFactory.getPlatformMBeanServer()).start(port);
+                System.out.println("Strimzi Kafka agent serving health checks on port " + port);
+            } catch (IOException e) {
+                // Don't stop the broker from starting: the probes will fail, and Kubernetes will restart it
+                System.err.println("Strimzi Kafka agent could not listen on port " + port + ": " + e);
+            }
+        }, "strimzi-kafka-agent-start");
+        starter.setDaemon(true);
+        starter.start();
+        starter.join();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.kafka.agent;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KafkaAgentTest {
+
+    /** The interface of the gauges Kafka registers, which have a single Value attribute. */
+    public interface GaugeMBean {
+        Object getValue();
+    }
+
+    public static class Gauge implements GaugeMBean {
+        private volatile Object value;
+
+        Gauge(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    private MBeanServer server;
+    private KafkaAgent agent;
+    private HttpServer httpServer;
+
+    @Before
+    public void before() {
+        server = MBeanServerFactory.newMBeanServer();
+        agent = new KafkaAgent(server);
+    }
+
+    @After
+    public void after() {
+        MBeanServerFactory.releaseMBeanServer(server);
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+    }
+
+    private Gauge gauge(ObjectName name, Object value) throws Exception {
+        Gauge gauge = new Gauge(value);
+        server.registerMBean(gauge, name);
+        return gauge;
+    }
+
+    @Test
+    public void testStartingBrokerIsHealthyButNotReady() throws Exception {
+        assertTrue(agent.isHealthy());
+        assertFalse(agent.isReady());
+
+        // Recovering from unclean shutdown
+        gauge(KafkaAgent.BROKER_STATE, (byte) 2);
+        assertTrue(agent.isHealthy());
+        assertFalse(agent.isReady());
+    }
+
+    @Test
+    public void testReadyOnceNoPartitionsAreUnderReplicated() throws Exception {
+        gauge(KafkaAgent.BROKER_STATE, (byte) KafkaAgent.BROKER_RUNNING);
+        assertFalse(agent.isReady());
+
+        Gauge underReplicated = gauge(KafkaAgent.UNDER_REPLICATED_PARTITIONS, 2);
+        assertFalse(agent.isReady());
+
+        underReplicated.value = 0;
+        assertTrue(agent.isReady());
+
+        // Partitions becoming under-replicated later don't make the broker unready
+        underReplicated.value = 5;
+        assertTrue(agent.isReady());
+        assertTrue(agent.isHealthy());
+    }
+
+    @Test
+    public void testStoppedBrokerIsNotHealthy() throws Exception {
+        Gauge state = gauge(KafkaAgent.BROKER_STATE, (byte) KafkaAgent.BROKER_NOT_RUNNING);
+        gauge(KafkaAgent.UNDER_REPLICATED_PARTITIONS, 0);
+        // Not running before it has started is fine
+        assertTrue(agent.isHealthy());
+
+        state.value = (byte) KafkaAgent.BROKER_RUNNING;
+        assertTrue(agent.isHealthy());
+        assertTrue(agent.isReady());
+
+        state.value = (byte) KafkaAgent.BROKER_NOT_RUNNING;
+        assertFalse(agent.isHealthy());
+        assertFalse(agent.isReady());
+    }
+
+    private int get(String path) throws IOException {
+        URL url = new URL("http://localhost:" + httpServer.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void testHttp() throws Exception {
+        httpServer = agent.start(0);
+        assertEquals(200, get("/healthy"));
+        assertEquals(503, get("/ready"));
+        assertEquals(404, get("/ready/foo"));
+
+        gauge(KafkaAgent.BROKER_STATE, (byte) KafkaAgent.BROKER_RUNNING);
+        gauge(KafkaAgent.UNDER_REPLICATED_PARTITIONS, 0);
+        assertEquals(200, get("/ready"));
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A minimal registry of counters, histograms and sampled metrics which can be scraped in the
+ * Prometheus text exposition format.
+ * The names of all the metrics in a registry start with a common prefix.
+ * All the methods are thread safe.
+ */
+public class Metrics {
+
+    /** Histogram bucket upper bounds, in seconds. */
+    public static final double[] DEFAULT_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+
+    private final String prefix;
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param prefix The prefix of the names of all the metrics, for example {@code "strimzi_topic_operator_"}.
+     */
+    public Metrics(String prefix) {
+        this.prefix = prefix;
+    }
+
+    private abstract static class Metric {
+        final String name;
+        final String help;
+        final String[] labelNames;
+
+        Metric(String name, String help, String... labelNames) {
+            this.name = name;
+            this.help = help;
+            this.labelNames = labelNames;
+        }
+
+        List<String> labelValues(String... labelValues) {
+            if (labelValues.length != labelNames.length) {
+                throw new IllegalArgumentException("Metric " + name + " has labels " + Arrays.toString(labelNames)
+                        + " but was given values " + Arrays.toString(labelValues));
+            }
+            return Arrays.asList(labelValues);
+        }
+
+        String labels(List<String> labelValues, String extraName, String extraValue) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < labelNames.length; i++) {
+                sb.append(sb.length() == 0 ? "{" : ",").append(labelNames[i]).append("=\"")
+                        .append(escape(labelValues.get(i))).append('"');
+            }
+            if (extraName != null) {
+                sb.append(sb.length() == 0 ? "{" : ",").append(extraName).append("=\"").append(extraValue).append('"');
+            }
+            return sb.length() == 0 ? "" : sb.append('}').toString();
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+        abstract String type();
+
+        abstract void samples(StringBuilder sb);
+    }
+
+    /** A monotonically increasing count. */
+    public static class Counter extends Metric {
+        private final Map<List<String>, LongAdder> values = new ConcurrentHashMap<>();
+
+        private Counter(String name, String help, String... labelNames) {
+            super(name, help, labelNames);
+        }
+
+        public void inc(String... labelValues) {
+            values.computeIfAbsent(labelValues(labelValues), k -> new LongAdder()).increment();
+        }
+
+        public long get(String... labelValues) {
+            LongAdder value = values.get(labelValues(labelValues));
+            return value == null ? 0 : value.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void samples(StringBuilder sb) {
+            values.forEach((labelValues, value) ->
+                sb.append(name).append(labels(labelValues, null, null)).append(' ').append(value.sum()).append('\n'));
+        }
+    }
+
+    /** A distribution of durations, in seconds. */
+    public static class Histogram extends Metric {
+        private final double[] buckets;
+        private final Map<List<String>, Child> values = new ConcurrentHashMap<>();
+
+        private class Child {
+            private final LongAdder[] bucketCounts = new LongAdder[buckets.length];
+            private final LongAdder count = new LongAdder();
+            private final DoubleAdder sum = new DoubleAdder();
+
+            Child() {
+                for (int i = 0; i < bucketCounts.length; i++) {
+                    bucketCounts[i] = new LongAdder();
+                }
+            }
+
+            void observe(double value) {
+                for (int i = 0; i < buckets.length; i++) {
+                    if (value <= buckets[i]) {
+                        bucketCounts[i].increment();
+                        break;
+                    }
+                }
+                count.increment();
+                sum.add(value);
+            }
+        }
+
+        private Histogram(String name, String help, double[] buckets, String... labelNames) {
+            super(name, help, labelNames);
+            this.buckets = buckets;
+        }
+
+        public void observe(double seconds, String... labelValues) {
+            values.computeIfAbsent(labelValues(labelValues), k -> new Child()).observe(seconds);
+        }
+
+        /**
+         * Observe the time since the given {@code startNanos}, as returned by {@link System#nanoTime()}.
+         */
+        public void observeSince(long startNanos, String... labelValues) {
+            observe((System.nanoTime() - startNanos) / 1e9, labelValues);
+        }
+
+        public long count(String... labelValues) {
+            Child child = values.get(labelValues(labelValues));
+            return child == null ? 0 : child.count.sum();
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+
+        @Override
+        void samples(StringBuilder sb) {
+            values.forEach((labelValues, child) -> {
+                long cumulative = 0;
+                for (int i = 0; i < buckets.length; i++) {
+                    cumulative += child.bucketCounts[i].sum();
+                    sb.append(name).append("_bucket").append(labels(labelValues, "le", Double.toString(buckets[i])))
+                            .append(' ').append(cumulative).append('\n');
+                }
+                sb.append(name).append("_bucket").append(labels(labelValues, "le", "+Inf"))
+                        .append(' ').append(child.count.sum()).append('\n');
+                sb.append(name).append("_count").append(labels(labelValues, null, null))
+                        .append(' ').append(child.count.sum()).append('\n');
+                sb.append(name).append("_sum").append(labels(labelValues, null, null))
+                        .append(' ').append(child.sum.sum()).append('\n');
+            });
+        }
+    }
+
+    /**
+     * A metric whose values are sampled when the metrics are scraped.
+     * A gauge or counter has a single value for each set of label values, and a summary has a count and a sum.
+     */
+    public static class Sampled extends Metric {
+        private final String type;
+        private final String[] suffixes;
+        private final Map<List<String>, List<Supplier<? extends Number>>> values = new ConcurrentHashMap<>();
+
+        private Sampled(String name, String help, String type, String[] suffixes, String... labelNames) {
+            super(name, help, labelNames);
+            this.type = type;
+            this.suffixes = suffixes;
+        }
+
+        /**
+         * Sample the given gauge or counter {@code value} for the given label values on each scrape.
+         */
+        public void set(Supplier<? extends Number> value, String... labelValues) {
+            set(labelValues, value);
+        }
+
+        /**
+         * Sample the given summary {@code count} and {@code sum} for the given label values on each scrape.
+         */
+        public void set(Supplier<? extends Number> count, Supplier<? extends Number> sum, String... labelValues) {
+            set(labelValues, count, sum);
+        }
+
+        @SafeVarargs
+        private final void set(String[] labelValues, Supplier<? extends Number>... suppliers) {
+            if (suppliers.length != suffixes.length) {
+                throw new IllegalArgumentException("Metric " + name + " is a " + type + " which has "
+                        + suffixes.length + " values, but was given " + suppliers.length);
+            }
+            values.put(labelValues(labelValues), Arrays.asList(suppliers));
+        }
+
+        @Override
+        String type() {
+            return type;
+        }
+
+        @Override
+        void samples(StringBuilder sb) {
+            values.forEach((labelValues, suppliers) -> {
+                for (int i = 0; i < suffixes.length; i++) {
+                    sb.append(name).append(suffixes[i]).append(labels(labelValues, null, null))
+                            .append(' ').append(suppliers.get(i).get()).append('\n');
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M extends Metric> M register(M metric) {
+        Metric existing = metrics.putIfAbsent(metric.name, metric);
+        return existing != null ? (M) existing : metric;
+    }
+
+    /**
+     * Get or create the counter with the given {@code name} (without the common prefix).
+     */
+    public Counter counter(String name, String help, String... labelNames) {
+        return register(new Counter(prefix + name, help, labelNames));
+    }
+
+    /**
+     * Get or create the histogram with the given {@code name} (without the common prefix),
+     * using the {@link #DEFAULT_BUCKETS}.
+     */
+    public Histogram histogram(String name, String help, String... labelNames) {
+        return register(new Histogram(prefix + name, help, DEFAULT_BUCKETS, labelNames));
+    }
+
+    /**
+     * Get or create the sampled gauge with the given {@code name} (without the common prefix),
+     * whose values are {@linkplain Sampled#set(Supplier, String...) set} for each set of label values.
+     */
+    public Sampled gauge(String name, String help, String... labelNames) {
+        return register(new Sampled(prefix + name, help, "gauge", new String[] {""}, labelNames));
+    }
+
+    /**
+     * Get or create the sampled counter with the given {@code name} (without the common prefix),
+     * whose values are {@linkplain Sampled#set(Supplier, String...) set} for each set of label values.
+     */
+    public Sampled sampledCounter(String name, String help, String... labelNames) {
+        return register(new Sampled(prefix + name, help, "counter", new String[] {""}, labelNames));
+    }
+
+    /**
+     * Get or create the sampled summary with the given {@code name} (without the common prefix),
+     * whose counts and sums are {@linkplain Sampled#set(Supplier, Supplier, String...) set}
+     * for each set of label values.
+     */
+    public Sampled summary(String name, String help, String... labelNames) {
+        return register(new Sampled(prefix + name, help, "summary", new String[] {"_count", "_sum"}, labelNames));
+    }
+
+    /**
+     * Register a gauge with the given {@code name} (without the common prefix) whose value
+     * is obtained from the given {@code value} supplier on each scrape.
+     */
+    public void gauge(String name, String help, Supplier<? extends Number> value) {
+        gauge(name, help).set(value);
+    }
+
+    /**
+     * Register a counter with the given {@code name} (without the common prefix) whose value
+     * is obtained from the given {@code value} supplier on each scrape.
+     */
+    public void counter(String name, String help, Supplier<? extends Number> value) {
+        sampledCounter(name, help).set(value);
+    }
+
+    /**
+     * @return All the metrics, in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder();
+        for (Metric metric : metrics.values()) {
+            sb.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+            sb.append("# TYPE ").append(metric.name).append(' ').append(metric.type()).append('\n');
+            metric.samples(sb);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @Test
+    public void testScrape() {
+        Metrics metrics = new Metrics("test_");
+        Metrics.Counter counter = metrics.counter("things_total", "Things.", "kind");
+        counter.inc("a");
+        counter.inc("a");
+        counter.inc("b\"");
+        Metrics.Histogram histogram = metrics.histogram("thing_duration_seconds", "Thing duration.");
+        histogram.observe(0.02);
+        histogram.observe(7);
+        AtomicInteger gauge = new AtomicInteger(3);
+        metrics.gauge("things", "Current things.", gauge::get);
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape, scrape.contains("# HELP test_things_total Things.\n"));
+        assertTrue(scrape, scrape.contains("# TYPE test_things_total counter\n"));
+        assertTrue(scrape, scrape.contains("test_things_total{kind=\"a\"} 2\n"));
+        assertTrue(scrape, scrape.contains("test_things_total{kind=\"b\\\"\"} 1\n"));
+        assertTrue(scrape, scrape.contains("# TYPE test_thing_duration_seconds histogram\n"));
+        assertTrue(scrape, scrape.contains("test_thing_duration_seconds_bucket{le=\"0.01\"} 0\n"));
+        assertTrue(scrape, scrape.contains("test_thing_duration_seconds_bucket{le=\"0.025\"} 1\n"));
+        assertTrue(scrape, scrape.contains("test_thing_duration_seconds_bucket{le=\"+Inf\"} 2\n"));
+        assertTrue(scrape, scrape.contains("test_thing_duration_seconds_count 2\n"));
+        assertTrue(scrape, scrape.contains("# TYPE test_things gauge\n"));
+        assertTrue(scrape, scrape.contains("test_things 3\n"));
+
+        gauge.set(4);
+        assertTrue(metrics.scrape().contains("test_things 4\n"));
+    }
+
+    @Test
+    public void testSampled() {
+        Metrics metrics = new Metrics("test_");
+        AtomicInteger depth = new AtomicInteger(2);
+        metrics.gauge("depth", "Depth.", "type").set(depth::get, "kafka");
+        // Getting a metric which already exists returns the same one
+        metrics.gauge("depth", "Depth.", "type").set(() -> 5, "connect");
+        metrics.summary("wait_seconds", "Wait.", "type").set(() -> 3, () -> 1.5, "kafka");
+        metrics.counter("events_total", "Events.", () -> 7);
+        metrics.sampledCounter("reads_total", "Reads.", "kind").set(() -> 9, "Pod");
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape, scrape.contains("# TYPE test_depth gauge\n"));
+        assertTrue(scrape, scrape.contains("test_depth{type=\"kafka\"} 2\n"));
+        assertTrue(scrape, scrape.contains("test_depth{type=\"connect\"} 5\n"));
+        assertTrue(scrape, scrape.contains("# TYPE test_wait_seconds summary\n"));
+        assertTrue(scrape, scrape.contains("test_wait_seconds_count{type=\"kafka\"} 3\n"));
+        assertTrue(scrape, scrape.contains("test_wait_seconds_sum{type=\"kafka\"} 1.5\n"));
+        assertTrue(scrape, scrape.contains("# TYPE test_events_total counter\n"));
+        assertTrue(scrape, scrape.contains("test_events_total 7\n"));
+        assertTrue(scrape, scrape.contains("# TYPE test_reads_total counter\n"));
+        assertTrue(scrape, scrape.contains("test_reads_total{kind=\"Pod\"} 9\n"));
+        // Each metric's HELP and TYPE appear once
+        assertEquals(scrape.indexOf("# TYPE test_depth "), scrape.lastIndexOf("# TYPE test_depth "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfLabels() {
+        new Metrics("test_").counter("things_total", "Things.", "kind").inc();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfSampledValues() {
+        new Metrics("test_").gauge("depth", "Depth.").set(() -> 1, () -> 2);
+    }
+}
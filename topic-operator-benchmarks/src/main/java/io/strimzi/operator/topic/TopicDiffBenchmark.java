@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TopicDiff#diff(Topic, Topic)} and {@link TopicDiff#merge(TopicDiff)}.
+ * Run with {@code -prof gc} to also measure the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicDiffBenchmark {
+
+    /** The number of topic config entries. */
+    @Param({"0", "5", "20"})
+    public int numConfigs;
+
+    private Topic source;
+    private Topic unchanged;
+    private Topic kafkaChanged;
+    private Topic k8sChanged;
+    private TopicDiff kafkaDiff;
+    private TopicDiff k8sDiff;
+
+    @Setup
+    public void setup() {
+        source = Topics.topic("my-topic", 12, (short) 3, numConfigs);
+        unchanged = new Topic.Builder(source).build();
+        kafkaChanged = new Topic.Builder(source)
+                .withNumPartitions(24)
+                .withConfigEntry("retention.ms", "1000")
+                .build();
+        k8sChanged = new Topic.Builder(source)
+                .withConfigEntry("cleanup.policy", "compact")
+                .build();
+        kafkaDiff = TopicDiff.diff(source, kafkaChanged);
+        k8sDiff = TopicDiff.diff(source, k8sChanged);
+    }
+
+    @Benchmark
+    public TopicDiff diffUnchanged() {
+        return TopicDiff.diff(source, unchanged);
+    }
+
+    @Benchmark
+    public TopicDiff diffChanged() {
+        return TopicDiff.diff(source, kafkaChanged);
+    }
+
+    @Benchmark
+    public TopicDiff merge() {
+        return kafkaDiff.merge(k8sDiff);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversions between a {@link Topic} and its ConfigMap and topic store representations.
+ * Run with {@code -prof gc} to also measure the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicSerializationBenchmark {
+
+    /** The number of topic config entries. */
+    @Param({"0", "5", "20"})
+    public int numConfigs;
+
+    private final LabelPredicate cmPredicate = LabelPredicate.fromString("strimzi.io/kind=topic");
+    private Topic topic;
+    private ConfigMap configMap;
+    private byte[] json;
+    private byte[] compact;
+
+    @Setup
+    public void setup() {
+        topic = Topics.topic("my-topic", 12, (short) 3, numConfigs);
+        configMap = TopicSerialization.toConfigMap(topic, cmPredicate);
+        json = TopicSerialization.toJson(topic);
+        compact = TopicSerialization.toCompact(topic);
+    }
+
+    @Benchmark
+    public ConfigMap toConfigMap() {
+        return TopicSerialization.toConfigMap(topic, cmPredicate);
+    }
+
+    @Benchmark
+    public Topic fromConfigMap() {
+        return TopicSerialization.fromConfigMap(configMap);
+    }
+
+    @Benchmark
+    public byte[] toJson() {
+        return TopicSerialization.toJson(topic);
+    }
+
+    @Benchmark
+    public Topic fromJson() {
+        return TopicSerialization.fromJson(json);
+    }
+
+    @Benchmark
+    public byte[] toCompact() {
+        return TopicSerialization.toCompact(topic);
+    }
+
+    @Benchmark
+    public Topic fromCompact() {
+        return TopicSerialization.fromBytes(compact);
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import java.util.Collections;
+
+/**
+ * Topics for use in benchmarks.
+ */
+class Topics {
+
+    private Topics() {
+    }
+
+    /**
+     * Returns a topic with the given name, partitions and replicas, and {@code numConfigs} config entries.
+     */
+    static Topic topic(String name, int numPartitions, short numReplicas, int numConfigs) {
+        Topic.Builder builder = new Topic.Builder(name, numPartitions, numReplicas, Collections.emptyMap());
+        for (int i = 0; i < numConfigs; i++) {
+            builder.withConfigEntry("config.key." + i, "value-" + i);
+        }
+        return builder.build();
+    }
+}
@@ -4,19 +4,27 @@
  */
 package io.strimzi.operator.topic;
 
+import java.util.Random;
+
 /**
  * Encapsulates computing delays for an exponential back-off.
+ * A back-off may be jittered, in which case each delay is chosen at random between half and all of the
+ * un-jittered delay ("equal jitter"), so that many back-offs started at the same time spread their attempts
+ * out rather than making them in lock-step, while the total delay stays between half and all of
+ * the un-jittered total.
  */
 public class BackOff {
 
-    private static final long DEFAULT_SCALE_MS = 200L;
-    private static final int DEFAULT_BASE = 2;
+    static final long DEFAULT_SCALE_MS = 200L;
+    static final int DEFAULT_BASE = 2;
     private static final int DEFAULT_MAX_ATTEMPTS = 6;
 
     private final long scaleMs;
     private final int base;
     private final int maxAttempts;
+    private final Random random;
     private int attempt = 0;
+    private long totalJitteredDelayMs = 0;
 
     public BackOff() {
         this(DEFAULT_SCALE_MS, DEFAULT_BASE, DEFAULT_MAX_ATTEMPTS);
@@ -27,6 +35,13 @@ public class BackOff {
     }
 
     public BackOff(long scaleMs, int base, int maxAttempts) {
+        this(scaleMs, base, maxAttempts, null);
+    }
+
+    /**
+     * @param random If not null, the source of randomness for jittering the delays.
+     */
+    public BackOff(long scaleMs, int base, int maxAttempts, Random random) {
         if (scaleMs <= 0) {
             throw new IllegalArgumentException();
         }
@@ -39,6 +54,7 @@ public class BackOff {
         this.scaleMs = scaleMs;
         this.base = base;
         this.maxAttempts = maxAttempts;
+        this.random = random;
     }
 
     /**
@@ -48,7 +64,20 @@ public class BackOff {
      */
     public long delayMs() {
         int n = attempt++;
-        return delay(n);
+        if (random == null) {
+            return delay(n);
+        }
+        long halfMs = delay(n) / 2;
+        long delayMs = halfMs + (long) (random.nextDouble() * halfMs);
+        totalJitteredDelayMs += delayMs;
+        return delayMs;
+    }
+
+    /**
+     * @return The number of attempts so far.
+     */
+    public int attempts() {
+        return attempt;
     }
 
     private long delay(int n) {
@@ -65,7 +94,14 @@ public class BackOff {
         return scaleMs * pow;
     }
 
+    /**
+     * @return The total of the delays, if all the attempts are made.
+     * For a jittered back-off this is the total of the delays returned so far.
+     */
     public long totalDelayMs() {
+        if (random != null) {
+            return totalJitteredDelayMs;
+        }
         long total = 0;
         for (int i = 0; i < maxAttempts; i++) {
             total += delay(i);
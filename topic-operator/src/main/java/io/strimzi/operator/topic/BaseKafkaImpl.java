@@ -5,6 +5,8 @@
 package io.strimzi.operator.topic;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
@@ -18,10 +20,16 @@ import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 /**
  * Partial implementation of {@link Kafka} omitting those methods which imply a partition assignment.
@@ -39,197 +47,287 @@ public abstract class BaseKafkaImpl implements Kafka {
 
     private volatile boolean stopped = false;
 
-    public BaseKafkaImpl(AdminClient adminClient, Vertx vertx) {
-        this.adminClient = adminClient;
-        this.vertx = vertx;
-    }
-
-    public void stop() {
-        this.stopped = true;
-    }
-
-    abstract class Work implements Runnable, Handler<Void> {
-        @Override
-        public void run() {
-            if (!stopped && !complete()) {
-                vertx.runOnContext(this);
-            }
-        }
-
-        @Override
-        public void handle(Void v) {
-            run();
-        }
+    private final long batchLingerMs;
+    private final int batchMaxSize;
+    private final Batcher<String> deleteTopicBatcher;
+    private final Batcher<Config> updateTopicConfigBatcher;
 
-        protected abstract boolean complete();
-    }
+    /**
+     * Collects mutations of different topics which would each be sent as a separate AdminClient request,
+     * so that they can be sent as a single multi-topic request, and dispatches the per-topic result of that
+     * request to the handler of each mutation.
+     * A batch is sent {@code batchLingerMs} after its first mutation was added, or as soon as it has
+     * {@code batchMaxSize} mutations, or when a second mutation of a topic already in the batch is added.
+     */
+    protected class Batcher<V> {
 
-    /** Some work that depends on a single future */
-    class UniWork<T> extends Work {
-        private final KafkaFuture<T> future;
-        private final Handler<AsyncResult<T>> handler;
         private final String name;
+        private final Function<Map<String, V>, Map<String, KafkaFuture<Void>>> sender;
 
-        public UniWork(String name, KafkaFuture<T> future, Handler<AsyncResult<T>> handler) {
-            if (future == null) {
-                throw new NullPointerException();
-            }
-            if (handler == null) {
-                throw new NullPointerException();
-            }
-            this.future = future;
-            this.handler = handler;
+        /** The mutations in the current batch, by topic name. Guarded by this. */
+        private Map<String, Pending<V>> batch = new LinkedHashMap<>();
+        /** The timer which will send the current batch, or null. Guarded by this. */
+        private Long timerId;
+
+        /**
+         * @param name The name of the work, for logging.
+         * @param sender Sends the given mutations, by topic name, in a single request,
+         *               returning the future result of each, by topic name.
+         */
+        Batcher(String name, Function<Map<String, V>, Map<String, KafkaFuture<Void>>> sender) {
             this.name = name;
+            this.sender = sender;
         }
 
-        @Override
-        protected boolean complete() {
-            if (this.future.isDone()) {
-                LOGGER.trace("Future {} of work {} is done", future, this);
-                try {
-                    try {
-                        T result = this.future.get();
-                        LOGGER.debug("Future {} has result {}", future, result);
-                        this.handler.handle(Future.succeededFuture(result));
-                        LOGGER.debug("Handler for work {} executed ok", this);
-                    } catch (ExecutionException e) {
-                        LOGGER.debug("Future {} threw {}", future, e.toString());
-                        this.handler.handle(Future.failedFuture(e.getCause()));
-                    } catch (InterruptedException e) {
-                        LOGGER.debug("Future {} threw {}", future, e.toString());
-                        this.handler.handle(Future.failedFuture(e));
-                    }
-                } catch (OperatorException e) {
-                    // TODO handler threw, but I have no context for creating a k8s error event
-                    LOGGER.trace("Handler for work {} threw {}", this, e.toString());
-                    e.printStackTrace();
+        /**
+         * Add the given mutation of the topic with the given name to the batch,
+         * calling the given handler (on the calling context) with its result once the batch has been sent.
+         */
+        void add(String topicName, V mutation, Handler<AsyncResult<Void>> handler) {
+            Pending<V> pending = new Pending<>(mutation, vertx.getOrCreateContext(), handler);
+            if (batchMaxSize <= 1) {
+                send(Collections.singletonMap(topicName, pending));
+                return;
+            }
+            Map<String, Pending<V>> previous = null;
+            Map<String, Pending<V>> full = null;
+            synchronized (this) {
+                if (batch.containsKey(topicName)) {
+                    // The same topic can't be mutated twice in one request
+                    previous = takeBatch();
                 }
-                return true;
-            } else {
-                if (LOGGER.isTraceEnabled()) {
-                    LOGGER.trace("Future {} is not done", future);
+                batch.put(topicName, pending);
+                if (batch.size() >= batchMaxSize) {
+                    full = takeBatch();
+                } else if (timerId == null) {
+                    timerId = vertx.setTimer(batchLingerMs, ignored -> {
+                        Map<String, Pending<V>> lingered;
+                        synchronized (this) {
+                            timerId = null;
+                            lingered = takeBatch();
+                        }
+                        send(lingered);
+                    });
                 }
-                return false;
+            }
+            if (previous != null) {
+                send(previous);
+            }
+            if (full != null) {
+                send(full);
             }
         }
 
-        @Override
-        public String toString() {
-            return name + System.identityHashCode(this);
+        /** Guarded by this. */
+        private Map<String, Pending<V>> takeBatch() {
+            Map<String, Pending<V>> result = batch;
+            batch = new LinkedHashMap<>();
+            if (timerId != null) {
+                vertx.cancelTimer(timerId);
+                timerId = null;
+            }
+            return result;
         }
-    }
 
-    /** Some work that depends on two futures */
-    class MetadataWork extends Work {
-        private final KafkaFuture<TopicDescription> descFuture;
-        private final KafkaFuture<Config> configFuture;
-        private final Handler<AsyncResult<TopicMetadata>> handler;
-        private boolean handled = false;
-
-        public MetadataWork(KafkaFuture<TopicDescription> descFuture,
-                            KafkaFuture<Config> configFuture, Handler<AsyncResult<TopicMetadata>> handler) {
-            if (descFuture == null) {
-                throw new NullPointerException();
+        private void send(Map<String, Pending<V>> toSend) {
+            if (toSend.isEmpty()) {
+                return;
+            }
+            LOGGER.debug("Sending {} of topics {}", name, toSend.keySet());
+            Map<String, V> mutations = new LinkedHashMap<>(toSend.size());
+            for (Map.Entry<String, Pending<V>> entry : toSend.entrySet()) {
+                mutations.put(entry.getKey(), entry.getValue().mutation);
             }
-            if (configFuture == null) {
-                throw new NullPointerException();
+            Map<String, KafkaFuture<Void>> futures;
+            try {
+                futures = sender.apply(mutations);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error sending {} of topics {}", name, toSend.keySet(), e);
+                for (Pending<V> pending : toSend.values()) {
+                    pending.context.runOnContext(ignored -> pending.handler.handle(Future.failedFuture(e)));
+                }
+                return;
             }
-            if (handler == null) {
-                throw new NullPointerException();
+            for (Map.Entry<String, Pending<V>> entry : toSend.entrySet()) {
+                Pending<V> pending = entry.getValue();
+                KafkaFuture<Void> future = futures.get(entry.getKey());
+                if (future == null) {
+                    pending.context.runOnContext(ignored -> pending.handler.handle(Future.failedFuture(
+                            new OperatorException("No result for " + name + " of topic " + entry.getKey()))));
+                } else {
+                    pending.context.runOnContext(ignored -> queueWork(name, future, pending.handler));
+                }
             }
-            this.descFuture = descFuture;
-            this.configFuture = configFuture;
+        }
+    }
+
+    private static class Pending<V> {
+        private final V mutation;
+        private final Context context;
+        private final Handler<AsyncResult<Void>> handler;
+
+        Pending(V mutation, Context context, Handler<AsyncResult<Void>> handler) {
+            this.mutation = mutation;
+            this.context = context;
             this.handler = handler;
         }
+    }
 
+    /**
+     * Like {@link #BaseKafkaImpl(AdminClient, Vertx, long, int)}, but sending each mutation in its own request.
+     */
+    public BaseKafkaImpl(AdminClient adminClient, Vertx vertx) {
+        this(adminClient, vertx, 0, 1);
+    }
 
-        private <T> T result(KafkaFuture<T> future) {
-            T result;
+    /**
+     * @param batchLingerMs How long to wait for more mutations of the same kind before sending a batch of topic mutations.
+     * @param batchMaxSize The maximum number of topics mutated by a single request. 1 disables batching.
+     */
+    public BaseKafkaImpl(AdminClient adminClient, Vertx vertx, long batchLingerMs, int batchMaxSize) {
+        this.adminClient = adminClient;
+        this.vertx = vertx;
+        this.batchLingerMs = Math.max(1, batchLingerMs);
+        this.batchMaxSize = batchLingerMs > 0 ? batchMaxSize : 1;
+        this.deleteTopicBatcher = new Batcher<>("deleteTopic",
+            topics -> adminClient.deleteTopics(topics.keySet()).values());
+        this.updateTopicConfigBatcher = new Batcher<>("updateTopicConfig", topics -> {
+            Map<ConfigResource, Config> configs = new LinkedHashMap<>(topics.size());
+            for (Map.Entry<String, Config> entry : topics.entrySet()) {
+                configs.put(new ConfigResource(ConfigResource.Type.TOPIC, entry.getKey()), entry.getValue());
+            }
+            Map<String, KafkaFuture<Void>> futures = new HashMap<>(topics.size());
+            for (Map.Entry<ConfigResource, KafkaFuture<Void>> entry : adminClient.alterConfigs(configs).values().entrySet()) {
+                futures.put(entry.getKey().name(), entry.getValue());
+            }
+            return futures;
+        });
+    }
+
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Complete the given {@code handler} with the outcome of the given {@code future}.
+     * Rather than polling the future until it is done, a completion callback is registered
+     * with the future; that callback (which runs on an AdminClient thread) dispatches
+     * the result to the calling Vert.x context exactly once.
+     */
+    protected <T> void queueWork(String name, KafkaFuture<T> future, Handler<AsyncResult<T>> handler) {
+        if (future == null) {
+            throw new NullPointerException();
+        }
+        if (handler == null) {
+            throw new NullPointerException();
+        }
+        Context context = vertx.getOrCreateContext();
+        LOGGER.trace("Queuing work {} for execution on completion of future {}", name, future);
+        future.whenComplete((result, error) -> context.runOnContext(ignored -> {
+            if (stopped) {
+                LOGGER.debug("Ignoring completion of work {} because {} is stopped", name, this);
+                return;
+            }
             try {
-                result = future.get();
-                LOGGER.trace("Future {} has result {}", future, result);
-            } catch (ExecutionException e) {
-                LOGGER.debug("Future {} threw {}", future, e.toString());
-                if (e.getCause() instanceof UnknownTopicOrPartitionException) {
-                    result = null;
+                if (error == null) {
+                    LOGGER.debug("Future {} of work {} has result {}", future, name, result);
+                    handler.handle(Future.succeededFuture(result));
+                    LOGGER.debug("Handler for work {} executed ok", name);
                 } else {
-                    if (!handled) {
-                        handler.handle(Future.failedFuture(e.getCause()));
-                    }
-                    handled = true;
-                    return null;
-                }
-            } catch (InterruptedException e) {
-                LOGGER.debug("Future {} threw {}", future, e.toString());
-                if (!handled) {
-                    handler.handle(Future.failedFuture(e));
+                    Throwable cause = unwrap(error);
+                    LOGGER.debug("Future {} of work {} threw {}", future, name, cause.toString());
+                    handler.handle(Future.failedFuture(cause));
                 }
-                handled = true;
-                return null;
+            } catch (OperatorException e) {
+                // TODO handler threw, but I have no context for creating a k8s error event
+                LOGGER.trace("Handler for work {} threw {}", name, e.toString());
+                e.printStackTrace();
             }
-            return result;
-        }
+        }));
+    }
 
-        @Override
-        protected boolean complete() {
-            if (this.descFuture.isDone()
-                    && this.configFuture.isDone()) {
-                final TopicDescription desc = result(this.descFuture);
-                final Config config = result(this.configFuture);
-                if (!handled) {
+    /**
+     * Complete the given {@code handler} with the {@link TopicMetadata} once both the given
+     * description and config futures are complete.
+     * If either future failed with {@link UnknownTopicOrPartitionException} the handler's result will be null.
+     */
+    protected void queueMetadataWork(TopicName topicName, KafkaFuture<TopicDescription> descFuture,
+                                     KafkaFuture<Config> configFuture, Handler<AsyncResult<TopicMetadata>> handler) {
+        if (descFuture == null) {
+            throw new NullPointerException();
+        }
+        if (configFuture == null) {
+            throw new NullPointerException();
+        }
+        if (handler == null) {
+            throw new NullPointerException();
+        }
+        Context context = vertx.getOrCreateContext();
+        LOGGER.trace("Queuing metadata work for topic {}", topicName);
+        descFuture.whenComplete((desc, descError) ->
+            configFuture.whenComplete((config, configError) -> context.runOnContext(ignored -> {
+                if (stopped) {
+                    LOGGER.debug("Ignoring completion of metadata work for topic {} because {} is stopped", topicName, this);
+                    return;
+                }
+                Throwable error = metadataError(descError);
+                if (error == null) {
+                    error = metadataError(configError);
+                }
+                if (error != null) {
+                    LOGGER.debug("Getting metadata for topic {} threw {}", topicName, error.toString());
+                    handler.handle(Future.failedFuture(error));
+                } else {
                     TopicMetadata metadata;
-                    if (desc != null && config != null) {
+                    if (descError == null && configError == null) {
                         metadata = new TopicMetadata(desc, config);
                     } else {
                         metadata = null;
                     }
-                    this.handler.handle(Future.succeededFuture(metadata));
-                    this.handled = true;
-                    LOGGER.trace("Handler for work {} executed ok", this);
-                } else {
+                    handler.handle(Future.succeededFuture(metadata));
+                    LOGGER.trace("Handler for metadata work for topic {} executed ok", topicName);
                 }
-                return handled;
-            } else {
-                if (!this.descFuture.isDone())
-                    LOGGER.trace("Description future {} is not done", descFuture);
-                if (!this.configFuture.isDone())
-                    LOGGER.trace("Config future {} is not done", configFuture);
-                return false;
-            }
-        }
+            })));
     }
 
     /**
-     * Queue a future and callback. The callback will be invoked (on a separate thread)
-     * when the future is ready.
+     * Return the cause of the given error, or null if the error just means the topic does not exist.
      */
-    protected void queueWork(Work work) {
-        LOGGER.trace("Queuing work {} for immediate execution", work);
-        vertx.runOnContext(work);
+    private static Throwable metadataError(Throwable error) {
+        if (error == null) {
+            return null;
+        }
+        Throwable cause = unwrap(error);
+        return cause instanceof UnknownTopicOrPartitionException ? null : cause;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if ((error instanceof ExecutionException || error instanceof CompletionException)
+                && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
     }
 
     /**
      * Delete a topic via the Kafka AdminClient API, calling the given handler
-     * (in a different thread) with the result.
+     * (on the calling context) with the result.
      */
     @Override
     public void deleteTopic(TopicName topicName, Handler<AsyncResult<Void>> handler) {
         LOGGER.debug("Deleting topic {}", topicName);
-        KafkaFuture<Void> future = adminClient.deleteTopics(
-                Collections.singleton(topicName.toString())).values().get(topicName.toString());
-        queueWork(new UniWork<>("deleteTopic", future, handler));
+        deleteTopicBatcher.add(topicName.toString(), topicName.toString(), handler);
     }
 
     @Override
     public void updateTopicConfig(Topic topic, Handler<AsyncResult<Void>> handler) {
         Map<ConfigResource, Config> configs = TopicSerialization.toTopicConfig(topic);
-        KafkaFuture<Void> future = adminClient.alterConfigs(configs).values().get(configs.keySet().iterator().next());
-        queueWork(new UniWork<>("updateTopicConfig", future, handler));
+        updateTopicConfigBatcher.add(topic.getTopicName().toString(), configs.values().iterator().next(), handler);
     }
 
     /**
      * Get a topic config via the Kafka AdminClient API, calling the given handler
-     * (in a different thread) with the result.
+     * (on the calling context) with the result.
      */
     @Override
     public void topicMetadata(TopicName topicName, Handler<AsyncResult<TopicMetadata>> handler) {
@@ -239,16 +337,57 @@ public abstract class BaseKafkaImpl implements Kafka {
                 Collections.singleton(topicName.toString())).values().get(topicName.toString());
         KafkaFuture<Config> configFuture = adminClient.describeConfigs(
                 Collections.singleton(resource)).values().get(resource);
-        queueWork(new MetadataWork(descriptionFuture,
-            configFuture,
-            result -> handler.handle(result)));
+        queueMetadataWork(topicName, descriptionFuture, configFuture, handler);
+    }
+
+    /**
+     * Get the metadata of several topics via the Kafka AdminClient API, using a single
+     * describeTopics and a single describeConfigs request, calling the given handler
+     * (on the calling context) with the result.
+     */
+    @Override
+    public void topicMetadata(Set<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, TopicMetadata>>> handler) {
+        LOGGER.debug("Getting metadata for topics {}", topicNames);
+        if (topicNames.isEmpty()) {
+            handler.handle(Future.succeededFuture(Collections.emptyMap()));
+            return;
+        }
+        List<String> names = new ArrayList<>(topicNames.size());
+        List<ConfigResource> resources = new ArrayList<>(topicNames.size());
+        for (TopicName topicName : topicNames) {
+            names.add(topicName.toString());
+            resources.add(new ConfigResource(ConfigResource.Type.TOPIC, topicName.toString()));
+        }
+        Map<String, KafkaFuture<TopicDescription>> descriptionFutures = adminClient.describeTopics(names).values();
+        Map<ConfigResource, KafkaFuture<Config>> configFutures = adminClient.describeConfigs(resources).values();
+        Map<TopicName, Future<TopicMetadata>> metadataFutures = new HashMap<>(topicNames.size());
+        for (int i = 0; i < names.size(); i++) {
+            TopicName topicName = new TopicName(names.get(i));
+            Future<TopicMetadata> metadataFuture = Future.future();
+            metadataFutures.put(topicName, metadataFuture);
+            queueMetadataWork(topicName, descriptionFutures.get(names.get(i)), configFutures.get(resources.get(i)),
+                    metadataFuture.completer());
+        }
+        CompositeFuture.all(new ArrayList<>(metadataFutures.values())).setHandler(ar -> {
+            if (ar.succeeded()) {
+                Map<TopicName, TopicMetadata> result = new HashMap<>(metadataFutures.size());
+                for (Map.Entry<TopicName, Future<TopicMetadata>> entry : metadataFutures.entrySet()) {
+                    if (entry.getValue().result() != null) {
+                        result.put(entry.getKey(), entry.getValue().result());
+                    }
+                }
+                handler.handle(Future.succeededFuture(result));
+            } else {
+                handler.handle(Future.failedFuture(ar.cause()));
+            }
+        });
     }
 
     @Override
     public void listTopics(Handler<AsyncResult<Set<String>>> handler) {
         LOGGER.debug("Listing topics");
         ListTopicsResult future = adminClient.listTopics();
-        queueWork(new UniWork<>("listTopics", future.names(), handler));
+        queueWork("listTopics", future.names(), handler);
     }
 
 
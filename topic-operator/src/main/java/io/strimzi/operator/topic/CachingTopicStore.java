@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017-2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.strimzi.operator.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TopicStore} which keeps an in-memory copy of the topics held in a {@link ZkTopicStore}.
+ *
+ * <p>All the topics are loaded when the store is {@linkplain #start() started}, and then reads are
+ * served from memory. Creates, updates and deletes are written through to the delegate store.
+ * The children of {@link ZkTopicStore#TOPICS_PATH} are watched so that topics created or deleted by
+ * other writers are noticed: a topic which appears is read from the delegate store the next time
+ * it's needed, and a topic which disappears is evicted.</p>
+ *
+ * <p>Until the initial load has finished all reads go to the delegate store.</p>
+ *
+ * <p>The number of reads served from memory and the number of reads which had to go to the delegate store
+ * are counted, and can be {@linkplain #registerMetrics(Metrics) exposed as metrics}.</p>
+ */
+public class CachingTopicStore implements TopicStore {
+
+    private final static Logger LOGGER = LogManager.getLogger(CachingTopicStore.class);
+
+    private static final long RETRY_DELAY_MS = 1_000L;
+
+    private final Vertx vertx;
+    private final Zk zk;
+    private final TopicStore delegate;
+
+    private final Map<TopicName, Topic> topics = new ConcurrentHashMap<>();
+    /** Topics whose cached state is unknown, and must be read from the delegate store. */
+    private final Set<TopicName> stale = ConcurrentHashMap.newKeySet();
+    private Set<String> children = new HashSet<>();
+    private volatile boolean loaded = false;
+    private volatile boolean stopped = false;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingTopicStore(Vertx vertx, Zk zk, TopicStore delegate) {
+        this.vertx = vertx;
+        this.zk = zk;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Start watching the children of {@link ZkTopicStore#TOPICS_PATH} and load all the topics.
+     */
+    public void start() {
+        zk.watchChildren(ZkTopicStore.TOPICS_PATH, childResult -> {
+            if (stopped) {
+                zk.unwatchChildren(ZkTopicStore.TOPICS_PATH);
+                return;
+            }
+            if (childResult.failed()) {
+                LOGGER.error("Error on znode {} children", ZkTopicStore.TOPICS_PATH, childResult.cause());
+                return;
+            }
+            onChildrenChanged(childResult.result());
+        }).children(ZkTopicStore.TOPICS_PATH, childResult -> {
+            if (childResult.failed()) {
+                LOGGER.warn("Error getting znode {} children, will retry", ZkTopicStore.TOPICS_PATH, childResult.cause());
+                vertx.setTimer(RETRY_DELAY_MS, timerId -> {
+                    if (!stopped) {
+                        start();
+                    }
+                });
+                return;
+            }
+            load(childResult.result());
+        });
+    }
+
+    /**
+     * Stop watching the children of {@link ZkTopicStore#TOPICS_PATH}.
+     */
+    public void stop() {
+        stopped = true;
+        zk.unwatchChildren(ZkTopicStore.TOPICS_PATH);
+    }
+
+    private void load(List<String> initialChildren) {
+        LOGGER.debug("Loading topics {}", initialChildren);
+        synchronized (this) {
+            this.children = new HashSet<>(initialChildren);
+        }
+        List<Future> futures = new ArrayList<>(initialChildren.size());
+        for (String child : initialChildren) {
+            TopicName topicName = new TopicName(child);
+            Future<Void> future = Future.future();
+            futures.add(future);
+            delegate.read(topicName, ar -> {
+                if (ar.succeeded()) {
+                    cache(topicName, ar.result());
+                } else {
+                    LOGGER.warn("Error loading topic {}", topicName, ar.cause());
+                    stale.add(topicName);
+                }
+                future.complete();
+            });
+        }
+        CompositeFuture.join(futures).setHandler(ar -> {
+            LOGGER.info("Loaded {} topics", topics.size());
+            loaded = true;
+        });
+    }
+
+    private void onChildrenChanged(List<String> result) {
+        Set<String> created = new HashSet<>(result);
+        Set<String> deleted;
+        synchronized (this) {
+            deleted = new HashSet<>(this.children);
+            deleted.removeAll(result);
+            created.removeAll(this.children);
+            this.children = new HashSet<>(result);
+        }
+        LOGGER.debug("znode {} children created: {}, deleted: {}", ZkTopicStore.TOPICS_PATH, created, deleted);
+        for (String child : deleted) {
+            TopicName topicName = new TopicName(child);
+            topics.remove(topicName);
+            stale.remove(topicName);
+        }
+        for (String child : created) {
+            TopicName topicName = new TopicName(child);
+            if (!topics.containsKey(topicName)) {
+                stale.add(topicName);
+            }
+        }
+    }
+
+    private void cache(TopicName topicName, Topic topic) {
+        if (topic != null) {
+            topics.put(topicName, topic);
+        } else {
+            topics.remove(topicName);
+        }
+        stale.remove(topicName);
+    }
+
+    @Override
+    public void read(TopicName topicName, Handler<AsyncResult<Topic>> handler) {
+        if (loaded && !stale.contains(topicName)) {
+            hits.incrementAndGet();
+            handler.handle(Future.succeededFuture(topics.get(topicName)));
+            return;
+        }
+        misses.incrementAndGet();
+        delegate.read(topicName, ar -> {
+            if (ar.succeeded()) {
+                cache(topicName, ar.result());
+            }
+            handler.handle(ar);
+        });
+    }
+
+    @Override
+    public void create(Topic topic, Handler<AsyncResult<Void>> handler) {
+        TopicName topicName = topic.getTopicName();
+        delegate.create(topic, ar -> {
+            if (ar.succeeded()) {
+                cache(topicName, topic);
+            } else {
+                stale.add(topicName);
+            }
+            handler.handle(ar);
+        });
+    }
+
+    @Override
+    public void update(Topic topic, Handler<AsyncResult<Void>> handler) {
+        TopicName topicName = topic.getTopicName();
+        delegate.update(topic, ar -> {
+            if (ar.succeeded()) {
+                cache(topicName, topic);
+            } else {
+                stale.add(topicName);
+            }
+            handler.handle(ar);
+        });
+    }
+
+    @Override
+    public void delete(TopicName topicName, Handler<AsyncResult<Void>> handler) {
+        delegate.delete(topicName, ar -> {
+            if (ar.succeeded()) {
+                cache(topicName, null);
+            } else {
+                stale.add(topicName);
+            }
+            handler.handle(ar);
+        });
+    }
+
+    @Override
+    public void version(TopicName topicName, Handler<AsyncResult<Long>> handler) {
+        delegate.version(topicName, handler);
+    }
+
+    /**
+     * @return true if the initial load of the topics has finished.
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return The number of reads which were served from memory.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of reads which had to go to the delegate store.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Register the hit, miss and size metrics of this store.
+     * @param metrics The registry.
+     */
+    public void registerMetrics(Metrics metrics) {
+        metrics.counter("topic_store_cache_hits_total", "The number of topic store reads served from memory.", hits::get);
+        metrics.counter("topic_store_cache_misses_total", "The number of topic store reads passed to ZooKeeper.", misses::get);
+        metrics.gauge("topic_store_cache_size", "The number of topics in the topic store cache.", topics::size);
+    }
+}
@@ -7,12 +7,21 @@ package io.strimzi.operator.topic;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
 public class Config {
 
+    /** The kinds of {@link TopicStore}. */
+    public enum TopicStoreType {
+        /** A {@link ZkTopicStore}. */
+        ZOOKEEPER,
+        /** A {@link KafkaTopicStore}. */
+        KAFKA
+    }
+
     private static abstract class Type<T> {
 
         abstract T parse(String s);
@@ -46,6 +55,33 @@ public class Config {
         }
     };
 
+    /** A Java Boolean */
+    private static final Type<? extends Boolean> BOOLEAN = new Type<Boolean>() {
+        @Override
+        Boolean parse(String s) {
+            if (!"true".equals(s) && !"false".equals(s)) {
+                throw new IllegalArgumentException("The value must be either true or false");
+            }
+            return Boolean.parseBoolean(s);
+        }
+    };
+
+    /** A {@link TopicSerialization.Encoding}, case insensitively */
+    private static final Type<? extends TopicSerialization.Encoding> ENCODING = new Type<TopicSerialization.Encoding>() {
+        @Override
+        TopicSerialization.Encoding parse(String s) {
+            return TopicSerialization.Encoding.valueOf(s.toUpperCase(Locale.ENGLISH));
+        }
+    };
+
+    /** A {@link TopicStoreType}, case insensitively */
+    private static final Type<? extends TopicStoreType> TOPIC_STORE_TYPE = new Type<TopicStoreType>() {
+        @Override
+        TopicStoreType parse(String s) {
+            return TopicStoreType.valueOf(s.toUpperCase(Locale.ENGLISH));
+        }
+    };
+
     /**
      * A time duration.
      */
@@ -98,6 +134,16 @@ public class Config {
     public static final String TC_REASSIGN_THROTTLE = "STRIMZI_REASSIGN_THROTTLE";
     public static final String TC_REASSIGN_VERIFY_INTERVAL_MS = "STRIMZI_REASSIGN_VERIFY_INTERVAL_MS";
     public static final String TC_TOPIC_METADATA_MAX_ATTEMPTS = "STRIMZI_TOPIC_METADATA_MAX_ATTEMPTS";
+    public static final String TC_TOPIC_METADATA_BATCH_SIZE = "STRIMZI_TOPIC_METADATA_BATCH_SIZE";
+    public static final String TC_PARTITIONS_SCAN_RATE = "STRIMZI_PARTITIONS_SCAN_RATE";
+    public static final String TC_FULL_RECONCILIATION_MAX_CONCURRENCY = "STRIMZI_FULL_RECONCILIATION_MAX_CONCURRENCY";
+    public static final String TC_FULL_RECONCILIATION_PACED = "STRIMZI_FULL_RECONCILIATION_PACED";
+    public static final String TC_FULL_RECONCILIATION_SWEEP_INTERVAL_MS = "STRIMZI_FULL_RECONCILIATION_SWEEP_INTERVAL_MS";
+    public static final String TC_TOPIC_STORE_ENCODING = "STRIMZI_TOPIC_STORE_ENCODING";
+    public static final String TC_TOPIC_STORE = "STRIMZI_TOPIC_STORE";
+    public static final String TC_TOPIC_STORE_TOPIC = "STRIMZI_TOPIC_STORE_TOPIC";
+    public static final String TC_ADMIN_BATCH_LINGER_MS = "STRIMZI_ADMIN_BATCH_LINGER_MS";
+    public static final String TC_ADMIN_BATCH_MAX_SIZE = "STRIMZI_ADMIN_BATCH_MAX_SIZE";
 
     private static final Map<String, Value<?>> CONFIG_VALUES = new HashMap<>();
 
@@ -123,14 +169,53 @@ public class Config {
     public static final Value<Long> REASSIGN_THROTTLE = new Value<>(TC_REASSIGN_THROTTLE, LONG, Long.toString(Long.MAX_VALUE));
 
     /**
-     * The interval between verification executions (as in {@code kafka-reassign-partitions.sh --verify ...})
-     * when a topic change requires partition reassignment.
+     * The interval between checks for the completion of a partition reassignment, in case the watch on
+     * the {@code /admin/reassign_partitions} znode misses its deletion.
      */
     public static final Value<Long> REASSIGN_VERIFY_INTERVAL_MS = new Value<>(TC_REASSIGN_VERIFY_INTERVAL_MS, DURATION, "120000");
 
     /** The maximum number of retries for getting topic metadata from the Kafka cluster */
     public static final Value<Integer> TOPIC_METADATA_MAX_ATTEMPTS = new Value<>(TC_TOPIC_METADATA_MAX_ATTEMPTS, POSITIVE_INTEGER, "6");
 
+    /** The maximum number of topics whose metadata is fetched in a single request during full reconciliation */
+    public static final Value<Integer> TOPIC_METADATA_BATCH_SIZE = new Value<>(TC_TOPIC_METADATA_BATCH_SIZE, POSITIVE_INTEGER, "100");
+
+    /** The maximum number of topics per second whose partitions are checked for changes */
+    public static final Value<Integer> PARTITIONS_SCAN_RATE = new Value<>(TC_PARTITIONS_SCAN_RATE, POSITIVE_INTEGER, "100");
+
+    /** The maximum number of topics being reconciled at once during full reconciliation */
+    public static final Value<Integer> FULL_RECONCILIATION_MAX_CONCURRENCY = new Value<>(TC_FULL_RECONCILIATION_MAX_CONCURRENCY, POSITIVE_INTEGER, "100");
+
+    /** Whether full reconciliation is spread evenly over the period between full reconciliations, rather than done as fast as possible */
+    public static final Value<Boolean> FULL_RECONCILIATION_PACED = new Value<>(TC_FULL_RECONCILIATION_PACED, BOOLEAN, "false");
+
+    /**
+     * The period between full reconciliations which reconcile every topic, rather than only those topics
+     * whose fingerprint has changed since they were last reconciled.
+     */
+    public static final Value<Long> FULL_RECONCILIATION_SWEEP_INTERVAL_MS = new Value<>(TC_FULL_RECONCILIATION_SWEEP_INTERVAL_MS, DURATION, "21600000");
+
+    /**
+     * The encoding in which topics are written to the topic store, either {@code json} or {@code compact}.
+     * Topics in either encoding can always be read.
+     */
+    public static final Value<TopicSerialization.Encoding> TOPIC_STORE_ENCODING = new Value<>(TC_TOPIC_STORE_ENCODING, ENCODING, "json");
+
+    /** Where the private state of topics is stored, either {@code zookeeper} or {@code kafka}. */
+    public static final Value<TopicStoreType> TOPIC_STORE = new Value<>(TC_TOPIC_STORE, TOPIC_STORE_TYPE, "zookeeper");
+
+    /** The name of the compacted topic in which the private state of topics is stored, when {@link #TOPIC_STORE} is {@code kafka}. */
+    public static final Value<String> TOPIC_STORE_TOPIC = new Value<>(TC_TOPIC_STORE_TOPIC, STRING, "__strimzi_topic_operator_store");
+
+    /**
+     * How long to wait for more topic creations, deletions, config changes or partition increases
+     * to send in the same request to Kafka. 0 sends each in its own request.
+     */
+    public static final Value<Long> ADMIN_BATCH_LINGER_MS = new Value<>(TC_ADMIN_BATCH_LINGER_MS, DURATION, "10");
+
+    /** The maximum number of topics created, deleted or changed by a single request to Kafka. */
+    public static final Value<Integer> ADMIN_BATCH_MAX_SIZE = new Value<>(TC_ADMIN_BATCH_MAX_SIZE, POSITIVE_INTEGER, "100");
+
     static {
         Map<String, Value<?>> configValues = CONFIG_VALUES;
         addConfigValue(configValues, LABELS);
@@ -142,6 +227,16 @@ public class Config {
         addConfigValue(configValues, REASSIGN_THROTTLE);
         addConfigValue(configValues, REASSIGN_VERIFY_INTERVAL_MS);
         addConfigValue(configValues, TOPIC_METADATA_MAX_ATTEMPTS);
+        addConfigValue(configValues, TOPIC_METADATA_BATCH_SIZE);
+        addConfigValue(configValues, PARTITIONS_SCAN_RATE);
+        addConfigValue(configValues, FULL_RECONCILIATION_MAX_CONCURRENCY);
+        addConfigValue(configValues, FULL_RECONCILIATION_PACED);
+        addConfigValue(configValues, FULL_RECONCILIATION_SWEEP_INTERVAL_MS);
+        addConfigValue(configValues, TOPIC_STORE_ENCODING);
+        addConfigValue(configValues, TOPIC_STORE);
+        addConfigValue(configValues, TOPIC_STORE_TOPIC);
+        addConfigValue(configValues, ADMIN_BATCH_LINGER_MS);
+        addConfigValue(configValues, ADMIN_BATCH_MAX_SIZE);
     }
 
     static void addConfigValue(Map<String, Value<?>> configValues, Value<?> cv) {
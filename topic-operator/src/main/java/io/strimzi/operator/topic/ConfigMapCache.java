@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017-2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A local copy of the ConfigMaps matching a {@link LabelPredicate}, kept up to date by a watch.
+ *
+ * <p>The ConfigMaps are listed once and then a watch is started from the resource version of that list.
+ * Each watch event is applied to the cache before being passed on to the delegate {@link Watcher}.
+ * If the watch is lost the cache is marked as not {@linkplain #isSynced() synced} and the list and
+ * watch are restarted. The differences between the cache and the new list are passed to the delegate as
+ * synthetic events, so changes made while the watch was down are not missed.</p>
+ */
+class ConfigMapCache {
+
+    private final static Logger LOGGER = LogManager.getLogger(ConfigMapCache.class);
+
+    private static final long DEFAULT_RESYNC_DELAY_MS = 5_000L;
+
+    private final Vertx vertx;
+    private final KubernetesClient client;
+    private final LabelPredicate cmPredicate;
+    private final String namespace;
+    private final long resyncDelayMs;
+    private final Map<String, ConfigMap> maps = new ConcurrentHashMap<>();
+
+    private volatile Watcher<ConfigMap> delegate;
+    private volatile Watch watch;
+    private volatile boolean synced = false;
+    private volatile boolean stopped = false;
+
+    public ConfigMapCache(Vertx vertx, KubernetesClient client, LabelPredicate cmPredicate, String namespace) {
+        this(vertx, client, cmPredicate, namespace, DEFAULT_RESYNC_DELAY_MS);
+    }
+
+    ConfigMapCache(Vertx vertx, KubernetesClient client, LabelPredicate cmPredicate, String namespace, long resyncDelayMs) {
+        this.vertx = vertx;
+        this.client = client;
+        this.cmPredicate = cmPredicate;
+        this.namespace = namespace;
+        this.resyncDelayMs = resyncDelayMs;
+    }
+
+    /**
+     * List the ConfigMaps and start watching them, passing the watch events to the given delegate.
+     * This method blocks while the ConfigMaps are listed.
+     */
+    public void start(Watcher<ConfigMap> delegate) {
+        this.delegate = delegate;
+        listAndWatch();
+    }
+
+    /**
+     * Stop watching ConfigMaps.
+     */
+    public void stop() {
+        this.stopped = true;
+        this.synced = false;
+        Watch watch = this.watch;
+        if (watch != null) {
+            watch.close();
+        }
+    }
+
+    /**
+     * @return true if the cache reflects a complete list of the ConfigMaps,
+     * and the watch keeping it up to date is running.
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * @return The cached ConfigMap with the given name, or null if there is no such ConfigMap.
+     */
+    public ConfigMap get(MapName mapName) {
+        return maps.get(mapName.toString());
+    }
+
+    /**
+     * @return The cached ConfigMaps.
+     */
+    public List<ConfigMap> list() {
+        return new ArrayList<>(maps.values());
+    }
+
+    /**
+     * Update the cache with a ConfigMap which has been created or modified by the operator,
+     * without waiting for the corresponding watch event.
+     */
+    void put(ConfigMap cm) {
+        if (cm != null && cm.getMetadata() != null && cmPredicate.test(cm)) {
+            maps.put(cm.getMetadata().getName(), cm);
+        }
+    }
+
+    /**
+     * Update the cache with a ConfigMap which has been deleted by the operator,
+     * without waiting for the corresponding watch event.
+     */
+    void remove(MapName mapName) {
+        maps.remove(mapName.toString());
+    }
+
+    private void listAndWatch() {
+        ConfigMapList list = client.configMaps().inNamespace(namespace).withLabels(cmPredicate.labels()).list();
+        Map<String, ConfigMap> listed = new HashMap<>();
+        for (ConfigMap cm : list.getItems()) {
+            listed.put(cm.getMetadata().getName(), cm);
+        }
+        Map<String, ConfigMap> previous = new HashMap<>(maps);
+        maps.putAll(listed);
+        maps.keySet().retainAll(listed.keySet());
+        String resourceVersion = list.getMetadata() != null ? list.getMetadata().getResourceVersion() : null;
+        LOGGER.debug("Listed {} ConfigMaps at resource version {}", listed.size(), resourceVersion);
+        this.watch = client.configMaps().inNamespace(namespace).withResourceVersion(resourceVersion).watch(new CachingWatcher());
+        notifyDifferences(previous, listed);
+        this.synced = true;
+    }
+
+    private void notifyDifferences(Map<String, ConfigMap> previous, Map<String, ConfigMap> listed) {
+        for (Map.Entry<String, ConfigMap> entry : listed.entrySet()) {
+            ConfigMap old = previous.get(entry.getKey());
+            if (old == null) {
+                delegate.eventReceived(Watcher.Action.ADDED, entry.getValue());
+            } else if (!Objects.equals(old.getMetadata().getResourceVersion(), entry.getValue().getMetadata().getResourceVersion())) {
+                delegate.eventReceived(Watcher.Action.MODIFIED, entry.getValue());
+            }
+        }
+        for (Map.Entry<String, ConfigMap> entry : previous.entrySet()) {
+            if (!listed.containsKey(entry.getKey())) {
+                delegate.eventReceived(Watcher.Action.DELETED, entry.getValue());
+            }
+        }
+    }
+
+    private void scheduleResync() {
+        vertx.setTimer(resyncDelayMs, timerId -> {
+            if (stopped) {
+                return;
+            }
+            vertx.executeBlocking(future -> {
+                try {
+                    listAndWatch();
+                    future.complete();
+                } catch (Exception e) {
+                    future.fail(e);
+                }
+            }, ar -> {
+                if (ar.succeeded()) {
+                    LOGGER.info("Resynchronized ConfigMap cache");
+                } else {
+                    LOGGER.error("Error resynchronizing ConfigMap cache, will retry", ar.cause());
+                    scheduleResync();
+                }
+            });
+        });
+    }
+
+    private class CachingWatcher implements Watcher<ConfigMap> {
+
+        @Override
+        public void eventReceived(Action action, ConfigMap configMap) {
+            String name = configMap.getMetadata().getName();
+            switch (action) {
+                case ADDED:
+                case MODIFIED:
+                    if (cmPredicate.test(configMap)) {
+                        maps.put(name, configMap);
+                    } else {
+                        maps.remove(name);
+                    }
+                    break;
+                case DELETED:
+                    maps.remove(name);
+                    break;
+                default:
+                    break;
+            }
+            delegate.eventReceived(action, configMap);
+        }
+
+        @Override
+        public void onClose(KubernetesClientException e) {
+            delegate.onClose(e);
+            if (e != null && !stopped) {
+                LOGGER.warn("ConfigMap watch closed, will resynchronize ConfigMap cache", e);
+                synced = false;
+                scheduleResync();
+            }
+        }
+    }
+}
@@ -11,7 +11,12 @@ import io.vertx.core.Vertx;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Inflight tracks the current reconciliation jobs being done, and prevents
@@ -35,96 +40,186 @@ import java.util.concurrent.ConcurrentHashMap;
  * due to event 1 is complete. The reconciliation algorithm is smart
  * enough realize, when reconciling the ConfigMap creation that the Kafka
  * and TopicStore state is already correct, and so the reconciliation is a noop.
+ *
+ * At most one action per key is running, and at most one more is queued behind it.
+ * Because each action reconciles the whole state of the key, an action which is enqueued while
+ * another is already queued for the same key is coalesced with it, rather than queued behind it:
+ * a {@link Priority#WATCH} action replaces the queued action (since it has the more recent
+ * view of the change), while a {@link Priority#PERIODIC} action is absorbed by the queued action.
+ * Either way, the result handlers of both are called with the result of the action which runs.
+ * When several keys are ready to run their next action, those with {@link Priority#WATCH}
+ * actions are started before those with only {@link Priority#PERIODIC} actions.
  */
 class InFlight<T> {
 
     private final static Logger LOGGER = LogManager.getLogger(InFlight.class);
 
-    private final Vertx vertx;
-
-    private final ConcurrentHashMap<T, InflightHandler> map = new ConcurrentHashMap<>();
-
-    class InflightHandler implements Handler<AsyncResult<Void>> {
-
-        private final Handler<AsyncResult<Void>> h1;
-        private final Handler<AsyncResult<Void>> h2;
-        private final String fur;
-        private Handler<AsyncResult<Void>> h3;
-        private final Future<Void> fut;
-
-        public InflightHandler(T key, String fur, Handler<AsyncResult<Void>> h1) {
-            this.fur = fur;
-            this.h1 = h1;
-            this.h2 = x -> {
-                // remove from map if fut is the current key
-                map.compute(key, (k2, v) -> {
-                    if (v == this) {
-                        LOGGER.debug("Removing finished action {}", this);
-                        return null;
-                    } else {
-                        return v;
-                    }
-                });
-            };
-            Future<Void> fut = Future.future();
-            this.fut = fut;
-            fut.setHandler(this);
-        }
+    /**
+     * The priority of an action.
+     */
+    enum Priority {
+        /** An action in response to a change notification from Kubernetes or ZooKeeper. */
+        WATCH,
+        /** An action of a periodic reconciliation. */
+        PERIODIC
+    }
 
-        @Override
-        public void handle(AsyncResult<Void> event) {
-            h1.handle(event);
-            h2.handle(event);
-            if (h3 != null) {
-                h3.handle(event);
-            }
-        }
+    private final Vertx vertx;
 
-        public void setHandler(Handler<AsyncResult<Void>> h3) {
-            this.h3 = h3;
+    /** The state of each key with a running or queued action. Guarded by this. */
+    private final Map<T, KeyState> map = new HashMap<>();
+    /** Keys with a queued action but no running action, by priority of the queued action. Guarded by this. */
+    private final LinkedHashSet<T> readyWatch = new LinkedHashSet<>();
+    private final LinkedHashSet<T> readyPeriodic = new LinkedHashSet<>();
+    /** Whether a dispatch of the ready keys is scheduled. Guarded by this. */
+    private boolean dispatchScheduled = false;
+    private long coalesced = 0;
+
+    private class Job {
+        private Handler<Future<Void>> action;
+        private Priority priority;
+        private final List<Handler<AsyncResult<Void>>> resultHandlers = new ArrayList<>(1);
+
+        Job(Handler<Future<Void>> action, Priority priority, Handler<AsyncResult<Void>> resultHandler) {
+            this.action = action;
+            this.priority = priority;
+            this.resultHandlers.add(resultHandler);
         }
 
         public String toString() {
-            return fur;
+            return action.toString();
         }
     }
 
+    private class KeyState {
+        private Job running;
+        private Job queued;
+    }
+
     public InFlight(Vertx vertx) {
         this.vertx = vertx;
     }
 
+    /**
+     * Like {@link #enqueue(Object, Handler, Priority, Handler)} with {@link Priority#WATCH}.
+     */
+    public void enqueue(T key, Handler<Future<Void>> action, Handler<AsyncResult<Void>> resultHandler) {
+        enqueue(key, action, Priority.WATCH, resultHandler);
+    }
 
     /**
      * Run the given {@code action} on the context thread,
-     * immediately if there are currently no other actions with the given {@code key},
-     * or when the other actions with the given {@code key} have completed.
+     * as soon as there is no other running action with the given {@code key},
+     * unless it is coalesced with an action which is already queued for the given {@code key}.
      * When the given {@code action} is complete it must complete its argument future,
      * which will complete the given {@code resultHandler}.
+     * If the action is coalesced the given {@code resultHandler} is completed with the
+     * result of the action it was coalesced with.
      */
-    public void enqueue(T key, Handler<Future<Void>> action, Handler<AsyncResult<Void>> resultHandler) {
-        InflightHandler fut = new InflightHandler(key, action.toString(), resultHandler);
-        LOGGER.debug("resultHandler:{}, action:{}, fut:{}", resultHandler, action, fut);
-        map.compute(key, (k, current) -> {
-            if (current == null) {
-                LOGGER.debug("Queueing {} for immediate execution", action);
-                vertx.runOnContext(ignored -> action.handle(fut.fut));
-                return fut;
+    public void enqueue(T key, Handler<Future<Void>> action, Priority priority, Handler<AsyncResult<Void>> resultHandler) {
+        synchronized (this) {
+            KeyState state = map.computeIfAbsent(key, k -> new KeyState());
+            Job queued = state.queued;
+            if (queued == null) {
+                state.queued = new Job(action, priority, resultHandler);
+                if (state.running == null) {
+                    LOGGER.debug("Queueing {} for immediate execution", action);
+                    ready(key, priority);
+                } else {
+                    LOGGER.debug("Queueing {} for deferred execution after {}", action, state.running);
+                }
             } else {
-                LOGGER.debug("Queueing {} for deferred execution after {}", action, current);
-                current.setHandler(ar -> {
-                    LOGGER.debug("Queueing {} after deferred execution", action);
-                    vertx.runOnContext(ar2 ->
-                            action.handle(fut.fut));
-                });
-                return fut;
+                coalesced++;
+                queued.resultHandlers.add(resultHandler);
+                if (priority == Priority.WATCH) {
+                    LOGGER.debug("Replacing queued {} with {}", queued, action);
+                    queued.action = action;
+                    if (queued.priority == Priority.PERIODIC && readyPeriodic.remove(key)) {
+                        readyWatch.add(key);
+                    }
+                    queued.priority = Priority.WATCH;
+                } else {
+                    LOGGER.debug("Coalescing {} with queued {}", action, queued);
+                }
             }
-        });
+        }
+    }
+
+    /** Guarded by this. */
+    private void ready(T key, Priority priority) {
+        (priority == Priority.WATCH ? readyWatch : readyPeriodic).add(key);
+        if (!dispatchScheduled) {
+            dispatchScheduled = true;
+            vertx.runOnContext(ignored -> dispatch());
+        }
+    }
+
+    private void dispatch() {
+        List<T> keys = new ArrayList<>();
+        List<Job> jobs = new ArrayList<>();
+        synchronized (this) {
+            dispatchScheduled = false;
+            start(readyWatch, keys, jobs);
+            start(readyPeriodic, keys, jobs);
+        }
+        for (int i = 0; i < jobs.size(); i++) {
+            run(keys.get(i), jobs.get(i));
+        }
+    }
+
+    /** Guarded by this. */
+    private void start(LinkedHashSet<T> ready, List<T> keys, List<Job> jobs) {
+        Iterator<T> iterator = ready.iterator();
+        while (iterator.hasNext()) {
+            T key = iterator.next();
+            iterator.remove();
+            KeyState state = map.get(key);
+            state.running = state.queued;
+            state.queued = null;
+            keys.add(key);
+            jobs.add(state.running);
+        }
+    }
+
+    private void run(T key, Job job) {
+        LOGGER.debug("Executing {}", job);
+        Future<Void> fut = Future.future();
+        fut.setHandler(ar -> finished(key, job, ar));
+        try {
+            job.action.handle(fut);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error executing {}", job, e);
+            fut.tryFail(e);
+        }
+    }
+
+    private void finished(T key, Job job, AsyncResult<Void> result) {
+        synchronized (this) {
+            KeyState state = map.get(key);
+            state.running = null;
+            if (state.queued != null) {
+                ready(key, state.queued.priority);
+            } else {
+                LOGGER.debug("Removing finished action {}", job);
+                map.remove(key);
+            }
+        }
+        for (Handler<AsyncResult<Void>> resultHandler : job.resultHandlers) {
+            resultHandler.handle(result);
+        }
     }
 
     /**
      * The number of keys with inflight actions.
      */
-    public int size() {
+    public synchronized int size() {
         return map.size();
     }
+
+    /**
+     * The number of actions which have been coalesced with another action, rather than being run themselves.
+     */
+    public synchronized long coalesced() {
+        return coalesced;
+    }
 }
@@ -9,6 +9,7 @@ import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import org.apache.logging.log4j.LogManager;
@@ -27,18 +28,36 @@ public class K8sImpl implements K8s {
 
     private Vertx vertx;
 
+    private final ConfigMapCache cache;
+
     public K8sImpl(Vertx vertx, KubernetesClient client, LabelPredicate cmPredicate, String namespace) {
+        this(vertx, client, cmPredicate, namespace, null);
+    }
+
+    /**
+     * @param cache If not null, {@link #listMaps(Handler)} and {@link #getFromName(MapName, Handler)} of a cached map
+     *              are served from this cache whenever it is synced, rather than making API calls.
+     */
+    public K8sImpl(Vertx vertx, KubernetesClient client, LabelPredicate cmPredicate, String namespace, ConfigMapCache cache) {
         this.vertx = vertx;
         this.client = client;
         this.cmPredicate = cmPredicate;
         this.namespace = namespace;
+        this.cache = cache;
+    }
+
+    private boolean useCache() {
+        return cache != null && cache.isSynced();
     }
 
     @Override
     public void createConfigMap(ConfigMap cm, Handler<AsyncResult<Void>> handler) {
         vertx.executeBlocking(future -> {
             try {
-                client.configMaps().inNamespace(namespace).create(cm);
+                ConfigMap created = client.configMaps().inNamespace(namespace).create(cm);
+                if (cache != null) {
+                    cache.put(created);
+                }
                 future.complete();
             } catch (Exception e) {
                 future.fail(e);
@@ -50,7 +69,10 @@ public class K8sImpl implements K8s {
     public void updateConfigMap(ConfigMap cm, Handler<AsyncResult<Void>> handler) {
         vertx.executeBlocking(future -> {
             try {
-                client.configMaps().inNamespace(namespace).createOrReplace(cm);
+                ConfigMap updated = client.configMaps().inNamespace(namespace).createOrReplace(cm);
+                if (cache != null) {
+                    cache.put(updated);
+                }
                 future.complete();
             } catch (Exception e) {
                 future.fail(e);
@@ -64,6 +86,9 @@ public class K8sImpl implements K8s {
             try {
                 // Delete the CM by the topic name, because neither ZK nor Kafka know the CM name
                 client.configMaps().inNamespace(namespace).withName(mapName.toString()).delete();
+                if (cache != null) {
+                    cache.remove(mapName);
+                }
                 future.complete();
             } catch (Exception e) {
                 future.fail(e);
@@ -73,6 +98,10 @@ public class K8sImpl implements K8s {
 
     @Override
     public void listMaps(Handler<AsyncResult<List<ConfigMap>>> handler) {
+        if (useCache()) {
+            handler.handle(Future.succeededFuture(cache.list()));
+            return;
+        }
         vertx.executeBlocking(future -> {
             try {
                 future.complete(client.configMaps().inNamespace(namespace).withLabels(cmPredicate.labels()).list().getItems());
@@ -84,6 +113,14 @@ public class K8sImpl implements K8s {
 
     @Override
     public void getFromName(MapName mapName, Handler<AsyncResult<ConfigMap>> handler) {
+        if (useCache()) {
+            ConfigMap cm = cache.get(mapName);
+            if (cm != null) {
+                handler.handle(Future.succeededFuture(cm));
+                return;
+            }
+        }
+        // The cache only has the maps matching the predicate, but a map without the labels can have the same name
         vertx.executeBlocking(future -> {
             try {
                 future.complete(client.configMaps().inNamespace(namespace).withName(mapName.toString()).get());
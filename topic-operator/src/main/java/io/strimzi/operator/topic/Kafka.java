@@ -7,6 +7,7 @@ package io.strimzi.operator.topic;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -64,6 +65,16 @@ public interface Kafka {
      */
     void topicMetadata(TopicName topicName, Handler<AsyncResult<TopicMetadata>> handler);
 
+    /**
+     * Asynchronously fetch the metadata of all the given topics in Kafka, using a single
+     * request for their descriptions and a single request for their configs. Invoke the given
+     * handler with a map from topic name to metadata. If the operation fails the given handler
+     * will be called with a failed AsyncResult whose {@code cause()} is the
+     * KafkaException (not an ExecutionException).
+     * Topics which do not exist will be absent from the resulting map.
+     */
+    void topicMetadata(Set<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, TopicMetadata>>> handler);
+
     /**
      * Asynchronously list the topics available in Kafka. Invoke the given
      * handler with the result. If the operation fails the given handler
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of {@link TopicStore} that stores the topic state in a compacted Kafka topic.
+ *
+ * <p>Each record in the store topic is keyed by topic name, and its value is the topic as encoded by
+ * {@link TopicSerialization}, or null (a tombstone) if the topic has been deleted.
+ * When the store is {@linkplain #start() started} the store topic is created if necessary, and consumed from
+ * the beginning to build an in-memory view of the topics. The store topic continues to be consumed to keep the view
+ * up to date, and reads are served from the view.
+ * Writes are sent using an idempotent producer, and applied to the view once they've been acknowledged.</p>
+ *
+ * <p>Operations made before the view has caught up with the end of the store topic are deferred until it has.
+ * Records which can't be read (for example with a null key or a corrupt value) are logged and skipped.
+ * If the store topic stops being consumed, because the store was stopped or the consumer failed,
+ * the deferred operations and any later operations fail, rather than waiting for a view which will never be
+ * (or is no longer) up to date.</p>
+ */
+public class KafkaTopicStore implements TopicStore {
+
+    private final static Logger LOGGER = LogManager.getLogger(KafkaTopicStore.class);
+
+    private static final long POLL_TIMEOUT_MS = 1_000L;
+    private static final long RETRY_DELAY_MS = 5_000L;
+
+    private final Vertx vertx;
+    private final AdminClient adminClient;
+    private final String storeTopic;
+    private final TopicSerialization.Encoding encoding;
+    private final KafkaProducer<String, byte[]> producer;
+    private final KafkaConsumer<String, byte[]> consumer;
+
+    /** The state of each topic, including deleted topics, with the offset of the record the state was read from. */
+    private final Map<TopicName, Entry> topics = new ConcurrentHashMap<>();
+    /** Operations waiting for the initial load. Guarded by this. */
+    private final List<Handler<AsyncResult<Void>>> deferred = new ArrayList<>();
+    private volatile boolean loaded = false;
+    /** Why the store topic is no longer being consumed, or null if it still is. */
+    private volatile Throwable failure;
+    private volatile boolean stopped = false;
+    private Thread consumerThread;
+
+    private static class Entry {
+        private final long offset;
+        private final Topic topic;
+
+        Entry(long offset, Topic topic) {
+            this.offset = offset;
+            this.topic = topic;
+        }
+    }
+
+    /**
+     * @param adminClient The admin client used to create the store topic.
+     * @param bootstrapServers The Kafka bootstrap servers.
+     * @param storeTopic The name of the store topic.
+     * @param encoding The encoding in which topics are written. Topics in either encoding can be read.
+     */
+    public KafkaTopicStore(Vertx vertx, AdminClient adminClient, String bootstrapServers, String storeTopic,
+                           TopicSerialization.Encoding encoding) {
+        this.vertx = vertx;
+        this.adminClient = adminClient;
+        this.storeTopic = storeTopic;
+        this.encoding = encoding;
+
+        Properties producerProps = new Properties();
+        producerProps.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerProps.setProperty(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        producerProps.setProperty(ProducerConfig.ACKS_CONFIG, "all");
+        producerProps.setProperty(ProducerConfig.CLIENT_ID_CONFIG, "strimzi-topic-operator-store");
+        this.producer = new KafkaProducer<>(producerProps, new StringSerializer(), new ByteArraySerializer());
+
+        Properties consumerProps = new Properties();
+        consumerProps.setProperty(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        consumerProps.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerProps.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProps.setProperty(ConsumerConfig.CLIENT_ID_CONFIG, "strimzi-topic-operator-store");
+        this.consumer = new KafkaConsumer<>(consumerProps, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    /**
+     * Create the store topic if necessary, and start consuming it.
+     */
+    public void start() {
+        consumerThread = new Thread(this::consume, "topic-store-consumer");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * Stop consuming the store topic and close the producer, waiting for any pending writes to complete.
+     * This method blocks.
+     */
+    public void stop() {
+        stopped = true;
+        consumer.wakeup();
+        try {
+            consumerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        producer.close(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return true if the initial load of the topics has finished.
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    private void consume() {
+        Throwable cause = null;
+        try {
+            Map<TopicPartition, Long> endOffsets = assign();
+            while (!stopped) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT_MS)) {
+                    consume(record);
+                }
+                if (!loaded && caughtUp(endOffsets)) {
+                    LOGGER.info("Loaded {} topics from store topic {}", topics.size(), storeTopic);
+                    loaded();
+                }
+            }
+        } catch (WakeupException e) {
+            if (!stopped) {
+                cause = e;
+            }
+        } catch (Throwable t) {
+            cause = t;
+        } finally {
+            consumer.close();
+        }
+        if (cause != null) {
+            LOGGER.error("Stopped consuming store topic {}", storeTopic, cause);
+            failed(new IllegalStateException("Store topic " + storeTopic + " is no longer being consumed", cause));
+        } else {
+            failed(new IllegalStateException("The store has been stopped"));
+        }
+    }
+
+    /**
+     * Apply the given record to the view, or log and skip it if it can't be read.
+     */
+    private void consume(ConsumerRecord<String, byte[]> record) {
+        try {
+            if (record.key() == null) {
+                throw new IllegalArgumentException("Record has a null key");
+            }
+            TopicName topicName = new TopicName(record.key());
+            Topic topic = record.value() != null ? TopicSerialization.fromBytes(record.value()) : null;
+            apply(topicName, record.offset(), topic);
+        } catch (RuntimeException e) {
+            LOGGER.error("Skipping record at offset {} of partition {} of store topic {} which could not be read",
+                    record.offset(), record.partition(), storeTopic, e);
+        }
+    }
+
+    /**
+     * Create the store topic if it doesn't exist, and assign all its partitions to the consumer,
+     * from the beginning, retrying until it succeeds.
+     * @return The end offsets of the partitions, which the consumer must reach before the initial load is complete.
+     */
+    private Map<TopicPartition, Long> assign() {
+        while (true) {
+            try {
+                createStoreTopic();
+                List<TopicPartition> partitions = new ArrayList<>();
+                for (PartitionInfo partition : consumer.partitionsFor(storeTopic)) {
+                    partitions.add(new TopicPartition(storeTopic, partition.partition()));
+                }
+                consumer.assign(partitions);
+                consumer.seekToBeginning(partitions);
+                return consumer.endOffsets(partitions);
+            } catch (WakeupException e) {
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WakeupException();
+            } catch (ExecutionException | RuntimeException e) {
+                LOGGER.warn("Error starting to consume store topic {}, will retry", storeTopic, e);
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new WakeupException();
+                }
+            }
+        }
+    }
+
+    private void createStoreTopic() throws InterruptedException, ExecutionException {
+        if (adminClient.listTopics().names().get().contains(storeTopic)) {
+            return;
+        }
+        int numBrokers = adminClient.describeCluster().nodes().get().size();
+        NewTopic newTopic = new NewTopic(storeTopic, 1, (short) Math.min(3, numBrokers))
+                .configs(Collections.singletonMap(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+        LOGGER.info("Creating store topic {}", newTopic);
+        try {
+            adminClient.createTopics(Collections.singleton(newTopic)).all().get();
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof TopicExistsException)) {
+                throw e;
+            }
+        }
+    }
+
+    private boolean caughtUp(Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> entry : endOffsets.entrySet()) {
+            if (consumer.position(entry.getKey()) < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void loaded() {
+        List<Handler<AsyncResult<Void>>> operations;
+        synchronized (this) {
+            loaded = true;
+            operations = new ArrayList<>(deferred);
+            deferred.clear();
+        }
+        for (Handler<AsyncResult<Void>> operation : operations) {
+            vertx.runOnContext(ignored -> operation.handle(Future.succeededFuture()));
+        }
+    }
+
+    /**
+     * Fail the deferred operations, and all later operations, with the given cause.
+     */
+    private void failed(Throwable cause) {
+        List<Handler<AsyncResult<Void>>> operations;
+        synchronized (this) {
+            failure = cause;
+            operations = new ArrayList<>(deferred);
+            deferred.clear();
+        }
+        for (Handler<AsyncResult<Void>> operation : operations) {
+            vertx.runOnContext(ignored -> operation.handle(Future.failedFuture(cause)));
+        }
+    }
+
+    /**
+     * Apply the state of a topic from the record at the given offset, unless a later record has already been applied.
+     */
+    private void apply(TopicName topicName, long offset, Topic topic) {
+        topics.compute(topicName, (k, existing) -> existing != null && existing.offset > offset ? existing : new Entry(offset, topic));
+    }
+
+    private Topic get(TopicName topicName) {
+        Entry entry = topics.get(topicName);
+        return entry != null ? entry.topic : null;
+    }
+
+    /**
+     * Run the given operation once the initial load has finished, or call the given handler with the failure
+     * if the store topic is no longer being consumed.
+     */
+    private <T> void whenLoaded(Handler<AsyncResult<T>> handler, Runnable operation) {
+        Handler<AsyncResult<Void>> ready = ar -> {
+            if (ar.succeeded()) {
+                operation.run();
+            } else {
+                handler.handle(Future.failedFuture(ar.cause()));
+            }
+        };
+        if (!loaded && failure == null) {
+            synchronized (this) {
+                if (!loaded && failure == null) {
+                    deferred.add(ready);
+                    return;
+                }
+            }
+        }
+        Throwable cause = failure;
+        ready.handle(cause != null ? Future.failedFuture(cause) : Future.succeededFuture());
+    }
+
+    /**
+     * Send the given topic (or a tombstone if it's null) to the store topic, applying it to the view once it's
+     * acknowledged, and then calling the given handler on the context.
+     */
+    private void send(TopicName topicName, Topic topic, Handler<AsyncResult<Void>> handler) {
+        byte[] value = topic != null ? TopicSerialization.toBytes(topic, encoding) : null;
+        producer.send(new ProducerRecord<>(storeTopic, topicName.toString(), value), (metadata, exception) -> {
+            if (exception == null) {
+                apply(topicName, metadata.offset(), topic);
+            } else {
+                LOGGER.error("Error writing topic {} to store topic {}", topicName, storeTopic, exception);
+            }
+            vertx.runOnContext(ignored -> handler.handle(exception == null ? Future.succeededFuture() : Future.failedFuture(exception)));
+        });
+    }
+
+    @Override
+    public void read(TopicName topicName, Handler<AsyncResult<Topic>> handler) {
+        whenLoaded(handler, () -> handler.handle(Future.succeededFuture(get(topicName))));
+    }
+
+    @Override
+    public void create(Topic topic, Handler<AsyncResult<Void>> handler) {
+        whenLoaded(handler, () -> {
+            if (get(topic.getTopicName()) != null) {
+                handler.handle(Future.failedFuture(new EntityExistsException()));
+            } else {
+                send(topic.getTopicName(), topic, handler);
+            }
+        });
+    }
+
+    @Override
+    public void update(Topic topic, Handler<AsyncResult<Void>> handler) {
+        whenLoaded(handler, () -> {
+            if (get(topic.getTopicName()) == null) {
+                handler.handle(Future.failedFuture(new NoSuchEntityExistsException()));
+            } else {
+                send(topic.getTopicName(), topic, handler);
+            }
+        });
+    }
+
+    @Override
+    public void delete(TopicName topicName, Handler<AsyncResult<Void>> handler) {
+        whenLoaded(handler, () -> {
+            if (get(topicName) == null) {
+                handler.handle(Future.failedFuture(new NoSuchEntityExistsException()));
+            } else {
+                send(topicName, null, handler);
+            }
+        });
+    }
+
+    /**
+     * The version of a topic is the offset of the latest record for it in the store topic.
+     */
+    @Override
+    public void version(TopicName topicName, Handler<AsyncResult<Long>> handler) {
+        whenLoaded(handler, () -> {
+            Entry entry = topics.get(topicName);
+            handler.handle(Future.succeededFuture(entry != null ? entry.offset : -1L));
+        });
+    }
+}
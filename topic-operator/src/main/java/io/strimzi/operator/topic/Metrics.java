@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+/**
+ * The topic operator's metrics, which can be scraped in the Prometheus text exposition format.
+ * All the methods are thread safe.
+ */
+class Metrics extends io.strimzi.operator.common.Metrics {
+
+    static final String PREFIX = "strimzi_topic_operator_";
+
+    Metrics() {
+        super(PREFIX);
+    }
+
+    /**
+     * Returns a handler which observes the time since it was created, labelled with the given
+     * {@code labelValues} and the outcome of the result, before calling the given {@code handler}.
+     * The {@code histogram} must have an "outcome" label following those in the given {@code labelValues}.
+     */
+    static <T> Handler<AsyncResult<T>> timed(Histogram histogram, Handler<AsyncResult<T>> handler, String... labelValues) {
+        long start = System.nanoTime();
+        return ar -> {
+            String[] withOutcome = Arrays.copyOf(labelValues, labelValues.length + 1);
+            withOutcome[labelValues.length] = ar.succeeded() ? "success" : "failure";
+            histogram.observeSince(start, withOutcome);
+            handler.handle(ar);
+        };
+    }
+
+    /**
+     * Returns an implementation of the given interface which delegates to the given {@code delegate},
+     * and which times each asynchronous call (one whose last parameter is a {@link Handler}) in the
+     * {@code client_request_duration_seconds} histogram, labelled with the given {@code client} name.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T timed(Class<T> iface, T delegate, String client) {
+        Histogram histogram = histogram("client_request_duration_seconds",
+                "The duration of calls to Kafka, Kubernetes and the topic store.",
+                "client", "operation", "outcome");
+        return (T) Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{iface}, (proxy, method, args) -> {
+            Object[] delegateArgs = args;
+            if (isAsync(method) && args[args.length - 1] != null) {
+                delegateArgs = args.clone();
+                delegateArgs[args.length - 1] = timed(histogram, (Handler<AsyncResult<Object>>) args[args.length - 1], client, method.getName());
+            }
+            try {
+                return method.invoke(delegate, delegateArgs);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private static boolean isAsync(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        return parameterTypes.length > 0 && Handler.class.equals(parameterTypes[parameterTypes.length - 1]);
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2017-2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.strimzi.operator.topic.zk.AclBuilder;
+import io.strimzi.operator.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.ACL;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Reassigns partitions by writing the {@code /admin/reassign_partitions} znode, as
+ * {@code kafka-reassign-partitions.sh --execute} would, but without starting a separate JVM.
+ *
+ * <p>Reassignments requested while another one is in progress are queued, and all the queued
+ * reassignments are then executed together as a single reassignment. If a throttle is configured
+ * it is set in the topic and broker configs before the reassignment starts and removed once the
+ * controller has deleted the znode (which it does when the reassignment is complete).
+ * The znode is watched for deletion, with a check every {@link Config#REASSIGN_VERIFY_INTERVAL_MS}
+ * in case a watch event is missed.</p>
+ */
+public class PartitionReassigner {
+
+    private final static Logger LOGGER = LogManager.getLogger(PartitionReassigner.class);
+
+    static final String REASSIGN_PARTITIONS_PATH = "/admin/reassign_partitions";
+    static final String CONFIG_CHANGE_PATH = "/config/changes/config_change_";
+    static final String TOPIC_CONFIG_PATH = "/config/topics/";
+    static final String BROKER_CONFIG_PATH = "/config/brokers/";
+
+    static final String LEADER_THROTTLED_REPLICAS = "leader.replication.throttled.replicas";
+    static final String FOLLOWER_THROTTLED_REPLICAS = "follower.replication.throttled.replicas";
+    static final String LEADER_THROTTLED_RATE = "leader.replication.throttled.rate";
+    static final String FOLLOWER_THROTTLED_RATE = "follower.replication.throttled.rate";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Vertx vertx;
+    private final Zk zk;
+    private final Long throttle;
+    private final long verifyIntervalMs;
+    private final List<ACL> acl;
+
+    /** Reassignments waiting for the one in progress to finish. Guarded by this. */
+    private List<Reassignment> queued = new ArrayList<>();
+    /** Whether a reassignment is in progress. Guarded by this. */
+    private boolean inProgress = false;
+
+    /** A requested reassignment of some partitions and the handler to call when it's done. */
+    private static class Reassignment {
+        private final Map<TopicPartition, List<Integer>> current;
+        private final Map<TopicPartition, List<Integer>> proposed;
+        private final Handler<AsyncResult<Void>> handler;
+
+        Reassignment(Map<TopicPartition, List<Integer>> current, Map<TopicPartition, List<Integer>> proposed,
+                     Handler<AsyncResult<Void>> handler) {
+            this.current = current;
+            this.proposed = proposed;
+            this.handler = handler;
+        }
+    }
+
+    public PartitionReassigner(Vertx vertx, Zk zk, Config config) {
+        this.vertx = vertx;
+        this.zk = zk;
+        Long throttle = config.get(Config.REASSIGN_THROTTLE);
+        // The default of Long.MAX_VALUE means no throttling
+        this.throttle = throttle != null && throttle < Long.MAX_VALUE ? throttle : null;
+        this.verifyIntervalMs = config.get(Config.REASSIGN_VERIFY_INTERVAL_MS);
+        this.acl = new AclBuilder().setWorld(AclBuilder.Permission.values()).build();
+    }
+
+    /**
+     * Reassign the given partitions from their {@code current} replicas to their {@code proposed} replicas,
+     * calling the given handler when the reassignment is complete.
+     * The handler will be called with a failed result whose {@code cause()} is a
+     * {@link TransientOperatorException} if a reassignment not started by this operator is already running.
+     */
+    public void reassign(Map<TopicPartition, List<Integer>> current, Map<TopicPartition, List<Integer>> proposed,
+                         Handler<AsyncResult<Void>> handler) {
+        if (proposed.isEmpty()) {
+            handler.handle(Future.succeededFuture());
+            return;
+        }
+        List<Reassignment> batch;
+        synchronized (this) {
+            queued.add(new Reassignment(current, proposed, handler));
+            if (inProgress) {
+                LOGGER.debug("Queueing reassignment of {} until the reassignment in progress is complete", proposed.keySet());
+                return;
+            }
+            batch = startBatch();
+        }
+        execute(batch);
+    }
+
+    /** Take the queued reassignments as the next batch. Must be called while holding this. */
+    private List<Reassignment> startBatch() {
+        List<Reassignment> batch = queued;
+        queued = new ArrayList<>();
+        inProgress = !batch.isEmpty();
+        return batch;
+    }
+
+    private void execute(List<Reassignment> batch) {
+        Map<TopicPartition, List<Integer>> current = new LinkedHashMap<>();
+        Map<TopicPartition, List<Integer>> proposed = new LinkedHashMap<>();
+        for (Reassignment reassignment : batch) {
+            current.putAll(reassignment.current);
+            proposed.putAll(reassignment.proposed);
+        }
+        LOGGER.info("Reassigning partitions {}", proposed);
+        byte[] json;
+        try {
+            json = reassignmentJson(proposed);
+        } catch (IOException e) {
+            completeBatch(batch, Future.failedFuture(e));
+            return;
+        }
+
+        // Check for a reassignment we didn't start before touching the throttles
+        Future<Void> notRunning = Future.future();
+        zk.exists(REASSIGN_PARTITIONS_PATH, existsResult -> {
+            if (existsResult.succeeded() && existsResult.result() != null) {
+                notRunning.fail(new KeeperException.NodeExistsException(REASSIGN_PARTITIONS_PATH));
+            } else if (existsResult.failed() && !(existsResult.cause() instanceof KeeperException.NoNodeException)) {
+                notRunning.fail(existsResult.cause());
+            } else {
+                notRunning.complete();
+            }
+        });
+        notRunning.compose(v -> setThrottles(current, proposed)).compose(v -> {
+            Future<Void> created = Future.future();
+            zk.create(REASSIGN_PARTITIONS_PATH, json, acl, CreateMode.PERSISTENT, created.completer());
+            return created;
+        }).setHandler(createResult -> {
+            if (createResult.succeeded()) {
+                awaitCompletion(batch, current, proposed);
+            } else {
+                Throwable cause = createResult.cause() instanceof KeeperException.NodeExistsException
+                        ? new TransientOperatorException("Reassignment failed: There is an existing assignment running.")
+                        : createResult.cause();
+                LOGGER.error("Error starting reassignment of {}", proposed.keySet(), cause);
+                if (notRunning.succeeded()) {
+                    removeThrottles(current, proposed).setHandler(ar -> completeBatch(batch, Future.failedFuture(cause)));
+                } else {
+                    completeBatch(batch, Future.failedFuture(cause));
+                }
+            }
+        });
+    }
+
+    private void awaitCompletion(List<Reassignment> batch, Map<TopicPartition, List<Integer>> current,
+                                 Map<TopicPartition, List<Integer>> proposed) {
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicLong timerId = new AtomicLong(-1);
+        Handler<AsyncResult<?>> check = existsResult -> {
+            boolean exists = existsResult.succeeded()
+                    ? existsResult.result() != null
+                    : !(existsResult.cause() instanceof KeeperException.NoNodeException);
+            if (existsResult.failed() && exists) {
+                LOGGER.warn("Error checking for existence of {}", REASSIGN_PARTITIONS_PATH, existsResult.cause());
+            }
+            if (exists || !done.compareAndSet(false, true)) {
+                return;
+            }
+            LOGGER.info("Reassignment of {} complete", proposed.keySet());
+            zk.unwatchExists(REASSIGN_PARTITIONS_PATH);
+            vertx.cancelTimer(timerId.get());
+            removeThrottles(current, proposed).setHandler(ar -> {
+                if (ar.failed()) {
+                    LOGGER.error("Error removing reassignment throttles", ar.cause());
+                }
+                completeBatch(batch, Future.succeededFuture());
+            });
+        };
+        timerId.set(vertx.setPeriodic(verifyIntervalMs, id -> zk.exists(REASSIGN_PARTITIONS_PATH, check::handle)));
+        zk.watchExists(REASSIGN_PARTITIONS_PATH, check::handle)
+            .exists(REASSIGN_PARTITIONS_PATH, check::handle);
+    }
+
+    private void completeBatch(List<Reassignment> batch, AsyncResult<Void> result) {
+        for (Reassignment reassignment : batch) {
+            reassignment.handler.handle(result);
+        }
+        List<Reassignment> next;
+        synchronized (this) {
+            next = startBatch();
+        }
+        if (!next.isEmpty()) {
+            execute(next);
+        }
+    }
+
+    static byte[] reassignmentJson(Map<TopicPartition, List<Integer>> proposed) throws IOException {
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (Map.Entry<TopicPartition, List<Integer>> entry : proposed.entrySet()) {
+            Map<String, Object> partition = new LinkedHashMap<>();
+            partition.put("topic", entry.getKey().topic());
+            partition.put("partition", entry.getKey().partition());
+            partition.put("replicas", entry.getValue());
+            partitions.add(partition);
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("version", 1);
+        root.put("partitions", partitions);
+        return MAPPER.writeValueAsBytes(root);
+    }
+
+    /**
+     * Throttle, as {@code kafka-reassign-partitions.sh} does: on the leader side the existing replicas
+     * of each moving partition, on the follower side the replicas being added, and the rate on all the
+     * brokers involved.
+     */
+    private Future<Void> setThrottles(Map<TopicPartition, List<Integer>> current,
+                                      Map<TopicPartition, List<Integer>> proposed) {
+        if (throttle == null) {
+            return Future.succeededFuture();
+        }
+        Map<String, List<String>> leaderReplicas = new HashMap<>();
+        Map<String, List<String>> followerReplicas = new HashMap<>();
+        Set<Integer> brokers = new TreeSet<>();
+        for (Map.Entry<TopicPartition, List<Integer>> entry : proposed.entrySet()) {
+            TopicPartition tp = entry.getKey();
+            List<Integer> existing = current.getOrDefault(tp, new ArrayList<>());
+            for (Integer broker : existing) {
+                leaderReplicas.computeIfAbsent(tp.topic(), t -> new ArrayList<>()).add(tp.partition() + ":" + broker);
+            }
+            for (Integer broker : entry.getValue()) {
+                if (!existing.contains(broker)) {
+                    followerReplicas.computeIfAbsent(tp.topic(), t -> new ArrayList<>()).add(tp.partition() + ":" + broker);
+                }
+            }
+            brokers.addAll(existing);
+            brokers.addAll(entry.getValue());
+        }
+        List<Future> futures = new ArrayList<>();
+        Set<String> topics = new TreeSet<>(leaderReplicas.keySet());
+        topics.addAll(followerReplicas.keySet());
+        for (String topic : topics) {
+            futures.add(changeConfig("topics", topic, config -> {
+                config.put(LEADER_THROTTLED_REPLICAS, String.join(",", leaderReplicas.getOrDefault(topic, new ArrayList<>())));
+                config.put(FOLLOWER_THROTTLED_REPLICAS, String.join(",", followerReplicas.getOrDefault(topic, new ArrayList<>())));
+            }));
+        }
+        for (Integer broker : brokers) {
+            futures.add(changeConfig("brokers", broker.toString(), config -> {
+                config.put(LEADER_THROTTLED_RATE, throttle.toString());
+                config.put(FOLLOWER_THROTTLED_RATE, throttle.toString());
+            }));
+        }
+        return CompositeFuture.all(futures).map((Void) null);
+    }
+
+    private Future<Void> removeThrottles(Map<TopicPartition, List<Integer>> current,
+                                         Map<TopicPartition, List<Integer>> proposed) {
+        if (throttle == null) {
+            return Future.succeededFuture();
+        }
+        Set<String> topics = new TreeSet<>();
+        Set<Integer> brokers = new TreeSet<>();
+        for (Map.Entry<TopicPartition, List<Integer>> entry : proposed.entrySet()) {
+            topics.add(entry.getKey().topic());
+            brokers.addAll(current.getOrDefault(entry.getKey(), new ArrayList<>()));
+            brokers.addAll(entry.getValue());
+        }
+        List<Future> futures = new ArrayList<>();
+        for (String topic : topics) {
+            futures.add(changeConfig("topics", topic, config -> {
+                config.remove(LEADER_THROTTLED_REPLICAS);
+                config.remove(FOLLOWER_THROTTLED_REPLICAS);
+            }));
+        }
+        for (Integer broker : brokers) {
+            futures.add(changeConfig("brokers", broker.toString(), config -> {
+                config.remove(LEADER_THROTTLED_RATE);
+                config.remove(FOLLOWER_THROTTLED_RATE);
+            }));
+        }
+        return CompositeFuture.join(futures).map((Void) null);
+    }
+
+    /**
+     * Apply the given change to the config of the given entity in ZooKeeper, and then
+     * notify the brokers of the change, as {@code kafka-configs.sh --zookeeper ...} does.
+     */
+    private Future<Void> changeConfig(String entityType, String entityName, Consumer<Map<String, String>> change) {
+        String path = ("topics".equals(entityType) ? TOPIC_CONFIG_PATH : BROKER_CONFIG_PATH) + entityName;
+        Future<byte[]> read = Future.future();
+        zk.getData(path, ar -> {
+            if (ar.failed() && ar.cause() instanceof KeeperException.NoNodeException) {
+                read.complete(null);
+            } else {
+                read.handle(ar);
+            }
+        });
+        return read.compose(data -> {
+            Future<Void> written = Future.future();
+            try {
+                Map<String, String> config = readConfig(data);
+                change.accept(config);
+                byte[] newData = configJson(config);
+                if (data == null) {
+                    zk.create(path, newData, acl, CreateMode.PERSISTENT, written.completer());
+                } else {
+                    zk.setData(path, newData, -1, written.completer());
+                }
+            } catch (IOException e) {
+                written.fail(e);
+            }
+            return written;
+        }).compose(v -> {
+            Future<Void> notified = Future.future();
+            try {
+                Map<String, Object> notification = new LinkedHashMap<>();
+                notification.put("version", 2);
+                notification.put("entity_path", entityType + "/" + entityName);
+                zk.create(CONFIG_CHANGE_PATH, MAPPER.writeValueAsBytes(notification), acl,
+                        CreateMode.PERSISTENT_SEQUENTIAL, notified.completer());
+            } catch (IOException e) {
+                notified.fail(e);
+            }
+            return notified;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, String> readConfig(byte[] data) throws IOException {
+        Map<String, String> config = new LinkedHashMap<>();
+        if (data != null && data.length > 0) {
+            Map<String, Object> root = MAPPER.readValue(data, Map.class);
+            Object existing = root.get("config");
+            if (existing instanceof Map) {
+                config.putAll((Map<String, String>) existing);
+            }
+        }
+        return config;
+    }
+
+    static byte[] configJson(Map<String, String> config) throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("version", 1);
+        root.put("config", config);
+        return MAPPER.writeValueAsBytes(root);
+    }
+}
@@ -5,7 +5,6 @@
 package io.strimzi.operator.topic;
 
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.Watch;
 import io.strimzi.operator.topic.zk.Zk;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
@@ -33,7 +32,12 @@ public class Session extends AbstractVerticle {
     AdminClient adminClient;
     K8sImpl k8s;
     TopicOperator topicOperator;
-    Watch topicCmWatch;
+    ConfigMapCache configMapCache;
+    TopicStore topicStore;
+    /** The topic store, when {@link Config#TOPIC_STORE} is zookeeper, otherwise null. */
+    CachingTopicStore cachingTopicStore;
+    /** The topic store, when {@link Config#TOPIC_STORE} is kafka, otherwise null. */
+    KafkaTopicStore kafkaTopicStore;
     TopicsWatcher topicsWatcher;
     TopicConfigsWatcher topicConfigsWatcher;
     TopicWatcher topicWatcher;
@@ -42,6 +46,7 @@ public class Session extends AbstractVerticle {
     private volatile boolean stopped = false;
     private Zk zk;
     private volatile HttpServer healthServer;
+    private final Metrics metrics = new Metrics();
 
     public Session(KubernetesClient kubeClient, Config config) {
         this.kubeClient = kubeClient;
@@ -68,9 +73,12 @@ public class Session extends AbstractVerticle {
             long timeout = 120_000L;
             LOGGER.info("Stopping");
             LOGGER.debug("Stopping kube watch");
-            topicCmWatch.close();
+            configMapCache.stop();
             LOGGER.debug("Stopping zk watches");
             topicsWatcher.stop();
+            if (cachingTopicStore != null) {
+                cachingTopicStore.stop();
+            }
 
             while (topicOperator.isWorkInflight()) {
                 if (System.currentTimeMillis() - t0 > timeout) {
@@ -84,6 +92,10 @@ public class Session extends AbstractVerticle {
                     Thread.currentThread().interrupt();
                 }
             }
+            if (kafkaTopicStore != null) {
+                LOGGER.debug("Stopping topic store {}", kafkaTopicStore);
+                kafkaTopicStore.stop();
+            }
             LOGGER.debug("Stopping kafka {}", kafka);
             kafka.stop();
             try {
@@ -112,27 +124,42 @@ public class Session extends AbstractVerticle {
         adminClientProps.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, config.get(Config.KAFKA_BOOTSTRAP_SERVERS));
         this.adminClient = AdminClient.create(adminClientProps);
         LOGGER.debug("Using AdminClient {}", adminClient);
-        this.kafka = new OperatorAssignedKafkaImpl(adminClient, vertx, config);
+        this.zk = Zk.create(vertx, config.get(Config.ZOOKEEPER_CONNECT), this.config.get(Config.ZOOKEEPER_SESSION_TIMEOUT_MS).intValue());
+        LOGGER.debug("Using ZooKeeper {}", zk);
+
+        this.kafka = new OperatorAssignedKafkaImpl(adminClient, vertx, config, zk);
         LOGGER.debug("Using Kafka {}", kafka);
         LabelPredicate cmPredicate = config.get(Config.LABELS);
 
         String namespace = config.get(Config.NAMESPACE);
         LOGGER.debug("Using namespace {}", namespace);
-        this.k8s = new K8sImpl(vertx, kubeClient, cmPredicate, namespace);
+        this.configMapCache = new ConfigMapCache(vertx, kubeClient, cmPredicate, namespace);
+        this.k8s = new K8sImpl(vertx, kubeClient, cmPredicate, namespace, configMapCache);
         LOGGER.debug("Using k8s {}", k8s);
 
-        this.zk = Zk.create(vertx, config.get(Config.ZOOKEEPER_CONNECT), this.config.get(Config.ZOOKEEPER_SESSION_TIMEOUT_MS).intValue());
-        LOGGER.debug("Using ZooKeeper {}", zk);
-
-        ZkTopicStore topicStore = new ZkTopicStore(zk);
+        if (config.get(Config.TOPIC_STORE) == Config.TopicStoreType.KAFKA) {
+            this.kafkaTopicStore = new KafkaTopicStore(vertx, adminClient, config.get(Config.KAFKA_BOOTSTRAP_SERVERS),
+                    config.get(Config.TOPIC_STORE_TOPIC), config.get(Config.TOPIC_STORE_ENCODING));
+            kafkaTopicStore.start();
+            this.topicStore = kafkaTopicStore;
+        } else {
+            this.cachingTopicStore = new CachingTopicStore(vertx, zk, new ZkTopicStore(zk, config.get(Config.TOPIC_STORE_ENCODING)));
+            cachingTopicStore.start();
+            cachingTopicStore.registerMetrics(metrics);
+            this.topicStore = cachingTopicStore;
+        }
         LOGGER.debug("Using TopicStore {}", topicStore);
 
-        this.topicOperator = new TopicOperator(vertx, kafka, k8s, topicStore, cmPredicate, namespace, config);
+        this.topicOperator = new TopicOperator(vertx,
+                metrics.timed(Kafka.class, kafka, "kafka"),
+                metrics.timed(K8s.class, k8s, "k8s"),
+                metrics.timed(TopicStore.class, topicStore, "topicStore"),
+                cmPredicate, namespace, config, metrics, new TopicFingerprints(zk, topicStore));
         LOGGER.debug("Using Operator {}", topicOperator);
 
         this.topicConfigsWatcher = new TopicConfigsWatcher(topicOperator);
         LOGGER.debug("Using TopicConfigsWatcher {}", topicConfigsWatcher);
-        this.topicWatcher = new TopicWatcher(topicOperator);
+        this.topicWatcher = new TopicWatcher(topicOperator, vertx, config.get(Config.PARTITIONS_SCAN_RATE));
         LOGGER.debug("Using TopicWatcher {}", topicWatcher);
         this.topicsWatcher = new TopicsWatcher(topicOperator, topicConfigsWatcher, topicWatcher);
         LOGGER.debug("Using TopicsWatcher {}", topicsWatcher);
@@ -140,7 +167,7 @@ public class Session extends AbstractVerticle {
 
         Thread configMapThread = new Thread(() -> {
             LOGGER.debug("Watching configmaps matching {}", cmPredicate);
-            Session.this.topicCmWatch = kubeClient.configMaps().inNamespace(namespace).watch(new ConfigMapWatcher(topicOperator, cmPredicate));
+            configMapCache.start(new ConfigMapWatcher(topicOperator, cmPredicate));
             LOGGER.debug("Watching setup");
 
             // start the HTTP server for healthchecks
@@ -151,14 +178,19 @@ public class Session extends AbstractVerticle {
         configMapThread.start();
 
         final Long interval = config.get(Config.FULL_RECONCILIATION_INTERVAL_MS);
+        final boolean paced = config.get(Config.FULL_RECONCILIATION_PACED);
         Handler<Long> periodic = new Handler<Long>() {
             @Override
             public void handle(Long oldTimerId) {
                 if (!stopped) {
                     timerId = null;
+                    long start = System.currentTimeMillis();
                     topicOperator.reconcileAllTopics("periodic").setHandler(result -> {
                         if (!stopped) {
-                            timerId = vertx.setTimer(interval, this);
+                            // A paced reconciliation already takes about the interval, so start the next one an
+                            // interval after this one started, rather than after it finished
+                            long delay = paced ? Math.max(1, start + interval - System.currentTimeMillis()) : interval;
+                            timerId = vertx.setTimer(delay, this);
                         }
                     });
                 }
@@ -169,7 +201,7 @@ public class Session extends AbstractVerticle {
     }
 
     /**
-     * Start an HTTP health server
+     * Start an HTTP server for health checks and for Prometheus to scrape metrics from
      */
     private HttpServer startHealthServer() {
 
@@ -180,6 +212,12 @@ public class Session extends AbstractVerticle {
                         request.response().setStatusCode(200).end();
                     } else if (request.path().equals("/ready")) {
                         request.response().setStatusCode(200).end();
+                    } else if (request.path().equals("/metrics")) {
+                        request.response().setStatusCode(200)
+                                .putHeader("Content-Type", "text/plain; version=0.0.4")
+                                .end(metrics.scrape());
+                    } else {
+                        request.response().setStatusCode(404).end();
                     }
                 })
                 .listen(HEALTH_SERVER_PORT);
@@ -4,26 +4,158 @@
  */
 package io.strimzi.operator.topic;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.strimzi.operator.topic.zk.Zk;
 import io.vertx.core.Handler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.TreeMap;
 
 /**
- * ZooKeeper watcher for child znodes of {@code /configs/topics},
- * calling {@link TopicOperator#onTopicConfigChanged(TopicName, Handler)}
- * for changed children.
+ * ZooKeeper watcher for the config change notifications which Kafka creates as
+ * sequential children of {@code /config/changes}, calling
+ * {@link TopicOperator#onTopicConfigChanged(TopicName, Handler)}
+ * for each notification about a topic.
+ *
+ * <p>Only a single watch is needed, however many topics there are.
+ * The notifications which already exist when the watcher is started are skipped;
+ * the full reconciliation takes care of any changes made before then.</p>
  */
-class TopicConfigsWatcher extends ZkWatcher {
+class TopicConfigsWatcher {
+
+    private final static Logger LOGGER = LogManager.getLogger(TopicConfigsWatcher.class);
+
+    static final String CONFIG_CHANGES_ZNODE = "/config/changes";
+    static final String CONFIG_CHANGE_PREFIX = "config_change_";
+
+    private static final String TOPICS_ENTITY_TYPE = "topics";
+
+    private final TopicOperator topicOperator;
+    private final ObjectMapper mapper = new ObjectMapper();
 
-    private static final String CONFIGS_ZNODE = "/config/topics";
+    /** The sequence number of the last notification which has been processed. */
+    private long lastSequence = -1;
+
+    private volatile int state = 0;
 
     TopicConfigsWatcher(TopicOperator topicOperator) {
-        super(topicOperator, CONFIGS_ZNODE);
+        this.topicOperator = topicOperator;
+    }
+
+    void start(Zk zk) {
+        zk.watchChildren(CONFIG_CHANGES_ZNODE, childResult -> {
+            if (state == 2) {
+                zk.unwatchChildren(CONFIG_CHANGES_ZNODE);
+                return;
+            }
+            if (childResult.failed()) {
+                LOGGER.error("Error on znode {} children", CONFIG_CHANGES_ZNODE, childResult.cause());
+                return;
+            }
+            processNotifications(zk, childResult.result());
+        }).children(CONFIG_CHANGES_ZNODE, childResult -> {
+            if (childResult.failed()) {
+                LOGGER.error("Error on znode {} children", CONFIG_CHANGES_ZNODE, childResult.cause());
+                return;
+            }
+            synchronized (this) {
+                TreeMap<Long, String> notifications = notifications(childResult.result());
+                if (!notifications.isEmpty()) {
+                    lastSequence = Math.max(lastSequence, notifications.lastKey());
+                }
+                LOGGER.debug("Skipping existing config change notifications up to {}", lastSequence);
+            }
+            this.state = 1;
+        });
+    }
+
+    void stop() {
+        this.state = 2;
+    }
+
+    boolean started() {
+        return this.state == 1;
+    }
+
+    /**
+     * Read the notifications which are newer than the last one processed, in sequence order.
+     */
+    private void processNotifications(Zk zk, List<String> children) {
+        TreeMap<Long, String> newNotifications;
+        synchronized (this) {
+            newNotifications = new TreeMap<>(notifications(children).tailMap(lastSequence, false));
+            if (newNotifications.isEmpty()) {
+                return;
+            }
+            lastSequence = newNotifications.lastKey();
+        }
+        for (String child : newNotifications.values()) {
+            String path = CONFIG_CHANGES_ZNODE + "/" + child;
+            zk.getData(path, dataResult -> {
+                if (dataResult.failed()) {
+                    // Kafka deletes old notifications, so this one might have been purged already
+                    LOGGER.warn("Error getting config change notification {}", path, dataResult.cause());
+                    return;
+                }
+                String topicName = topicName(path, dataResult.result());
+                if (topicName != null) {
+                    notifyOperator(topicName);
+                }
+            });
+        }
+    }
+
+    private static TreeMap<Long, String> notifications(List<String> children) {
+        TreeMap<Long, String> result = new TreeMap<>();
+        for (String child : children) {
+            if (child.startsWith(CONFIG_CHANGE_PREFIX)) {
+                try {
+                    result.put(Long.parseLong(child.substring(CONFIG_CHANGE_PREFIX.length())), child);
+                } catch (NumberFormatException e) {
+                    LOGGER.warn("Ignoring unexpected znode {}/{}", CONFIG_CHANGES_ZNODE, child);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the name of the topic whose config has changed from the data of a notification, or null if the
+     * notification isn't about a topic. Version 1 notifications have {@code entity_type} and
+     * {@code entity_name} fields, version 2 notifications have an {@code entity_path} like {@code topics/my-topic}.
+     */
+    String topicName(String path, byte[] data) {
+        JsonNode json;
+        try {
+            json = mapper.readTree(data);
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring config change notification {} which could not be parsed", path, e);
+            return null;
+        }
+        if (json == null) {
+            return null;
+        }
+        JsonNode entityPath = json.get("entity_path");
+        if (entityPath != null) {
+            String[] parts = entityPath.asText().split("/", 2);
+            return parts.length == 2 && TOPICS_ENTITY_TYPE.equals(parts[0]) ? parts[1] : null;
+        }
+        JsonNode entityType = json.get("entity_type");
+        JsonNode entityName = json.get("entity_name");
+        if (entityType != null && entityName != null && TOPICS_ENTITY_TYPE.equals(entityType.asText())) {
+            return entityName.asText();
+        }
+        return null;
     }
 
-    @Override
-    protected void notifyOperator(String child) {
-        log.debug("Config change for topic {}", child);
+    private void notifyOperator(String child) {
+        LOGGER.debug("Config change for topic {}", child);
         topicOperator.onTopicConfigChanged(new TopicName(child), ar2 -> {
-            log.info("Reconciliation result due to topic config change: {}", ar2);
+            LOGGER.info("Reconciliation result due to topic config change: {}", ar2);
         });
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.strimzi.operator.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.Objects;
+
+/**
+ * Computes cheap fingerprints of the state of a topic, which change whenever the topic is changed
+ * in Kubernetes, in Kafka or in the topic store.
+ *
+ * <p>A fingerprint consists of the {@code resourceVersion} of the topic's ConfigMap,
+ * the {@code mzxid} of the topic's {@code /brokers/topics} and {@code /config/topics} znodes
+ * and the {@linkplain TopicStore#version(TopicName, Handler) version} of the topic in the {@link TopicStore}.
+ * Computing it needs only a {@code stat} of each of those znodes, rather than describing the topic in Kafka.</p>
+ */
+class TopicFingerprints {
+
+    /** The fingerprint of a topic. Absent znodes and topics have a version of -1. */
+    static final class Fingerprint {
+        private final String resourceVersion;
+        private final long topicMzxid;
+        private final long configMzxid;
+        private final long storeVersion;
+
+        Fingerprint(String resourceVersion, long topicMzxid, long configMzxid, long storeVersion) {
+            this.resourceVersion = resourceVersion;
+            this.topicMzxid = topicMzxid;
+            this.configMzxid = configMzxid;
+            this.storeVersion = storeVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Fingerprint that = (Fingerprint) o;
+            return topicMzxid == that.topicMzxid
+                    && configMzxid == that.configMzxid
+                    && storeVersion == that.storeVersion
+                    && Objects.equals(resourceVersion, that.resourceVersion);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(resourceVersion, topicMzxid, configMzxid, storeVersion);
+        }
+
+        @Override
+        public String toString() {
+            return "Fingerprint(resourceVersion=" + resourceVersion
+                    + ", topicMzxid=" + topicMzxid
+                    + ", configMzxid=" + configMzxid
+                    + ", storeVersion=" + storeVersion
+                    + ")";
+        }
+    }
+
+    private final Zk zk;
+    private final TopicStore store;
+
+    TopicFingerprints(Zk zk, TopicStore store) {
+        this.zk = zk;
+        this.store = store;
+    }
+
+    /**
+     * Compute the fingerprint of the topic with the given name, whose ConfigMap is the given {@code cm}
+     * (which may be null if the topic has no ConfigMap).
+     */
+    void fingerprint(TopicName topicName, ConfigMap cm, Handler<AsyncResult<Fingerprint>> handler) {
+        Future<Stat> topicStat = stat("/brokers/topics/" + topicName);
+        Future<Stat> configStat = stat("/config/topics/" + topicName);
+        Future<Long> storeVersion = Future.future();
+        store.version(topicName, storeVersion);
+        CompositeFuture.all(topicStat, configStat, storeVersion).map(ignored -> new Fingerprint(
+                cm != null ? cm.getMetadata().getResourceVersion() : null,
+                topicStat.result() != null ? topicStat.result().getMzxid() : -1,
+                configStat.result() != null ? configStat.result().getMzxid() : -1,
+                storeVersion.result())).setHandler(handler);
+    }
+
+    /**
+     * Returns a future for the stat of the znode at the given path, which is completed with null if there is no such znode.
+     */
+    private Future<Stat> stat(String path) {
+        Future<Stat> result = Future.future();
+        zk.exists(path, ar -> {
+            if (ar.failed() && ar.cause() instanceof KeeperException.NoNodeException) {
+                result.complete(null);
+            } else {
+                result.handle(ar);
+            }
+        });
+        return result;
+    }
+}
@@ -25,6 +25,8 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
     private final Vertx vertx;
     private final Kafka kafka;
     private final TopicName topicName;
+    private final Metrics.Counter retries;
+    private final TopicMetadataRetryScheduler scheduler;
 
     /**
      * Constructor
@@ -35,10 +37,40 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
      * @param backOff   backoff information to use for retrying
      */
     TopicMetadataHandler(Vertx vertx, Kafka kafka, TopicName topicName, BackOff backOff) {
+        this(vertx, kafka, topicName, backOff, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param vertx Vert.x instance to use for retrying mechanism
+     * @param kafka Kafka client for getting topic metadata
+     * @param topicName topic name for which to get metadata
+     * @param backOff   backoff information to use for retrying
+     * @param retries   counter of retries, by result, or null
+     */
+    TopicMetadataHandler(Vertx vertx, Kafka kafka, TopicName topicName, BackOff backOff, Metrics.Counter retries) {
+        this(vertx, kafka, topicName, backOff, retries, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param vertx Vert.x instance to use for retrying mechanism
+     * @param kafka Kafka client for getting topic metadata
+     * @param topicName topic name for which to get metadata
+     * @param backOff   backoff information to use for retrying
+     * @param retries   counter of retries, by result, or null
+     * @param scheduler scheduler for retries, shared with other handlers, or null to schedule each retry with its own timer
+     */
+    TopicMetadataHandler(Vertx vertx, Kafka kafka, TopicName topicName, BackOff backOff, Metrics.Counter retries,
+                         TopicMetadataRetryScheduler scheduler) {
         this.vertx = vertx;
         this.kafka = kafka;
         this.topicName = topicName;
         this.backOff = backOff;
+        this.retries = retries;
+        this.scheduler = scheduler;
     }
 
     /**
@@ -64,11 +96,19 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
             log.debug("Backing off for {}ms on getting metadata for {}", delay, topicName);
         } catch (MaxAttemptsExceededException e) {
             log.info("Max attempts reached on getting metadata for {} after {}ms, giving up for now", topicName, backOff.totalDelayMs());
+            if (retries != null) {
+                retries.inc("exhausted");
+            }
             this.onMaxAttemptsExceeded(e);
             return;
         }
 
-        if (delay < 1) {
+        if (retries != null) {
+            retries.inc("retry");
+        }
+        if (scheduler != null) {
+            scheduler.schedule(topicName, delay, this);
+        } else if (delay < 1) {
             // vertx won't tolerate a zero delay
             vertx.runOnContext(timerId -> kafka.topicMetadata(topicName, this));
         } else {
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Schedules the retries of getting topic metadata for every {@link TopicMetadataHandler}, using a single timer
+ * rather than a timer per retry.
+ * When the timer fires, the retries which are due (or which will be due within {@link #BATCH_WINDOW_MS})
+ * are made using a single call to {@link Kafka#topicMetadata(java.util.Set, Handler)}.
+ * If that call fails each topic's metadata is got separately, so that an error getting the metadata
+ * of one topic does not fail the retries of the others.
+ */
+class TopicMetadataRetryScheduler {
+
+    private final static Logger LOGGER = LogManager.getLogger(TopicMetadataRetryScheduler.class);
+
+    /** Retries due within this time of the earliest due retry are made with it. */
+    static final long BATCH_WINDOW_MS = 50L;
+
+    private final Vertx vertx;
+    private final Kafka kafka;
+
+    /** The pending retries, by when they're due. Guarded by this. */
+    private final PriorityQueue<Retry> pending = new PriorityQueue<>(Comparator.comparingLong((Retry retry) -> retry.dueMs));
+    /** The id of the timer for the earliest pending retry, or null. Guarded by this. */
+    private Long timerId;
+    /** When the timer for the earliest pending retry fires. Guarded by this. */
+    private long timerDueMs;
+
+    private static class Retry {
+        private final long dueMs;
+        private final TopicName topicName;
+        private final Handler<AsyncResult<TopicMetadata>> handler;
+
+        Retry(long dueMs, TopicName topicName, Handler<AsyncResult<TopicMetadata>> handler) {
+            this.dueMs = dueMs;
+            this.topicName = topicName;
+            this.handler = handler;
+        }
+    }
+
+    TopicMetadataRetryScheduler(Vertx vertx, Kafka kafka) {
+        this.vertx = vertx;
+        this.kafka = kafka;
+    }
+
+    /**
+     * Get the metadata of the topic with the given name after the given delay,
+     * calling the given handler with the result.
+     */
+    void schedule(TopicName topicName, long delayMs, Handler<AsyncResult<TopicMetadata>> handler) {
+        long dueMs = System.currentTimeMillis() + delayMs;
+        synchronized (this) {
+            pending.add(new Retry(dueMs, topicName, handler));
+            if (timerId == null || dueMs < timerDueMs) {
+                arm(dueMs);
+            }
+        }
+    }
+
+    /**
+     * @return The number of pending retries.
+     */
+    synchronized int pending() {
+        return pending.size();
+    }
+
+    /** Guarded by this. */
+    private void arm(long dueMs) {
+        if (timerId != null) {
+            vertx.cancelTimer(timerId);
+        }
+        timerDueMs = dueMs;
+        // vertx won't tolerate a zero delay
+        timerId = vertx.setTimer(Math.max(1, dueMs - System.currentTimeMillis()), this::fire);
+    }
+
+    private void fire(Long firedTimerId) {
+        Map<TopicName, List<Handler<AsyncResult<TopicMetadata>>>> due = new LinkedHashMap<>();
+        synchronized (this) {
+            if (!firedTimerId.equals(timerId)) {
+                return;
+            }
+            timerId = null;
+            long horizon = System.currentTimeMillis() + BATCH_WINDOW_MS;
+            while (!pending.isEmpty() && pending.peek().dueMs <= horizon) {
+                Retry retry = pending.poll();
+                due.computeIfAbsent(retry.topicName, k -> new ArrayList<>(1)).add(retry.handler);
+            }
+            if (!pending.isEmpty()) {
+                arm(pending.peek().dueMs);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Retrying getting metadata for {} topics", due.size());
+        kafka.topicMetadata(due.keySet(), ar -> {
+            if (ar.succeeded()) {
+                for (Map.Entry<TopicName, List<Handler<AsyncResult<TopicMetadata>>>> entry : due.entrySet()) {
+                    AsyncResult<TopicMetadata> result = Future.succeededFuture(ar.result().get(entry.getKey()));
+                    for (Handler<AsyncResult<TopicMetadata>> handler : entry.getValue()) {
+                        handler.handle(result);
+                    }
+                }
+            } else {
+                LOGGER.debug("Error getting metadata for {} topics, retrying them separately", due.size(), ar.cause());
+                for (Map.Entry<TopicName, List<Handler<AsyncResult<TopicMetadata>>>> entry : due.entrySet()) {
+                    for (Handler<AsyncResult<TopicMetadata>> handler : entry.getValue()) {
+                        kafka.topicMetadata(entry.getKey(), handler);
+                    }
+                }
+            }
+        });
+    }
+}
@@ -17,11 +17,20 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.disjoint;
@@ -38,6 +47,23 @@ public class TopicOperator {
     private TopicStore topicStore;
     private final InFlight<TopicName> inFlight;
     private final Config config;
+    private final Metrics.Histogram reconciliations;
+    private final Metrics.Histogram fullReconciliations;
+    private final Metrics.Counter topicMetadataRetries;
+    private final TopicMetadataRetryScheduler topicMetadataRetryScheduler;
+    private final Random random = new Random();
+    /** The number of topics in the current, or last, full reconciliation, and how many of them are done. */
+    private volatile int fullReconciliationTotal = 0;
+    private volatile int fullReconciliationDone = 0;
+    /** The topic in which the {@link KafkaTopicStore} keeps its state, which is not reconciled, or null. */
+    private final TopicName storeTopic;
+    /** Computes the fingerprints of topics, or null if full reconciliation always reconciles every topic. */
+    private final TopicFingerprints fingerprints;
+    /** The fingerprints of topics as they were when last successfully reconciled by a full reconciliation. */
+    private final Map<TopicName, TopicFingerprints.Fingerprint> reconciledFingerprints = new ConcurrentHashMap<>();
+    /** When the last full reconciliation which reconciled every topic started. */
+    private volatile long lastSweepMs = 0;
+    private final Metrics.Counter unchangedTopics;
 
     enum EventType {
         INFO("Info"),
@@ -329,6 +355,32 @@ public class TopicOperator {
                          LabelPredicate cmPredicate,
                          String namespace,
                          Config config) {
+        this(vertx, kafka, k8s, topicStore, cmPredicate, namespace, config, new Metrics());
+    }
+
+    public TopicOperator(Vertx vertx, Kafka kafka,
+                         K8s k8s,
+                         TopicStore topicStore,
+                         LabelPredicate cmPredicate,
+                         String namespace,
+                         Config config,
+                         Metrics metrics) {
+        this(vertx, kafka, k8s, topicStore, cmPredicate, namespace, config, metrics, null);
+    }
+
+    /**
+     * @param fingerprints If not null, full reconciliations only reconcile those topics whose fingerprint
+     *                     has changed since they were last reconciled, except every
+     *                     {@link Config#FULL_RECONCILIATION_SWEEP_INTERVAL_MS} when every topic is reconciled.
+     */
+    public TopicOperator(Vertx vertx, Kafka kafka,
+                         K8s k8s,
+                         TopicStore topicStore,
+                         LabelPredicate cmPredicate,
+                         String namespace,
+                         Config config,
+                         Metrics metrics,
+                         TopicFingerprints fingerprints) {
         this.kafka = kafka;
         this.k8s = k8s;
         this.vertx = vertx;
@@ -337,11 +389,52 @@ public class TopicOperator {
         this.inFlight = new InFlight<>(vertx);
         this.namespace = namespace;
         this.config = config;
+        this.fingerprints = fingerprints;
+        this.storeTopic = config.get(Config.TOPIC_STORE) == Config.TopicStoreType.KAFKA
+                ? new TopicName(config.get(Config.TOPIC_STORE_TOPIC)) : null;
+        this.reconciliations = metrics.histogram("reconciliation_duration_seconds",
+                "The duration of reconciliations of a single topic, including any time queued behind other reconciliations of the same topic.",
+                "trigger", "outcome");
+        this.fullReconciliations = metrics.histogram("full_reconciliation_duration_seconds",
+                "The duration of reconciliations of all topics.",
+                "type", "outcome");
+        this.topicMetadataRetries = metrics.counter("topic_metadata_retries_total",
+                "The number of times getting topic metadata from Kafka was retried, or given up after the maximum attempts.",
+                "result");
+        this.topicMetadataRetryScheduler = new TopicMetadataRetryScheduler(vertx, kafka);
+        metrics.gauge("topic_metadata_retries_pending",
+                "The number of retries of getting topic metadata from Kafka which are waiting to be made.",
+                topicMetadataRetryScheduler::pending);
+        metrics.gauge("inflight_topics", "The number of topics with reconciliations in progress or queued.", inFlight::size);
+        metrics.counter("coalesced_reconciliations_total",
+                "The number of reconciliations which were coalesced with a reconciliation already queued for the same topic.",
+                inFlight::coalesced);
+        metrics.gauge("full_reconciliation_topics",
+                "The number of topics in the current, or last, full reconciliation.",
+                () -> fullReconciliationTotal);
+        metrics.gauge("full_reconciliation_topics_done",
+                "The number of topics in the current, or last, full reconciliation which have been reconciled.",
+                () -> fullReconciliationDone);
+        this.unchangedTopics = metrics.counter("full_reconciliation_unchanged_topics_total",
+                "The number of times full reconciliation skipped a topic because it was unchanged since it was last reconciled.");
     }
 
     Future<Void> reconcile(ConfigMap cm, TopicName topicName) {
+        return reconcileWithMetadata(cm, topicName, metadataHandler -> kafka.topicMetadata(topicName, metadataHandler));
+    }
+
+    /**
+     * Like {@link #reconcile(ConfigMap, TopicName)}, but using the given (already fetched) Kafka
+     * topic metadata rather than fetching it from Kafka.
+     */
+    Future<Void> reconcile(ConfigMap cm, TopicName topicName, TopicMetadata kafkaTopicMeta) {
+        return reconcileWithMetadata(cm, topicName, metadataHandler -> metadataHandler.handle(Future.succeededFuture(kafkaTopicMeta)));
+    }
+
+    private Future<Void> reconcileWithMetadata(ConfigMap cm, TopicName topicName,
+                                               Handler<Handler<AsyncResult<TopicMetadata>>> metadataSource) {
         Future<Void> result = Future.future();
-        Handler<Future<Void>> action = new Reconciliation("reconcile") {
+        Reconciliation action = new Reconciliation("reconcile", InFlight.Priority.PERIODIC) {
             @Override
             public void handle(Future<Void> fut) {
 
@@ -349,7 +442,7 @@ public class TopicOperator {
                     Topic k8sTopic = cm != null ? TopicSerialization.fromConfigMap(cm) : null;
                     Future<Topic> topicResult = Future.future();
                     Future<TopicMetadata> metadataResult = Future.future();
-                    kafka.topicMetadata(topicName, metadataResult.completer());
+                    metadataSource.handle(metadataResult.completer());
                     topicStore.read(topicName, topicResult.completer());
                     CompositeFuture.all(topicResult, metadataResult).setHandler(ar -> {
 
@@ -380,7 +473,7 @@ public class TopicOperator {
                 }
             }
         };
-        inFlight.enqueue(topicName, action, result);
+        enqueue(topicName, action, result);
         return result;
     }
 
@@ -596,6 +689,20 @@ public class TopicOperator {
         }
     }
 
+    /**
+     * Enqueue the given {@code action} to run when no other reconciliation of the topic with the given
+     * {@code key} is in progress, recording its duration when it completes.
+     * Actions for the topic store's own topic are not run.
+     */
+    private void enqueue(TopicName key, Reconciliation action, Handler<AsyncResult<Void>> resultHandler) {
+        if (key.equals(storeTopic)) {
+            LOGGER.debug("Ignoring {} of topic store topic {}", action, key);
+            resultHandler.handle(Future.succeededFuture());
+            return;
+        }
+        inFlight.enqueue(key, action, action.priority, Metrics.timed(reconciliations, resultHandler, action.name));
+    }
+
     void enqueue(Handler<Void> event) {
         LOGGER.debug("Enqueuing event {}", event);
         vertx.runOnContext(event);
@@ -603,18 +710,18 @@ public class TopicOperator {
 
     /** Called when a topic znode is deleted in ZK */
     void onTopicDeleted(TopicName topicName, Handler<AsyncResult<Void>> resultHandler) {
-        Handler<Future<Void>> action = new Reconciliation("onTopicDeleted") {
+        Reconciliation action = new Reconciliation("onTopicDeleted") {
             @Override
             public void handle(Future<Void> fut) {
                 TopicOperator.this.reconcileOnTopicChange(topicName, null, fut.completer());
             }
         };
-        inFlight.enqueue(topicName, action, resultHandler);
+        enqueue(topicName, action, resultHandler);
 
     }
 
     void onTopicConfigChanged(TopicName topicName, Handler<AsyncResult<Void>> resultHandler) {
-        Handler<Future<Void>> action = new Reconciliation("onTopicConfigChanged") {
+        Reconciliation action = new Reconciliation("onTopicConfigChanged") {
             @Override
             public void handle(Future<Void> fut) {
                 kafka.topicMetadata(topicName, metadataResult -> {
@@ -627,52 +734,113 @@ public class TopicOperator {
                 });
             }
         };
-        inFlight.enqueue(topicName, action, resultHandler);
+        enqueue(topicName, action, resultHandler);
     }
 
+    /**
+     * Called when the partitions of a topic have changed in ZK, when the new partition assignment is not known.
+     * Polls Kafka until the topic metadata shows the number of partitions has changed.
+     */
     void onTopicPartitionsChanged(TopicName topicName, Handler<AsyncResult<Void>> resultHandler) {
-        Handler<Future<Void>> action = new Reconciliation("onTopicPartitionsChanged") {
+        Reconciliation action = new Reconciliation("onTopicPartitionsChanged") {
             @Override
             public void handle(Future<Void> fut) {
 
                 // getting topic information from the private store
                 topicStore.read(topicName, topicResult -> {
+                    if (topicResult.failed()) {
+                        fut.fail(topicResult.cause());
+                    } else {
+                        awaitPartitionsChange(topicName, topicResult.result(), fut);
+                    }
+                });
+            }
+        };
+        enqueue(topicName, action, resultHandler);
+    }
+
+    /**
+     * Called when the partitions of a topic have changed in ZK, with the given partition assignment,
+     * as read from the topic's {@code /brokers/topics} znode.
+     * The assignment is used as Kafka's view of the partitions of the topic, and the topic's config is taken from
+     * the private store, since changes to the config are notified separately.
+     * So there is no need to get the topic metadata from Kafka unless the topic is not in the private store.
+     * Changes which don't change the number of partitions (for example reassignments) are ignored.
+     */
+    void onTopicPartitionsChanged(TopicName topicName, Map<Integer, List<Integer>> assignment, Handler<AsyncResult<Void>> resultHandler) {
+        Reconciliation action = new Reconciliation("onTopicPartitionsChanged") {
+            @Override
+            public void handle(Future<Void> fut) {
+                topicStore.read(topicName, topicResult -> {
+                    if (topicResult.failed()) {
+                        fut.fail(topicResult.cause());
+                        return;
+                    }
+                    Topic privateTopic = topicResult.result();
+                    if (privateTopic == null) {
+                        awaitPartitionsChange(topicName, null, fut);
+                    } else if (privateTopic.getNumPartitions() == assignment.size()) {
+                        LOGGER.debug("Ignoring change to topic {} which leaves it with {} partitions", topicName, assignment.size());
+                        fut.complete();
+                    } else {
+                        Topic kafkaTopic = new Topic.Builder(privateTopic)
+                                .withNumPartitions(assignment.size())
+                                .withNumReplicas(replicationFactor(assignment))
+                                .build();
+                        LOGGER.info("Topic {} partitions changed to {}", topicName, kafkaTopic.getNumPartitions());
+                        TopicOperator.this.reconcileOnTopicChange(topicName, kafkaTopic, fut.completer());
+                    }
+                });
+            }
+        };
+        enqueue(topicName, action, resultHandler);
+    }
 
-                    TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName, topicMetadataBackOff()) {
-                        @Override
-                        public void handle(AsyncResult<TopicMetadata> metadataResult) {
+    private static short replicationFactor(Map<Integer, List<Integer>> assignment) {
+        int replicas = 0;
+        for (List<Integer> partitionReplicas : assignment.values()) {
+            replicas = Math.max(replicas, partitionReplicas.size());
+        }
+        return (short) replicas;
+    }
 
-                            if (metadataResult.succeeded()) {
+    /**
+     * Get the metadata of the given topic from Kafka, with exponential backoff, until its number of partitions
+     * differs from that of the given {@code privateTopic} (if it's not null), then reconcile it.
+     */
+    private void awaitPartitionsChange(TopicName topicName, Topic privateTopic, Future<Void> fut) {
+        TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName, topicMetadataBackOff(), topicMetadataRetries, topicMetadataRetryScheduler) {
+            @Override
+            public void handle(AsyncResult<TopicMetadata> metadataResult) {
 
-                                // getting topic metadata from Kafka
-                                Topic kafkaTopic = TopicSerialization.fromTopicMetadata(metadataResult.result());
+                if (metadataResult.succeeded()) {
 
-                                // if partitions aren't changed on Kafka yet, we retry with exponential backoff
-                                if (topicResult.result().getNumPartitions() == kafkaTopic.getNumPartitions()) {
-                                    retry();
-                                } else {
-                                    LOGGER.info("Topic {} partitions changed to {}", topicName, kafkaTopic.getNumPartitions());
-                                    TopicOperator.this.reconcileOnTopicChange(topicName, kafkaTopic, fut.completer());
-                                }
+                    // getting topic metadata from Kafka
+                    Topic kafkaTopic = TopicSerialization.fromTopicMetadata(metadataResult.result());
 
-                            } else {
-                                fut.fail(metadataResult.cause());
-                            }
-                        }
+                    // if partitions aren't changed on Kafka yet, we retry with exponential backoff
+                    if (kafkaTopic != null && privateTopic != null
+                            && privateTopic.getNumPartitions() == kafkaTopic.getNumPartitions()) {
+                        retry();
+                    } else {
+                        LOGGER.info("Topic {} partitions changed to {}", topicName, kafkaTopic != null ? kafkaTopic.getNumPartitions() : null);
+                        TopicOperator.this.reconcileOnTopicChange(topicName, kafkaTopic, fut.completer());
+                    }
 
-                        @Override
-                        public void onMaxAttemptsExceeded(MaxAttemptsExceededException e) {
-                            // it's possible that the watched znode for partitions changes, is changed
-                            // due to a reassignment if we don't observe a partition count change within the backoff
-                            // no need for failing the future in this case
-                            fut.complete();
-                        }
-                    };
-                    kafka.topicMetadata(topicName, handler);
-                });
+                } else {
+                    fut.fail(metadataResult.cause());
+                }
+            }
+
+            @Override
+            public void onMaxAttemptsExceeded(MaxAttemptsExceededException e) {
+                // it's possible that the watched znode for partitions changes, is changed
+                // due to a reassignment if we don't observe a partition count change within the backoff
+                // no need for failing the future in this case
+                fut.complete();
             }
         };
-        inFlight.enqueue(topicName, action, resultHandler);
+        kafka.topicMetadata(topicName, handler);
     }
 
     private void reconcileOnTopicChange(TopicName topicName, Topic kafkaTopic, Handler<AsyncResult<Void>> resultHandler) {
@@ -730,11 +898,11 @@ public class TopicOperator {
     void onTopicCreated(TopicName topicName, Handler<AsyncResult<Void>> resultHandler) {
         // XXX currently runs on the ZK thread, requiring a synchronized inFlight
         // is it better to put this check in the topic deleted event?
-        Handler<Future<Void>> action = new Reconciliation("onTopicCreated") {
+        Reconciliation action = new Reconciliation("onTopicCreated") {
             @Override
             public void handle(Future<Void> fut) {
 
-                TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName, topicMetadataBackOff()) {
+                TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName, topicMetadataBackOff(), topicMetadataRetries, topicMetadataRetryScheduler) {
 
                     @Override
                     public void handle(AsyncResult<TopicMetadata> metadataResult) {
@@ -764,7 +932,7 @@ public class TopicOperator {
                 kafka.topicMetadata(topicName, handler);
             }
         };
-        inFlight.enqueue(topicName, action, resultHandler);
+        enqueue(topicName, action, resultHandler);
     }
 
     /** Called when a ConfigMap is added in k8s */
@@ -777,13 +945,13 @@ public class TopicOperator {
                 resultHandler.handle(Future.failedFuture(e));
                 return;
             }
-            Handler<Future<Void>> action = new Reconciliation("onConfigMapAdded") {
+            Reconciliation action = new Reconciliation("onConfigMapAdded") {
                 @Override
                 public void handle(Future<Void> fut) {
                     TopicOperator.this.reconcileOnCmChange(configMap, k8sTopic, false, fut);
                 }
             };
-            inFlight.enqueue(new TopicName(configMap), action, resultHandler);
+            enqueue(new TopicName(configMap), action, resultHandler);
         } else {
             resultHandler.handle(Future.succeededFuture());
         }
@@ -791,9 +959,15 @@ public class TopicOperator {
 
     abstract class Reconciliation implements Handler<Future<Void>> {
         private final String name;
+        private final InFlight.Priority priority;
 
         public Reconciliation(String name) {
+            this(name, InFlight.Priority.WATCH);
+        }
+
+        public Reconciliation(String name, InFlight.Priority priority) {
             this.name = name;
+            this.priority = priority;
         }
 
         @Override
@@ -818,7 +992,7 @@ public class TopicOperator {
                     TopicOperator.this.reconcileOnCmChange(configMap, k8sTopic, true, fut);
                 }
             };
-            inFlight.enqueue(new TopicName(configMap), action, resultHandler);
+            enqueue(new TopicName(configMap), action, resultHandler);
         } else {
             resultHandler.handle(Future.succeededFuture());
         }
@@ -855,7 +1029,7 @@ public class TopicOperator {
                     TopicOperator.this.reconcileOnCmChange(configMap, null, false, fut);
                 }
             };
-            inFlight.enqueue(new TopicName(configMap), action, resultHandler);
+            enqueue(new TopicName(configMap), action, resultHandler);
         } else {
             resultHandler.handle(Future.succeededFuture());
         }
@@ -957,7 +1131,7 @@ public class TopicOperator {
      * @return a new instance of BackOff with configured topic metadata max attempts
      */
     private BackOff topicMetadataBackOff() {
-        return new BackOff(config.get(Config.TOPIC_METADATA_MAX_ATTEMPTS));
+        return new BackOff(BackOff.DEFAULT_SCALE_MS, BackOff.DEFAULT_BASE, config.get(Config.TOPIC_METADATA_MAX_ATTEMPTS), random);
     }
 
     /**
@@ -968,67 +1142,293 @@ public class TopicOperator {
         return cm != null ? cm.getMetadata().getNamespace() + "/" + cm.getMetadata().getName() : null;
     }
 
+    /**
+     * Reconcile the given batch of Kafka topics, getting the metadata for the whole batch from Kafka in one go.
+     * The outcome for each topic completes the corresponding future in the given {@code topicFutures}.
+     * If the batched metadata request fails, each topic falls back to getting its own metadata.
+     */
+    private void reconcileTopicBatch(String reconciliationType, Set<TopicName> batch, Map<TopicName, Future<Void>> topicFutures) {
+        kafka.topicMetadata(batch, metadataResult -> {
+            if (metadataResult.failed()) {
+                LOGGER.warn("Error getting metadata for a batch of {} topics during {} reconciliation, will get metadata for each topic individually",
+                        batch.size(), reconciliationType, metadataResult.cause());
+            }
+            for (TopicName topicName : batch) {
+                Future<Void> topicFuture = topicFutures.get(topicName);
+                k8s.getFromName(topicName.asMapName(), cmResult -> {
+                    if (cmResult.succeeded()) {
+                        ConfigMap cm = cmResult.result();
+                        if (metadataResult.succeeded()) {
+                            reconcile(cm, topicName, metadataResult.result().get(topicName)).setHandler(topicFuture);
+                        } else {
+                            reconcile(cm, topicName).setHandler(topicFuture);
+                        }
+                    } else {
+                        LOGGER.error("Error {} getting ConfigMap {} for topic {}",
+                                reconciliationType,
+                                topicName.asMapName(), topicName, cmResult.cause());
+                        topicFuture.fail(new OperatorException("Error getting ConfigMap " + topicName.asMapName() + " during " + reconciliationType + " reconciliation", cmResult.cause()));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * The state of a single reconciliation of all topics.
+     * Batches of Kafka topics are reconciled, then the ConfigMaps of topics which are not in Kafka,
+     * with at most {@link Config#FULL_RECONCILIATION_MAX_CONCURRENCY} topics being reconciled at once.
+     * If {@link Config#FULL_RECONCILIATION_PACED} the start of each topic's reconciliation is also delayed so that
+     * the reconciliation is spread evenly over {@link Config#FULL_RECONCILIATION_INTERVAL_MS}.
+     * All the methods run on the context thread.
+     */
+    private class FullReconciliation {
+        private final String reconciliationType;
+        private final int maxConcurrency;
+        private final long nanosPerTopic;
+        private final long startNanos = System.nanoTime();
+        private final Deque<Set<TopicName>> topicBatches = new ArrayDeque<>();
+        private final Deque<ConfigMap> configMaps = new ArrayDeque<>();
+        private final Map<TopicName, TopicFingerprints.Fingerprint> topicFingerprints;
+        private final Map<TopicName, Future<Void>> topicFutures = new HashMap<>();
+        private final Map<ConfigMap, Future<Void>> cmFutures = new HashMap<>();
+        private int started = 0;
+        private int inProgress = 0;
+        private int done = 0;
+        private boolean timerSet = false;
+
+        FullReconciliation(String reconciliationType, Map<TopicName, TopicFingerprints.Fingerprint> kafkaTopics, Collection<ConfigMap> configMaps) {
+            this.reconciliationType = reconciliationType;
+            this.topicFingerprints = kafkaTopics;
+            this.maxConcurrency = config.get(Config.FULL_RECONCILIATION_MAX_CONCURRENCY);
+            int batchSize = Math.min(config.get(Config.TOPIC_METADATA_BATCH_SIZE), maxConcurrency);
+            Set<TopicName> batch = new HashSet<>();
+            for (TopicName topicName : kafkaTopics.keySet()) {
+                topicFutures.put(topicName, Future.future());
+                batch.add(topicName);
+                if (batch.size() == batchSize) {
+                    topicBatches.add(batch);
+                    batch = new HashSet<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                topicBatches.add(batch);
+            }
+            for (ConfigMap cm : configMaps) {
+                cmFutures.put(cm, Future.future());
+                this.configMaps.add(cm);
+            }
+            int total = topicFutures.size() + cmFutures.size();
+            this.nanosPerTopic = config.get(Config.FULL_RECONCILIATION_PACED) && total > 0
+                    ? TimeUnit.MILLISECONDS.toNanos(config.get(Config.FULL_RECONCILIATION_INTERVAL_MS)) / total : 0;
+            fullReconciliationTotal = total;
+            fullReconciliationDone = 0;
+        }
+
+        List<Future> futures() {
+            List<Future> futures = new ArrayList<>(topicFutures.values());
+            futures.addAll(cmFutures.values());
+            return futures;
+        }
+
+        /**
+         * Start reconciling as many topics as the concurrency limit and pacing allow.
+         */
+        void startMore() {
+            while (!topicBatches.isEmpty() || !configMaps.isEmpty()) {
+                int next = !topicBatches.isEmpty() ? topicBatches.peek().size() : 1;
+                if (inProgress > 0 && inProgress + next > maxConcurrency) {
+                    return;
+                }
+                if (nanosPerTopic > 0) {
+                    long delayMs = TimeUnit.NANOSECONDS.toMillis(startNanos + started * nanosPerTopic - System.nanoTime());
+                    if (delayMs > 0) {
+                        if (!timerSet) {
+                            timerSet = true;
+                            vertx.setTimer(delayMs, timerId -> {
+                                timerSet = false;
+                                startMore();
+                            });
+                        }
+                        return;
+                    }
+                }
+                started += next;
+                inProgress += next;
+                if (!topicBatches.isEmpty()) {
+                    Set<TopicName> batch = topicBatches.poll();
+                    Map<TopicName, Future<Void>> batchFutures = new HashMap<>();
+                    for (TopicName topicName : batch) {
+                        LOGGER.debug("{} reconciliation of topic {}", reconciliationType, topicName);
+                        batchFutures.put(topicName, finished(topicName, topicFutures.get(topicName)));
+                    }
+                    reconcileTopicBatch(reconciliationType, batch, batchFutures);
+                } else {
+                    ConfigMap cm = configMaps.poll();
+                    LOGGER.debug("{} reconciliation of configmap {}", reconciliationType, cm.getMetadata().getName());
+                    reconcile(cm, new TopicName(cm)).setHandler(finished(null, cmFutures.get(cm)));
+                }
+            }
+        }
+
+        /**
+         * Returns a future which, when completed, completes the given {@code topicFuture} and starts more work.
+         * If the given Kafka {@code topicName} was successfully reconciled its fingerprint is remembered.
+         */
+        private Future<Void> finished(TopicName topicName, Future<Void> topicFuture) {
+            Future<Void> result = Future.future();
+            result.setHandler(ar -> {
+                if (topicName != null) {
+                    TopicFingerprints.Fingerprint fingerprint = topicFingerprints.get(topicName);
+                    if (ar.succeeded() && fingerprint != null) {
+                        reconciledFingerprints.put(topicName, fingerprint);
+                    } else {
+                        reconciledFingerprints.remove(topicName);
+                    }
+                }
+                inProgress--;
+                fullReconciliationDone = ++done;
+                topicFuture.handle(ar);
+                startMore();
+            });
+            return result;
+        }
+    }
+
+    /**
+     * Work out which of the given {@code kafkaTopics} a full reconciliation needs to reconcile, and call the given
+     * {@code handler} with their fingerprints (or null for those topics whose fingerprint is not known).
+     * Unless it's time to reconcile every topic, a topic whose fingerprint is the same as when
+     * it was last reconciled does not need to be reconciled.
+     * @param configMaps The ConfigMaps by name, or null if they could not be listed.
+     */
+    private void changedTopics(String reconciliationType, Set<String> kafkaTopics, Map<String, ConfigMap> configMaps,
+                               Handler<Map<TopicName, TopicFingerprints.Fingerprint>> handler) {
+        reconciledFingerprints.keySet().removeIf(topicName -> !kafkaTopics.contains(topicName.toString()));
+        Map<TopicName, TopicFingerprints.Fingerprint> result = new HashMap<>();
+        if (fingerprints == null || configMaps == null) {
+            for (String name : kafkaTopics) {
+                result.put(new TopicName(name), null);
+            }
+            handler.handle(result);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean sweep = now - lastSweepMs >= config.get(Config.FULL_RECONCILIATION_SWEEP_INTERVAL_MS);
+        if (sweep) {
+            LOGGER.info("{} reconciliation will reconcile all topics", reconciliationType);
+            lastSweepMs = now;
+        }
+        // A ConfigMap's name needn't be the name of its topic
+        Map<TopicName, ConfigMap> configMapsByTopic = new HashMap<>();
+        for (ConfigMap cm : configMaps.values()) {
+            try {
+                configMapsByTopic.put(new TopicName(cm), cm);
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("ConfigMap {} has an invalid topic name", cm.getMetadata().getName(), e);
+            }
+        }
+        Map<TopicName, Future<TopicFingerprints.Fingerprint>> computed = new HashMap<>();
+        for (String name : kafkaTopics) {
+            computed.put(new TopicName(name), Future.future());
+        }
+        // Compute the fingerprints under the same concurrency limit as the reconciliations themselves
+        Iterator<Map.Entry<TopicName, Future<TopicFingerprints.Fingerprint>>> pending = computed.entrySet().iterator();
+        int concurrency = Math.min(config.get(Config.FULL_RECONCILIATION_MAX_CONCURRENCY), computed.size());
+        for (int i = 0; i < concurrency; i++) {
+            computeNextFingerprint(pending, configMapsByTopic);
+        }
+        CompositeFuture.join(new ArrayList<>(computed.values())).setHandler(ignored -> {
+            int unchanged = 0;
+            for (Map.Entry<TopicName, Future<TopicFingerprints.Fingerprint>> entry : computed.entrySet()) {
+                TopicName topicName = entry.getKey();
+                Future<TopicFingerprints.Fingerprint> fingerprint = entry.getValue();
+                if (fingerprint.failed()) {
+                    LOGGER.debug("Error getting fingerprint of topic {}, it will be reconciled", topicName, fingerprint.cause());
+                    result.put(topicName, null);
+                } else if (sweep || !fingerprint.result().equals(reconciledFingerprints.get(topicName))) {
+                    result.put(topicName, fingerprint.result());
+                } else {
+                    unchanged++;
+                    unchangedTopics.inc();
+                }
+            }
+            LOGGER.info("{} reconciliation skipping {} of {} topics which are unchanged since last reconciled",
+                    reconciliationType, unchanged, kafkaTopics.size());
+            handler.handle(result);
+        });
+    }
+
+    /**
+     * Compute the fingerprint of the next of the {@code pending} topics, and when that's done, the next, and so on.
+     */
+    private void computeNextFingerprint(Iterator<Map.Entry<TopicName, Future<TopicFingerprints.Fingerprint>>> pending,
+                                        Map<TopicName, ConfigMap> configMaps) {
+        if (!pending.hasNext()) {
+            return;
+        }
+        Map.Entry<TopicName, Future<TopicFingerprints.Fingerprint>> next = pending.next();
+        fingerprints.fingerprint(next.getKey(), configMaps.get(next.getKey()), ar -> {
+            next.getValue().handle(ar);
+            computeNextFingerprint(pending, configMaps);
+        });
+    }
+
     Future<?> reconcileAllTopics(String reconciliationType) {
-        Future topicsJoin = Future.future();
-        Future mapsJoin = Future.future();
+        long start = System.nanoTime();
         LOGGER.info("Starting {} reconciliation", reconciliationType);
+        Future<CompositeFuture> returned = Future.future();
         kafka.listTopics(topicsListResult -> {
             if (topicsListResult.succeeded()) {
-                Set<String> kafkaTopics = topicsListResult.result();
-                LOGGER.debug("Reconciling kafka topics {}", kafkaTopics);
-                // First reconcile the topics in kafka
-                List<Future> topicFutures = new ArrayList<>();
-                for (String name : kafkaTopics) {
-                    LOGGER.debug("{} reconciliation of topic {}", reconciliationType, name);
-                    TopicName topicName = new TopicName(name);
-                    Future topicFuture = Future.future();
-                    topicFutures.add(topicFuture);
-                    k8s.getFromName(topicName.asMapName(), cmResult -> {
-                        if (cmResult.succeeded()) {
-                            ConfigMap cm = cmResult.result();
-                            reconcile(cm, topicName).setHandler(topicFuture);
-                        } else {
-                            LOGGER.error("Error {} getting ConfigMap {} for topic {}",
-                                    reconciliationType,
-                                    topicName.asMapName(), topicName, cmResult.cause());
-                            topicFuture.fail(new OperatorException("Error getting ConfigMap " + topicName.asMapName() + " during " + reconciliationType + " reconciliation", cmResult.cause()));
-                        }
-                    });
+                Set<String> kafkaTopics = new HashSet<>(topicsListResult.result());
+                if (storeTopic != null) {
+                    kafkaTopics.remove(storeTopic.toString());
                 }
-                CompositeFuture.join(topicFutures).setHandler(topicsJoin);
-                LOGGER.debug("Reconciling configmaps");
-                // Then those in k8s which aren't in kafka
+                LOGGER.debug("Reconciling kafka topics {}", kafkaTopics);
                 k8s.listMaps(configMapsListResult -> {
-                    List<Future> cmFutures = new ArrayList<>();
+                    Future<Void> mapsListed = Future.future();
+                    Map<String, ConfigMap> configMapsMap;
                     if (configMapsListResult.succeeded()) {
-                        List<ConfigMap> configMaps = configMapsListResult.result();
-                        Map<String, ConfigMap> configMapsMap = configMaps.stream().collect(Collectors.toMap(
+                        configMapsMap = configMapsListResult.result().stream().collect(Collectors.toMap(
                             cm -> cm.getMetadata().getName(),
                             cm -> cm));
-                        configMapsMap.keySet().removeAll(kafkaTopics);
-                        LOGGER.debug("Reconciling configmaps: {}", configMapsMap.keySet());
-                        for (ConfigMap cm : configMapsMap.values()) {
-                            LOGGER.debug("{} reconciliation of configmap {}", reconciliationType, cm.getMetadata().getName());
-
-                            TopicName topicName = new TopicName(cm);
-                            cmFutures.add(reconcile(cm, topicName));
-                        }
-                        CompositeFuture.join(cmFutures).setHandler(mapsJoin);
+                        mapsListed.complete();
                     } else {
                         LOGGER.error("Unable to list ConfigMaps", configMapsListResult.cause());
-                        mapsJoin.fail(new OperatorException("Error listing existing ConfigMaps during " + reconciliationType + " reconciliation", configMapsListResult.cause()));
+                        configMapsMap = null;
+                        mapsListed.fail(new OperatorException("Error listing existing ConfigMaps during " + reconciliationType + " reconciliation", configMapsListResult.cause()));
                     }
-                    // Finally those in private store which we've not dealt with so far...
-                    // TODO ^^
+                    changedTopics(reconciliationType, kafkaTopics, configMapsMap, topics -> {
+                        Collection<ConfigMap> configMaps;
+                        if (configMapsMap != null) {
+                            // The ConfigMaps of topics which aren't in kafka
+                            Map<String, ConfigMap> notInKafka = new HashMap<>(configMapsMap);
+                            notInKafka.keySet().removeAll(kafkaTopics);
+                            LOGGER.debug("Reconciling configmaps: {}", notInKafka.keySet());
+                            configMaps = notInKafka.values();
+                        } else {
+                            configMaps = Collections.emptyList();
+                        }
+                        // Finally those in private store which we've not dealt with so far...
+                        // TODO ^^
+                        FullReconciliation fullReconciliation = new FullReconciliation(reconciliationType, topics, configMaps);
+                        List<Future> futures = fullReconciliation.futures();
+                        futures.add(mapsListed);
+                        CompositeFuture.join(futures).setHandler(returned);
+                        fullReconciliation.startMore();
+                    });
                 });
             } else {
                 LOGGER.error("Error performing {} reconciliation", reconciliationType, topicsListResult.cause());
-                OperatorException listException = new OperatorException("Error listing existing topics during " + reconciliationType + " reconciliation", topicsListResult.cause());
-                topicsJoin.fail(listException);
-                mapsJoin.fail(listException);
+                returned.fail(new OperatorException("Error listing existing topics during " + reconciliationType + " reconciliation", topicsListResult.cause()));
             }
         });
-        return CompositeFuture.join(topicsJoin, mapsJoin);
+        Future<CompositeFuture> result = Future.future();
+        returned.setHandler(ar -> {
+            fullReconciliations.observeSince(start, reconciliationType, ar.succeeded() ? "success" : "failure");
+            result.handle(ar);
+        });
+        return result;
     }
 }
 
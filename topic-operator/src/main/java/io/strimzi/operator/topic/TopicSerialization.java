@@ -5,9 +5,11 @@
 package io.strimzi.operator.topic;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import org.apache.kafka.clients.admin.Config;
@@ -16,12 +18,15 @@ import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.common.config.ConfigResource;
 import org.apache.kafka.common.errors.InvalidTopicException;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -31,9 +36,31 @@ import static java.lang.String.format;
 
 /**
  * Serialization of a {@link }Topic} to and from various other representations.
+ * JSON is read and written using a single, thread-safe {@link JsonFactory}, by streaming,
+ * rather than via an intermediate tree.
  */
 public class TopicSerialization {
 
+    /**
+     * The encodings of the topics stored in the znodes owned by the {@link ZkTopicStore}.
+     * Whichever encoding is used for writing, {@link #fromBytes(byte[])} can read both.
+     */
+    public enum Encoding {
+        /** The JSON returned by {@link #toJson(Topic)}. */
+        JSON,
+        /** The versioned binary encoding returned by {@link #toCompact(Topic)}. */
+        COMPACT
+    }
+
+    /** The first byte of version 1 of the compact encoding. This can never be the first byte of a JSON object. */
+    private static final byte COMPACT_V1 = 1;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .configure(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION, false);
+
+    /** Used only to describe the type of invalid values in the topic config of a ConfigMap. */
+    private static final ObjectMapper MAPPER = new ObjectMapper(JSON_FACTORY);
+
     // These are the keys in the ConfigMap data
     public static final String CM_KEY_PARTITIONS = "partitions";
     public static final String CM_KEY_REPLICAS = "replicas";
@@ -47,55 +74,56 @@ public class TopicSerialization {
     public static final String JSON_KEY_REPLICAS = "replicas";
     public static final String JSON_KEY_CONFIG = "config";
 
-    @SuppressWarnings("unchecked")
     private static Map<String, String> topicConfigFromConfigMapString(ConfigMap cm) {
         Map<String, String> mapData = cm.getData();
         String value = mapData.get(CM_KEY_CONFIG);
-        Map<?, ?> result;
         if (value == null || value.isEmpty()) {
-            result = Collections.emptyMap();
-        } else {
-            try {
-                ObjectMapper mapper = objectMapper();
-                result = mapper.readValue(new StringReader(value) {
-                    @Override
-                    public String toString() {
-                        return "'config' key of 'data' section of ConfigMap '" + cm.getMetadata().getName() + "' in namespace '" + cm.getMetadata().getNamespace() + "'";
-                    }
-                }, Map.class);
-            } catch (IOException e) {
-                throw new InvalidConfigMapException(cm, "ConfigMap's 'data' section has invalid key '" +
-                        CM_KEY_CONFIG + "': " + (e.getMessage() != null ? e.getMessage() : e.toString()));
-            }
+            return Collections.emptyMap();
         }
-
-        for (Map.Entry<?, ?> entry : result.entrySet()) {
-            Object key = entry.getKey();
-            String msg = null;
-            if (!(key instanceof String)) {
-                msg = "The must be of type String, not of type " + key.getClass();
+        Map<String, String> result = new LinkedHashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(value)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "The topic config must be a JSON object");
             }
-            Object v = entry.getValue();
-            if (v == null) {
-                msg = "The value corresponding to the key must have a String value, not null";
-            } else if (!(v instanceof String)) {
-                msg = "The value corresponding to the key must have a String value, not a value of type " + v.getClass();
-            }
-            if (msg != null) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_STRING) {
+                    result.put(key, parser.getText());
+                    continue;
+                }
+                String msg;
+                if (token == JsonToken.VALUE_NULL) {
+                    msg = "The value corresponding to the key must have a String value, not null";
+                } else {
+                    msg = "The value corresponding to the key must have a String value, not a value of type " + MAPPER.readValue(parser, Object.class).getClass();
+                }
                 throw new InvalidConfigMapException(cm, "ConfigMap's 'data' section has invalid key '" +
                         CM_KEY_CONFIG + "': The key '" + key + "' of the topic config is invalid: " + msg);
             }
+        } catch (IOException e) {
+            throw new InvalidConfigMapException(cm, "ConfigMap's 'data' section has invalid key '" +
+                    CM_KEY_CONFIG + "': " + (e.getMessage() != null ? e.getMessage() : e.toString()));
         }
-        return (Map<String, String>) result;
+        return result;
     }
 
     private static String topicConfigToConfigMapString(Map<String, String> config) throws IOException {
-        ObjectMapper mapper = objectMapper();
         StringWriter sw = new StringWriter();
-        mapper.writeValue(sw, config);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(sw)) {
+            writeConfig(generator, config);
+        }
         return sw.toString();
     }
 
+    private static void writeConfig(JsonGenerator generator, Map<String, String> config) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, String> entry : config.entrySet()) {
+            generator.writeStringField(entry.getKey(), entry.getValue());
+        }
+        generator.writeEndObject();
+    }
+
     /**
      * Create a Topic to reflect the given ConfigMap.
      * @throws InvalidConfigMapException
@@ -263,22 +291,17 @@ public class TopicSerialization {
      * This is what is stored in the znodes owned by the {@link ZkTopicStore}.
      */
     public static byte[] toJson(Topic topic) {
-        ObjectMapper mapper = objectMapper();
-        ObjectNode root = mapper.createObjectNode();
-        // TODO Do we store the k8s uid here?
-        root.put(JSON_KEY_MAP_NAME, topic.getOrAsMapName().toString());
-        root.put(JSON_KEY_TOPIC_NAME, topic.getTopicName().toString());
-        root.put(JSON_KEY_PARTITIONS, topic.getNumPartitions());
-        root.put(JSON_KEY_REPLICAS, topic.getNumReplicas());
-
-        ObjectNode config = mapper.createObjectNode();
-        for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
-            config.put(entry.getKey(), entry.getValue());
-        }
-        root.set(JSON_KEY_CONFIG, config);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            mapper.writeValue(baos, root);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(128);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(baos)) {
+            generator.writeStartObject();
+            // TODO Do we store the k8s uid here?
+            generator.writeStringField(JSON_KEY_MAP_NAME, topic.getOrAsMapName().toString());
+            generator.writeStringField(JSON_KEY_TOPIC_NAME, topic.getTopicName().toString());
+            generator.writeNumberField(JSON_KEY_PARTITIONS, topic.getNumPartitions());
+            generator.writeNumberField(JSON_KEY_REPLICAS, topic.getNumReplicas());
+            generator.writeFieldName(JSON_KEY_CONFIG);
+            writeConfig(generator, topic.getConfig());
+            generator.writeEndObject();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -289,31 +312,110 @@ public class TopicSerialization {
      * Returns the Topic represented by the given UTF-8 encoded JSON.
      * This is what is stored in the znodes owned by the {@link ZkTopicStore}.
      */
-    @SuppressWarnings("unchecked")
     public static Topic fromJson(byte[] json) {
-        ObjectMapper mapper = objectMapper();
-        Map<String, Object> root = null;
-        try {
-            root = mapper.readValue(json, Map.class);
+        Topic.Builder builder = new Topic.Builder();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case JSON_KEY_TOPIC_NAME:
+                        builder.withTopicName(parser.getText());
+                        break;
+                    case JSON_KEY_MAP_NAME:
+                        builder.withMapName(parser.getText());
+                        break;
+                    case JSON_KEY_PARTITIONS:
+                        builder.withNumPartitions(parser.getIntValue());
+                        break;
+                    case JSON_KEY_REPLICAS:
+                        builder.withNumReplicas(parser.getShortValue());
+                        break;
+                    case JSON_KEY_CONFIG:
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String key = parser.getCurrentName();
+                            parser.nextToken();
+                            builder.withConfigEntry(key, parser.getText());
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        Topic.Builder builder = new Topic.Builder();
-        builder.withTopicName((String) root.get(JSON_KEY_TOPIC_NAME))
-                .withMapName((String) root.get(JSON_KEY_MAP_NAME))
-                .withNumPartitions((Integer) root.get(JSON_KEY_PARTITIONS))
-                .withNumReplicas(((Integer) root.get(JSON_KEY_REPLICAS)).shortValue());
-        Map<String, String> config = (Map) root.get(JSON_KEY_CONFIG);
-        for (Map.Entry<String, String> entry : config.entrySet()) {
-            builder.withConfigEntry(entry.getKey(), entry.getValue());
-        }
         return builder.build();
     }
 
-    private static ObjectMapper objectMapper() {
-        JsonFactory jf = new JsonFactory();
-        jf.configure(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION, false);
-        return new ObjectMapper(jf);
+    /**
+     * Returns the compact binary encoding of the given Topic.
+     * This is smaller, and cheaper to produce and parse, than the JSON returned by {@link #toJson(Topic)}.
+     * It consists of the version byte {@code 1}, followed by the topic name, map name, number of partitions,
+     * number of replicas and number of config entries, and then each config key and value,
+     * written using a {@link DataOutputStream}.
+     */
+    public static byte[] toCompact(Topic topic) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeByte(COMPACT_V1);
+            out.writeUTF(topic.getTopicName().toString());
+            out.writeUTF(topic.getOrAsMapName().toString());
+            out.writeInt(topic.getNumPartitions());
+            out.writeShort(topic.getNumReplicas());
+            Map<String, String> config = topic.getConfig();
+            out.writeInt(config.size());
+            for (Map.Entry<String, String> entry : config.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Topic fromCompact(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != COMPACT_V1) {
+                throw new IllegalArgumentException("Unsupported topic encoding version " + version);
+            }
+            Topic.Builder builder = new Topic.Builder()
+                    .withTopicName(in.readUTF())
+                    .withMapName(in.readUTF())
+                    .withNumPartitions(in.readInt())
+                    .withNumReplicas(in.readShort());
+            int numConfigs = in.readInt();
+            for (int i = 0; i < numConfigs; i++) {
+                builder.withConfigEntry(in.readUTF(), in.readUTF());
+            }
+            return builder.build();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the given Topic in the given encoding.
+     */
+    public static byte[] toBytes(Topic topic, Encoding encoding) {
+        return encoding == Encoding.COMPACT ? toCompact(topic) : toJson(topic);
+    }
+
+    /**
+     * Returns the Topic represented by the given bytes, in either of the {@link Encoding}s.
+     */
+    public static Topic fromBytes(byte[] bytes) {
+        // JSON can only start with whitespace or a printable character, whereas the compact
+        // encoding starts with a small version number
+        if (bytes.length > 0 && bytes[0] >= 0 && bytes[0] < ' ' && !Character.isWhitespace(bytes[0])) {
+            return fromCompact(bytes);
+        }
+        return fromJson(bytes);
     }
 
 }
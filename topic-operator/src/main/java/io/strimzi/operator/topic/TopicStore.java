@@ -55,5 +55,12 @@ public interface TopicStore {
      * {@link NoSuchEntityExistsException}.
      */
     void delete(TopicName topic, Handler<AsyncResult<Void>> handler);
-}
 
+    /**
+     * Asynchronously get the version of the topic with the given name
+     * and run the given handler on the context with the version.
+     * The version changes whenever the topic is created, updated or deleted in the store.
+     * If the topic has never been stored, the handler will be called with -1.
+     */
+    void version(TopicName name, Handler<AsyncResult<Long>> handler);
+}
@@ -4,26 +4,188 @@
  */
 package io.strimzi.operator.topic;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.strimzi.operator.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.zookeeper.KeeperException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * ZooKeeper watcher for child znodes of {@code /brokers/topics},
- * calling {@link TopicOperator#onTopicPartitionsChanged(TopicName, Handler)}
- * for changed children.
+ * Periodically scans the child znodes of {@code /brokers/topics},
+ * calling {@link TopicOperator#onTopicPartitionsChanged(TopicName, Map, Handler)}
+ * with the partition assignment read from the znode, for children whose data has changed since they were last read.
+ *
+ * <p>Rather than holding a watch on the znode of every topic, the topics are read
+ * in turn, at no more than a configured number of topics per second.
+ * So the number of watches doesn't grow with the number of topics, but
+ * a partition change can take up to (number of topics / rate) seconds to be noticed.</p>
  */
-public class TopicWatcher extends ZkWatcher {
+public class TopicWatcher {
+
+    private final static Logger LOGGER = LogManager.getLogger(TopicWatcher.class);
 
     private static final String TOPICS_ZNODE = "/brokers/topics";
+    private static final long DEFAULT_SCAN_INTERVAL_MS = 1_000L;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final TopicOperator topicOperator;
+    private final Vertx vertx;
+    private final int scanRate;
+    private final long scanIntervalMs;
+
+    private final Set<String> children = ConcurrentHashMap.newKeySet();
+    /** The data of each child when it was last read. */
+    private final Map<String, byte[]> lastData = new ConcurrentHashMap<>();
+    private Iterator<String> pass = Collections.emptyIterator();
+
+    private volatile Zk zk;
+    private volatile Long timerId;
+    private volatile int state = 0;
+
+    /**
+     * Constructor
+     *
+     * @param topicOperator    Operator instance to notify
+     * @param vertx    Vertx instance used for scheduling the scan
+     * @param scanRate    The maximum number of topics to read per second
+     */
+    TopicWatcher(TopicOperator topicOperator, Vertx vertx, int scanRate) {
+        this(topicOperator, vertx, scanRate, DEFAULT_SCAN_INTERVAL_MS);
+    }
+
+    TopicWatcher(TopicOperator topicOperator, Vertx vertx, int scanRate, long scanIntervalMs) {
+        this.topicOperator = topicOperator;
+        this.vertx = vertx;
+        this.scanRate = scanRate;
+        this.scanIntervalMs = scanIntervalMs;
+    }
+
+    void start(Zk zk) {
+        this.zk = zk;
+        this.state = 1;
+        this.timerId = vertx.setPeriodic(scanIntervalMs, id -> scan());
+    }
+
+    void stop() {
+        this.state = 2;
+        Long timerId = this.timerId;
+        if (timerId != null) {
+            vertx.cancelTimer(timerId);
+        }
+    }
 
-    TopicWatcher(TopicOperator topicOperator) {
-        super(topicOperator, TOPICS_ZNODE);
+    boolean started() {
+        return this.state == 1;
     }
 
-    @Override
-    protected void notifyOperator(String child) {
-        log.debug("Partitions change for topic {}", child);
-        topicOperator.onTopicPartitionsChanged(new TopicName(child), ar -> {
-            log.info("Reconciliation result due to topic partitions change: {}", ar);
+    /**
+     * Add a topic to be scanned. No notification is made for the first read of the topic.
+     */
+    void addChild(String child) {
+        children.add(child);
+    }
+
+    /**
+     * Stop scanning a topic.
+     */
+    void removeChild(String child) {
+        children.remove(child);
+        lastData.remove(child);
+    }
+
+    /**
+     * @return true if the given topic is being scanned.
+     */
+    boolean watching(String child) {
+        return children.contains(child);
+    }
+
+    /**
+     * Read the next {@code scanRate} topics of the current pass over the topics,
+     * starting a new pass if the current one has finished.
+     * This is called once per scan interval.
+     */
+    synchronized void scan() {
+        if (state != 1) {
+            return;
+        }
+        if (!pass.hasNext()) {
+            pass = new ArrayList<>(children).iterator();
+        }
+        for (int i = 0; i < scanRate && pass.hasNext(); i++) {
+            check(pass.next());
+        }
+    }
+
+    private void check(String child) {
+        String path = TOPICS_ZNODE + "/" + child;
+        zk.getData(path, dataResult -> {
+            if (dataResult.failed()) {
+                if (!(dataResult.cause() instanceof KeeperException.NoNodeException)) {
+                    LOGGER.error("While getting znode {}", path, dataResult.cause());
+                }
+                return;
+            }
+            if (!children.contains(child)) {
+                return;
+            }
+            byte[] previous = lastData.put(child, dataResult.result());
+            if (previous != null && !Arrays.equals(previous, dataResult.result())) {
+                notifyOperator(child, dataResult.result());
+            }
         });
     }
+
+    private void notifyOperator(String child, byte[] data) {
+        LOGGER.debug("Partitions change for topic {}", child);
+        Handler<AsyncResult<Void>> handler = ar -> {
+            LOGGER.info("Reconciliation result due to topic partitions change: {}", ar);
+        };
+        Map<Integer, List<Integer>> assignment;
+        try {
+            assignment = partitionAssignment(data);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not parse the partitions of topic {}, getting them from Kafka instead", child, e);
+            topicOperator.onTopicPartitionsChanged(new TopicName(child), handler);
+            return;
+        }
+        topicOperator.onTopicPartitionsChanged(new TopicName(child), assignment, handler);
+    }
+
+    /**
+     * Parse the replicas of each partition from the data of a {@code /brokers/topics/<topic>} znode,
+     * which looks like {@code {"version":1,"partitions":{"0":[1,2],"1":[2,3]}}}.
+     */
+    static Map<Integer, List<Integer>> partitionAssignment(byte[] data) throws IOException {
+        JsonNode partitions = MAPPER.readTree(data).get("partitions");
+        if (partitions == null || !partitions.isObject() || partitions.size() == 0) {
+            throw new IOException("Expected a non-empty partitions object");
+        }
+        Map<Integer, List<Integer>> assignment = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = partitions.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            List<Integer> replicas = new ArrayList<>(field.getValue().size());
+            for (JsonNode replica : field.getValue()) {
+                replicas.add(replica.asInt());
+            }
+            assignment.put(Integer.valueOf(field.getKey()), replicas);
+        }
+        return assignment;
+    }
 }
@@ -78,7 +78,6 @@ class TopicsWatcher {
             if (!deleted.isEmpty()) {
                 LOGGER.info("Deleted topics: {}", deleted);
                 for (String topicName : deleted) {
-                    tcw.removeChild(topicName);
                     tw.removeChild(topicName);
                     topicOperator.onTopicDeleted(new TopicName(topicName), ar -> {
                         if (ar.succeeded()) {
@@ -93,7 +92,6 @@ class TopicsWatcher {
             if (!created.isEmpty()) {
                 LOGGER.info("Created topics: {}", created);
                 for (String topicName : created) {
-                    tcw.addChild(topicName);
                     tw.addChild(topicName);
                     topicOperator.onTopicCreated(new TopicName(topicName), ar -> {
                         if (ar.succeeded()) {
@@ -113,6 +111,9 @@ class TopicsWatcher {
             List<String> result = childResult.result();
             LOGGER.debug("Setting initial children {}", result);
             this.children = result;
+            for (String topicName : result) {
+                tw.addChild(topicName);
+            }
             this.state = 1;
         });
     }
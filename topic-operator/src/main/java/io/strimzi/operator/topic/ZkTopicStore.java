@@ -29,8 +29,18 @@ public class ZkTopicStore implements TopicStore {
 
     private final List<ACL> acl;
 
+    private final TopicSerialization.Encoding encoding;
+
     public ZkTopicStore(Zk zk) {
+        this(zk, TopicSerialization.Encoding.JSON);
+    }
+
+    /**
+     * @param encoding The encoding in which topics are written. Topics in either encoding can be read.
+     */
+    public ZkTopicStore(Zk zk, TopicSerialization.Encoding encoding) {
         this.zk = zk;
+        this.encoding = encoding;
         acl = new AclBuilder().setWorld(AclBuilder.Permission.values()).build();
         createParent("/strimzi");
         createParent(TOPICS_PATH);
@@ -59,7 +69,7 @@ public class ZkTopicStore implements TopicStore {
         zk.getData(topicPath, result -> {
             final AsyncResult<Topic> fut;
             if (result.succeeded()) {
-                fut = Future.succeededFuture(TopicSerialization.fromJson(result.result()));
+                fut = Future.succeededFuture(TopicSerialization.fromBytes(result.result()));
             } else {
                 if (result.cause() instanceof KeeperException.NoNodeException) {
                     fut = Future.succeededFuture(null);
@@ -73,7 +83,7 @@ public class ZkTopicStore implements TopicStore {
 
     @Override
     public void create(Topic topic, Handler<AsyncResult<Void>> handler) {
-        byte[] data = TopicSerialization.toJson(topic);
+        byte[] data = TopicSerialization.toBytes(topic, encoding);
         String topicPath = getTopicPath(topic.getTopicName());
         LOGGER.debug("create znode {}", topicPath);
         zk.create(topicPath, data, acl, CreateMode.PERSISTENT, result -> {
@@ -87,7 +97,7 @@ public class ZkTopicStore implements TopicStore {
 
     @Override
     public void update(Topic topic, Handler<AsyncResult<Void>> handler) {
-        byte[] data = TopicSerialization.toJson(topic);
+        byte[] data = TopicSerialization.toBytes(topic, encoding);
         // TODO pass a non-zero version
         String topicPath = getTopicPath(topic.getTopicName());
         LOGGER.debug("update znode {}", topicPath);
@@ -107,4 +117,19 @@ public class ZkTopicStore implements TopicStore {
             }
         });
     }
+
+    /**
+     * The version of a topic is the {@code mzxid} of its znode, which unlike the znode's own version
+     * also changes when the topic is deleted and recreated.
+     */
+    @Override
+    public void version(TopicName topicName, Handler<AsyncResult<Long>> handler) {
+        zk.exists(getTopicPath(topicName), result -> {
+            if (result.failed() && result.cause() instanceof KeeperException.NoNodeException) {
+                handler.handle(Future.succeededFuture(-1L));
+            } else {
+                handler.handle(result.map(stat -> stat != null ? stat.getMzxid() : -1L));
+            }
+        });
+    }
 }
@@ -7,7 +7,10 @@ package io.strimzi.operator.topic;
 
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class BackOffTest {
@@ -62,4 +65,63 @@ public class BackOffTest {
         }
         assertEquals(600L, b.totalDelayMs());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testJitteredBackOff() {
+        BackOff b = new BackOff(100, 2, 6, new Random(42));
+        assertEquals(0L, b.delayMs());
+        long unjittered = 100;
+        long total = 0;
+        for (int i = 1; i < 6; i++) {
+            long delay = b.delayMs();
+            assertTrue("Delay " + delay + " should be at least " + unjittered / 2, delay >= unjittered / 2);
+            assertTrue("Delay " + delay + " should be at most " + unjittered, delay <= unjittered);
+            unjittered *= 2;
+            total += delay;
+        }
+        try {
+            b.delayMs();
+            fail("Should throw");
+        } catch (MaxAttemptsExceededException e) {
+
+        }
+        assertEquals(total, b.totalDelayMs());
+        assertEquals(7, b.attempts());
+    }
+
+    @Test
+    public void testJitteredBackOffsDiverge() {
+        Random random = new Random(42);
+        BackOff b1 = new BackOff(100, 2, 6, random);
+        BackOff b2 = new BackOff(100, 2, 6, random);
+        b1.delayMs();
+        b2.delayMs();
+        boolean diverged = false;
+        for (int i = 1; i < 6; i++) {
+            diverged |= b1.delayMs() != b2.delayMs();
+        }
+        assertTrue("Back-offs started together should not retry in lock-step", diverged);
+    }
+
+    @Test
+    public void testJitteredBackOffTotalDelay() {
+        long unjittered = new BackOff(100, 2, 6).totalDelayMs();
+        Random random = new Random(42);
+        int runs = 1000;
+        long sum = 0;
+        for (int run = 0; run < runs; run++) {
+            BackOff b = new BackOff(100, 2, 6, random);
+            for (int i = 0; i < 6; i++) {
+                b.delayMs();
+            }
+            long total = b.totalDelayMs();
+            assertTrue("Total " + total + " should be between half and all of " + unjittered,
+                    total >= unjittered / 2 && total <= unjittered);
+            sum += total;
+        }
+        // On average the delays add up to three quarters of the un-jittered total,
+        // rather than growing with each attempt
+        double mean = (double) sum / runs;
+        assertEquals(0.75 * unjittered, mean, 0.05 * unjittered);
+    }
+}
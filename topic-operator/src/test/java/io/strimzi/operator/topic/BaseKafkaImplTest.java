@@ -0,0 +1,291 @@
+/*
+ * Copyright 2017-2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.CreateTopicsOptions;
+import org.apache.kafka.clients.admin.CreateTopicsResult;
+import org.apache.kafka.clients.admin.DeleteTopicsOptions;
+import org.apache.kafka.clients.admin.DeleteTopicsResult;
+import org.apache.kafka.clients.admin.DescribeConfigsOptions;
+import org.apache.kafka.clients.admin.DescribeConfigsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsOptions;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+@RunWith(VertxUnitRunner.class)
+public class BaseKafkaImplTest {
+
+    private static final Logger LOGGER = LogManager.getLogger(BaseKafkaImplTest.class);
+
+    private static final io.strimzi.operator.topic.Config CONFIG;
+
+    static {
+        Map<String, String> map = new HashMap<>();
+        map.put(io.strimzi.operator.topic.Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
+        map.put(io.strimzi.operator.topic.Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
+        map.put(io.strimzi.operator.topic.Config.NAMESPACE.key, "default");
+        CONFIG = new io.strimzi.operator.topic.Config(map);
+    }
+
+    private final Vertx vertx = Vertx.vertx();
+
+    /**
+     * An AdminClient whose describe futures are only completed when the test says so.
+     */
+    static class PendingAdminClient extends MockAdminClient {
+
+        final Map<String, KafkaFutureImpl<TopicDescription>> descriptions = new ConcurrentHashMap<>();
+        final Map<ConfigResource, KafkaFutureImpl<Config>> configs = new ConcurrentHashMap<>();
+
+        @Override
+        public DescribeTopicsResult describeTopics(Collection<String> topicNames, DescribeTopicsOptions options) {
+            Map<String, KafkaFuture<TopicDescription>> futures = new HashMap<>();
+            for (String topicName : topicNames) {
+                futures.put(topicName, descriptions.computeIfAbsent(topicName, k -> new KafkaFutureImpl<>()));
+            }
+            return newResult(DescribeTopicsResult.class, futures);
+        }
+
+        @Override
+        public DescribeConfigsResult describeConfigs(Collection<ConfigResource> resources, DescribeConfigsOptions options) {
+            Map<ConfigResource, KafkaFuture<Config>> futures = new HashMap<>();
+            for (ConfigResource resource : resources) {
+                futures.put(resource, configs.computeIfAbsent(resource, k -> new KafkaFutureImpl<>()));
+            }
+            return newResult(DescribeConfigsResult.class, futures);
+        }
+
+        void complete(String topicName) {
+            Node node = new Node(0, "localhost", -2);
+            descriptions.get(topicName).complete(new TopicDescription(topicName, false,
+                    singletonList(new TopicPartitionInfo(0, node, singletonList(node), singletonList(node)))));
+            configs.get(new ConfigResource(ConfigResource.Type.TOPIC, topicName)).complete(
+                    new Config(singletonList(new ConfigEntry("cleanup.policy", "compact"))));
+        }
+
+        void fail(String topicName, Exception e) {
+            descriptions.get(topicName).completeExceptionally(e);
+            configs.get(new ConfigResource(ConfigResource.Type.TOPIC, topicName)).completeExceptionally(e);
+        }
+
+        private static <R> R newResult(Class<R> cls, Map<?, ?> futures) {
+            try {
+                Constructor<R> ctor = cls.getDeclaredConstructor(Map.class);
+                ctor.setAccessible(true);
+                return ctor.newInstance(futures);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * An AdminClient which records the topics in each createTopics and deleteTopics request,
+     * failing the creation of topics which already exist.
+     */
+    static class BatchRecordingAdminClient extends MockAdminClient {
+
+        final List<List<String>> creates = Collections.synchronizedList(new ArrayList<>());
+        final List<List<String>> deletes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public CreateTopicsResult createTopics(Collection<NewTopic> newTopics, CreateTopicsOptions options) {
+            List<String> names = new ArrayList<>();
+            Map<String, KafkaFuture<Void>> futures = new HashMap<>();
+            for (NewTopic newTopic : newTopics) {
+                names.add(newTopic.name());
+                KafkaFutureImpl<Void> future = new KafkaFutureImpl<>();
+                if (newTopic.name().startsWith("existing")) {
+                    future.completeExceptionally(new TopicExistsException(newTopic.name()));
+                } else {
+                    future.complete(null);
+                }
+                futures.put(newTopic.name(), future);
+            }
+            creates.add(names);
+            return PendingAdminClient.newResult(CreateTopicsResult.class, futures);
+        }
+
+        @Override
+        public DeleteTopicsResult deleteTopics(Collection<String> topicNames, DeleteTopicsOptions options) {
+            Map<String, KafkaFuture<Void>> futures = new HashMap<>();
+            for (String topicName : topicNames) {
+                futures.put(topicName, KafkaFuture.completedFuture(null));
+            }
+            deletes.add(new ArrayList<>(topicNames));
+            return PendingAdminClient.newResult(DeleteTopicsResult.class, futures);
+        }
+    }
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    @Test
+    public void testTopicMetadataCompletes(TestContext context) {
+        PendingAdminClient adminClient = new PendingAdminClient();
+        OperatorAssignedKafkaImpl kafka = new OperatorAssignedKafkaImpl(adminClient, vertx, CONFIG, null);
+        Async async = context.async(2);
+        vertx.runOnContext(v -> {
+            kafka.topicMetadata(new TopicName("exists"), ar -> {
+                context.assertTrue(ar.succeeded());
+                context.assertEquals("exists", ar.result().getDescription().name());
+                async.countDown();
+            });
+            kafka.topicMetadata(new TopicName("missing"), ar -> {
+                context.assertTrue(ar.succeeded());
+                context.assertNull(ar.result());
+                async.countDown();
+            });
+            adminClient.complete("exists");
+            adminClient.fail("missing", new UnknownTopicOrPartitionException());
+        });
+    }
+
+    /**
+     * Issues many concurrent {@code topicMetadata()} calls whose futures stay outstanding for a while,
+     * and checks that the event loop is not kept busy while waiting for them, and that all the
+     * handlers are called promptly once the futures complete.
+     */
+    @Test
+    public void testConcurrentTopicMetadataDoesNotSpin(TestContext context) throws InterruptedException {
+        final int numTopics = 2_000;
+        final long waitMs = 1_000;
+        PendingAdminClient adminClient = new PendingAdminClient();
+        OperatorAssignedKafkaImpl kafka = new OperatorAssignedKafkaImpl(adminClient, vertx, CONFIG, null);
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        AtomicLong eventLoopThreadId = new AtomicLong();
+        AtomicLong completedAt = new AtomicLong();
+        Async issued = context.async();
+        Async handled = context.async(numTopics);
+        vertx.runOnContext(v -> {
+            eventLoopThreadId.set(Thread.currentThread().getId());
+            for (int i = 0; i < numTopics; i++) {
+                kafka.topicMetadata(new TopicName("topic-" + i), ar -> {
+                    context.assertTrue(ar.succeeded());
+                    context.assertNotNull(ar.result());
+                    completedAt.set(System.nanoTime());
+                    handled.countDown();
+                });
+            }
+            issued.complete();
+        });
+        issued.awaitSuccess(10_000);
+
+        // Wait with all the futures outstanding, measuring the CPU used by the event loop
+        long cpu0 = threadMXBean.getThreadCpuTime(eventLoopThreadId.get());
+        Thread.sleep(waitMs);
+        long cpuMs = TimeUnit.NANOSECONDS.toMillis(threadMXBean.getThreadCpuTime(eventLoopThreadId.get()) - cpu0);
+
+        // Now complete the futures, measuring how long it takes for all the handlers to be called
+        long t0 = System.nanoTime();
+        for (int i = 0; i < numTopics; i++) {
+            adminClient.complete("topic-" + i);
+        }
+        handled.awaitSuccess(10_000);
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(completedAt.get() - t0);
+
+        LOGGER.info("{} outstanding topicMetadata() calls: event loop used {}ms CPU in {}ms; all handlers called within {}ms of completion",
+                numTopics, cpuMs, waitMs, latencyMs);
+        // When the futures were polled the event loop would be busy for the whole wait
+        context.assertTrue(cpuMs < waitMs / 2,
+                "Event loop used " + cpuMs + "ms of CPU in " + waitMs + "ms while waiting for outstanding futures");
+    }
+
+    @Test
+    public void testMutationsAreBatched(TestContext context) {
+        BatchRecordingAdminClient adminClient = new BatchRecordingAdminClient();
+        OperatorAssignedKafkaImpl kafka = new OperatorAssignedKafkaImpl(adminClient, vertx, null, 100, 100);
+        Async async = context.async(6);
+        vertx.runOnContext(v -> {
+            for (int i = 0; i < 5; i++) {
+                kafka.createTopic(new Topic.Builder("topic-" + i, 1).build(), ar -> {
+                    context.assertTrue(ar.succeeded());
+                    async.countDown();
+                });
+            }
+            kafka.createTopic(new Topic.Builder("existing", 1).build(), ar -> {
+                context.assertTrue(ar.failed());
+                context.assertTrue(ar.cause() instanceof TopicExistsException);
+                async.countDown();
+            });
+        });
+        async.awaitSuccess(10_000);
+        context.assertEquals(1, adminClient.creates.size());
+        context.assertEquals(6, adminClient.creates.get(0).size());
+    }
+
+    @Test
+    public void testBatchesAreLimitedInSize(TestContext context) {
+        BatchRecordingAdminClient adminClient = new BatchRecordingAdminClient();
+        OperatorAssignedKafkaImpl kafka = new OperatorAssignedKafkaImpl(adminClient, vertx, null, 60_000, 2);
+        Async async = context.async(4);
+        vertx.runOnContext(v -> {
+            for (int i = 0; i < 4; i++) {
+                kafka.deleteTopic(new TopicName("topic-" + i), ar -> {
+                    context.assertTrue(ar.succeeded());
+                    async.countDown();
+                });
+            }
+        });
+        // The batches are sent when full, long before the linger expires
+        async.awaitSuccess(10_000);
+        context.assertEquals(2, adminClient.deletes.size());
+        context.assertEquals(asList("topic-0", "topic-1"), adminClient.deletes.get(0));
+        context.assertEquals(asList("topic-2", "topic-3"), adminClient.deletes.get(1));
+    }
+
+    @Test
+    public void testSameTopicIsNotBatchedTwice(TestContext context) {
+        BatchRecordingAdminClient adminClient = new BatchRecordingAdminClient();
+        OperatorAssignedKafkaImpl kafka = new OperatorAssignedKafkaImpl(adminClient, vertx, null, 100, 100);
+        Async async = context.async(3);
+        vertx.runOnContext(v -> {
+            kafka.deleteTopic(new TopicName("a"), ar -> async.countDown());
+            kafka.deleteTopic(new TopicName("b"), ar -> async.countDown());
+            kafka.deleteTopic(new TopicName("a"), ar -> async.countDown());
+        });
+        async.awaitSuccess(10_000);
+        context.assertEquals(2, adminClient.deletes.size());
+        context.assertEquals(asList("a", "b"), adminClient.deletes.get(0));
+        context.assertEquals(singletonList("a"), adminClient.deletes.get(1));
+    }
+}
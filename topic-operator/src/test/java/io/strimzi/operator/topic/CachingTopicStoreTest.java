@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017-2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.strimzi.operator.topic.zk.ZkImpl;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+@RunWith(VertxUnitRunner.class)
+public class CachingTopicStoreTest {
+
+    private EmbeddedZooKeeper zkServer;
+
+    private Vertx vertx = Vertx.vertx();
+
+    private ZkImpl zk;
+    private ZkTopicStore zkStore;
+    private CachingTopicStore store;
+
+    private final Topic existing = new Topic.Builder("existing", 2,
+            (short) 3, Collections.singletonMap("foo", "bar")).build();
+
+    @Before
+    public void setup(TestContext context)
+            throws IOException, InterruptedException,
+            TimeoutException, ExecutionException {
+        this.zkServer = new EmbeddedZooKeeper();
+        zk = new ZkImpl(vertx, zkServer.getZkConnectString(), 60000, false);
+        this.zkStore = new ZkTopicStore(zk);
+        Async created = context.async();
+        zkStore.create(existing, ar -> {
+            context.assertTrue(ar.succeeded());
+            created.complete();
+        });
+        created.await();
+
+        this.store = new CachingTopicStore(vertx, zk, zkStore);
+        store.start();
+        awaitCondition(context, () -> store.isLoaded());
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        store.stop();
+        zk.disconnect();
+        if (this.zkServer != null) {
+            this.zkServer.close();
+        }
+        vertx.close();
+    }
+
+    private void awaitCondition(TestContext context, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                context.fail("Timeout waiting for condition");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private Topic read(TestContext context, TopicStore store, String topicName) {
+        Async async = context.async();
+        Future<Topic> result = Future.future();
+        store.read(new TopicName(topicName), ar -> {
+            context.assertTrue(ar.succeeded());
+            result.complete(ar.result());
+            async.complete();
+        });
+        async.await();
+        return result.result();
+    }
+
+    @Test
+    public void testReadsServedFromMemory(TestContext context) {
+        context.assertEquals(existing, read(context, store, "existing"));
+        context.assertNull(read(context, store, "absent"));
+        context.assertEquals(2L, store.hits());
+        context.assertEquals(0L, store.misses());
+
+        Metrics metrics = new Metrics();
+        store.registerMetrics(metrics);
+        String scrape = metrics.scrape();
+        context.assertTrue(scrape.contains("strimzi_topic_operator_topic_store_cache_hits_total 2\n"), scrape);
+        context.assertTrue(scrape.contains("strimzi_topic_operator_topic_store_cache_misses_total 0\n"), scrape);
+        context.assertTrue(scrape.contains("strimzi_topic_operator_topic_store_cache_size 1\n"), scrape);
+    }
+
+    @Test
+    public void testWriteThrough(TestContext context) {
+        Topic topic = new Topic.Builder("my_topic", 2,
+                (short) 3, Collections.singletonMap("foo", "bar")).build();
+
+        Async created = context.async();
+        store.create(topic, ar -> {
+            context.assertTrue(ar.succeeded());
+            created.complete();
+        });
+        created.await();
+        context.assertEquals(topic, read(context, store, "my_topic"));
+        context.assertEquals(topic.getNumPartitions(), read(context, zkStore, "my_topic").getNumPartitions());
+
+        Topic updated = new Topic.Builder(topic).withNumPartitions(3).build();
+        Async async = context.async();
+        store.update(updated, ar -> {
+            context.assertTrue(ar.succeeded());
+            async.complete();
+        });
+        async.await();
+        context.assertEquals(updated, read(context, store, "my_topic"));
+        context.assertEquals(3, read(context, zkStore, "my_topic").getNumPartitions());
+
+        Async deleted = context.async();
+        store.delete(updated.getTopicName(), ar -> {
+            context.assertTrue(ar.succeeded());
+            deleted.complete();
+        });
+        deleted.await();
+        context.assertNull(read(context, store, "my_topic"));
+        context.assertNull(read(context, zkStore, "my_topic"));
+
+        context.assertEquals(0L, store.misses());
+
+        // Creating it again is still an error
+        Async createdAgain = context.async();
+        store.create(existing, ar -> {
+            context.assertTrue(ar.failed());
+            context.assertTrue(ar.cause() instanceof TopicStore.EntityExistsException);
+            createdAgain.complete();
+        });
+        createdAgain.await();
+    }
+
+    @Test
+    public void testChangesByOtherWriters(TestContext context) throws InterruptedException {
+        Topic topic = new Topic.Builder("other_topic", 1,
+                (short) 1, Collections.emptyMap()).build();
+
+        // Create the topic behind the cache's back
+        Async created = context.async();
+        zkStore.create(topic, ar -> {
+            context.assertTrue(ar.succeeded());
+            created.complete();
+        });
+        created.await();
+        awaitCondition(context, () -> read(context, store, "other_topic") != null);
+        context.assertEquals(topic, read(context, store, "other_topic"));
+
+        // Delete it behind the cache's back
+        Async deleted = context.async();
+        zkStore.delete(topic.getTopicName(), ar -> {
+            context.assertTrue(ar.succeeded());
+            deleted.complete();
+        });
+        deleted.await();
+        awaitCondition(context, () -> read(context, store, "other_topic") == null);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017-2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
+import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class ConfigMapCacheTest {
+
+    private final LabelPredicate cmPredicate = LabelPredicate.fromString("kind=topic,app=strimzi");
+
+    private Vertx vertx;
+    private KubernetesClient mockClient;
+    private MixedOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> mockConfigMaps;
+    private final AtomicReference<Watcher<ConfigMap>> watcher = new AtomicReference<>();
+    private final List<String> delegateEvents = new ArrayList<>();
+    private final Watcher<ConfigMap> delegate = new Watcher<ConfigMap>() {
+        @Override
+        public void eventReceived(Action action, ConfigMap resource) {
+            synchronized (delegateEvents) {
+                delegateEvents.add(action + " " + resource.getMetadata().getName());
+            }
+        }
+
+        @Override
+        public void onClose(KubernetesClientException cause) {
+        }
+    };
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        mockClient = mock(KubernetesClient.class);
+        mockConfigMaps = mock(MixedOperation.class);
+        when(mockClient.configMaps()).thenReturn(mockConfigMaps);
+        when(mockConfigMaps.inNamespace(any())).thenReturn(mockConfigMaps);
+        when(mockConfigMaps.withLabels(any())).thenReturn(mockConfigMaps);
+        when(mockConfigMaps.withResourceVersion(any())).thenReturn(mockConfigMaps);
+        when(mockConfigMaps.watch(any())).thenAnswer(invocation -> {
+            watcher.set(invocation.getArgument(0));
+            return mock(Watch.class);
+        });
+    }
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private ConfigMap cm(String name, String resourceVersion) {
+        return new ConfigMapBuilder().withNewMetadata().withName(name).withResourceVersion(resourceVersion)
+                .withLabels(cmPredicate.labels()).endMetadata().build();
+    }
+
+    private void listResponse(String resourceVersion, ConfigMap... cms) {
+        when(mockConfigMaps.list()).thenReturn(new ConfigMapListBuilder()
+                .withNewMetadata().withResourceVersion(resourceVersion).endMetadata()
+                .addToItems(cms).build());
+    }
+
+    @Test
+    public void testListThenWatch(TestContext context) {
+        listResponse("10", cm("foo", "1"), cm("bar", "2"));
+        ConfigMapCache cache = new ConfigMapCache(vertx, mockClient, cmPredicate, "default");
+        context.assertFalse(cache.isSynced());
+
+        cache.start(delegate);
+        context.assertTrue(cache.isSynced());
+        verify(mockConfigMaps).withResourceVersion("10");
+        context.assertEquals(2, cache.list().size());
+        context.assertEquals("1", cache.get(new MapName("foo")).getMetadata().getResourceVersion());
+        context.assertNull(cache.get(new MapName("baz")));
+        // Initially all the listed maps are passed on as added
+        context.assertEquals(2, delegateEvents.size());
+        context.assertTrue(delegateEvents.contains("ADDED foo"));
+        context.assertTrue(delegateEvents.contains("ADDED bar"));
+
+        watcher.get().eventReceived(Watcher.Action.MODIFIED, cm("foo", "11"));
+        context.assertEquals("11", cache.get(new MapName("foo")).getMetadata().getResourceVersion());
+        watcher.get().eventReceived(Watcher.Action.ADDED, cm("baz", "12"));
+        context.assertNotNull(cache.get(new MapName("baz")));
+        watcher.get().eventReceived(Watcher.Action.DELETED, cm("bar", "13"));
+        context.assertNull(cache.get(new MapName("bar")));
+        context.assertEquals(2, cache.list().size());
+
+        // A map which no longer matches the predicate is no longer cached
+        watcher.get().eventReceived(Watcher.Action.MODIFIED, new ConfigMapBuilder()
+                .withNewMetadata().withName("baz").withResourceVersion("14").endMetadata().build());
+        context.assertNull(cache.get(new MapName("baz")));
+
+        context.assertEquals(6, delegateEvents.size());
+    }
+
+    @Test
+    public void testResyncOnWatchLoss(TestContext context) {
+        listResponse("10", cm("foo", "1"), cm("bar", "2"));
+        ConfigMapCache cache = new ConfigMapCache(vertx, mockClient, cmPredicate, "default", 10);
+        cache.start(delegate);
+        Watcher<ConfigMap> firstWatcher = watcher.get();
+        synchronized (delegateEvents) {
+            delegateEvents.clear();
+        }
+
+        // While the watch is down foo is modified, bar is deleted and baz is created
+        listResponse("20", cm("foo", "15"), cm("baz", "16"));
+        firstWatcher.onClose(new KubernetesClientException("Gone"));
+        context.assertFalse(cache.isSynced());
+
+        Async async = context.async();
+        vertx.setPeriodic(10, timerId -> {
+            if (cache.isSynced()) {
+                vertx.cancelTimer(timerId);
+                verify(mockConfigMaps).withResourceVersion("20");
+                context.assertNotEquals(firstWatcher, watcher.get());
+                context.assertEquals("15", cache.get(new MapName("foo")).getMetadata().getResourceVersion());
+                context.assertNull(cache.get(new MapName("bar")));
+                context.assertNotNull(cache.get(new MapName("baz")));
+                synchronized (delegateEvents) {
+                    context.assertEquals(3, delegateEvents.size());
+                    context.assertTrue(delegateEvents.contains("MODIFIED foo"));
+                    context.assertTrue(delegateEvents.contains("DELETED bar"));
+                    context.assertTrue(delegateEvents.contains("ADDED baz"));
+                }
+                async.complete();
+            }
+        });
+    }
+
+    @Test
+    public void testNoResyncAfterStop(TestContext context) {
+        listResponse("10", cm("foo", "1"));
+        ConfigMapCache cache = new ConfigMapCache(vertx, mockClient, cmPredicate, "default", 10);
+        cache.start(delegate);
+        cache.stop();
+        context.assertFalse(cache.isSynced());
+        watcher.get().onClose(new KubernetesClientException("Gone"));
+
+        Async async = context.async();
+        vertx.setTimer(100, timerId -> {
+            context.assertFalse(cache.isSynced());
+            verify(mockConfigMaps, times(1)).list();
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testK8sImplUsesSyncedCache(TestContext context) {
+        listResponse("10", cm("foo", "1"));
+        ConfigMapCache cache = new ConfigMapCache(vertx, mockClient, cmPredicate, "default");
+        K8sImpl k8s = new K8sImpl(vertx, mockClient, cmPredicate, "default", cache);
+        cache.start(delegate);
+
+        Async async = context.async(2);
+        k8s.getFromName(new MapName("foo"), ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals("1", ar.result().getMetadata().getResourceVersion());
+            async.countDown();
+        });
+        k8s.listMaps(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(1, ar.result().size());
+            async.countDown();
+        });
+        async.await();
+        // No GET was made, and the only list was the one which populated the cache
+        verify(mockConfigMaps, never()).withName(any());
+        verify(mockConfigMaps).list();
+    }
+
+    @Test
+    public void testK8sImplGetsUncachedMapFromApi(TestContext context) {
+        listResponse("10", cm("foo", "1"));
+        ConfigMap unlabelled = new ConfigMapBuilder().withNewMetadata().withName("bar").withResourceVersion("2").endMetadata().build();
+        Resource<ConfigMap, DoneableConfigMap> mockResource = mock(Resource.class);
+        when(mockConfigMaps.withName("bar")).thenReturn(mockResource);
+        when(mockResource.get()).thenReturn(unlabelled);
+        ConfigMapCache cache = new ConfigMapCache(vertx, mockClient, cmPredicate, "default");
+        K8sImpl k8s = new K8sImpl(vertx, mockClient, cmPredicate, "default", cache);
+        cache.start(delegate);
+
+        // A map with the topic's name but without the labels isn't cached, but still exists
+        Async async = context.async();
+        k8s.getFromName(new MapName("bar"), ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals("2", ar.result().getMetadata().getResourceVersion());
+            async.complete();
+        });
+        async.await();
+        verify(mockConfigMaps).withName("bar");
+    }
+}
@@ -75,4 +75,24 @@ public class ConfigTest {
         Config c = new Config(map);
         assertEquals(3, c.get(Config.TOPIC_METADATA_MAX_ATTEMPTS).intValue());
     }
+
+    @Test
+    public void topicMetadataBatchSize() {
+
+        Map<String, String> map = new HashMap<>(MANDATORY);
+        assertEquals(100, new Config(map).get(Config.TOPIC_METADATA_BATCH_SIZE).intValue());
+
+        map.put(Config.TC_TOPIC_METADATA_BATCH_SIZE, "20");
+        assertEquals(20, new Config(map).get(Config.TOPIC_METADATA_BATCH_SIZE).intValue());
+    }
+
+    @Test
+    public void partitionsScanRate() {
+
+        Map<String, String> map = new HashMap<>(MANDATORY);
+        assertEquals(100, new Config(map).get(Config.PARTITIONS_SCAN_RATE).intValue());
+
+        map.put(Config.TC_PARTITIONS_SCAN_RATE, "10");
+        assertEquals(10, new Config(map).get(Config.PARTITIONS_SCAN_RATE).intValue());
+    }
 }
@@ -4,6 +4,7 @@
  */
 package io.strimzi.operator.topic;
 
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
@@ -13,7 +14,11 @@ import org.apache.logging.log4j.Logger;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static java.util.Arrays.asList;
 
 @RunWith(VertxUnitRunner.class)
 public class InFlightTest {
@@ -122,4 +127,78 @@ public class InFlightTest {
         testTwoTasks(context);
         testTwoTasks(context);
     }
+
+    @Test
+    public void testQueuedTasksAreCoalesced(TestContext context) {
+        InFlight<String> inflight = new InFlight<>(vertx);
+        List<String> executed = new ArrayList<>();
+        AtomicReference<Future<Void>> first = new AtomicReference<>();
+        Async firstStarted = context.async();
+        Async allCompleted = context.async(4);
+        inflight.enqueue("test", fut -> {
+            executed.add("first");
+            first.set(fut);
+            firstStarted.complete();
+        }, ar -> allCompleted.countDown());
+        firstStarted.await();
+
+        // While the first is running, a burst of changes results in a single execution of the latest
+        for (String name : asList("second", "third", "fourth")) {
+            inflight.enqueue("test", fut -> {
+                executed.add(name);
+                fut.complete();
+            }, ar -> {
+                context.assertTrue(ar.succeeded());
+                allCompleted.countDown();
+            });
+        }
+        context.assertEquals(2L, inflight.coalesced());
+        vertx.runOnContext(ignored -> first.get().complete());
+        allCompleted.await();
+        context.assertEquals(asList("first", "fourth"), executed);
+    }
+
+    @Test
+    public void testPeriodicTaskIsAbsorbed(TestContext context) {
+        InFlight<String> inflight = new InFlight<>(vertx);
+        List<String> executed = new ArrayList<>();
+        AtomicReference<Future<Void>> first = new AtomicReference<>();
+        Async firstStarted = context.async();
+        Async allCompleted = context.async(3);
+        inflight.enqueue("test", fut -> {
+            first.set(fut);
+            firstStarted.complete();
+        }, ar -> allCompleted.countDown());
+        firstStarted.await();
+
+        inflight.enqueue("test", fut -> {
+            executed.add("watch");
+            fut.complete();
+        }, InFlight.Priority.WATCH, ar -> allCompleted.countDown());
+        inflight.enqueue("test", fut -> {
+            executed.add("periodic");
+            fut.complete();
+        }, InFlight.Priority.PERIODIC, ar -> allCompleted.countDown());
+        vertx.runOnContext(ignored -> first.get().complete());
+        allCompleted.await();
+        context.assertEquals(asList("watch"), executed);
+    }
+
+    @Test
+    public void testWatchTasksRunBeforePeriodicTasks(TestContext context) {
+        InFlight<String> inflight = new InFlight<>(vertx);
+        List<String> executed = new ArrayList<>();
+        Async allCompleted = context.async(3);
+        vertx.runOnContext(ignored -> {
+            // Nothing runs until this handler returns, so all three are ready together
+            for (String key : asList("a", "b", "c")) {
+                inflight.enqueue(key, fut -> {
+                    executed.add(key);
+                    fut.complete();
+                }, key.equals("b") ? InFlight.Priority.WATCH : InFlight.Priority.PERIODIC, ar -> allCompleted.countDown());
+            }
+        });
+        allCompleted.await();
+        context.assertEquals(asList("b", "a", "c"), executed);
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.debezium.kafka.KafkaCluster;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(VertxUnitRunner.class)
+public class KafkaTopicStoreIT {
+
+    private static final String STORE_TOPIC = "__strimzi_topic_operator_store";
+
+    private final Vertx vertx = Vertx.vertx();
+    private KafkaCluster kafkaCluster;
+    private AdminClient adminClient;
+    private KafkaTopicStore store;
+
+    @Before
+    public void setup() throws IOException {
+        kafkaCluster = new KafkaCluster();
+        kafkaCluster.addBrokers(1);
+        kafkaCluster.deleteDataPriorToStartup(true);
+        kafkaCluster.deleteDataUponShutdown(true);
+        kafkaCluster.usingDirectory(Files.createTempDirectory("kafka-topic-store-test").toFile());
+        kafkaCluster.startup();
+
+        Properties props = new Properties();
+        props.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaCluster.brokerList());
+        adminClient = AdminClient.create(props);
+        store = newStore(TopicSerialization.Encoding.JSON);
+    }
+
+    private KafkaTopicStore newStore(TopicSerialization.Encoding encoding) {
+        KafkaTopicStore store = new KafkaTopicStore(vertx, adminClient, kafkaCluster.brokerList(), STORE_TOPIC, encoding);
+        store.start();
+        return store;
+    }
+
+    @After
+    public void teardown() {
+        if (store != null) {
+            store.stop();
+        }
+        if (adminClient != null) {
+            adminClient.close();
+        }
+        if (kafkaCluster != null) {
+            kafkaCluster.shutdown();
+        }
+        vertx.close();
+    }
+
+    private Topic read(TestContext context, KafkaTopicStore store, String topicName) {
+        Async async = context.async();
+        Future<Topic> fut = Future.future();
+        store.read(new TopicName(topicName), ar -> {
+            context.assertTrue(ar.succeeded(), "read() should succeed");
+            fut.complete(ar.result());
+            async.complete();
+        });
+        async.await();
+        return fut.result();
+    }
+
+    @Test
+    public void testCrud(TestContext context) {
+        Topic topic = new Topic.Builder("my_topic", 2,
+                (short) 3, Collections.singletonMap("foo", "bar")).build();
+
+        // Create the topic
+        Async async0 = context.async();
+        store.create(topic, ar -> {
+            context.assertTrue(ar.succeeded());
+            async0.complete();
+        });
+        async0.await();
+
+        // Read the topic
+        assertEquals(topic, read(context, store, "my_topic"));
+
+        // try to create it again: assert an error
+        Async async1 = context.async();
+        store.create(topic, ar -> {
+            if (ar.succeeded()) {
+                context.fail("Should throw");
+            } else if (!(ar.cause() instanceof TopicStore.EntityExistsException)) {
+                context.fail(ar.cause().toString());
+            }
+            async1.complete();
+        });
+        async1.await();
+
+        // update my_topic
+        Async async2 = context.async();
+        Topic updated = new Topic.Builder(topic)
+                .withNumPartitions(3)
+                .withConfigEntry("fruit", "apple").build();
+        store.update(updated, ar -> {
+            context.assertTrue(ar.succeeded());
+            async2.complete();
+        });
+        async2.await();
+
+        // re-read it and assert equal
+        assertEquals(updated, read(context, store, "my_topic"));
+
+        // delete it
+        Async async3 = context.async();
+        store.delete(updated.getTopicName(), ar -> {
+            context.assertTrue(ar.succeeded());
+            async3.complete();
+        });
+        async3.await();
+
+        // assert we can't read it again
+        context.assertNull(read(context, store, "my_topic"));
+
+        // delete it again: assert an error
+        Async async4 = context.async();
+        store.delete(updated.getTopicName(), ar -> {
+            if (ar.succeeded()) {
+                context.fail("Should throw");
+            } else if (!(ar.cause() instanceof TopicStore.NoSuchEntityExistsException)) {
+                context.fail("Unexpected exception " + ar.cause());
+            }
+            async4.complete();
+        });
+        async4.await();
+    }
+
+    @Test
+    public void testRebuildsViewFromLog(TestContext context) {
+        Topic kept = new Topic.Builder("kept", 1, (short) 1, Collections.singletonMap("foo", "bar")).build();
+        Topic deleted = new Topic.Builder("deleted", 1, (short) 1, Collections.emptyMap()).build();
+        Topic updated = new Topic.Builder("updated", 1, (short) 1, Collections.emptyMap()).build();
+        Topic updated2 = new Topic.Builder(updated).withNumPartitions(4).build();
+
+        Async async = context.async(4);
+        store.create(kept, ar -> async.countDown());
+        store.create(deleted, ar ->
+            store.delete(deleted.getTopicName(), ar2 -> async.countDown()));
+        store.create(updated, ar ->
+            store.update(updated2, ar2 -> async.countDown()));
+        async.countDown();
+        async.await();
+
+        // A new store, writing in another encoding, should replay the same state from the log
+        store.stop();
+        store = newStore(TopicSerialization.Encoding.COMPACT);
+        assertEquals(kept, read(context, store, "kept"));
+        context.assertNull(read(context, store, "deleted"));
+        assertEquals(updated2, read(context, store, "updated"));
+        context.assertTrue(store.isLoaded());
+
+        // and can carry on from there
+        Async async2 = context.async();
+        store.create(deleted, ar -> {
+            context.assertTrue(ar.succeeded());
+            async2.complete();
+        });
+        async2.await();
+        assertEquals(deleted, read(context, store, "deleted"));
+    }
+
+    @Test
+    public void testSkipsCorruptRecords(TestContext context) throws Exception {
+        store.stop();
+        Topic good = new Topic.Builder("good", 1, (short) 1, Collections.emptyMap()).build();
+        Properties props = new Properties();
+        props.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaCluster.brokerList());
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(props, new StringSerializer(), new ByteArraySerializer())) {
+            producer.send(new ProducerRecord<>(STORE_TOPIC, "corrupt", new byte[] {'{', 'x'})).get();
+            producer.send(new ProducerRecord<>(STORE_TOPIC, "truncated", new byte[] {1, 2, 3})).get();
+            producer.send(new ProducerRecord<>(STORE_TOPIC, null, TopicSerialization.toBytes(good, TopicSerialization.Encoding.JSON))).get();
+            producer.send(new ProducerRecord<>(STORE_TOPIC, "good", TopicSerialization.toBytes(good, TopicSerialization.Encoding.JSON))).get();
+        }
+
+        // The records which can't be read are skipped, and the rest are loaded
+        store = newStore(TopicSerialization.Encoding.JSON);
+        assertEquals(good, read(context, store, "good"));
+        context.assertNull(read(context, store, "corrupt"));
+        context.assertNull(read(context, store, "truncated"));
+        context.assertTrue(store.isLoaded());
+    }
+
+    @Test
+    public void testOperationsFailOnceStopped(TestContext context) {
+        Topic topic = new Topic.Builder("my_topic", 1, (short) 1, Collections.emptyMap()).build();
+        store.stop();
+
+        // Rather than waiting for a view which is no longer being kept up to date
+        Async async = context.async();
+        store.create(topic, ar -> {
+            context.assertTrue(ar.failed());
+            context.assertTrue(ar.cause() instanceof IllegalStateException, ar.cause().toString());
+            async.complete();
+        });
+        async.await();
+        store = null;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    private ConfigMap configMap(String name) {
+        return new ConfigMapBuilder().withNewMetadata().withName(name).endMetadata().build();
+    }
+
+    @Test
+    public void testTimedProxy() {
+        Metrics metrics = new Metrics();
+        MockK8s mockK8s = new MockK8s();
+        K8s k8s = metrics.timed(K8s.class, mockK8s, "k8s");
+
+        mockK8s.setCreateResponse(new MapName("foo"), null);
+        AtomicInteger handled = new AtomicInteger();
+        k8s.createConfigMap(configMap("foo"), ar -> {
+            assertTrue(ar.succeeded());
+            handled.incrementAndGet();
+        });
+        k8s.createConfigMap(configMap("bar"), ar -> {
+            assertTrue(ar.failed());
+            handled.incrementAndGet();
+        });
+
+        assertEquals(2, handled.get());
+        Metrics.Histogram histogram = metrics.histogram("client_request_duration_seconds", "",
+                "client", "operation", "outcome");
+        assertEquals(1, histogram.count("k8s", "createConfigMap", "success"));
+        assertEquals(1, histogram.count("k8s", "createConfigMap", "failure"));
+    }
+}
@@ -190,6 +190,22 @@ public class MockKafka implements Kafka {
         handler.handle(topicMetadataRespose.apply(topicName));
     }
 
+    @Override
+    public void topicMetadata(Set<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, TopicMetadata>>> handler) {
+        Map<TopicName, TopicMetadata> result = new HashMap<>();
+        for (TopicName topicName : topicNames) {
+            AsyncResult<TopicMetadata> metadata = topicMetadataRespose.apply(topicName);
+            if (metadata.failed()) {
+                handler.handle(failedFuture(metadata.cause()));
+                return;
+            }
+            if (metadata.result() != null) {
+                result.put(topicName, metadata.result());
+            }
+        }
+        handler.handle(succeededFuture(result));
+    }
+
     @Override
     public void listTopics(Handler<AsyncResult<Set<String>>> handler) {
         handler.handle(topicsListResponse);
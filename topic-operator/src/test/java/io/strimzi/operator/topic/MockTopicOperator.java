@@ -10,12 +10,24 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 class MockTopicOperator extends TopicOperator {
 
+    private static final Config CONFIG;
+
+    static {
+        Map<String, String> map = new HashMap<>();
+        map.put(Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
+        map.put(Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
+        map.put(Config.NAMESPACE.key, "default");
+        CONFIG = new Config(map);
+    }
+
     public MockTopicOperator() {
-        super(null, null, null, null, null, null, null);
+        super(null, null, null, null, null, null, CONFIG);
     }
 
     static class MockOperatorEvent {
@@ -114,6 +126,11 @@ class MockTopicOperator extends TopicOperator {
         handler.handle(topicModifiedResult);
     }
 
+    @Override
+    public void onTopicPartitionsChanged(TopicName topicName, Map<Integer, List<Integer>> assignment, Handler<AsyncResult<Void>> handler) {
+        onTopicPartitionsChanged(topicName, handler);
+    }
+
     @Override
     public void onConfigMapAdded(ConfigMap cm, Handler<AsyncResult<Void>> resultHandler) {
         mockOperatorEvents.add(new MockOperatorEvent(MockOperatorEvent.Type.CREATE, cm));
@@ -16,6 +16,8 @@ import java.util.function.Function;
 public class MockTopicStore implements TopicStore {
 
     private Map<TopicName, Topic> topics = new HashMap<>();
+    private Map<TopicName, Long> versions = new HashMap<>();
+    private long version = 0;
     private Function<TopicName, AsyncResult<Void>> createTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a createTopicResponse configured.");
     private Function<TopicName, AsyncResult<Void>> deleteTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a deleteTopicResponse configured.");
     private Function<TopicName, AsyncResult<Void>> updateTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a updateTopicResponse configured.");
@@ -34,6 +36,7 @@ public class MockTopicStore implements TopicStore {
             if (old != null) {
                 handler.handle(Future.failedFuture(new TopicStore.EntityExistsException()));
             }
+            versions.put(topic.getTopicName(), ++version);
         }
         handler.handle(response);
     }
@@ -41,6 +44,7 @@ public class MockTopicStore implements TopicStore {
     @Override
     public void update(Topic topic, Handler<AsyncResult<Void>> handler) {
         Topic old = topics.put(topic.getTopicName(), topic);
+        versions.put(topic.getTopicName(), ++version);
         if (old != null) {
             handler.handle(Future.succeededFuture());
         } else {
@@ -53,6 +57,7 @@ public class MockTopicStore implements TopicStore {
         AsyncResult<Void> response = deleteTopicResponse.apply(topicName);
         if (response.succeeded()) {
             Topic topic = topics.remove(topicName);
+            versions.put(topicName, ++version);
             if (topic == null) {
                 handler.handle(Future.failedFuture(new TopicStore.NoSuchEntityExistsException()));
             }
@@ -60,6 +65,11 @@ public class MockTopicStore implements TopicStore {
         handler.handle(response);
     }
 
+    @Override
+    public void version(TopicName topicName, Handler<AsyncResult<Long>> handler) {
+        handler.handle(Future.succeededFuture(versions.getOrDefault(topicName, -1L)));
+    }
+
     public void assertExists(TestContext context, TopicName topicName) {
         context.assertTrue(topics.containsKey(topicName));
     }
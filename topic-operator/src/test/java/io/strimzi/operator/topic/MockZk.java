@@ -22,10 +22,15 @@ class MockZk implements Zk {
     public AsyncResult<Void> setDataResult = Future.failedFuture("Unexpected mock interaction. Configure " + getClass().getSimpleName() + ".setDataResult");
     public AsyncResult<List<String>> childrenResult = Future.failedFuture("Unexpected mock interaction. Configure " + getClass().getSimpleName() + ".childrenResult");
     public AsyncResult<byte[]> dataResult = Future.failedFuture("Unexpected mock interaction. Configure " + getClass().getSimpleName() + ".dataResult");
-    private Handler<AsyncResult<List<String>>> childrenHandler;
+    /** Results of {@link #children(String, Handler)} for particular paths, overriding {@link #childrenResult}. */
+    public Map<String, AsyncResult<List<String>>> childrenResults = new HashMap<>();
+    /** Results of {@link #getData(String, Handler)} for particular paths, overriding {@link #dataResult}. */
+    public Map<String, AsyncResult<byte[]>> dataResults = new HashMap<>();
+    private Map<String, Handler<AsyncResult<List<String>>>> childrenHandlers = new HashMap<>();
     private Map<String, Handler<AsyncResult<byte[]>>> dataHandlers = new HashMap<>();
 
-    public void triggerChildren(AsyncResult<List<String>> childrenResult) {
+    public void triggerChildren(String path, AsyncResult<List<String>> childrenResult) {
+        Handler<AsyncResult<List<String>>> childrenHandler = childrenHandlers.get(path);
         if (childrenHandler != null) {
             childrenHandler.handle(childrenResult);
         }
@@ -33,8 +38,8 @@ class MockZk implements Zk {
 
     public void triggerData(AsyncResult<byte[]> dataResult) {
         if (!dataHandlers.isEmpty()) {
-            for (Handler<AsyncResult<byte[]>> handler: dataHandlers.values()) {
-                handler.handle(dataResult);
+            for (Map.Entry<String, Handler<AsyncResult<byte[]>>> entry: dataHandlers.entrySet()) {
+                entry.getValue().handle(dataResults.getOrDefault(entry.getKey(), dataResult));
             }
         }
     }
@@ -58,25 +63,25 @@ class MockZk implements Zk {
 
     @Override
     public Zk children(String path, Handler<AsyncResult<List<String>>> handler) {
-        handler.handle(childrenResult);
+        handler.handle(childrenResults.getOrDefault(path, childrenResult));
         return this;
     }
 
     @Override
     public Zk watchChildren(String path, Handler<AsyncResult<List<String>>> watcher) {
-        childrenHandler = watcher;
+        childrenHandlers.put(path, watcher);
         return this;
     }
 
     @Override
     public Zk unwatchChildren(String path) {
-        childrenHandler = null;
+        childrenHandlers.remove(path);
         return this;
     }
 
     @Override
     public Zk getData(String path, Handler<AsyncResult<byte[]>> handler) {
-        handler.handle(dataResult);
+        handler.handle(dataResults.getOrDefault(path, dataResult));
         return this;
     }
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018, Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi.operator.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class TopicMetadataRetrySchedulerTest {
+
+    private final Vertx vertx = Vertx.vertx();
+
+    /** A MockKafka which records the topics in each batched metadata request. */
+    static class RecordingKafka extends MockKafka {
+        final List<Set<TopicName>> batches = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger singles = new AtomicInteger();
+
+        @Override
+        public void topicMetadata(Set<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, TopicMetadata>>> handler) {
+            batches.add(topicNames);
+            super.topicMetadata(topicNames, handler);
+        }
+
+        @Override
+        public void topicMetadata(TopicName topicName, Handler<AsyncResult<TopicMetadata>> handler) {
+            singles.incrementAndGet();
+            super.topicMetadata(topicName, handler);
+        }
+    }
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    @Test
+    public void testDueRetriesAreBatched(TestContext context) {
+        RecordingKafka kafka = new RecordingKafka();
+        kafka.setTopicMetadataResponse(t -> t.toString().startsWith("missing")
+                ? Future.succeededFuture(null)
+                : Future.succeededFuture(Utils.getTopicMetadata(t.toString(),
+                        new org.apache.kafka.clients.admin.Config(Collections.emptyList()))));
+        TopicMetadataRetryScheduler scheduler = new TopicMetadataRetryScheduler(vertx, kafka);
+
+        Async async = context.async(5);
+        for (int i = 0; i < 4; i++) {
+            scheduler.schedule(new TopicName("topic-" + i), 100 + i, ar -> {
+                context.assertTrue(ar.succeeded());
+                context.assertNotNull(ar.result());
+                async.countDown();
+            });
+        }
+        scheduler.schedule(new TopicName("missing"), 100, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertNull(ar.result());
+            async.countDown();
+        });
+        context.assertEquals(5, scheduler.pending());
+        async.awaitSuccess(10_000);
+
+        context.assertEquals(1, kafka.batches.size());
+        context.assertEquals(5, kafka.batches.get(0).size());
+        context.assertEquals(0, kafka.singles.get());
+        context.assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    public void testLaterRetriesAreNotBatched(TestContext context) {
+        RecordingKafka kafka = new RecordingKafka();
+        kafka.setTopicMetadataResponse(t -> Future.succeededFuture(null));
+        TopicMetadataRetryScheduler scheduler = new TopicMetadataRetryScheduler(vertx, kafka);
+
+        Async async = context.async(2);
+        scheduler.schedule(new TopicName("later"), 500, ar -> async.countDown());
+        // Scheduling an earlier retry re-arms the timer
+        scheduler.schedule(new TopicName("sooner"), 1, ar -> {
+            context.assertEquals(1, scheduler.pending());
+            async.countDown();
+        });
+        async.awaitSuccess(10_000);
+
+        context.assertEquals(2, kafka.batches.size());
+        context.assertEquals(Collections.singleton(new TopicName("sooner")), kafka.batches.get(0));
+        context.assertEquals(Collections.singleton(new TopicName("later")), kafka.batches.get(1));
+    }
+
+    @Test
+    public void testFailedBatchIsRetriedSeparately(TestContext context) {
+        RecordingKafka kafka = new RecordingKafka();
+        kafka.setTopicMetadataResponse(t -> t.toString().equals("bad")
+                ? Future.failedFuture(new RuntimeException("bad"))
+                : Future.succeededFuture(null));
+        TopicMetadataRetryScheduler scheduler = new TopicMetadataRetryScheduler(vertx, kafka);
+
+        Async async = context.async(2);
+        scheduler.schedule(new TopicName("bad"), 10, ar -> {
+            context.assertTrue(ar.failed());
+            async.countDown();
+        });
+        scheduler.schedule(new TopicName("good"), 10, ar -> {
+            context.assertTrue(ar.succeeded());
+            async.countDown();
+        });
+        async.awaitSuccess(10_000);
+
+        context.assertEquals(1, kafka.batches.size());
+        context.assertEquals(2, kafka.singles.get());
+    }
+}
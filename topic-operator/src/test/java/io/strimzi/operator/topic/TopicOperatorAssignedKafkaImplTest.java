@@ -4,268 +4,484 @@
  */
 package io.strimzi.operator.topic;
 
+import io.strimzi.operator.topic.zk.AclBuilder;
+import io.strimzi.operator.topic.zk.ZkImpl;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
-import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeTopicsOptions;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
 
 @RunWith(VertxUnitRunner.class)
 public class TopicOperatorAssignedKafkaImplTest {
 
-    private static Config config;
+    private static final Logger LOGGER = LogManager.getLogger(TopicOperatorAssignedKafkaImplTest.class);
 
-    static {
+    private static final Map<String, String> MANDATORY_CONFIG = new HashMap<>();
 
-        Map<String, String> map = new HashMap<>();
-        map.put(Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
-        map.put(Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
-        map.put(Config.NAMESPACE.key, "default");
-        map.put(Config.REASSIGN_VERIFY_INTERVAL_MS.key, "1000");
-        config = new Config(map);
+    static {
+        MANDATORY_CONFIG.put(Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
+        MANDATORY_CONFIG.put(Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
+        MANDATORY_CONFIG.put(Config.NAMESPACE.key, "default");
+        MANDATORY_CONFIG.put(Config.REASSIGN_VERIFY_INTERVAL_MS.key, "1000");
     }
 
+    private EmbeddedZooKeeper zkServer;
+    private Vertx vertx = Vertx.vertx();
+    private ZkImpl zk;
+
     /**
-     * We subclass the class under test so that we can run our own executable
-     * rather than the real ReassignPartitionsCommand. This allows us to test
-     * various scenarios without needing ZK+Kafka clusters deployed.
+     * An AdminClient which describes topics whose partitions each have the given replicas.
+     * The cluster has brokers 0, 1 and 2.
      */
-    static class Subclass extends OperatorAssignedKafkaImpl {
+    static class DescribingAdminClient extends MockAdminClient {
 
-        static List<String> fail(String message) {
-            return asList("--fail", message);
-        }
+        private final Map<String, List<List<Integer>>> topics = new HashMap<>();
 
-        static List<String> generate(String current, String propose) {
-            return asList("--generate-current", current, "--generate-propose", propose);
+        DescribingAdminClient withTopic(String topicName, List<List<Integer>> partitionReplicas) {
+            topics.put(topicName, partitionReplicas);
+            return this;
         }
 
-        static List<String> executeStarted() {
-            return asList("--execute-started");
-        }
-
-        static List<String> verifyInProgress(String... partitions) {
-            List<String> result = new ArrayList(2 * partitions.length);
-            for (String partition: partitions) {
-                result.add("--verify-in-progress");
-                result.add(partition);
+        @Override
+        public DescribeTopicsResult describeTopics(Collection<String> topicNames, DescribeTopicsOptions options) {
+            Map<String, KafkaFuture<TopicDescription>> futures = new HashMap<>();
+            for (String topicName : topicNames) {
+                List<TopicPartitionInfo> partitions = new ArrayList<>();
+                List<List<Integer>> partitionReplicas = topics.get(topicName);
+                for (int partition = 0; partition < partitionReplicas.size(); partition++) {
+                    List<Node> replicas = nodes(partitionReplicas.get(partition));
+                    partitions.add(new TopicPartitionInfo(partition, replicas.get(0), replicas, replicas));
+                }
+                futures.put(topicName, KafkaFutureImpl.completedFuture(new TopicDescription(topicName, false, partitions)));
             }
-            return result;
-        }
-
-        static List<String> verifySuccess(String... partitions) {
-            List<String> result = new ArrayList(2 * partitions.length);
-            for (String partition: partitions) {
-                result.add("--verify-success");
-                result.add(partition);
+            try {
+                Constructor<DescribeTopicsResult> ctor = DescribeTopicsResult.class.getDeclaredConstructor(Map.class);
+                ctor.setAccessible(true);
+                return ctor.newInstance(futures);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
             }
-            return result;
-        }
-
-        static List<String> verifyFail(String message) {
-            return asList("--verify-fail", message);
-        }
-
-        static List<String> executeFail(String message) {
-            return asList("--execute-fail", message);
         }
+    }
 
-        static List<String> executeInProgress() {
-            return asList("--execute-running");
-        }
-
-        public static final String SCRIPT = "src/test/scripts/reassign.sh";
-        private final List<List<String>> args;
-        private final String script;
-        private int i = 0;
-
-        public Subclass(AdminClient adminClient, Vertx vertx, Config config, List<List<String>> args) {
-            this(adminClient, vertx, config, SCRIPT, args);
+    private static List<Node> nodes(List<Integer> ids) {
+        List<Node> nodes = new ArrayList<>();
+        for (Integer id : ids) {
+            nodes.add(new Node(id, "localhost", -2));
         }
+        return nodes;
+    }
 
-        public Subclass(AdminClient adminClient, Vertx vertx, Config config, String script, List<List<String>> args) {
-            super(adminClient, vertx, config);
-            this.script = script;
-            this.args = args;
+    @Before
+    public void setup(TestContext context) throws IOException, InterruptedException {
+        this.zkServer = new EmbeddedZooKeeper();
+        zk = new ZkImpl(vertx, zkServer.getZkConnectString(), 60000, false);
+        for (String path : asList("/admin", "/config", "/config/changes", "/config/topics", "/config/brokers")) {
+            create(context, path, null);
         }
+    }
 
-        @Override
-        protected void addJavaArgs(List<String> args) {
-            args.add(script);
-            args.addAll(this.args.get(i++));
+    @After
+    public void teardown() throws InterruptedException {
+        zk.disconnect();
+        if (this.zkServer != null) {
+            this.zkServer.close();
         }
+        vertx.close();
     }
 
-    @Test
-    public void changeReplicationFactor_missingExecutable(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        final String doesNotExist = "/some/executable/that/does/not/exist";
-        Subclass sub = new Subclass(adminClient, vertx, config, doesNotExist, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
+    private void create(TestContext context, String path, String data) {
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            context.assertFalse(ar.succeeded());
-            final String message = ar.cause().getMessage();
-            context.assertTrue(message.contains("lacks an executable arg[0]")
-                    && message.contains("/some/executable/that/does/not/exist"));
-            async.complete();
-        });
+        zk.create(path, data == null ? null : data.getBytes(StandardCharsets.UTF_8),
+                new AclBuilder().setWorld(AclBuilder.Permission.values()).build(), CreateMode.PERSISTENT, ar -> {
+                    context.assertTrue(ar.succeeded(), String.valueOf(ar.cause()));
+                    async.complete();
+                });
+        async.await();
     }
 
-    @Test
-    public void changeReplicationFactor_notExecutable(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, "pom.xml", asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
+    private String getData(TestContext context, String path) {
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            context.assertFalse(ar.succeeded());
-            final String message = ar.cause().getMessage();
-            context.assertTrue(message.contains("lacks an executable arg[0]")
-                && message.contains("pom.xml"));
+        Future<String> result = Future.future();
+        zk.getData(path, ar -> {
+            if (ar.succeeded()) {
+                result.complete(new String(ar.result(), StandardCharsets.UTF_8));
+            } else {
+                context.assertTrue(ar.cause() instanceof KeeperException.NoNodeException);
+                result.complete(null);
+            }
             async.complete();
         });
+        async.await();
+        return result.result();
     }
 
-    @Test
-    public void changeReplicationFactor(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
+    /** Wait for the reassignment znode to be created, then delete it, as the controller would once the reassignment finished. */
+    private String completeReassignment(TestContext context) throws InterruptedException {
+        String json = null;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (json == null) {
+            if (System.currentTimeMillis() > deadline) {
+                context.fail("Timeout waiting for " + PartitionReassigner.REASSIGN_PARTITIONS_PATH);
+            }
+            Thread.sleep(10);
+            json = getData(context, PartitionReassigner.REASSIGN_PARTITIONS_PATH);
+        }
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
+        zk.delete(PartitionReassigner.REASSIGN_PARTITIONS_PATH, -1, ar -> {
             context.assertTrue(ar.succeeded());
             async.complete();
         });
+        async.await();
+        return json;
+    }
+
+    private OperatorAssignedKafkaImpl kafka(DescribingAdminClient adminClient, Map<String, String> extraConfig) {
+        Map<String, String> map = new HashMap<>(MANDATORY_CONFIG);
+        map.putAll(extraConfig);
+        return new OperatorAssignedKafkaImpl(adminClient, vertx, new Config(map), zk);
     }
 
-    /**
-     * Test the case where an error happens during --verify execution.
-     * We should retry until we succeed (or (TODO) a timeout happens).
-     * We handle this differently from case of error in --execute because we need to ensure throttles get removed.
-     */
     @Test
-    public void changeReplicationFactor_TransientErrorInVerify(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.fail("Bang!"),
-                Subclass.verifySuccess(partitions)));
+    public void changeReplicationFactor(TestContext context) throws InterruptedException {
+        DescribingAdminClient adminClient = new DescribingAdminClient()
+                .withTopic("my-topic", asList(asList(0), asList(1)));
+        OperatorAssignedKafkaImpl kafka = kafka(adminClient, emptyMap());
+        Topic topic = new Topic.Builder("my-topic", 2, (short) 2, emptyMap()).build();
+
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            // We should retry anf ultimately succeed
-            context.assertTrue(ar.succeeded());
+        kafka.changeReplicationFactor(topic, ar -> {
+            context.assertTrue(ar.succeeded(), String.valueOf(ar.cause()));
             async.complete();
         });
+        String json = completeReassignment(context);
+        context.assertEquals("{\"version\":1,\"partitions\":["
+                + "{\"topic\":\"my-topic\",\"partition\":0,\"replicas\":[0,2]},"
+                + "{\"topic\":\"my-topic\",\"partition\":1,\"replicas\":[1,2]}]}", json);
+        async.await();
     }
 
     @Test
-    public void changeReplicationFactor_ErrorInVerify(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifyFail("Bang!"),
-                Subclass.verifySuccess(partitions)));
+    public void changeReplicationFactor_throttled(TestContext context) throws InterruptedException {
+        create(context, "/config/topics/my-topic", "{\"version\":1,\"config\":{\"retention.ms\":\"1000\"}}");
+        DescribingAdminClient adminClient = new DescribingAdminClient()
+                .withTopic("my-topic", asList(asList(0), asList(1)));
+        OperatorAssignedKafkaImpl kafka = kafka(adminClient, singletonMap(Config.REASSIGN_THROTTLE.key, "1000"));
+        Topic topic = new Topic.Builder("my-topic", 2, (short) 2, emptyMap()).build();
+
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            // We should retry anf ultimately succeed
-            context.assertTrue(ar.succeeded());
+        kafka.changeReplicationFactor(topic, ar -> {
+            context.assertTrue(ar.succeeded(), String.valueOf(ar.cause()));
             async.complete();
         });
+        // Wait for the reassignment to start, then check the throttles
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (getData(context, PartitionReassigner.REASSIGN_PARTITIONS_PATH) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                context.fail("Timeout waiting for " + PartitionReassigner.REASSIGN_PARTITIONS_PATH);
+            }
+            Thread.sleep(10);
+        }
+        context.assertEquals("{\"version\":1,\"config\":{\"retention.ms\":\"1000\","
+                + "\"leader.replication.throttled.replicas\":\"0:0,1:1\","
+                + "\"follower.replication.throttled.replicas\":\"0:2,1:2\"}}",
+                getData(context, "/config/topics/my-topic"));
+        context.assertEquals("{\"version\":1,\"config\":{"
+                + "\"leader.replication.throttled.rate\":\"1000\","
+                + "\"follower.replication.throttled.rate\":\"1000\"}}",
+                getData(context, "/config/brokers/2"));
+
+        completeReassignment(context);
+        async.await();
+
+        // The throttles have been removed
+        context.assertEquals("{\"version\":1,\"config\":{\"retention.ms\":\"1000\"}}",
+                getData(context, "/config/topics/my-topic"));
+        context.assertEquals("{\"version\":1,\"config\":{}}",
+                getData(context, "/config/brokers/2"));
     }
 
     /**
-     * Test the case where the --gexecute execution fails because a reassignment is currently running.
+     * Test the case where a reassignment we didn't start is currently running.
      * We should give up and fail the handler, on the basis that we will retry later as a result of
      * periodic reconciliation.
      */
     @Test
-    public void changeReplicationFactor_ExecuteInProgress(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeInProgress(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
+    public void changeReplicationFactor_ExistingReassignment(TestContext context) {
+        create(context, PartitionReassigner.REASSIGN_PARTITIONS_PATH, "{\"version\":1,\"partitions\":[]}");
+        DescribingAdminClient adminClient = new DescribingAdminClient()
+                .withTopic("my-topic", asList(asList(0), asList(1)));
+        OperatorAssignedKafkaImpl kafka = kafka(adminClient, emptyMap());
+        Topic topic = new Topic.Builder("my-topic", 2, (short) 2, emptyMap()).build();
+
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
+        kafka.changeReplicationFactor(topic, ar -> {
             context.assertFalse(ar.succeeded());
-            context.assertEquals("Reassigment failed: There is an existing assignment running.", ar.cause().getMessage());
+            context.assertTrue(ar.cause() instanceof TransientOperatorException);
+            context.assertEquals("Reassignment failed: There is an existing assignment running.", ar.cause().getMessage());
             async.complete();
         });
     }
 
     /**
-     * Test the case where something goes wrong with the initial --generate execution.
-     * We should give up and fail the handler, on the basis that we will retry later as a result of
-     * periodic reconciliation.
+     * Test that reassignments requested while one is in progress are executed together.
      */
     @Test
-    public void changeReplicationFactor_ExecuteFail(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeFail("Bang!"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
-        Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            context.assertFalse(ar.succeeded());
-            context.assertTrue(ar.cause().getMessage().contains("Failed to reassign partitions"));
-            async.complete();
+    public void changeReplicationFactor_batched(TestContext context) throws InterruptedException {
+        DescribingAdminClient adminClient = new DescribingAdminClient()
+                .withTopic("topic-a", asList(asList(0, 1)))
+                .withTopic("topic-b", asList(asList(0, 1)))
+                .withTopic("topic-c", asList(asList(2)));
+        OperatorAssignedKafkaImpl kafka = kafka(adminClient, emptyMap());
+
+        Async first = context.async();
+        kafka.changeReplicationFactor(new Topic.Builder("topic-a", 1, (short) 1, emptyMap()).build(), ar -> {
+            context.assertTrue(ar.succeeded(), String.valueOf(ar.cause()));
+            first.complete();
         });
+        context.assertEquals("{\"version\":1,\"partitions\":["
+                + "{\"topic\":\"topic-a\",\"partition\":0,\"replicas\":[0]}]}", completeReassignmentAfter(context, () -> {
+                    Async rest = context.async(2);
+                    kafka.changeReplicationFactor(new Topic.Builder("topic-b", 1, (short) 1, emptyMap()).build(), ar -> {
+                        context.assertTrue(ar.succeeded(), String.valueOf(ar.cause()));
+                        rest.countDown();
+                    });
+                    kafka.changeReplicationFactor(new Topic.Builder("topic-c", 1, (short) 3, emptyMap()).build(), ar -> {
+                        context.assertTrue(ar.succeeded(), String.valueOf(ar.cause()));
+                        rest.countDown();
+                    });
+                    return rest;
+                }));
+        first.await();
+    }
+
+    /**
+     * Wait for the first reassignment to start, then make more requests with the given action, then
+     * complete the first reassignment and check the remaining requests are executed as a single reassignment.
+     * Returns the JSON of the first reassignment.
+     */
+    private String completeReassignmentAfter(TestContext context, Supplier<Async> action) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (getData(context, PartitionReassigner.REASSIGN_PARTITIONS_PATH) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                context.fail("Timeout waiting for " + PartitionReassigner.REASSIGN_PARTITIONS_PATH);
+            }
+            Thread.sleep(10);
+        }
+        Async rest = action.get();
+        // Give the queued requests time to describe their topics
+        Thread.sleep(500);
+        String firstJson = completeReassignment(context);
+        String secondJson = completeReassignment(context);
+        // The order of the partitions depends on the order in which the requests were queued
+        context.assertTrue(secondJson.contains("{\"topic\":\"topic-b\",\"partition\":0,\"replicas\":[0]}"), secondJson);
+        context.assertTrue(secondJson.contains("{\"topic\":\"topic-c\",\"partition\":0,\"replicas\":[2,0,1]}"), secondJson);
+        rest.await();
+        return firstJson;
+    }
+
+    @Test
+    public void proposeAssignment(TestContext context) {
+        List<Node> brokers = nodes(asList(0, 1, 2, 3));
+        TopicDescription description = new TopicDescription("t", false, asList(
+                new TopicPartitionInfo(0, null, nodes(asList(3, 1)), nodes(asList(3, 1))),
+                new TopicPartitionInfo(1, null, nodes(asList(0, 2)), nodes(asList(0, 2)))));
+
+        // Decreasing keeps the preferred leader
+        Map<TopicPartition, List<Integer>> decreased = OperatorAssignedKafkaImpl.proposeAssignment(description, brokers, 1);
+        context.assertEquals(asList(3), decreased.get(new TopicPartition("t", 0)));
+        context.assertEquals(asList(0), decreased.get(new TopicPartition("t", 1)));
+
+        // Increasing keeps the existing replicas
+        Map<TopicPartition, List<Integer>> increased = OperatorAssignedKafkaImpl.proposeAssignment(description, brokers, 3);
+        context.assertEquals(asList(3, 1, 0), increased.get(new TopicPartition("t", 0)));
+        context.assertEquals(asList(0, 2, 1), increased.get(new TopicPartition("t", 1)));
+
+        // Unchanged partitions are not reassigned
+        context.assertTrue(OperatorAssignedKafkaImpl.proposeAssignment(description, brokers, 2).isEmpty());
+
+        try {
+            OperatorAssignedKafkaImpl.proposeAssignment(description, brokers, 5);
+            context.fail("Should throw");
+        } catch (OperatorException e) {
+            // expected
+        }
+    }
+
+    /** The size of each partition in the simulated clusters. */
+    private static final long PARTITION_BYTES = 1L << 30;
+
+    /** 50 brokers in 5 racks. */
+    private static List<Node> rackedBrokers() {
+        List<Node> brokers = new ArrayList<>();
+        for (int id = 0; id < 50; id++) {
+            brokers.add(new Node(id, "localhost", -2, "rack-" + id % 5));
+        }
+        return brokers;
+    }
+
+    /**
+     * Simulates the assignment generated by {@code kafka-reassign-partitions.sh --generate}
+     * (i.e. Kafka's rack unaware {@code AdminUtils.assignReplicasToBrokers()}).
+     */
+    private static List<List<Integer>> generatedAssignment(int numBrokers, int numPartitions, int numReplicas, Random random) {
+        List<List<Integer>> result = new ArrayList<>();
+        int startIndex = random.nextInt(numBrokers);
+        int nextReplicaShift = random.nextInt(numBrokers);
+        for (int partition = 0; partition < numPartitions; partition++) {
+            if (partition > 0 && partition % numBrokers == 0) {
+                nextReplicaShift++;
+            }
+            int firstReplicaIndex = (partition + startIndex) % numBrokers;
+            List<Integer> replicas = new ArrayList<>();
+            replicas.add(firstReplicaIndex);
+            for (int j = 0; j < numReplicas - 1; j++) {
+                int shift = 1 + (nextReplicaShift + j) % (numBrokers - 1);
+                replicas.add((firstReplicaIndex + shift) % numBrokers);
+            }
+            result.add(replicas);
+        }
+        return result;
+    }
+
+    private static TopicDescription description(String topicName, List<List<Integer>> assignment) {
+        List<TopicPartitionInfo> partitions = new ArrayList<>();
+        for (int partition = 0; partition < assignment.size(); partition++) {
+            List<Node> replicas = nodes(assignment.get(partition));
+            partitions.add(new TopicPartitionInfo(partition, replicas.get(0), replicas, replicas));
+        }
+        return new TopicDescription(topicName, false, partitions);
     }
 
+    /** The number of bytes copied to brokers which are replicas in the proposed assignment but not the current one. */
+    private static long bytesMoved(List<List<Integer>> current, Map<TopicPartition, List<Integer>> proposed) {
+        long moved = 0;
+        for (Map.Entry<TopicPartition, List<Integer>> entry : proposed.entrySet()) {
+            List<Integer> currentReplicas = current.get(entry.getKey().partition());
+            for (Integer replica : entry.getValue()) {
+                if (!currentReplicas.contains(replica)) {
+                    moved += PARTITION_BYTES;
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static Map<TopicPartition, List<Integer>> asProposal(String topicName, List<List<Integer>> assignment) {
+        Map<TopicPartition, List<Integer>> result = new LinkedHashMap<>();
+        for (int partition = 0; partition < assignment.size(); partition++) {
+            result.put(new TopicPartition(topicName, partition), assignment.get(partition));
+        }
+        return result;
+    }
+
+    private static void assertPlacement(TestContext context, List<Node> brokers, List<List<Integer>> current,
+                                        Map<TopicPartition, List<Integer>> proposed, int numReplicas) {
+        Map<Integer, String> racks = new HashMap<>();
+        Map<Integer, Integer> load = new HashMap<>();
+        for (Node broker : brokers) {
+            racks.put(broker.id(), broker.rack());
+            load.put(broker.id(), 0);
+        }
+        context.assertEquals(current.size(), proposed.size());
+        for (Map.Entry<TopicPartition, List<Integer>> entry : proposed.entrySet()) {
+            List<Integer> replicas = entry.getValue();
+            context.assertEquals(numReplicas, replicas.size());
+            // The preferred leader is unchanged
+            context.assertEquals(current.get(entry.getKey().partition()).get(0), replicas.get(0));
+            // Replicas are added in racks without a replica of the partition, and dropped from racks with
+            // more than one (the generated assignments are not rack aware, so may already share a rack)
+            List<Integer> currentReplicas = current.get(entry.getKey().partition());
+            Set<String> currentRacks = new HashSet<>();
+            for (Integer replica : currentReplicas) {
+                currentRacks.add(racks.get(replica));
+            }
+            Set<String> partitionRacks = new HashSet<>();
+            for (Integer replica : replicas) {
+                partitionRacks.add(racks.get(replica));
+                load.put(replica, load.get(replica) + 1);
+            }
+            context.assertEquals(Math.min(numReplicas, currentRacks.size() + Math.max(0, numReplicas - currentReplicas.size())),
+                    partitionRacks.size(), "Racks of replicas " + replicas);
+        }
+        int max = Collections.max(load.values());
+        int min = Collections.min(load.values());
+        context.assertTrue(max - min <= 2, "Unbalanced replica counts " + load);
+    }
+
+    @Test
+    public void proposeAssignmentIncreaseMovesLessThanGenerated(TestContext context) {
+        List<Node> brokers = rackedBrokers();
+        Random random = new Random(42);
+        List<List<Integer>> current = generatedAssignment(brokers.size(), 200, 2, random);
+
+        Map<TopicPartition, List<Integer>> planned = OperatorAssignedKafkaImpl.proposeAssignment(
+                description("t", current), brokers, 3);
+        long plannedBytes = bytesMoved(current, planned);
+        long generatedBytes = bytesMoved(current, asProposal("t", generatedAssignment(brokers.size(), 200, 3, random)));
+        LOGGER.info("Increasing replication factor 2->3 moves {} bytes, compared with {} bytes for a generated assignment",
+                plannedBytes, generatedBytes);
+
+        // Exactly one new replica per partition is the least possible
+        context.assertEquals(200 * PARTITION_BYTES, plannedBytes);
+        context.assertTrue(plannedBytes * 2 < generatedBytes);
+        assertPlacement(context, brokers, current, planned, 3);
+    }
+
+    @Test
+    public void proposeAssignmentDecreaseMovesNothing(TestContext context) {
+        List<Node> brokers = rackedBrokers();
+        Random random = new Random(42);
+        List<List<Integer>> current = new ArrayList<>();
+        for (List<Integer> replicas : OperatorAssignedKafkaImpl.proposeAssignment(
+                description("t", generatedAssignment(brokers.size(), 200, 2, random)), brokers, 4).values()) {
+            current.add(replicas);
+        }
+
+        Map<TopicPartition, List<Integer>> planned = OperatorAssignedKafkaImpl.proposeAssignment(
+                description("t", current), brokers, 3);
+        long generatedBytes = bytesMoved(current, asProposal("t", generatedAssignment(brokers.size(), 200, 3, random)));
+        LOGGER.info("Decreasing replication factor 4->3 moves 0 bytes, compared with {} bytes for a generated assignment",
+                generatedBytes);
+
+        context.assertEquals(0L, bytesMoved(current, planned));
+        context.assertTrue(generatedBytes > 0);
+        assertPlacement(context, brokers, current, planned, 3);
+    }
 }
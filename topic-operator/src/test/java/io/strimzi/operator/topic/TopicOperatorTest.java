@@ -22,13 +22,20 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 
 @RunWith(VertxUnitRunner.class)
 public class TopicOperatorTest {
@@ -347,6 +354,77 @@ public class TopicOperatorTest {
         });
     }
 
+    private static Map<Integer, List<Integer>> assignment(int numPartitions) {
+        Map<Integer, List<Integer>> assignment = new HashMap<>();
+        for (int partition = 0; partition < numPartitions; partition++) {
+            assignment.put(partition, asList(0, 1));
+        }
+        return assignment;
+    }
+
+    /**
+     * 0. ZK notifies of a change in the partitions of a topic, with the new assignment
+     * 1. operator updates k8s and topic store, without getting the topic metadata from Kafka
+     */
+    @Test
+    public void testOnTopicPartitionsChanged(TestContext context) {
+        Topic kubeTopic = new Topic.Builder(topicName.toString(), 10, (short) 2, map("cleanup.policy", "bar")).build();
+        Topic kafkaTopic = new Topic.Builder(topicName.toString(), 12, (short) 2, map("cleanup.policy", "bar")).build();
+        ConfigMap cm = TopicSerialization.toConfigMap(kubeTopic, cmPredicate);
+
+        mockKafka.setCreateTopicResponse(topicName.toString(), null)
+                .createTopic(kafkaTopic, ar -> { });
+        mockKafka.setTopicMetadataResponse(t -> {
+            context.fail("The topic metadata should not be needed");
+            return Future.failedFuture("The topic metadata should not be needed");
+        });
+        mockTopicStore.setCreateTopicResponse(topicName, null)
+                .create(kubeTopic, ar -> { });
+        mockTopicStore.setUpdateTopicResponse(topicName, null);
+        mockK8s.setCreateResponse(mapName, null)
+                .createConfigMap(cm, ar -> { });
+        mockK8s.setModifyResponse(mapName, null);
+
+        Async async = context.async(3);
+        topicOperator.onTopicPartitionsChanged(topicName, assignment(12), ar -> {
+            assertSucceeded(context, ar);
+            mockTopicStore.read(topicName, ar2 -> {
+                assertSucceeded(context, ar2);
+                context.assertEquals(12, ar2.result().getNumPartitions());
+                context.assertEquals("bar", ar2.result().getConfig().get("cleanup.policy"));
+                async.countDown();
+            });
+            mockK8s.getFromName(mapName, ar2 -> {
+                assertSucceeded(context, ar2);
+                context.assertEquals(12, TopicSerialization.fromConfigMap(ar2.result()).getNumPartitions());
+                async.countDown();
+            });
+            async.countDown();
+        });
+    }
+
+    /**
+     * 0. ZK notifies of a change in the assignment of a topic which doesn't change its number of partitions
+     * 1. operator does nothing
+     */
+    @Test
+    public void testOnTopicPartitionsChanged_reassignment(TestContext context) {
+        Topic topic = new Topic.Builder(topicName.toString(), 10, (short) 2, map("cleanup.policy", "bar")).build();
+        mockKafka.setTopicMetadataResponse(t -> {
+            context.fail("The topic metadata should not be needed");
+            return Future.failedFuture("The topic metadata should not be needed");
+        });
+        mockTopicStore.setCreateTopicResponse(topicName, null)
+                .create(topic, ar -> { });
+
+        Async async = context.async();
+        topicOperator.onTopicPartitionsChanged(topicName, assignment(10), ar -> {
+            assertSucceeded(context, ar);
+            mockK8s.assertNotExists(context, mapName);
+            async.complete();
+        });
+    }
+
     // TODO error getting full topic metadata, and then reconciliation
     // TODO error creating ConfigMap (exists), and then reconciliation
 
@@ -842,6 +920,238 @@ public class TopicOperatorTest {
         }));
     }
 
+    @Test
+    public void testReconcileAllTopics_batchesMetadata(TestContext context) {
+        Map<String, String> configMap = new HashMap<>(MANDATORY_CONFIG);
+        configMap.put(Config.TOPIC_METADATA_BATCH_SIZE.key, "2");
+        List<Set<TopicName>> batches = new ArrayList<>();
+        MockKafka batchingKafka = new MockKafka() {
+            @Override
+            public void topicMetadata(Set<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, TopicMetadata>>> handler) {
+                batches.add(topicNames);
+                super.topicMetadata(topicNames, handler);
+            }
+
+            @Override
+            public void topicMetadata(TopicName topicName, Handler<AsyncResult<TopicMetadata>> handler) {
+                context.fail("Metadata should be fetched in batches");
+            }
+        };
+        Set<String> kafkaTopics = new HashSet<>(asList("topic-a", "topic-b", "topic-c"));
+        batchingKafka.setTopicsList(kafkaTopics);
+        for (String name : kafkaTopics) {
+            Topic kafkaTopic = new Topic.Builder(name, 1, (short) 1, Collections.emptyMap()).build();
+            batchingKafka.setTopicMetadataResponse(new TopicName(name), Utils.getTopicMetadata(kafkaTopic), null);
+            mockK8s.setCreateResponse(new TopicName(name).asMapName(), null);
+            mockTopicStore.setCreateTopicResponse(new TopicName(name), null);
+        }
+        topicOperator = new TopicOperator(vertx, batchingKafka, mockK8s, mockTopicStore, cmPredicate, "default-namespace", new Config(configMap));
+
+        Async async = context.async();
+        topicOperator.reconcileAllTopics("periodic").setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(2, batches.size());
+            Set<TopicName> batched = new HashSet<>();
+            for (Set<TopicName> batch : batches) {
+                context.assertTrue(batch.size() <= 2);
+                batched.addAll(batch);
+            }
+            context.assertEquals(3, batched.size());
+            for (String name : kafkaTopics) {
+                mockK8s.assertExists(context, new TopicName(name).asMapName());
+                mockTopicStore.assertExists(context, new TopicName(name));
+            }
+            async.complete();
+        });
+    }
+
+    private MockKafka kafkaWithTopics(Set<String> kafkaTopics, MockKafka kafka) {
+        kafka.setTopicsList(kafkaTopics);
+        for (String name : kafkaTopics) {
+            Topic kafkaTopic = new Topic.Builder(name, 1, (short) 1, Collections.emptyMap()).build();
+            kafka.setTopicMetadataResponse(new TopicName(name), Utils.getTopicMetadata(kafkaTopic), null);
+            mockK8s.setCreateResponse(new TopicName(name).asMapName(), null);
+            mockTopicStore.setCreateTopicResponse(new TopicName(name), null);
+        }
+        return kafka;
+    }
+
+    @Test
+    public void testReconcileAllTopics_boundedConcurrency(TestContext context) {
+        Map<String, String> configMap = new HashMap<>(MANDATORY_CONFIG);
+        configMap.put(Config.TOPIC_METADATA_BATCH_SIZE.key, "2");
+        configMap.put(Config.FULL_RECONCILIATION_MAX_CONCURRENCY.key, "1");
+        AtomicInteger outstanding = new AtomicInteger();
+        List<Set<TopicName>> batches = new ArrayList<>();
+        MockKafka slowKafka = new MockKafka() {
+            @Override
+            public void topicMetadata(Set<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, TopicMetadata>>> handler) {
+                batches.add(topicNames);
+                context.assertEquals(1, outstanding.incrementAndGet(), "Only one topic should be reconciled at once");
+                vertx.setTimer(10, timerId -> super.topicMetadata(topicNames, ar -> {
+                    outstanding.decrementAndGet();
+                    handler.handle(ar);
+                }));
+            }
+        };
+        Set<String> kafkaTopics = new HashSet<>(asList("topic-a", "topic-b", "topic-c"));
+        Metrics metrics = new Metrics();
+        topicOperator = new TopicOperator(vertx, kafkaWithTopics(kafkaTopics, slowKafka), mockK8s, mockTopicStore,
+                cmPredicate, "default-namespace", new Config(configMap), metrics);
+
+        Async async = context.async();
+        topicOperator.reconcileAllTopics("periodic").setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            // The batches are no bigger than the concurrency limit
+            context.assertEquals(3, batches.size());
+            for (String name : kafkaTopics) {
+                mockK8s.assertExists(context, new TopicName(name).asMapName());
+            }
+            String scrape = metrics.scrape();
+            context.assertTrue(scrape.contains("strimzi_topic_operator_full_reconciliation_topics 3\n"), scrape);
+            context.assertTrue(scrape.contains("strimzi_topic_operator_full_reconciliation_topics_done 3\n"), scrape);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testReconcileAllTopics_paced(TestContext context) {
+        Map<String, String> configMap = new HashMap<>(MANDATORY_CONFIG);
+        configMap.put(Config.TOPIC_METADATA_BATCH_SIZE.key, "1");
+        configMap.put(Config.FULL_RECONCILIATION_INTERVAL_MS.key, "600");
+        configMap.put(Config.FULL_RECONCILIATION_PACED.key, "true");
+        List<Long> batchTimes = new ArrayList<>();
+        MockKafka timingKafka = new MockKafka() {
+            @Override
+            public void topicMetadata(Set<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, TopicMetadata>>> handler) {
+                batchTimes.add(System.currentTimeMillis());
+                super.topicMetadata(topicNames, handler);
+            }
+        };
+        Set<String> kafkaTopics = new HashSet<>(asList("topic-a", "topic-b", "topic-c"));
+        topicOperator = new TopicOperator(vertx, kafkaWithTopics(kafkaTopics, timingKafka), mockK8s, mockTopicStore,
+                cmPredicate, "default-namespace", new Config(configMap));
+
+        Async async = context.async();
+        long start = System.currentTimeMillis();
+        topicOperator.reconcileAllTopics("periodic").setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(3, batchTimes.size());
+            // The 3 topics are spread over the 600ms interval, starting every 200ms
+            context.assertTrue(batchTimes.get(1) - start >= 150, "Second topic started too soon");
+            context.assertTrue(batchTimes.get(2) - start >= 350, "Third topic started too soon");
+            for (String name : kafkaTopics) {
+                mockK8s.assertExists(context, new TopicName(name).asMapName());
+            }
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testReconcileAllTopics_skipsUnchangedTopics(TestContext context) {
+        Set<TopicName> reconciled = new HashSet<>();
+        MockKafka recordingKafka = new MockKafka() {
+            @Override
+            public void topicMetadata(Set<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, TopicMetadata>>> handler) {
+                reconciled.addAll(topicNames);
+                super.topicMetadata(topicNames, handler);
+            }
+        };
+        Set<String> kafkaTopics = new HashSet<>(asList("topic-a", "topic-b", "topic-c"));
+        Map<TopicName, TopicFingerprints.Fingerprint> fingerprints = new HashMap<>();
+        for (String name : kafkaTopics) {
+            fingerprints.put(new TopicName(name), new TopicFingerprints.Fingerprint("1", 1, 1, 0));
+        }
+        TopicFingerprints mockFingerprints = new TopicFingerprints(null, null) {
+            @Override
+            void fingerprint(TopicName topicName, ConfigMap cm, Handler<AsyncResult<Fingerprint>> handler) {
+                handler.handle(Future.succeededFuture(fingerprints.get(topicName)));
+            }
+        };
+        topicOperator = new TopicOperator(vertx, kafkaWithTopics(kafkaTopics, recordingKafka), mockK8s, mockTopicStore,
+                cmPredicate, "default-namespace", config, new Metrics(), mockFingerprints);
+
+        Async async = context.async();
+        // The first reconciliation reconciles all the topics
+        topicOperator.reconcileAllTopics("periodic").setHandler(ar1 -> {
+            context.assertTrue(ar1.succeeded());
+            context.assertEquals(3, reconciled.size());
+            reconciled.clear();
+            // Nothing has changed, so the second reconciles none of them
+            topicOperator.reconcileAllTopics("periodic").setHandler(ar2 -> {
+                context.assertTrue(ar2.succeeded());
+                context.assertEquals(emptySet(), reconciled);
+                fingerprints.put(new TopicName("topic-b"), new TopicFingerprints.Fingerprint("2", 1, 1, 0));
+                // Only topic-b has changed
+                topicOperator.reconcileAllTopics("periodic").setHandler(ar3 -> {
+                    context.assertTrue(ar3.succeeded());
+                    context.assertEquals(singleton(new TopicName("topic-b")), reconciled);
+                    async.complete();
+                });
+            });
+        });
+    }
+
+    @Test
+    public void testReconcileAllTopics_fingerprintsUseTopicsConfigMap(TestContext context) {
+        Set<String> kafkaTopics = singleton("topic-a");
+        // The ConfigMap's name is not the topic's name
+        ConfigMap cm = new ConfigMapBuilder().withNewMetadata().withName("my-map").withResourceVersion("7")
+                .withLabels(cmPredicate.labels()).endMetadata()
+                .withData(map(TopicSerialization.CM_KEY_NAME, "topic-a",
+                        TopicSerialization.CM_KEY_PARTITIONS, "1",
+                        TopicSerialization.CM_KEY_REPLICAS, "1")).build();
+        mockK8s.setListMapsResult(() -> Future.succeededFuture(singletonList(cm)));
+        Map<TopicName, ConfigMap> fingerprinted = new HashMap<>();
+        TopicFingerprints mockFingerprints = new TopicFingerprints(null, null) {
+            @Override
+            void fingerprint(TopicName topicName, ConfigMap cm, Handler<AsyncResult<Fingerprint>> handler) {
+                fingerprinted.put(topicName, cm);
+                handler.handle(Future.succeededFuture(new Fingerprint(cm != null ? cm.getMetadata().getResourceVersion() : null, 1, 1, 0)));
+            }
+        };
+        topicOperator = new TopicOperator(vertx, kafkaWithTopics(kafkaTopics, mockKafka), mockK8s, mockTopicStore,
+                cmPredicate, "default-namespace", config, new Metrics(), mockFingerprints);
+
+        Async async = context.async();
+        topicOperator.reconcileAllTopics("periodic").setHandler(ar -> {
+            context.assertEquals(singletonMap(new TopicName("topic-a"), cm), fingerprinted);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testReconcileAllTopics_boundedFingerprintConcurrency(TestContext context) {
+        Map<String, String> configMap = new HashMap<>(MANDATORY_CONFIG);
+        configMap.put(Config.FULL_RECONCILIATION_MAX_CONCURRENCY.key, "2");
+        Set<String> kafkaTopics = new HashSet<>(asList("topic-a", "topic-b", "topic-c", "topic-d", "topic-e"));
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Set<TopicName> fingerprinted = new HashSet<>();
+        TopicFingerprints slowFingerprints = new TopicFingerprints(null, null) {
+            @Override
+            void fingerprint(TopicName topicName, ConfigMap cm, Handler<AsyncResult<Fingerprint>> handler) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                vertx.setTimer(10, timerId -> {
+                    inFlight.decrementAndGet();
+                    fingerprinted.add(topicName);
+                    handler.handle(Future.succeededFuture(new Fingerprint(null, 1, 1, 0)));
+                });
+            }
+        };
+        topicOperator = new TopicOperator(vertx, kafkaWithTopics(kafkaTopics, mockKafka), mockK8s, mockTopicStore,
+                cmPredicate, "default-namespace", new Config(configMap), new Metrics(), slowFingerprints);
+
+        Async async = context.async();
+        topicOperator.reconcileAllTopics("periodic").setHandler(ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertEquals(5, fingerprinted.size());
+            // No more fingerprints are computed at once than topics are reconciled at once
+            context.assertEquals(2, maxInFlight.get());
+            async.complete();
+        });
+    }
+
     // TODO tests for nasty races (e.g. create on both ends, update on one end and delete on the other)
     // I think in these cases we should seek to detect the concurrent modification
     // and perform a full reconciliation, possibly after a backoff time
@@ -24,6 +24,7 @@ import java.util.Map;
 import static java.util.Collections.singletonMap;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class TopicSerializationTest {
@@ -78,6 +79,39 @@ public class TopicSerializationTest {
     }
 
 
+    @Test
+    public void testCompactSerializationRoundTrip() {
+        Topic wroteTopic = new Topic.Builder()
+                .withTopicName("tom")
+                .withMapName("bob")
+                .withNumReplicas((short) 3)
+                .withNumPartitions(12)
+                .withConfigEntry("foo", "bar")
+                .withConfigEntry("cleanup.policy", "compact")
+                .build();
+        byte[] bytes = TopicSerialization.toBytes(wroteTopic, TopicSerialization.Encoding.COMPACT);
+        assertEquals(1, bytes[0]);
+        assertTrue(bytes.length < TopicSerialization.toJson(wroteTopic).length);
+        assertEquals(wroteTopic, TopicSerialization.fromBytes(bytes));
+    }
+
+    @Test
+    public void testFromBytesReadsJson() {
+        Topic wroteTopic = new Topic.Builder()
+                .withTopicName("tom")
+                .withMapName("bob")
+                .withNumReplicas((short) 1)
+                .withNumPartitions(2)
+                .withConfigEntry("foo", "bar")
+                .build();
+        assertEquals(wroteTopic, TopicSerialization.fromBytes(TopicSerialization.toBytes(wroteTopic, TopicSerialization.Encoding.JSON)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBytesUnsupportedVersion() {
+        TopicSerialization.fromBytes(new byte[]{2, 0, 0});
+    }
+
     @Test
     public void testToNewTopic() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
         Topic topic = new Topic.Builder()
@@ -299,5 +333,26 @@ public class TopicSerializationTest {
         }
     }
 
+    @Test
+    public void testErrorInConfigNotObject() {
+        Map<String, String> data = new HashMap<>();
+        data.put(TopicSerialization.CM_KEY_REPLICAS, "1");
+        data.put(TopicSerialization.CM_KEY_PARTITIONS, "1");
+        data.put(TopicSerialization.CM_KEY_CONFIG, "[\"cleanup.policy\"]");
+
+        ConfigMap cm = new ConfigMapBuilder().editOrNewMetadata().withName("my-topic")
+                .endMetadata().withData(data).build();
+
+        try {
+            TopicSerialization.fromConfigMap(cm);
+            fail("Should throw");
+        } catch (InvalidConfigMapException e) {
+            assertEquals("ConfigMap's 'data' section has invalid key 'config': " +
+                    "The topic config must be a JSON object\n" +
+                    " at [Source: UNKNOWN; line: 1, column: 2]",
+                    e.getMessage());
+        }
+    }
+
 }
 
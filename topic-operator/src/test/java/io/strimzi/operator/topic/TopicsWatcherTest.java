@@ -5,27 +5,56 @@
 package io.strimzi.operator.topic;
 
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(VertxUnitRunner.class)
 public class TopicsWatcherTest {
 
+    private Vertx vertx;
     private MockTopicOperator operator;
     private MockZk mockZk;
+    private TopicConfigsWatcher topicConfigsWatcher;
+    private TopicWatcher topicWatcher;
+
     @Before
     public void setup() {
+        vertx = Vertx.vertx();
         operator = new MockTopicOperator();
         mockZk = new MockZk();
     }
 
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private TopicsWatcher startWatcher() {
+        topicConfigsWatcher = new TopicConfigsWatcher(operator);
+        // Make the scan interval long enough that only the test triggers a scan
+        topicWatcher = new TopicWatcher(operator, vertx, 10, 3_600_000L);
+        TopicsWatcher topicsWatcher = new TopicsWatcher(operator, topicConfigsWatcher, topicWatcher);
+        topicsWatcher.start(mockZk);
+        return topicsWatcher;
+    }
+
     @Test
     public void testTopicAdd() {
         addTopic();
@@ -36,15 +65,14 @@ public class TopicsWatcherTest {
         operator.topicCreatedResult = Future.succeededFuture();
         mockZk = new MockZk();
         mockZk.childrenResult = Future.succeededFuture(asList("foo", "bar"));
+        mockZk.childrenResults.put("/config/changes", Future.succeededFuture(asList("config_change_0000000007")));
         mockZk.dataResult = Future.succeededFuture(new byte[0]);
-        TopicConfigsWatcher topicConfigsWatcher = new TopicConfigsWatcher(operator);
-        TopicWatcher topicWatcher = new TopicWatcher(operator);
-        TopicsWatcher topicsWatcher = new TopicsWatcher(operator, topicConfigsWatcher, topicWatcher);
-        topicsWatcher.start(mockZk);
-        mockZk.triggerChildren(Future.succeededFuture(asList("foo", "bar", "baz")));
+        startWatcher();
+        assertTrue(topicConfigsWatcher.started());
+        assertTrue(topicWatcher.watching("foo"));
+        mockZk.triggerChildren("/brokers/topics", Future.succeededFuture(asList("foo", "bar", "baz")));
         assertEquals(asList(new MockTopicOperator.MockOperatorEvent(
                 MockTopicOperator.MockOperatorEvent.Type.CREATE, new TopicName("baz"))), operator.getMockOperatorEvents());
-        assertTrue(topicConfigsWatcher.watching("baz"));
         assertTrue(topicWatcher.watching("baz"));
     }
 
@@ -52,13 +80,85 @@ public class TopicsWatcherTest {
     public void testTopicConfigChange() {
         // First add a topic
         addTopic();
-        // Now change the config
+        // Now change the config, as notified by Kafka
         operator.clearEvents();
-        mockZk.triggerData(Future.succeededFuture(new byte[0]));
+        mockZk.dataResults.put("/config/changes/config_change_0000000008",
+                Future.succeededFuture("{\"version\":2,\"entity_path\":\"topics/baz\"}".getBytes(StandardCharsets.UTF_8)));
+        mockZk.dataResults.put("/config/changes/config_change_0000000009",
+                Future.succeededFuture("{\"version\":2,\"entity_path\":\"brokers/0\"}".getBytes(StandardCharsets.UTF_8)));
+        mockZk.triggerChildren("/config/changes", Future.succeededFuture(asList(
+                "config_change_0000000007", "config_change_0000000008", "config_change_0000000009")));
         assertEquals(asList(
-                new MockTopicOperator.MockOperatorEvent(MockTopicOperator.MockOperatorEvent.Type.MODIFY_PARTITIONS, new TopicName("baz")),
                 new MockTopicOperator.MockOperatorEvent(MockTopicOperator.MockOperatorEvent.Type.MODIFY_CONFIG, new TopicName("baz"))),
                 operator.getMockOperatorEvents());
+
+        // Notifications which have already been processed are not processed again
+        operator.clearEvents();
+        mockZk.triggerChildren("/config/changes", Future.succeededFuture(asList("config_change_0000000009")));
+        assertEquals(emptyList(), operator.getMockOperatorEvents());
+    }
+
+    @Test
+    public void testTopicPartitionsChange() {
+        // First add a topic
+        addTopic();
+        operator.clearEvents();
+        // The first scan just records the state of each topic
+        topicWatcher.scan();
+        assertEquals(emptyList(), operator.getMockOperatorEvents());
+
+        // Now change the partitions of a topic
+        mockZk.dataResults.put("/brokers/topics/baz",
+                Future.succeededFuture("{\"version\":1,\"partitions\":{\"0\":[0],\"1\":[0]}}".getBytes(StandardCharsets.UTF_8)));
+        topicWatcher.scan();
+        assertEquals(asList(
+                new MockTopicOperator.MockOperatorEvent(MockTopicOperator.MockOperatorEvent.Type.MODIFY_PARTITIONS, new TopicName("baz"))),
+                operator.getMockOperatorEvents());
+    }
+
+    @Test
+    public void testPartitionAssignment() throws IOException {
+        Map<Integer, List<Integer>> assignment = TopicWatcher.partitionAssignment(
+                "{\"version\":1,\"partitions\":{\"1\":[2,0],\"0\":[0,1]}}".getBytes(StandardCharsets.UTF_8));
+        Map<Integer, List<Integer>> expected = new HashMap<>();
+        expected.put(0, asList(0, 1));
+        expected.put(1, asList(2, 0));
+        assertEquals(expected, assignment);
+    }
+
+    @Test(expected = IOException.class)
+    public void testPartitionAssignmentWithoutPartitions() throws IOException {
+        TopicWatcher.partitionAssignment("{\"version\":1}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPartitionsScanIsRateLimited() {
+        mockZk.childrenResult = Future.succeededFuture(asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l"));
+        mockZk.childrenResults.put("/config/changes", Future.succeededFuture(emptyList()));
+        mockZk.dataResult = Future.succeededFuture(new byte[0]);
+        startWatcher();
+        topicWatcher.scan();
+        topicWatcher.scan();
+        operator.clearEvents();
+
+        // Changing every topic needs two scans of at most 10 topics to be noticed
+        mockZk.dataResult = Future.succeededFuture(new byte[]{1});
+        topicWatcher.scan();
+        assertEquals(10, operator.getMockOperatorEvents().size());
+        topicWatcher.scan();
+        assertEquals(12, operator.getMockOperatorEvents().size());
+    }
+
+    @Test
+    public void testTopicConfigsWatcherParsesNotifications() {
+        TopicConfigsWatcher watcher = new TopicConfigsWatcher(operator);
+        assertEquals("foo", watcher.topicName("n",
+                "{\"version\":2,\"entity_path\":\"topics/foo\"}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("foo", watcher.topicName("n",
+                "{\"version\":1,\"entity_type\":\"topics\",\"entity_name\":\"foo\"}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(watcher.topicName("n",
+                "{\"version\":1,\"entity_type\":\"clients\",\"entity_name\":\"foo\"}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(watcher.topicName("n", "not json".getBytes(StandardCharsets.UTF_8)));
     }
 
     @Test
@@ -67,13 +167,10 @@ public class TopicsWatcherTest {
         operator.topicDeletedResult = Future.succeededFuture();
         mockZk = new MockZk();
         mockZk.childrenResult = Future.succeededFuture(asList("foo", "bar"));
-        TopicConfigsWatcher topicConfigsWatcher = new TopicConfigsWatcher(operator);
-        TopicWatcher topicWatcher = new TopicWatcher(operator);
-        TopicsWatcher topicsWatcher = new TopicsWatcher(operator, topicConfigsWatcher, topicWatcher);
-        topicsWatcher.start(mockZk);
-        mockZk.triggerChildren(Future.succeededFuture(asList("foo")));
+        startWatcher();
+        mockZk.triggerChildren("/brokers/topics", Future.succeededFuture(asList("foo")));
         assertEquals(asList(new MockTopicOperator.MockOperatorEvent(
                 MockTopicOperator.MockOperatorEvent.Type.DELETE, new TopicName("bar"))), operator.getMockOperatorEvents());
-        assertFalse(topicConfigsWatcher.watching("baz"));
+        assertFalse(topicWatcher.watching("bar"));
     }
 }